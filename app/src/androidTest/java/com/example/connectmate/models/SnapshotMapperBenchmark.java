@@ -0,0 +1,445 @@
+package com.example.connectmate.models;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.connectmate.utils.CategoryMapper;
+import com.example.connectmate.utils.GeoHash;
+import com.example.connectmate.utils.SnapshotDecoder;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * SnapshotMapperBenchmark - Times SnapshotMappers against getValue(Class) on fixture snapshots
+ * Run on a device with
+ *   ./gradlew connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.connectmate.models.SnapshotMapperBenchmark
+ * and read the SnapshotMapperBench log. There is one test per mapper, each on FIXTURE_ITEMS
+ * children with every stored field set. The fixtures are written to a separate FirebaseApp kept
+ * offline, so the snapshot comes back from its local cache: no network, and nothing is ever
+ * written to the real database. Both decoders run after warm-up rounds, so the JIT has compiled
+ * both paths.
+ *
+ * Every child is also decoded both ways and compared; the test fails if a mapper reads any
+ * fixture item differently from getValue (e.g. a renamed key such as ChatMessage's "read"
+ * against NotificationItem's "isRead").
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapshotMapperBenchmark {
+    private static final String TAG = "SnapshotMapperBench";
+
+    private static final String APP_NAME = "snapshot-mapper-benchmark";
+    private static final int FIXTURE_ITEMS = 5000;
+    private static final long BASE_TIME = 1735689600000L;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    private static final String[] CATEGORIES = {
+        CategoryMapper.CATEGORY_SPORTS, CategoryMapper.CATEGORY_STUDY, CategoryMapper.CATEGORY_FOOD,
+        CategoryMapper.CATEGORY_SPORTS + "," + CategoryMapper.CATEGORY_OUTDOOR, CategoryMapper.CATEGORY_GAME
+    };
+
+    // Keeps the decoded objects observable so the loops can't be optimized away
+    private static volatile int sink;
+
+    private FirebaseApp app;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp.initializeApp(context);
+        app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), APP_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        // Drops the offline writes with the app; they were never sent
+        if (app != null) {
+            app.delete();
+        }
+    }
+
+    @Test
+    public void activities() throws InterruptedException {
+        run("activities", activityFixture(FIXTURE_ITEMS), Activity.class, SnapshotMappers::toActivity);
+    }
+
+    @Test
+    public void chatRooms() throws InterruptedException {
+        run("chatRooms", chatRoomFixture(FIXTURE_ITEMS), ChatRoom.class, SnapshotMappers::toChatRoom);
+    }
+
+    @Test
+    public void chatMessages() throws InterruptedException {
+        run("chatMessages", chatMessageFixture(FIXTURE_ITEMS), ChatMessage.class, SnapshotMappers::toChatMessage);
+    }
+
+    @Test
+    public void notifications() throws InterruptedException {
+        run("notifications", notificationFixture(FIXTURE_ITEMS), NotificationItem.class,
+            SnapshotMappers::toNotificationItem);
+    }
+
+    @Test
+    public void pendingReviews() throws InterruptedException {
+        run("pendingReviews", pendingReviewFixture(FIXTURE_ITEMS), PendingReviewItem.class,
+            SnapshotMappers::toPendingReviewItem);
+    }
+
+    @Test
+    public void userReviews() throws InterruptedException {
+        run("userReviews", userReviewFixture(FIXTURE_ITEMS), UserReview.class, SnapshotMappers::toUserReview);
+    }
+
+    private <T> void run(String name, Map<String, Object> fixture, Class<T> type,
+                         SnapshotDecoder.ChildMapper<T> mapper) throws InterruptedException {
+        DataSnapshot snapshot = readFixture(name, fixture);
+        assertEquals(fixture.size(), snapshot.getChildrenCount());
+
+        Result result = measure(name, snapshot, type, mapper, ROUNDS);
+        Log.i(TAG, result.toString());
+        assertEquals(0, result.getMismatches());
+    }
+
+    /**
+     * Write value under a path of the offline app and read it back from the local cache
+     */
+    private DataSnapshot readFixture(String path, Map<String, Object> value) throws InterruptedException {
+        FirebaseDatabase database = FirebaseDatabase.getInstance(app);
+        database.goOffline();
+        DatabaseReference ref = database.getReference("benchmark").child(path);
+        ref.setValue(value);
+
+        CountDownLatch loaded = new CountDownLatch(1);
+        DataSnapshot[] holder = new DataSnapshot[1];
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                holder[0] = snapshot;
+                loaded.countDown();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to read fixture", error.toException());
+                loaded.countDown();
+            }
+        });
+        assertTrue("fixture not read back", loaded.await(30, TimeUnit.SECONDS));
+        assertNotNull(holder[0]);
+        return holder[0];
+    }
+
+    /**
+     * Activities with every stored field set, spread around Seoul
+     */
+    private static Map<String, Object> activityFixture(int count) {
+        Map<String, Object> activities = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "activity%05d", i);
+            double latitude = 37.45 + (i % 100) * 0.002;
+            double longitude = 126.90 + (i / 100) * 0.01;
+
+            Map<String, Object> participants = new HashMap<>();
+            for (int p = 0; p <= i % 5; p++) {
+                participants.put("user" + ((i + p) % 300), true);
+            }
+
+            Map<String, Object> activity = new HashMap<>();
+            activity.put("id", id);
+            activity.put("title", "주말 모임 " + i);
+            activity.put("description", "같이 운동하고 저녁 먹어요. 초보 환영 #" + i);
+            activity.put("category", CATEGORIES[i % CATEGORIES.length]);
+            activity.put("date", String.format(Locale.US, "2025-%02d-%02d", 1 + i % 12, 1 + i % 28));
+            activity.put("time", String.format(Locale.US, "%02d:%02d", 9 + i % 12, (i % 4) * 15));
+            activity.put("location", "서울 " + (i % 25) + "구");
+            activity.put("currentParticipants", participants.size());
+            activity.put("maxParticipants", 10);
+            activity.put("visibility", i % 7 == 0 ? "private" : "public");
+            activity.put("hashtags", "#모임 #" + (i % 10));
+            activity.put("creatorId", "user" + (i % 300));
+            activity.put("creatorName", "사용자" + (i % 300));
+            activity.put("createdTimestamp", BASE_TIME + i * 60000L);
+            activity.put("updatedAt", BASE_TIME + i * 90000L);
+            activity.put("latitude", latitude);
+            activity.put("longitude", longitude);
+            activity.put("geohash", GeoHash.encode(latitude, longitude));
+            activity.put("participants", participants);
+            activity.put("creatorProfileUrl", "https://example.com/profile/" + (i % 300) + ".jpg");
+            activities.put(id, activity);
+        }
+        return activities;
+    }
+
+    /**
+     * Group rooms with both the members map and the legacy memberIds/memberNames lists
+     */
+    private static Map<String, Object> chatRoomFixture(int count) {
+        Map<String, Object> rooms = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "room%05d", i);
+
+            Map<String, Object> members = new HashMap<>();
+            List<Object> memberIds = new ArrayList<>();
+            List<Object> memberNames = new ArrayList<>();
+            for (int m = 0; m <= i % 6; m++) {
+                String userId = "user" + ((i + m) % 300);
+                Map<String, Object> member = new HashMap<>();
+                member.put("name", "사용자" + ((i + m) % 300));
+                member.put("unreadCount", (i + m) % 4);
+                member.put("joinTimestamp", BASE_TIME + i * 60000L + m * 1000L);
+                members.put(userId, member);
+                memberIds.add(userId);
+                memberNames.add("사용자" + ((i + m) % 300));
+            }
+
+            Map<String, Object> room = new HashMap<>();
+            room.put("id", id);
+            room.put("name", "주말 모임 " + i);
+            room.put("activityId", String.format(Locale.US, "activity%05d", i));
+            room.put("category", CATEGORIES[i % CATEGORIES.length]);
+            room.put("lastMessage", "내일 몇 시에 만나요? #" + i);
+            room.put("lastMessageSenderId", "user" + (i % 300));
+            room.put("lastMessageSenderName", "사용자" + (i % 300));
+            room.put("lastMessageSenderProfileUrl", "https://example.com/profile/" + (i % 300) + ".jpg");
+            room.put("lastMessageTime", BASE_TIME + i * 90000L);
+            room.put("memberIds", memberIds);
+            room.put("memberNames", memberNames);
+            room.put("members", members);
+            room.put("unreadCount", i % 5);
+            room.put("profileImageUrl", "https://example.com/room/" + i + ".jpg");
+            room.put("createdTimestamp", BASE_TIME + i * 60000L);
+            room.put("hostId", "user" + (i % 300));
+            room.put("hostName", "사용자" + (i % 300));
+            room.put("mediaMigrated", i % 2 == 0);
+            rooms.put(id, room);
+        }
+        return rooms;
+    }
+
+    /**
+     * Text, image and document messages; read status stored under "read" as ChatMessage writes it
+     */
+    private static Map<String, Object> chatMessageFixture(int count) {
+        Map<String, Object> messages = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "message%05d", i);
+            int type = i % 3 == 0 ? ChatMessage.TYPE_IMAGE
+                : i % 7 == 0 ? ChatMessage.TYPE_DOCUMENT : ChatMessage.TYPE_TEXT;
+
+            Map<String, Object> message = new HashMap<>();
+            message.put("id", id);
+            message.put("chatRoomId", "room" + (i % 50));
+            message.put("senderId", "user" + (i % 300));
+            message.put("senderName", "사용자" + (i % 300));
+            message.put("senderProfileUrl", "https://example.com/profile/" + (i % 300) + ".jpg");
+            message.put("message", "오늘 모임 장소는 한강 공원입니다 #" + i);
+            message.put("messageType", type);
+            message.put("timestamp", BASE_TIME + i * 1000L);
+            message.put("read", i % 2 == 0);
+            if (type == ChatMessage.TYPE_IMAGE) {
+                message.put("imageUrl", "https://example.com/chatMedia/" + i + ".jpg");
+                message.put("mediaHash", String.format(Locale.US, "%064x", i));
+                message.put("mediaSize", 120000L + i);
+                message.put("imageWidth", 1080);
+                message.put("imageHeight", 720 + i % 600);
+                message.put("blurHash", "LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+            } else if (type == ChatMessage.TYPE_DOCUMENT) {
+                message.put("fileUrl", "https://example.com/chatMedia/" + i + ".pdf");
+                message.put("fileName", "자료" + i + ".pdf");
+                message.put("fileType", "application/pdf");
+                message.put("mediaHash", String.format(Locale.US, "%064x", i));
+                message.put("mediaSize", 300000L + i);
+            }
+            messages.put(id, message);
+        }
+        return messages;
+    }
+
+    /**
+     * Notifications of every type; read status stored under "isRead" (NotificationItem's @PropertyName)
+     */
+    private static Map<String, Object> notificationFixture(int count) {
+        String[] types = {"ACTIVITY", "FRIEND_REQUEST", "CHAT_JOIN"};
+        Map<String, Object> notifications = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "notification%05d", i);
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("id", id);
+            notification.put("title", "새 알림 " + i);
+            notification.put("message", "사용자" + (i % 300) + "님이 모임에 참여했습니다");
+            notification.put("timestamp", BASE_TIME + i * 60000L);
+            notification.put("isRead", i % 3 == 0);
+            notification.put("activityId", String.format(Locale.US, "activity%05d", i));
+            notification.put("type", types[i % types.length]);
+            notification.put("senderId", "user" + (i % 300));
+            notification.put("senderName", "사용자" + (i % 300));
+            notification.put("senderProfileUrl", "https://example.com/profile/" + (i % 300) + ".jpg");
+            notifications.put(id, notification);
+        }
+        return notifications;
+    }
+
+    private static Map<String, Object> pendingReviewFixture(int count) {
+        Map<String, Object> reviews = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "pending%05d", i);
+            Map<String, Object> review = new HashMap<>();
+            review.put("id", id);
+            review.put("targetUserId", "user" + (i % 300));
+            review.put("activityId", String.format(Locale.US, "activity%05d", i));
+            review.put("activityTitle", "주말 모임 " + i);
+            review.put("timestamp", BASE_TIME + i * 60000L);
+            review.put("status", i % 4 == 0 ? "completed" : "pending");
+            review.put("targetDisplayName", "사용자" + (i % 300));
+            review.put("targetProfileImageUrl", "https://example.com/profile/" + (i % 300) + ".jpg");
+            reviews.put(id, review);
+        }
+        return reviews;
+    }
+
+    private static Map<String, Object> userReviewFixture(int count) {
+        Map<String, Object> reviews = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "review%05d", i);
+            Map<String, Object> review = new HashMap<>();
+            review.put("reviewId", id);
+            review.put("reviewerId", "user" + (i % 300));
+            review.put("reviewerName", "사용자" + (i % 300));
+            review.put("activityId", String.format(Locale.US, "activity%05d", i));
+            review.put("activityTitle", "주말 모임 " + i);
+            review.put("rating", 1 + i % 5);
+            review.put("comment", "시간 약속을 잘 지켜요. 다음에도 같이 해요 #" + i);
+            review.put("timestamp", BASE_TIME + i * 60000L);
+            reviews.put(id, review);
+        }
+        return reviews;
+    }
+
+    /**
+     * Decode every child of parent rounds times with getValue(type) and with mapper
+     */
+    private static <T> Result measure(String name, DataSnapshot parent, Class<T> type,
+                                      SnapshotDecoder.ChildMapper<T> mapper, int rounds) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decodeReflective(parent, type);
+            decodeMapped(parent, mapper);
+        }
+
+        long reflectiveNanos = 0;
+        long mappedNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            // Alternate which goes first so neither always runs on a warmer cache
+            if (i % 2 == 0) {
+                reflectiveNanos += decodeReflective(parent, type);
+                mappedNanos += decodeMapped(parent, mapper);
+            } else {
+                mappedNanos += decodeMapped(parent, mapper);
+                reflectiveNanos += decodeReflective(parent, type);
+            }
+        }
+
+        Gson gson = new Gson();
+        int mismatches = 0;
+        for (DataSnapshot child : parent.getChildren()) {
+            T reflective = child.getValue(type);
+            String expected = reflective != null ? gson.toJson(reflective) : null;
+            T mapped = mapper.map(child);
+            String actual = mapped != null ? gson.toJson(mapped) : null;
+            if (!Objects.equals(expected, actual)) {
+                mismatches++;
+                if (mismatches <= 3) {
+                    Log.d(TAG, name + "/" + child.getKey() + " differs:\n  getValue: " + expected
+                        + "\n  mapper:   " + actual);
+                }
+            }
+        }
+
+        return new Result(name, (int) parent.getChildrenCount(), rounds,
+            reflectiveNanos / rounds, mappedNanos / rounds, mismatches);
+    }
+
+    private static <T> long decodeReflective(DataSnapshot parent, Class<T> type) {
+        long start = System.nanoTime();
+        int decoded = 0;
+        for (DataSnapshot child : parent.getChildren()) {
+            if (child.getValue(type) != null) decoded++;
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += decoded;
+        return elapsed;
+    }
+
+    private static <T> long decodeMapped(DataSnapshot parent, SnapshotDecoder.ChildMapper<T> mapper) {
+        long start = System.nanoTime();
+        int decoded = 0;
+        for (DataSnapshot child : parent.getChildren()) {
+            if (mapper.map(child) != null) decoded++;
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += decoded;
+        return elapsed;
+    }
+
+    private static class Result {
+        private final String name;
+        private final int items;
+        private final int rounds;
+        private final long reflectiveNanosPerRound;
+        private final long mappedNanosPerRound;
+        private final int mismatches;
+
+        Result(String name, int items, int rounds, long reflectiveNanosPerRound, long mappedNanosPerRound,
+               int mismatches) {
+            this.name = name;
+            this.items = items;
+            this.rounds = rounds;
+            this.reflectiveNanosPerRound = reflectiveNanosPerRound;
+            this.mappedNanosPerRound = mappedNanosPerRound;
+            this.mismatches = mismatches;
+        }
+
+        double getSpeedup() {
+            return mappedNanosPerRound > 0 ? (double) reflectiveNanosPerRound / mappedNanosPerRound : 0;
+        }
+
+        /**
+         * Items the two decoders read differently
+         */
+        int getMismatches() {
+            return mismatches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "%s: %d items x %d rounds, getValue %dus, mapper %dus (%.1fx), %d mismatches",
+                name, items, rounds, reflectiveNanosPerRound / 1000, mappedNanosPerRound / 1000,
+                getSpeedup(), mismatches);
+        }
+    }
+}
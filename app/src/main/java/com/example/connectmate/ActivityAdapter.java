@@ -9,32 +9,69 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.connectmate.models.Activity;
 import com.example.connectmate.models.ChatRoom;
-import com.example.connectmate.utils.ChatManager;
 import com.example.connectmate.utils.FirebaseActivityManager;
+import com.example.connectmate.utils.FirebaseListenerRegistry;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import java.util.List;
+import java.util.Objects;
 
 public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder> {
 
-    private final List<Activity> activities;
+    private final AsyncListDiffer<Activity> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private final OnActivityClickListener listener;
+    // Participant count listeners of the bound rows are dropped when this is destroyed
+    private final LifecycleOwner lifecycleOwner;
 
     public interface OnActivityClickListener {
         void onActivityClick(Activity activity);
         void onEditActivity(Activity activity);
     }
 
-    public ActivityAdapter(List<Activity> activities, OnActivityClickListener listener) {
-        this.activities = activities;
+    // Activities are identified by id; contents compare the fields the view holder renders
+    private static final DiffUtil.ItemCallback<Activity> DIFF_CALLBACK = new DiffUtil.ItemCallback<Activity>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Activity oldItem, @NonNull Activity newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Activity oldItem, @NonNull Activity newItem) {
+            return oldItem.getMaxParticipants() == newItem.getMaxParticipants()
+                && oldItem.getCurrentParticipants() == newItem.getCurrentParticipants()
+                && Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                && Objects.equals(oldItem.getLocation(), newItem.getLocation())
+                && Objects.equals(oldItem.getDateTime(), newItem.getDateTime())
+                && Objects.equals(oldItem.getTime(), newItem.getTime())
+                && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                && Objects.equals(oldItem.getCreatorName(), newItem.getCreatorName())
+                && Objects.equals(oldItem.getCreatorId(), newItem.getCreatorId());
+        }
+    };
+
+    public ActivityAdapter(LifecycleOwner lifecycleOwner, OnActivityClickListener listener) {
+        this.lifecycleOwner = lifecycleOwner;
         this.listener = listener;
     }
 
+    /**
+     * Show a new list; the diff is computed on a background thread and applied as
+     * item-level changes. The list must not be modified after it is submitted.
+     */
+    public void submitList(List<Activity> activities, @Nullable Runnable commitCallback) {
+        differ.submitList(activities, commitCallback);
+    }
+
     @NonNull
     @Override
     public ActivityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -45,13 +82,19 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
 
     @Override
     public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
-        Activity activity = activities.get(position);
-        holder.bind(activity, listener, holder.itemView.getContext());
+        Activity activity = differ.getCurrentList().get(position);
+        holder.bind(activity, listener, holder.itemView.getContext(), lifecycleOwner);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ActivityViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.stopListening();
     }
 
     @Override
     public int getItemCount() {
-        return activities.size();
+        return differ.getCurrentList().size();
     }
 
     static class ActivityViewHolder extends RecyclerView.ViewHolder {
@@ -64,6 +107,7 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
         private final TextView participantsCount;
         private final MaterialButton btnEditActivity;
         private final MaterialButton btnViewDetails;
+        private FirebaseListenerRegistry.Subscription participantCountSubscription;
 
         public ActivityViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -78,7 +122,8 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
             btnViewDetails = itemView.findViewById(R.id.btn_view_details);
         }
 
-        public void bind(Activity activity, OnActivityClickListener listener, Context context) {
+        public void bind(Activity activity, OnActivityClickListener listener, Context context,
+                         LifecycleOwner lifecycleOwner) {
             activityTitle.setText(activity.getTitle());
             activityLocation.setText(activity.getLocation() != null ? activity.getLocation() : "");
 
@@ -91,9 +136,10 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
 
             activityDescription.setText(activity.getDescription() != null ? activity.getDescription() : "");
 
-            // Listen to participant count changes in realtime
+            // Listen to participant count changes in realtime (replacing the previous row's listener)
+            stopListening();
             FirebaseActivityManager activityManager = FirebaseActivityManager.getInstance();
-            activityManager.listenToParticipantCount(activity.getId(),
+            participantCountSubscription = activityManager.listenToParticipantCount(activity.getId(), lifecycleOwner,
                 new FirebaseActivityManager.ParticipantCountListener() {
                     @Override
                     public void onCountChanged(int count) {
@@ -185,6 +231,16 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
             });
         }
 
+        /**
+         * Drop this row's participant count listener
+         */
+        void stopListening() {
+            if (participantCountSubscription != null) {
+                participantCountSubscription.remove();
+                participantCountSubscription = null;
+            }
+        }
+
         /**
          * Get current user ID from Firebase or SharedPreferences
          */
@@ -23,6 +23,7 @@ import com.example.connectmate.models.ChatMessage;
 import com.example.connectmate.models.ChatRoom;
 import com.example.connectmate.utils.FirebaseActivityManager;
 import com.example.connectmate.utils.FirebaseChatManager;
+import com.example.connectmate.utils.FirebaseListenerRegistry;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.chip.Chip;
@@ -39,6 +40,7 @@ public class ActivityDetailActivity extends AppCompatActivity {
 
     private Activity activity;
     private String activityId;
+    private FirebaseListenerRegistry.Subscription activitySubscription;
 
     // UI Components
     private Toolbar toolbar;
@@ -362,8 +364,13 @@ public class ActivityDetailActivity extends AppCompatActivity {
      * Set up real-time listener for activity updates
      */
     private void setupRealTimeListener(String activityId) {
+        if (activitySubscription != null) {
+            activitySubscription.remove();
+        }
+
         FirebaseActivityManager activityManager = FirebaseActivityManager.getInstance();
-        activityManager.listenToActivity(activityId, new FirebaseActivityManager.ActivityListener() {
+        // Removed automatically when this screen is destroyed
+        activitySubscription = activityManager.listenToActivity(activityId, this, new FirebaseActivityManager.ActivityListener() {
             @Override
             public void onActivityUpdated(Activity updatedActivity) {
                 activity = updatedActivity;
@@ -623,11 +630,4 @@ public class ActivityDetailActivity extends AppCompatActivity {
 
         Log.d(TAG, "Navigating to map for: " + placeName + " at (" + lat + ", " + lng + ")");
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Clean up Firebase listener for this activity
-        FirebaseActivityManager.getInstance().removeActivityListener(activityId);
-    }
 }
@@ -22,7 +22,9 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.connectmate.models.Activity;
-import com.example.connectmate.utils.FirebaseActivityManager;
+import com.example.connectmate.utils.ActivitySearchIndex;
+import com.example.connectmate.utils.ActivityStore;
+import com.example.connectmate.utils.SortedActivityList;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -34,11 +36,9 @@ import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
-import com.google.firebase.database.ChildEventListener;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 public class ActivityListFragment extends Fragment {
 
@@ -59,11 +59,10 @@ public class ActivityListFragment extends Fragment {
     // Adapter
     private ActivityAdapter activityAdapter;
 
-    // Data
-    private List<Activity> allActivities;
-    private List<Activity> filteredActivities;
+    // Data: every activity, filtered and sorted incrementally
+    private SortedActivityList sortedActivities;
     private boolean isUpdatingChipSelection = false;
-    private ChildEventListener activityChangeListener;
+    private ActivityStore.SyncListener activitySyncListener;
 
     // Location
     private FusedLocationProviderClient fusedLocationClient;
@@ -116,7 +115,7 @@ public class ActivityListFragment extends Fragment {
                 currentUserLocation = location;
                 Log.d(TAG, "Got user location: " + location.getLatitude() + ", " + location.getLongitude());
                 // Re-sort activities with new location
-                applyFiltersAndSearch();
+                onUserLocationChanged(location);
             } else {
                 // Request fresh location
                 requestFreshLocation();
@@ -150,7 +149,7 @@ public class ActivityListFragment extends Fragment {
                     currentUserLocation = location;
                     Log.d(TAG, "Got fresh location: " + location.getLatitude() + ", " + location.getLongitude());
                     // Re-sort activities with new location
-                    applyFiltersAndSearch();
+                    onUserLocationChanged(location);
                 }
                 fusedLocationClient.removeLocationUpdates(this);
             }
@@ -160,50 +159,11 @@ public class ActivityListFragment extends Fragment {
     }
 
     /**
-     * Calculate distance between two points using Haversine formula
-     * @return distance in meters
+     * Distances are only recomputed (and the list re-sorted) once the user has moved far enough
      */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371000; // Earth's radius in meters
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
-    /**
-     * Get distance from user's current location to activity
-     */
-    private double getDistanceToActivity(Activity activity) {
-        double userLat = currentUserLocation != null ? currentUserLocation.getLatitude() : DEFAULT_LAT;
-        double userLng = currentUserLocation != null ? currentUserLocation.getLongitude() : DEFAULT_LNG;
-        return calculateDistance(userLat, userLng, activity.getLatitude(), activity.getLongitude());
-    }
-
-    /**
-     * Parse activity date string to comparable timestamp
-     */
-    private long parseDateToTimestamp(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return Long.MAX_VALUE; // Put activities without dates at the end
-        }
-        try {
-            // Expected format: "2024년 12월 25일" or similar
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy년 MM월 dd일", java.util.Locale.KOREAN);
-            java.util.Date date = sdf.parse(dateStr);
-            return date != null ? date.getTime() : Long.MAX_VALUE;
-        } catch (Exception e) {
-            // Try alternative format
-            try {
-                java.text.SimpleDateFormat sdf2 = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault());
-                java.util.Date date = sdf2.parse(dateStr);
-                return date != null ? date.getTime() : Long.MAX_VALUE;
-            } catch (Exception e2) {
-                return Long.MAX_VALUE;
-            }
+    private void onUserLocationChanged(Location location) {
+        if (sortedActivities != null && sortedActivities.setOrigin(location.getLatitude(), location.getLongitude())) {
+            submitActivities();
         }
     }
 
@@ -243,12 +203,13 @@ public class ActivityListFragment extends Fragment {
     }
 
     private void setupRecyclerView() {
-        // Initialize data lists
-        allActivities = new ArrayList<>();
-        filteredActivities = new ArrayList<>();
+        // Initialize data list, measuring distances from the last known location
+        double originLat = currentUserLocation != null ? currentUserLocation.getLatitude() : DEFAULT_LAT;
+        double originLng = currentUserLocation != null ? currentUserLocation.getLongitude() : DEFAULT_LNG;
+        sortedActivities = new SortedActivityList(originLat, originLng);
 
         // Setup RecyclerView
-        activityAdapter = new ActivityAdapter(filteredActivities, new ActivityAdapter.OnActivityClickListener() {
+        activityAdapter = new ActivityAdapter(getViewLifecycleOwner(), new ActivityAdapter.OnActivityClickListener() {
             @Override
             public void onActivityClick(Activity activity) {
                 ActivityListFragment.this.onActivityClick(activity);
@@ -427,77 +388,28 @@ public class ActivityListFragment extends Fragment {
     }
 
     private void applyFiltersAndSearch() {
-        filteredActivities.clear();
+        // Re-filter the already sorted rows; nothing is re-sorted or re-measured
+        sortedActivities.setFilter(getSelectedCategories(), currentSearchMatches());
+        submitActivities();
+    }
 
-        // Get current search query
+    /**
+     * Ids matching the search box, resolved through the search index (null = no search)
+     */
+    @Nullable
+    private Set<String> currentSearchMatches() {
         String searchQuery = "";
         if (searchInput != null && searchInput.getText() != null) {
-            searchQuery = searchInput.getText().toString().toLowerCase();
+            searchQuery = searchInput.getText().toString();
         }
+        return ActivitySearchIndex.getInstance().matchingIds(searchQuery);
+    }
 
-        // Get selected categories from chips
-        List<String> selectedCategories = getSelectedCategories();
-
-        // Apply both filters
-        for (Activity activity : allActivities) {
-            // Check category filter
-            boolean matchesCategory = false;
-            if (selectedCategories.isEmpty()) {
-                // No category filter or "All" selected - show all categories
-                matchesCategory = true;
-            } else {
-                // Handle comma-separated categories (e.g., "운동,스터디")
-                String activityCategory = activity.getCategory();
-                if (activityCategory != null && !activityCategory.isEmpty()) {
-                    // Split by comma and check if any category matches
-                    String[] categories = activityCategory.split(",");
-                    for (String cat : categories) {
-                        if (selectedCategories.contains(cat.trim())) {
-                            matchesCategory = true;
-                            break;
-                        }
-                    }
-                }
-            }
-
-            // Check search filter
-            boolean matchesSearch = false;
-            if (searchQuery.isEmpty()) {
-                matchesSearch = true;
-            } else {
-                String title = activity.getTitle() != null ? activity.getTitle().toLowerCase() : "";
-                String location = activity.getLocation() != null ? activity.getLocation().toLowerCase() : "";
-                String description = activity.getDescription() != null ? activity.getDescription().toLowerCase() : "";
-                matchesSearch = title.contains(searchQuery) ||
-                              location.contains(searchQuery) ||
-                              description.contains(searchQuery);
-            }
-
-            // Add activity if it matches both filters
-            if (matchesCategory && matchesSearch) {
-                filteredActivities.add(activity);
-            }
-        }
-
-        // Sort by distance (closest first), then by date (soonest first) for same distance
-        Collections.sort(filteredActivities, (a1, a2) -> {
-            double dist1 = getDistanceToActivity(a1);
-            double dist2 = getDistanceToActivity(a2);
-
-            // Compare distances (within 100m considered same location)
-            if (Math.abs(dist1 - dist2) < 100) {
-                // Same location - sort by date (soonest first)
-                long date1 = parseDateToTimestamp(a1.getDate());
-                long date2 = parseDateToTimestamp(a2.getDate());
-                return Long.compare(date1, date2);
-            }
-
-            // Different locations - sort by distance (closest first)
-            return Double.compare(dist1, dist2);
-        });
-
-        activityAdapter.notifyDataSetChanged();
-        updateUI();
+    /**
+     * Hand the current rows to the adapter, which diffs them off the main thread
+     */
+    private void submitActivities() {
+        activityAdapter.submitList(sortedActivities.snapshot(), this::updateUI);
     }
 
     private List<String> getSelectedCategories() {
@@ -563,7 +475,8 @@ public class ActivityListFragment extends Fragment {
 
     private void updateUI() {
         // Show/hide empty state
-        if (filteredActivities.isEmpty()) {
+        if (emptyState == null || activityRecyclerView == null) return;
+        if (activityAdapter.getItemCount() == 0) {
             emptyState.setVisibility(View.VISIBLE);
             activityRecyclerView.setVisibility(View.GONE);
         } else {
@@ -573,83 +486,67 @@ public class ActivityListFragment extends Fragment {
     }
 
     private void loadActivitiesFromFirebase() {
-        // Load activities from Firebase with real-time updates
-        FirebaseActivityManager activityManager = FirebaseActivityManager.getInstance();
+        // Render the on-device copy first, then only fetch what changed on the server
+        ActivityStore activityStore = ActivityStore.getInstance(requireContext());
 
-        activityChangeListener = activityManager.listenForActivityChanges(new FirebaseActivityManager.ActivityChangeListener() {
-            @Override
-            public void onActivityAdded(Activity activity) {
-                // Check if activity already exists by ID
-                boolean exists = false;
-                for (Activity a : allActivities) {
-                    if (a.getId() != null && a.getId().equals(activity.getId())) {
-                        exists = true;
-                        break;
-                    }
-                }
+        // The view (and its lists) may have been recreated; restart from the stored rows
+        if (activitySyncListener != null) {
+            activityStore.stopSync(activitySyncListener);
+        }
 
-                // Add new activity to the beginning of the list if it doesn't exist
-                if (!exists) {
-                    allActivities.add(0, activity);
+        activitySyncListener = new ActivityStore.SyncListener() {
+            @Override
+            public void onCachedActivitiesLoaded(List<Activity> activities) {
+                sortedActivities.setAll(activities);
+                submitActivities();
+                Log.d(TAG, "Rendered " + activities.size() + " stored activities");
+            }
 
-                    // Re-apply filters and search to update the filtered list
-                    applyFiltersAndSearch();
+            @Override
+            public void onActivitiesReloaded(List<Activity> activities) {
+                sortedActivities.setAll(activities);
+                submitActivities();
+                Log.d(TAG, "Activities reloaded: " + activities.size());
+            }
 
-                    Log.d(TAG, "Activity added: " + activity.getTitle());
-                } else {
-                    Log.d(TAG, "Activity already exists: " + activity.getTitle());
-                }
+            @Override
+            public void onActivityAdded(Activity activity) {
+                upsertActivity(activity);
+                Log.d(TAG, "Activity added: " + activity.getTitle());
             }
 
             @Override
             public void onActivityChanged(Activity activity) {
-                // Update existing activity
-                for (int i = 0; i < allActivities.size(); i++) {
-                    if (allActivities.get(i).getId().equals(activity.getId())) {
-                        allActivities.set(i, activity);
-                        break;
-                    }
-                }
-
-                // Re-apply filters and search to update the filtered list
-                applyFiltersAndSearch();
-
+                upsertActivity(activity);
                 Log.d(TAG, "Activity updated: " + activity.getTitle());
             }
 
             @Override
             public void onActivityRemoved(Activity activity) {
-                // Remove from allActivities
-                allActivities.removeIf(a -> a.getId().equals(activity.getId()));
-
-                // Find position in filtered list and remove
-                int position = -1;
-                for (int i = 0; i < filteredActivities.size(); i++) {
-                    if (filteredActivities.get(i).getId().equals(activity.getId())) {
-                        position = i;
-                        break;
-                    }
-                }
-
-                // Remove from filtered list and notify adapter of specific item removal
-                if (position != -1) {
-                    filteredActivities.remove(position);
-                    activityAdapter.notifyItemRemoved(position);
-                } else {
-                    // Fallback if item not found in filtered list
-                    activityAdapter.notifyDataSetChanged();
-                }
-
-                updateUI();
+                sortedActivities.remove(activity.getId());
+                submitActivities();
                 Log.d(TAG, "Activity removed: " + activity.getTitle());
             }
 
             @Override
             public void onError(Exception e) {
                 Log.e(TAG, "Error loading activities", e);
-                Toast.makeText(requireContext(), "활동 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
+                if (isAdded()) {
+                    Toast.makeText(requireContext(), "활동 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
+                }
             }
-        });
+        };
+        activityStore.startSync(activitySyncListener);
+    }
+
+    // Move just this row; the search index already holds the new text, so refresh its matches
+    private void upsertActivity(Activity activity) {
+        Set<String> searchMatches = currentSearchMatches();
+        if (searchMatches != null) {
+            sortedActivities.setFilter(getSelectedCategories(), searchMatches);
+        }
+        sortedActivities.upsert(activity);
+        submitActivities();
     }
 
     private void onActivityClick(Activity activity) {
@@ -693,10 +590,10 @@ public class ActivityListFragment extends Fragment {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (activityChangeListener != null) {
-            FirebaseActivityManager.getInstance().removeActivityChangeListener(activityChangeListener);
-            activityChangeListener = null;
-            Log.d(TAG, "Fragment destroyed, removed Firebase activity listener");
+        if (activitySyncListener != null) {
+            ActivityStore.getInstance(requireContext()).stopSync(activitySyncListener);
+            activitySyncListener = null;
+            Log.d(TAG, "Fragment destroyed, stopped activity sync");
         }
     }
 }
@@ -4,6 +4,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.util.Log;
@@ -18,6 +20,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -25,6 +28,8 @@ import com.example.connectmate.NotificationAdapter;
 import com.example.connectmate.models.ChatRoom;
 import com.example.connectmate.models.NotificationItem;
 import com.example.connectmate.utils.FirebaseChatManager;
+import com.example.connectmate.utils.FirebaseNotificationManager;
+import com.example.connectmate.utils.JoinedChatRoomsSubscription;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.TextInputEditText;
@@ -33,17 +38,17 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class ChatListFragment extends Fragment {
 
     private static final String TAG = "ChatListFragment";
+    private static final int NOTIFICATION_PAGE_SIZE = 20;
+    // Fetch the next page when the user is this close to the end of the loaded list
+    private static final int NOTIFICATION_PREFETCH_DISTANCE = 5;
 
     // UI Components
     private ImageButton btnMyFriends;
@@ -68,8 +73,16 @@ public class ChatListFragment extends Fragment {
     private List<ChatRoom> filteredChatRooms;
 
     // Firebase
-    private DatabaseReference dbRef;
     private ValueEventListener notificationListener;
+    private String notificationBadgeUserId;
+    // Whether the counter has been recounted since the badge listener was attached
+    private boolean notificationCountChecked;
+    private JoinedChatRoomsSubscription chatRoomsSubscription;
+
+    // Room updates arriving in the same frame (e.g. the initial load) are applied together
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Runnable refreshChatRooms = this::refreshChatRoomsFromSubscription;
+    private boolean chatRoomsRefreshPending;
 
     public ChatListFragment() {
         super(R.layout.fragment_chat);
@@ -86,7 +99,6 @@ public class ChatListFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        dbRef = FirebaseDatabase.getInstance().getReference();
         initializeViews(view);
         setupRecyclerViews();
         setupClickListeners();
@@ -222,43 +234,79 @@ public class ChatListFragment extends Fragment {
 
         dialog.show();
 
-        DatabaseReference notificationsRef = FirebaseDatabase.getInstance()
-            .getReference("userNotifications")
-            .child(userId);
-
-        notificationsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        InboxPaging paging = new InboxPaging();
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                notifications.clear();
-                Log.d(TAG, "Loading notifications, total count: " + snapshot.getChildrenCount());
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    NotificationItem item = child.getValue(NotificationItem.class);
-                    if (item != null) {
-                        Log.d(TAG, "Notification loaded - Type: " + item.getType() + ", Title: " + item.getTitle() + ", Message: " + item.getMessage());
-                        notifications.add(item);
-
-                        // Mark notification as read
-                        if (!item.isRead()) {
-                            child.getRef().child("isRead").setValue(true)
-                                .addOnSuccessListener(aVoid -> Log.d(TAG, "Marked notification as read: " + item.getId()))
-                                .addOnFailureListener(e -> Log.e(TAG, "Failed to mark notification as read", e));
-                        }
-                    }
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) rv.getLayoutManager();
+                if (layoutManager != null && layoutManager.findLastVisibleItemPosition()
+                        >= notifications.size() - NOTIFICATION_PREFETCH_DISTANCE) {
+                    loadNotificationPage(userId, paging, notifications, adapterHolder[0], emptyText);
                 }
-                // Sort oldest first (ascending order by timestamp)
-                Collections.sort(notifications, (a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
-                adapterHolder[0].notifyDataSetChanged();
-                emptyText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
-                Log.d(TAG, "Total notifications displayed: " + notifications.size());
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Failed to load notifications", error.toException());
-                Toast.makeText(requireContext(), "알림을 불러오지 못했습니다.", Toast.LENGTH_SHORT).show();
-                emptyText.setVisibility(View.VISIBLE);
             }
         });
+
+        // Clear the badge first (only unread notifications are downloaded for it); the pages read
+        // afterwards already see them as read
+        paging.loading = true;
+        FirebaseNotificationManager.getInstance().markAllRead(userId,
+            new FirebaseNotificationManager.OnCompleteListener<Integer>() {
+                @Override
+                public void onSuccess(Integer markedCount) {
+                    Log.d(TAG, "Marked " + markedCount + " notifications as read");
+                    paging.loading = false;
+                    loadNotificationPage(userId, paging, notifications, adapterHolder[0], emptyText);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    paging.loading = false;
+                    loadNotificationPage(userId, paging, notifications, adapterHolder[0], emptyText);
+                }
+            });
+    }
+
+    /**
+     * Append the next (older) page of notifications to the dialog's list
+     */
+    private void loadNotificationPage(String userId, InboxPaging paging,
+                                      List<NotificationItem> notifications,
+                                      NotificationAdapter adapter,
+                                      TextView emptyText) {
+        if (paging.loading || !paging.hasMore) return;
+        paging.loading = true;
+
+        NotificationItem oldestLoaded = notifications.isEmpty() ? null : notifications.get(notifications.size() - 1);
+        FirebaseNotificationManager.getInstance().loadPage(userId, oldestLoaded, NOTIFICATION_PAGE_SIZE,
+            new FirebaseNotificationManager.OnCompleteListener<List<NotificationItem>>() {
+                @Override
+                public void onSuccess(List<NotificationItem> page) {
+                    paging.loading = false;
+                    paging.hasMore = page.size() >= NOTIFICATION_PAGE_SIZE;
+
+                    int start = notifications.size();
+                    notifications.addAll(page);
+                    adapter.notifyItemRangeInserted(start, page.size());
+                    emptyText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
+                    Log.d(TAG, "Notification page loaded: " + page.size() + " (total " + notifications.size() + ")");
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    paging.loading = false;
+                    if (!isAdded()) return;
+                    Toast.makeText(requireContext(), "알림을 불러오지 못했습니다.", Toast.LENGTH_SHORT).show();
+                    emptyText.setVisibility(notifications.isEmpty() ? View.VISIBLE : View.GONE);
+                }
+            });
+    }
+
+    /**
+     * Paging state of an open notifications dialog
+     */
+    private static class InboxPaging {
+        boolean loading;
+        boolean hasMore = true;
     }
 
     /**
@@ -273,12 +321,7 @@ public class ChatListFragment extends Fragment {
             return;
         }
 
-        DatabaseReference notificationRef = FirebaseDatabase.getInstance()
-            .getReference("userNotifications")
-            .child(userId)
-            .child(item.getId());
-
-        notificationRef.removeValue()
+        FirebaseNotificationManager.getInstance().deleteNotification(userId, item.getId(), !item.isRead())
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Notification deleted successfully: " + item.getId());
                 // Remove from local list
@@ -337,7 +380,7 @@ public class ChatListFragment extends Fragment {
     }
 
     private void applyFiltersAndSearch() {
-        filteredChatRooms.clear();
+        List<ChatRoom> matchingRooms = new ArrayList<>();
 
         // Get current search query
         String searchQuery = "";
@@ -382,14 +425,53 @@ public class ChatListFragment extends Fragment {
 
             // Add chat room if it matches both filters
             if (matchesCategory && matchesSearch) {
-                filteredChatRooms.add(chatRoom);
+                matchingRooms.add(chatRoom);
             }
         }
 
-        chatRoomAdapter.notifyDataSetChanged();
+        // Only rebind rows that were added, moved or changed
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new ChatRoomDiff(filteredChatRooms, matchingRooms));
+        filteredChatRooms.clear();
+        filteredChatRooms.addAll(matchingRooms);
+        diff.dispatchUpdatesTo(chatRoomAdapter);
         updateUI();
     }
 
+    /**
+     * Rooms are the same row if their ids match. The subscription emits a fresh ChatRoom object
+     * whenever a room changes, so an identical instance means unchanged contents.
+     */
+    private static class ChatRoomDiff extends DiffUtil.Callback {
+        private final List<ChatRoom> oldRooms;
+        private final List<ChatRoom> newRooms;
+
+        ChatRoomDiff(List<ChatRoom> oldRooms, List<ChatRoom> newRooms) {
+            this.oldRooms = oldRooms;
+            this.newRooms = newRooms;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldRooms.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newRooms.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            String oldId = oldRooms.get(oldItemPosition).getId();
+            return oldId != null && oldId.equals(newRooms.get(newItemPosition).getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldRooms.get(oldItemPosition) == newRooms.get(newItemPosition);
+        }
+    }
+
     private List<String> getSelectedCategories() {
         List<String> selectedCategories = new ArrayList<>();
 
@@ -446,6 +528,9 @@ public class ChatListFragment extends Fragment {
      * Load chat rooms from Firebase with real-time updates
      */
     private void loadChatRoomsFromFirebase() {
+        // Already live; each room pushes its own changes
+        if (chatRoomsSubscription != null) return;
+
         String currentUserId = getCurrentUserId();
         if (currentUserId == null || currentUserId.isEmpty()) {
             Log.w(TAG, "Cannot load chat rooms - no current user ID");
@@ -453,64 +538,44 @@ public class ChatListFragment extends Fragment {
             return;
         }
 
-        FirebaseChatManager.getInstance().getJoinedChatRooms(currentUserId, new FirebaseChatManager.ChatRoomListListener() {
-            @Override
-            public void onChatRoomsLoaded(List<ChatRoom> chatRooms) {
-                allChatRooms.clear();
-                allChatRooms.addAll(chatRooms);
-                for (ChatRoom chatRoom : allChatRooms) {
-                    loadUnreadCountForChatRoom(chatRoom);
+        chatRoomsSubscription = FirebaseChatManager.getInstance().subscribeToJoinedChatRooms(currentUserId,
+            new FirebaseChatManager.JoinedChatRoomsListener() {
+                @Override
+                public void onChatRoomUpdated(ChatRoom chatRoom, int oldPosition, int newPosition) {
+                    Log.d(TAG, "Chat room updated: " + chatRoom.getName() + " (" + oldPosition + " -> " + newPosition
+                        + ", unread " + chatRoom.getUnreadCount() + ")");
+                    scheduleChatRoomsRefresh();
                 }
-                applyFiltersAndSearch();
-            }
 
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error loading chat rooms", e);
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "채팅방 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
+                @Override
+                public void onChatRoomRemoved(ChatRoom chatRoom, int oldPosition) {
+                    Log.d(TAG, "Chat room removed: " + chatRoom.getName());
+                    scheduleChatRoomsRefresh();
                 }
-            }
-        });
-    }
-
 
-    /**
-     * Load unread count for a specific chat room for the current user
-     */
-    private void loadUnreadCountForChatRoom(ChatRoom chatRoom) {
-        String currentUserId = getCurrentUserId();
-        if (currentUserId == null || currentUserId.isEmpty()) {
-            Log.w(TAG, "Cannot load unread count - no current user ID");
-            return;
-        }
-
-        FirebaseChatManager.getInstance().getUnreadCount(
-            chatRoom.getId(),
-            currentUserId,
-            new FirebaseChatManager.OnCompleteListener<Integer>() {
                 @Override
-                public void onSuccess(Integer unreadCount) {
-                    // Update the chat room's unread count
-                    chatRoom.setUnreadCount(unreadCount);
-
-                    // Notify adapter to update the UI
-                    if (chatRoomAdapter != null) {
-                        chatRoomAdapter.notifyDataSetChanged();
+                public void onError(Exception e) {
+                    Log.e(TAG, "Error loading chat rooms", e);
+                    if (getContext() != null) {
+                        Toast.makeText(getContext(), "채팅방 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
                     }
+                }
+            });
+    }
 
-                    // Re-apply filters and search to update the filtered list
-                    applyFiltersAndSearch();
+    private void scheduleChatRoomsRefresh() {
+        if (chatRoomsRefreshPending) return;
+        chatRoomsRefreshPending = true;
+        uiHandler.post(refreshChatRooms);
+    }
 
-                    Log.d(TAG, "Unread count for " + chatRoom.getName() + ": " + unreadCount);
-                }
+    private void refreshChatRoomsFromSubscription() {
+        chatRoomsRefreshPending = false;
+        if (chatRoomsSubscription == null || chatRoomAdapter == null) return;
 
-                @Override
-                public void onError(Exception e) {
-                    Log.e(TAG, "Error loading unread count for chat room: " + chatRoom.getName(), e);
-                }
-            }
-        );
+        allChatRooms.clear();
+        allChatRooms.addAll(chatRoomsSubscription.getRooms());
+        applyFiltersAndSearch();
     }
 
     /**
@@ -541,71 +606,70 @@ public class ChatListFragment extends Fragment {
     }
 
     /**
-     * Load unread notification count and show/hide badge
+     * Show/hide the badge from the user's unread notification counter (a single number).
+     * Attached once per user; repeated calls from onResume keep the live listener.
      */
     private void loadUnreadNotificationCount() {
         String userId = getCurrentUserId();
         if (userId == null) {
+            removeNotificationBadgeListener();
             if (notificationBadge != null) {
                 notificationBadge.setVisibility(View.GONE);
             }
             return;
         }
-
-        // Clear previous listener if exists
-        if (notificationListener != null) {
-            dbRef.child("userNotifications").child(userId).removeEventListener(notificationListener);
+        if (notificationListener != null && userId.equals(notificationBadgeUserId)) {
+            return;
         }
+        removeNotificationBadgeListener();
 
-        DatabaseReference notificationsRef = dbRef.child("userNotifications").child(userId);
+        FirebaseNotificationManager notificationManager = FirebaseNotificationManager.getInstance();
         Log.d(TAG, "Setting up notification badge listener for user: " + userId);
         notificationListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                int unreadCount = 0;
-
-                Log.d(TAG, "Badge listener: checking " + dataSnapshot.getChildrenCount() + " notifications");
-                // Count unread notifications
-                for (DataSnapshot notificationSnapshot : dataSnapshot.getChildren()) {
-                    NotificationItem notification =
-                        notificationSnapshot.getValue(NotificationItem.class);
-                    if (notification != null && !notification.isRead()) {
-                        unreadCount++;
-                        Log.d(TAG, "Badge listener: found unread notification - Type: " + notification.getType() + ", Title: " + notification.getTitle());
-                    }
+                Long unreadCount = dataSnapshot.getValue(Long.class);
+                // Recount when there is no counter yet (account predates it), when it has gone
+                // negative, and once per attach to catch a counter stuck above (or below) the
+                // real number
+                if (unreadCount == null || unreadCount < 0 || !notificationCountChecked) {
+                    notificationCountChecked = true;
+                    notificationManager.reconcileUnreadCount(userId);
                 }
 
-                Log.d(TAG, "Badge listener: total unread count = " + unreadCount);
-                // Show/hide badge based on unread count
+                Log.d(TAG, "Unread notifications: " + unreadCount);
                 if (notificationBadge != null) {
-                    if (unreadCount > 0) {
-                        notificationBadge.setVisibility(View.VISIBLE);
-                        Log.d(TAG, "Badge listener: showing yellow badge");
-                    } else {
-                        notificationBadge.setVisibility(View.GONE);
-                        Log.d(TAG, "Badge listener: hiding badge");
-                    }
+                    boolean hasUnread = unreadCount != null && unreadCount > 0;
+                    notificationBadge.setVisibility(hasUnread ? View.VISIBLE : View.GONE);
                 }
-
-                Log.d(TAG, "Unread notifications: " + unreadCount);
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Failed to load notifications: " + error.getMessage());
+                Log.e(TAG, "Failed to load unread notification count: " + error.getMessage());
                 if (notificationBadge != null) {
                     notificationBadge.setVisibility(View.GONE);
                 }
             }
         };
+        notificationBadgeUserId = userId;
+        notificationManager.getUnreadCountRef(userId).addValueEventListener(notificationListener);
+    }
 
-        notificationsRef.addValueEventListener(notificationListener);
+    private void removeNotificationBadgeListener() {
+        if (notificationListener != null && notificationBadgeUserId != null) {
+            FirebaseNotificationManager.getInstance().getUnreadCountRef(notificationBadgeUserId)
+                .removeEventListener(notificationListener);
+        }
+        notificationListener = null;
+        notificationBadgeUserId = null;
+        notificationCountChecked = false;
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        // Reload chat rooms to get latest messages and profile images
+        // Chat rooms are live once subscribed; this only subscribes if not already
         loadChatRoomsFromFirebase();
         // Refresh notification badge
         loadUnreadNotificationCount();
@@ -615,15 +679,13 @@ public class ChatListFragment extends Fragment {
     public void onDestroyView() {
         super.onDestroyView();
         // Clean up Firebase listeners
-        FirebaseChatManager.getInstance().removeAllListeners();
+        uiHandler.removeCallbacks(refreshChatRooms);
+        chatRoomsRefreshPending = false;
+        // Only this screen's subscription; other screens' chat listeners stay attached
+        FirebaseChatManager.getInstance().unsubscribeFromJoinedChatRooms();
+        chatRoomsSubscription = null;
 
         // Clean up notification listener
-        if (notificationListener != null) {
-            String userId = getCurrentUserId();
-            if (userId != null) {
-                dbRef.child("userNotifications").child(userId).removeEventListener(notificationListener);
-            }
-            notificationListener = null;
-        }
+        removeNotificationBadgeListener();
     }
 }
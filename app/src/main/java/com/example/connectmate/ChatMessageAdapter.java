@@ -1,5 +1,9 @@
 package com.example.connectmate;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,15 +11,21 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.connectmate.models.ChatMessage;
+import com.example.connectmate.utils.BlurHash;
+import com.example.connectmate.utils.UserProfileRepository;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
@@ -25,7 +35,11 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     private static final int VIEW_TYPE_RECEIVED = 101;
     private static final int VIEW_TYPE_SYSTEM = 1;
 
-    private final List<ChatMessage> messages;
+    // Blurhash placeholders are decoded at a small size and stretched by the ImageView
+    private static final int BLURHASH_DECODE_SIZE = 32;
+    private static final LruCache<String, Bitmap> blurHashCache = new LruCache<>(64);
+
+    private final AsyncListDiffer<ChatMessage> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private final String currentUserId;
     private List<String> friendIds;
     private OnImageClickListener imageClickListener;
@@ -39,11 +53,43 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         void onDocumentClick(String fileUrl, String fileName, String fileType);
     }
 
-    public ChatMessageAdapter(List<ChatMessage> messages, String currentUserId) {
-        this.messages = messages;
+    // Messages are identified by id; contents compare the fields the view holders render
+    private static final DiffUtil.ItemCallback<ChatMessage> DIFF_CALLBACK = new DiffUtil.ItemCallback<ChatMessage>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatMessage oldItem, @NonNull ChatMessage newItem) {
+            return oldItem.getMessageType() == newItem.getMessageType()
+                && oldItem.getTimestamp() == newItem.getTimestamp()
+                && Objects.equals(oldItem.getMessage(), newItem.getMessage())
+                && Objects.equals(oldItem.getSenderName(), newItem.getSenderName())
+                && Objects.equals(oldItem.getSenderProfileUrl(), newItem.getSenderProfileUrl())
+                && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                && Objects.equals(oldItem.getBlurHash(), newItem.getBlurHash())
+                && Objects.equals(oldItem.getFileUrl(), newItem.getFileUrl())
+                && Objects.equals(oldItem.getFileName(), newItem.getFileName());
+        }
+    };
+
+    public ChatMessageAdapter(String currentUserId) {
         this.currentUserId = currentUserId;
     }
 
+    /**
+     * Show a new message list. The diff is computed off the main thread; commitCallback runs
+     * once the list is displayed (e.g. to scroll to a position that only exists afterwards).
+     */
+    public void submitList(List<ChatMessage> messages, @Nullable Runnable commitCallback) {
+        differ.submitList(messages, commitCallback);
+    }
+
+    public ChatMessage getItem(int position) {
+        return differ.getCurrentList().get(position);
+    }
+
     public void setOnImageClickListener(OnImageClickListener listener) {
         this.imageClickListener = listener;
     }
@@ -59,7 +105,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
 
     @Override
     public int getItemViewType(int position) {
-        ChatMessage message = messages.get(position);
+        ChatMessage message = getItem(position);
 
         // System messages
         if (message.isSystemMessage()) {
@@ -93,7 +139,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        ChatMessage message = messages.get(position);
+        ChatMessage message = getItem(position);
 
         if (holder instanceof SystemMessageViewHolder) {
             ((SystemMessageViewHolder) holder).bind(message);
@@ -106,7 +152,76 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
 
     @Override
     public int getItemCount() {
-        return messages.size();
+        return differ.getCurrentList().size();
+    }
+
+    // Blurred preview for an image message while the full image loads, or null if it has none
+    private static Drawable blurHashPlaceholder(View itemView, ChatMessage message) {
+        String hash = message.getBlurHash();
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+
+        Bitmap bitmap = blurHashCache.get(hash);
+        if (bitmap == null) {
+            int width = BLURHASH_DECODE_SIZE;
+            int height = BLURHASH_DECODE_SIZE;
+            if (message.getImageWidth() > 0 && message.getImageHeight() > 0) {
+                // Keep the original aspect ratio so the placeholder doesn't jump when the image arrives
+                height = Math.max(1, Math.min(4 * width, Math.round(width * (float) message.getImageHeight() / message.getImageWidth())));
+            }
+            int[] pixels = BlurHash.decode(hash, width, height);
+            if (pixels == null) {
+                return null;
+            }
+            bitmap = Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+            blurHashCache.put(hash, bitmap);
+        }
+        return new BitmapDrawable(itemView.getResources(), bitmap);
+    }
+
+    // Sender name/photo from the profile cache. Messages written before profiles were resolved by
+    // id still carry a copy, which is shown until the current profile is loaded.
+    private static void bindSender(ImageView profileImage, @Nullable TextView nameView, ChatMessage message) {
+        String senderId = message.getSenderId();
+        UserProfileRepository.Profile profile = UserProfileRepository.getInstance().peek(senderId);
+        if (profile != null) {
+            showSender(profileImage, nameView, message, profile);
+            return;
+        }
+
+        showSender(profileImage, nameView, message, null);
+        profileImage.setTag(R.id.profile_image, senderId);
+        UserProfileRepository.getInstance().getProfile(senderId, loaded -> {
+            // The view may have been recycled for another sender meanwhile
+            if (Objects.equals(profileImage.getTag(R.id.profile_image), senderId)) {
+                showSender(profileImage, nameView, message, loaded);
+            }
+        });
+    }
+
+    private static void showSender(ImageView profileImage, @Nullable TextView nameView, ChatMessage message,
+                                   @Nullable UserProfileRepository.Profile profile) {
+        profileImage.setTag(R.id.profile_image, message.getSenderId());
+
+        String name = profile != null && profile.getDisplayName() != null ? profile.getDisplayName() : message.getSenderName();
+        if (nameView != null) {
+            nameView.setText(name);
+        }
+
+        String profileUrl = profile != null && profile.getProfileImageUrl() != null
+            ? profile.getProfileImageUrl() : message.getSenderProfileUrl();
+        if (profileUrl != null && !profileUrl.isEmpty()) {
+            Glide.with(profileImage.getContext())
+                    .load(profileUrl)  // Glide handles both URLs and Base64 (data:image/...)
+                    .placeholder(R.drawable.circle_logo)
+                    .error(R.drawable.circle_logo)
+                    .circleCrop()
+                    .into(profileImage);
+        } else {
+            Glide.with(profileImage.getContext()).clear(profileImage);
+            profileImage.setImageResource(R.drawable.circle_logo);
+        }
     }
 
     // ViewHolder for system messages
@@ -160,9 +275,10 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             // Handle image message
             if (message.getImageUrl() != null && !message.getImageUrl().isEmpty()) {
                 imageFrame.setVisibility(View.VISIBLE);
+                Drawable placeholder = blurHashPlaceholder(itemView, message);
                 Glide.with(itemView.getContext())
                         .load(message.getImageUrl())
-                        .placeholder(R.drawable.circle_logo)
+                        .placeholder(placeholder != null ? placeholder : itemView.getContext().getDrawable(R.drawable.circle_logo))
                         .error(R.drawable.circle_logo)
                         .into(messageImage);
 
@@ -198,23 +314,8 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             String time = timeFormat.format(new Date(message.getTimestamp()));
             messageTime.setText(time);
 
-            // Load profile image with Glide
-            // Supports both Firebase Storage URLs and Base64 encoded images
-            String profileUrl = message.getSenderProfileUrl();
-            android.util.Log.d("ChatMessageAdapter", "SENT message - Sender: " + message.getSenderName() + ", Profile: " +
-                (profileUrl != null ? (profileUrl.startsWith("data:image") ? "Base64 image" : "URL") : "null"));
-
-            if (profileUrl != null && !profileUrl.isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(profileUrl)  // Glide handles both URLs and Base64 (data:image/...)
-                        .placeholder(R.drawable.circle_logo)
-                        .error(R.drawable.circle_logo)
-                        .circleCrop()
-                        .into(profileImage);
-            } else {
-                android.util.Log.w("ChatMessageAdapter", "No profile URL for sent message, using default");
-                profileImage.setImageResource(R.drawable.circle_logo);
-            }
+            // Profile photo is resolved from the sender id
+            bindSender(profileImage, null, message);
         }
     }
 
@@ -244,8 +345,6 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         }
 
         public void bind(ChatMessage message, OnImageClickListener imageListener, OnDocumentClickListener docListener, List<String> friendIds) {
-            senderName.setText(message.getSenderName());
-
             // Show friend badge if sender is a friend
             if (friendBadge != null && friendIds != null && friendIds.contains(message.getSenderId())) {
                 friendBadge.setVisibility(View.VISIBLE);
@@ -264,9 +363,10 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             // Handle image message
             if (message.getImageUrl() != null && !message.getImageUrl().isEmpty()) {
                 imageFrame.setVisibility(View.VISIBLE);
+                Drawable placeholder = blurHashPlaceholder(itemView, message);
                 Glide.with(itemView.getContext())
                         .load(message.getImageUrl())
-                        .placeholder(R.drawable.circle_logo)
+                        .placeholder(placeholder != null ? placeholder : itemView.getContext().getDrawable(R.drawable.circle_logo))
                         .error(R.drawable.circle_logo)
                         .into(messageImage);
 
@@ -302,23 +402,8 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             String time = timeFormat.format(new Date(message.getTimestamp()));
             messageTime.setText(time);
 
-            // Load profile image with Glide
-            // Supports both Firebase Storage URLs and Base64 encoded images
-            String profileUrl = message.getSenderProfileUrl();
-            android.util.Log.d("ChatMessageAdapter", "RECEIVED message - Sender: " + message.getSenderName() + ", Profile: " +
-                (profileUrl != null ? (profileUrl.startsWith("data:image") ? "Base64 image" : "URL") : "null"));
-
-            if (profileUrl != null && !profileUrl.isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(profileUrl)  // Glide handles both URLs and Base64 (data:image/...)
-                        .placeholder(R.drawable.circle_logo)
-                        .error(R.drawable.circle_logo)
-                        .circleCrop()
-                        .into(profileImage);
-            } else {
-                android.util.Log.w("ChatMessageAdapter", "No profile URL for received message, using default");
-                profileImage.setImageResource(R.drawable.circle_logo);
-            }
+            // Current name and photo are resolved from the sender id
+            bindSender(profileImage, senderName, message);
         }
     }
 }
@@ -36,8 +36,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.connectmate.models.ChatMessage;
 import com.example.connectmate.models.ChatRoom;
+import com.example.connectmate.utils.ChatMediaStore;
+import com.example.connectmate.utils.ChatMessageList;
+import com.example.connectmate.utils.ChatMessagePager;
+import com.example.connectmate.utils.ChatMessageStore;
 import com.example.connectmate.utils.FirebaseActivityManager;
 import com.example.connectmate.utils.FirebaseChatManager;
+import com.example.connectmate.utils.FirebaseListenerRegistry;
+import com.example.connectmate.utils.UserProfileRepository;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.button.MaterialButton;
@@ -52,6 +58,7 @@ import com.google.firebase.database.ValueEventListener;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -82,15 +89,19 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
 
     // Adapter
     private ChatMessageAdapter messageAdapter;
-    private List<ChatMessage> messages;
+    private ChatMessageList messages;
 
     // File Upload
     private java.util.ArrayList<Uri> selectedFileUris; // Multiple file support
     private ActivityResultLauncher<Intent> pickImageLauncher;
 
-    // Track if initial messages have been loaded
-    private boolean isInitialLoad = true;
-    private boolean hasScrolledToUnread = false;
+    // Message paging: newest page first, older pages as the user scrolls up
+    private static final int MESSAGE_PAGE_SIZE = 50;
+    private static final int LOAD_OLDER_THRESHOLD = 10; // items from the top that trigger the next page
+    private static final int MAX_LOADED_MESSAGES = 300; // older messages beyond this are dropped at the bottom
+    private static final int MESSAGE_SEARCH_LIMIT = 50;
+    private ChatMessagePager messagePager;
+    private FirebaseListenerRegistry.Subscription chatRoomSubscription;
 
     // Callback for when user info is loaded
     private interface OnUserInfoLoadedListener {
@@ -220,6 +231,9 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
         } else if (itemId == R.id.action_unfriend) {
             removeFriend();
             return true;
+        } else if (itemId == R.id.action_search_messages) {
+            showMessageSearchDialog();
+            return true;
         } else if (itemId == R.id.action_view_participants) {
             showParticipantsDialog();
             return true;
@@ -477,6 +491,57 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
     }
 
 
+    /**
+     * Search this room's cached messages; picking a result scrolls to it if it's loaded
+     */
+    private void showMessageSearchDialog() {
+        if (chatRoom == null) {
+            Toast.makeText(this, "채팅방 정보를 불러올 수 없습니다.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        TextInputEditText queryInput = new TextInputEditText(this);
+        queryInput.setHint("검색어");
+        queryInput.setSingleLine(true);
+        new AlertDialog.Builder(this)
+            .setTitle("메시지 검색")
+            .setView(queryInput)
+            .setPositiveButton("검색", (dialog, which) -> {
+                String query = queryInput.getText() != null ? queryInput.getText().toString() : "";
+                ChatMessageStore.getInstance(this).search(chatRoom.getId(), query, MESSAGE_SEARCH_LIMIT,
+                    this::showMessageSearchResults);
+            })
+            .setNegativeButton("취소", null)
+            .show();
+    }
+
+    private void showMessageSearchResults(List<ChatMessage> results) {
+        if (isFinishing() || isDestroyed()) return;
+        if (results.isEmpty()) {
+            Toast.makeText(this, "검색 결과가 없습니다.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String[] items = new String[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            ChatMessage result = results.get(i);
+            String text = result.getMessage() != null ? result.getMessage() : result.getFileName();
+            items[i] = result.getSenderName() + ": " + text;
+        }
+        new AlertDialog.Builder(this)
+            .setTitle("검색 결과 " + results.size() + "개")
+            .setItems(items, (dialog, which) -> {
+                int position = messages.indexOf(results.get(which).getId());
+                if (position >= 0) {
+                    messagesRecyclerView.scrollToPosition(position);
+                } else {
+                    Toast.makeText(this, "이전 메시지를 더 불러온 뒤 다시 시도해주세요.", Toast.LENGTH_SHORT).show();
+                }
+            })
+            .setNegativeButton("닫기", null)
+            .show();
+    }
+
     private void showParticipantsDialog() {
         if (chatRoom == null || chatRoom.getMembers().isEmpty()) {
             Toast.makeText(this, "참여자가 없습니다.", Toast.LENGTH_SHORT).show();
@@ -492,50 +557,17 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
                     friendIds.add(friendSnapshot.getKey());
                 }
 
-                // Fetch profile images for all participants
-                List<Participant> participants = new ArrayList<>();
-                int totalMembers = chatRoom.getMembers().size();
-                final int[] loadedCount = {0}; // Counter for loaded profiles
-
-                for (Map.Entry<String, ChatRoom.Member> entry : chatRoom.getMembers().entrySet()) {
-                    String userId = entry.getKey();
-                    String userName = entry.getValue().getName();
-
-                    // Fetch profile image URL from Firebase
-                    DatabaseReference userRef = FirebaseDatabase.getInstance()
-                            .getReference("users")
-                            .child(userId)
-                            .child("profileImageUrl");
-
-                    userRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot profileSnapshot) {
-                            String profileImageUrl = profileSnapshot.getValue(String.class);
-
-                            // Create participant with profile image URL
-                            participants.add(new Participant(userId, userName, false, profileImageUrl));
-                            loadedCount[0]++;
-
-                            // Show dialog when all profiles are loaded
-                            if (loadedCount[0] == totalMembers) {
-                                displayParticipantsDialog(participants, friendIds);
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            Log.e(TAG, "Failed to load profile for user: " + userId, error.toException());
-                            // Add participant without profile image
-                            participants.add(new Participant(userId, userName, false, null));
-                            loadedCount[0]++;
-
-                            // Show dialog when all profiles are loaded
-                            if (loadedCount[0] == totalMembers) {
-                                displayParticipantsDialog(participants, friendIds);
-                            }
-                        }
-                    });
-                }
+                // Profile photos for all participants in one batch from the shared profile cache
+                Map<String, ChatRoom.Member> members = new LinkedHashMap<>(chatRoom.getMembers());
+                UserProfileRepository.getInstance().getProfiles(members.keySet(), profiles -> {
+                    List<Participant> participants = new ArrayList<>(members.size());
+                    for (Map.Entry<String, ChatRoom.Member> entry : members.entrySet()) {
+                        UserProfileRepository.Profile profile = profiles.get(entry.getKey());
+                        String profileImageUrl = profile != null ? profile.getProfileImageUrl() : null;
+                        participants.add(new Participant(entry.getKey(), entry.getValue().getName(), false, profileImageUrl));
+                    }
+                    displayParticipantsDialog(participants, friendIds);
+                });
             }
 
             @Override
@@ -762,6 +794,9 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
                                 (profileUrl.length() > 50 ? profileUrl.substring(0, 50) + "..." : profileUrl));
                         }
 
+                        // Seed the profile cache so our own messages render without another read
+                        UserProfileRepository.getInstance().update(userId, currentUserName, currentUserProfileUrl);
+
                         Log.d(TAG, "=== Updated user info from Firebase ===");
                         Log.d(TAG, "User ID: " + currentUserId);
                         Log.d(TAG, "User Name: " + currentUserName);
@@ -855,8 +890,8 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
     }
 
     private void setupRecyclerView() {
-        messages = new ArrayList<>();
-        messageAdapter = new ChatMessageAdapter(messages, currentUserId);
+        messages = new ChatMessageList();
+        messageAdapter = new ChatMessageAdapter(currentUserId);
 
         // Set image click listener
         messageAdapter.setOnImageClickListener(this::showImageViewerDialog);
@@ -868,6 +903,19 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
         layoutManager.setStackFromEnd(true); // Start from bottom
         messagesRecyclerView.setLayoutManager(layoutManager);
         messagesRecyclerView.setAdapter(messageAdapter);
+
+        // Page in older messages near the top, drop far-away ones back at the bottom
+        messagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (messagePager == null) return;
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+                    messagePager.loadOlder();
+                } else if (dy > 0 && shouldAutoScroll() && trimOlderMessages()) {
+                    messageAdapter.submitList(messages.snapshot(), null);
+                }
+            }
+        });
     }
 
     private void setupMessageInput() {
@@ -1092,6 +1140,7 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
         newChatRoom.setCategory("private");
         newChatRoom.setHostId(currentUserId);
         newChatRoom.setCreatedTimestamp(System.currentTimeMillis());
+        newChatRoom.setMediaMigrated(true);
 
         // Add members
         Map<String, ChatRoom.Member> members = new HashMap<>();
@@ -1121,50 +1170,46 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
     }
 
     /**
-     * Load messages from Firebase with real-time updates
+     * Load messages from Firebase: the newest page, then real-time updates and older pages on scroll
      */
     private void loadMessagesFromFirebase() {
         if (chatRoom == null) return;
 
         FirebaseChatManager chatManager = FirebaseChatManager.getInstance();
 
-        // Listen for new messages in real-time
-        chatManager.listenForNewMessages(chatRoom.getId(), new FirebaseChatManager.MessageChangeListener() {
+        messagePager = chatManager.openMessagePager(chatRoom.getId(), MESSAGE_PAGE_SIZE, new FirebaseChatManager.MessagePageListener() {
+            @Override
+            public void onInitialPageLoaded(List<ChatMessage> page, boolean hasOlder) {
+                messages.setAll(page);
+                messageAdapter.submitList(messages.snapshot(), () -> scrollToUnreadOrBottom());
+                updateUI();
+                Log.d(TAG, "Initial messages loaded: " + page.size());
+            }
+
+            @Override
+            public void onOlderPageLoaded(List<ChatMessage> page, boolean hasOlder) {
+                // Inserting above the visible items keeps the current scroll anchor
+                int inserted = messages.prependAll(page);
+                if (inserted == 0) return;
+                messageAdapter.submitList(messages.snapshot(), null);
+                Log.d(TAG, "Older messages loaded: " + inserted + " (total " + messages.size() + ")");
+            }
+
             @Override
             public void onMessageAdded(ChatMessage message) {
-                // Check if message already exists to avoid duplicates
-                boolean exists = false;
-                for (ChatMessage m : messages) {
-                    if (m.getId() != null && m.getId().equals(message.getId())) {
-                        exists = true;
-                        break;
-                    }
+                // Duplicates are updated in place (id index lookup, no scan)
+                boolean isNew = messages.addOrUpdate(message);
+                boolean scrollToEnd = isNew
+                    && (shouldAutoScroll() || currentUserId.equals(message.getSenderId()));
+                if (scrollToEnd) {
+                    trimOlderMessages();
                 }
 
-                if (!exists) {
-                    messages.add(message);
-                    messageAdapter.notifyItemInserted(messages.size() - 1);
-
-                    // Handle scrolling based on whether it's initial load or new message
-                    if (isInitialLoad) {
-                        // During initial load, wait for all messages then scroll to unread
-                        if (!hasScrolledToUnread && !messages.isEmpty()) {
-                            // Use a delay to ensure all initial messages are loaded
-                            messagesRecyclerView.postDelayed(() -> {
-                                if (!hasScrolledToUnread) {
-                                    scrollToUnreadOrBottom();
-                                    hasScrolledToUnread = true;
-                                    isInitialLoad = false;
-                                }
-                            }, 1000);
-                        }
-                    } else {
-                        // For new messages after initial load, use existing logic
-                        if (shouldAutoScroll() || message.getSenderId().equals(currentUserId)) {
-                            messagesRecyclerView.scrollToPosition(messages.size() - 1);
-                        }
-                    }
+                messageAdapter.submitList(messages.snapshot(), scrollToEnd
+                    ? () -> messagesRecyclerView.scrollToPosition(messageAdapter.getItemCount() - 1)
+                    : null);
 
+                if (isNew) {
                     updateUI();
                     Log.d(TAG, "New message added: " + message.getMessage());
                 }
@@ -1173,27 +1218,19 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
             @Override
             public void onMessageChanged(ChatMessage message) {
                 // Update existing message
-                for (int i = 0; i < messages.size(); i++) {
-                    if (messages.get(i).getId() != null && messages.get(i).getId().equals(message.getId())) {
-                        messages.set(i, message);
-                        messageAdapter.notifyItemChanged(i);
-                        Log.d(TAG, "Message updated: " + message.getMessage());
-                        break;
-                    }
+                if (messages.update(message) >= 0) {
+                    messageAdapter.submitList(messages.snapshot(), null);
+                    Log.d(TAG, "Message updated: " + message.getMessage());
                 }
             }
 
             @Override
             public void onMessageRemoved(ChatMessage message) {
                 // Remove message
-                for (int i = 0; i < messages.size(); i++) {
-                    if (messages.get(i).getId() != null && messages.get(i).getId().equals(message.getId())) {
-                        messages.remove(i);
-                        messageAdapter.notifyItemRemoved(i);
-                        updateUI();
-                        Log.d(TAG, "Message removed");
-                        break;
-                    }
+                if (messages.remove(message.getId()) >= 0) {
+                    messageAdapter.submitList(messages.snapshot(), null);
+                    updateUI();
+                    Log.d(TAG, "Message removed");
                 }
             }
 
@@ -1203,6 +1240,48 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
                 Toast.makeText(ChatRoomActivity.this, "메시지 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
             }
         });
+
+        migrateLegacyMediaOnce();
+    }
+
+    /**
+     * Drop the oldest loaded messages once the window grows past MAX_LOADED_MESSAGES.
+     * Only called while the user is at the bottom, so the dropped items are far off screen;
+     * scrolling back up pages them in again. Returns true if anything was dropped.
+     */
+    private boolean trimOlderMessages() {
+        int excess = messages.size() - MAX_LOADED_MESSAGES;
+        if (excess <= 0 || messagePager == null) return false;
+
+        messages.removeOldest(excess);
+        messagePager.onOlderMessagesDropped(messages.get(0));
+        Log.d(TAG, "Dropped " + excess + " old messages from memory");
+        return true;
+    }
+
+    /**
+     * Move Base64 images/documents still embedded in this room's messages into Storage.
+     * The room records completion, so whichever member opens it first does the work and later
+     * opens skip it. Rewritten messages render from Storage on the next load.
+     */
+    private void migrateLegacyMediaOnce() {
+        if (chatRoom.isMediaMigrated()) return;
+
+        ChatMediaStore.getInstance().migrateLegacyMessages(chatRoom.getId(), new ChatMediaStore.OnCompleteListener<>() {
+            @Override
+            public void onSuccess(Integer migrated) {
+                Log.d(TAG, "Legacy media migration done: " + migrated + " messages");
+                if (migrated != null && migrated > 0) {
+                    // Cached copies still embed the Base64 data; re-fetch them next time
+                    ChatMessageStore.getInstance(ChatRoomActivity.this).deleteRoom(chatRoom.getId());
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Legacy media migration failed, will retry next time", e);
+            }
+        });
     }
 
     /**
@@ -1211,8 +1290,13 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
     private void listenForChatRoomUpdates() {
         if (chatRoom == null) return;
 
+        if (chatRoomSubscription != null) {
+            chatRoomSubscription.remove();
+        }
+
         FirebaseChatManager chatManager = FirebaseChatManager.getInstance();
-        chatManager.listenToChatRoom(chatRoom.getId(), new FirebaseChatManager.OnCompleteListener<>() {
+        // Removed automatically when this screen is destroyed
+        chatRoomSubscription = chatManager.listenToChatRoom(chatRoom.getId(), this, new FirebaseChatManager.OnCompleteListener<>() {
             @Override
             public void onSuccess(ChatRoom updatedRoom) {
                 chatRoom = updatedRoom;
@@ -1268,16 +1352,6 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
             return;
         }
 
-        // IMPORTANT: Reload profile URL from SharedPreferences before sending
-        // This ensures we have the latest profile photo (including Base64 images)
-        SharedPreferences prefs = getSharedPreferences("ConnectMate", Context.MODE_PRIVATE);
-        String latestProfileUrl = prefs.getString("profile_image_url", null);
-        if (latestProfileUrl != null && !latestProfileUrl.isEmpty()) {
-            currentUserProfileUrl = latestProfileUrl;
-            Log.d(TAG, "Refreshed profile URL from SharedPreferences: " +
-                (latestProfileUrl.startsWith("data:image") ? "Base64 image" : latestProfileUrl));
-        }
-
         if (!selectedFileUris.isEmpty()) {
             Log.d(TAG, selectedFileUris.size() + " files selected, uploading...");
             uploadMultipleFilesAndSendMessages(messageText); // Upload multiple files
@@ -1291,19 +1365,11 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
                 messageText
             );
 
-            // Set profile URL if available
-            if (currentUserProfileUrl != null && !currentUserProfileUrl.isEmpty()) {
-                message.setSenderProfileUrl(currentUserProfileUrl);
-                Log.d(TAG, "Setting profile URL on message: " +
-                    (currentUserProfileUrl.startsWith("data:image") ? "Base64 image (length: " + currentUserProfileUrl.length() + ")" : currentUserProfileUrl));
-            } else {
-                Log.w(TAG, "No profile URL available to set on message - will use default image");
-            }
+            // The sender's photo is resolved from senderId when displayed, not copied into the message
 
             Log.d(TAG, "=== Sending message ===");
             Log.d(TAG, "Sender ID: " + currentUserId);
             Log.d(TAG, "Sender Name: " + currentUserName);
-            Log.d(TAG, "Sender Profile URL: " + message.getSenderProfileUrl());
             Log.d(TAG, "Message Text: " + messageText);
 
             // Send message to Firebase
@@ -1371,168 +1437,105 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
 
     // Process a single image file
     private void processImageFile(Uri imageUri, String messageText) {
-        Log.d(TAG, "Starting image encoding...");
+        Log.d(TAG, "Starting image upload...");
         Log.d(TAG, "Selected URI: " + imageUri);
         Log.d(TAG, "Chat room ID: " + (chatRoom != null ? chatRoom.getId() : "NULL"));
 
         Toast.makeText(this, "사진을 처리 중입니다...", Toast.LENGTH_SHORT).show();
 
-        // Convert image to Base64 in background thread
-        new Thread(() -> {
-            try {
-                // Read image from URI
-                java.io.InputStream inputStream = getContentResolver().openInputStream(imageUri);
-                if (inputStream == null) {
-                    runOnUiThread(() -> Toast.makeText(this, "이미지를 읽을 수 없습니다.", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                // Compress and resize image
-                android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeStream(inputStream);
-                inputStream.close();
-
-                if (bitmap == null) {
-                    runOnUiThread(() -> Toast.makeText(this, "이미지 처리 실패", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                // Resize image to max 800x800 to reduce size
-                int maxSize = 800;
-                int width = bitmap.getWidth();
-                int height = bitmap.getHeight();
-                float scale = Math.min(((float) maxSize / width), ((float) maxSize / height));
-
-                if (scale < 1.0f) {
-                    int newWidth = Math.round(width * scale);
-                    int newHeight = Math.round(height * scale);
-                    bitmap = android.graphics.Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-                }
-
-                // Convert to Base64
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                bitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 70, baos);
-                byte[] imageBytes = baos.toByteArray();
-                String base64Image = "data:image/jpeg;base64," + android.util.Base64.encodeToString(imageBytes, android.util.Base64.DEFAULT);
-
-                Log.d(TAG, "Image encoded successfully. Size: " + base64Image.length() + " chars");
-
-                // Send message on UI thread
-                runOnUiThread(() -> {
-                    ChatMessage message = new ChatMessage(
-                        chatRoom.getId(),
-                        currentUserId,
-                        currentUserName,
-                        messageText.isEmpty() ? null : messageText
-                    );
-                    message.setImageUrl(base64Image); // Set Base64 image
-
-                    if (currentUserProfileUrl != null && !currentUserProfileUrl.isEmpty()) {
-                        message.setSenderProfileUrl(currentUserProfileUrl);
+        // Resize, hash and upload to Storage; the message only carries the reference
+        ChatMediaStore.getInstance().uploadImage(this, imageUri, new ChatMediaStore.OnCompleteListener<>() {
+            @Override
+            public void onSuccess(ChatMediaStore.MediaRef ref) {
+                Log.d(TAG, "Image uploaded: " + ref.getHash() + " (" + ref.getSize() + " bytes, "
+                    + ref.getWidth() + "x" + ref.getHeight() + ")");
+
+                ChatMessage message = new ChatMessage(
+                    chatRoom.getId(),
+                    currentUserId,
+                    currentUserName,
+                    messageText.isEmpty() ? null : messageText
+                );
+                ref.applyToImage(message);
+
+                Log.d(TAG, "Sending message with image reference...");
+                FirebaseChatManager.getInstance().sendMessage(message, new FirebaseChatManager.OnCompleteListener<>() {
+                    @Override
+                    public void onSuccess(ChatMessage result) {
+                        Log.d(TAG, "Image message sent successfully");
+                        runOnUiThread(() -> {
+                            messageInput.setText("");
+                            clearImageSelection();
+                            Toast.makeText(ChatRoomActivity.this, "사진 메시지가 전송되었습니다.", Toast.LENGTH_SHORT).show();
+                        });
                     }
 
-                    Log.d(TAG, "Sending message with Base64 image...");
-                    FirebaseChatManager.getInstance().sendMessage(message, new FirebaseChatManager.OnCompleteListener<>() {
-                        @Override
-                        public void onSuccess(ChatMessage result) {
-                            Log.d(TAG, "Image message sent successfully");
-                            runOnUiThread(() -> {
-                                messageInput.setText("");
-                                clearImageSelection();
-                                Toast.makeText(ChatRoomActivity.this, "사진 메시지가 전송되었습니다.", Toast.LENGTH_SHORT).show();
-                            });
-                        }
-
-                        @Override
-                        public void onError(Exception e) {
-                            Log.e(TAG, "Failed to send image message", e);
-                            runOnUiThread(() -> Toast.makeText(ChatRoomActivity.this, "사진 메시지 전송 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
-                        }
-                    });
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Failed to send image message", e);
+                        runOnUiThread(() -> Toast.makeText(ChatRoomActivity.this, "사진 메시지 전송 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                    }
                 });
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to encode image", e);
-                runOnUiThread(() -> Toast.makeText(this, "이미지 처리 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to upload image", e);
+                Toast.makeText(ChatRoomActivity.this, "이미지 처리 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
-        }).start();
+        });
     }
 
     // Process document files (PDF, docs, txt, etc.)
     private void processDocumentFile(Uri fileUri, String messageText, String mimeType) {
-        new Thread(() -> {
-            try {
-                // Get filename
-                String fileName = getFileName(fileUri);
-                if (fileName == null) {
-                    fileName = "document_" + System.currentTimeMillis();
-                }
-
-                // Read file data
-                java.io.InputStream inputStream = getContentResolver().openInputStream(fileUri);
-                if (inputStream == null) {
-                    runOnUiThread(() -> Toast.makeText(this, "파일을 읽을 수 없습니다.", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                // Convert to Base64
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = inputStream.read(buffer)) > -1) {
-                    baos.write(buffer, 0, len);
-                }
-                baos.flush();
-                inputStream.close();
-
-                byte[] fileBytes = baos.toByteArray();
-                String base64File = android.util.Base64.encodeToString(fileBytes, android.util.Base64.DEFAULT);
-
-                Log.d(TAG, "Document encoded successfully. Size: " + base64File.length() + " chars, File: " + fileName);
-
-                final String finalFileName = fileName;
+        String fileName = getFileName(fileUri);
+        if (fileName == null) {
+            fileName = "document_" + System.currentTimeMillis();
+        }
+        final String finalFileName = fileName;
 
-                // Send message on UI thread
-                runOnUiThread(() -> {
-                    ChatMessage message = new ChatMessage(
-                        chatRoom.getId(),
-                        currentUserId,
-                        currentUserName,
-                        messageText.isEmpty() ? null : messageText
-                    );
-                    message.setFileUrl(base64File);
-                    message.setFileName(finalFileName);
-                    message.setFileType(mimeType);
-                    message.setMessageType(ChatMessage.TYPE_DOCUMENT);
-
-                    if (currentUserProfileUrl != null && !currentUserProfileUrl.isEmpty()) {
-                        message.setSenderProfileUrl(currentUserProfileUrl);
+        ChatMediaStore.getInstance().uploadDocument(this, fileUri, mimeType, new ChatMediaStore.OnCompleteListener<>() {
+            @Override
+            public void onSuccess(ChatMediaStore.MediaRef ref) {
+                Log.d(TAG, "Document uploaded: " + ref.getHash() + " (" + ref.getSize() + " bytes), File: " + finalFileName);
+
+                ChatMessage message = new ChatMessage(
+                    chatRoom.getId(),
+                    currentUserId,
+                    currentUserName,
+                    messageText.isEmpty() ? null : messageText
+                );
+                ref.applyToDocument(message);
+                message.setFileName(finalFileName);
+                message.setFileType(mimeType);
+                message.setMessageType(ChatMessage.TYPE_DOCUMENT);
+
+                Log.d(TAG, "Sending message with document...");
+                FirebaseChatManager.getInstance().sendMessage(message, new FirebaseChatManager.OnCompleteListener<>() {
+                    @Override
+                    public void onSuccess(ChatMessage result) {
+                        Log.d(TAG, "Document message sent successfully");
+                        runOnUiThread(() -> {
+                            messageInput.setText("");
+                            clearImageSelection();
+                            Toast.makeText(ChatRoomActivity.this, "파일이 전송되었습니다.", Toast.LENGTH_SHORT).show();
+                        });
                     }
 
-                    Log.d(TAG, "Sending message with document...");
-                    FirebaseChatManager.getInstance().sendMessage(message, new FirebaseChatManager.OnCompleteListener<>() {
-                        @Override
-                        public void onSuccess(ChatMessage result) {
-                            Log.d(TAG, "Document message sent successfully");
-                            runOnUiThread(() -> {
-                                messageInput.setText("");
-                                clearImageSelection();
-                                Toast.makeText(ChatRoomActivity.this, "파일이 전송되었습니다.", Toast.LENGTH_SHORT).show();
-                            });
-                        }
-
-                        @Override
-                        public void onError(Exception e) {
-                            Log.e(TAG, "Failed to send document message", e);
-                            runOnUiThread(() -> Toast.makeText(ChatRoomActivity.this, "파일 전송 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
-                        }
-                    });
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Failed to send document message", e);
+                        runOnUiThread(() -> Toast.makeText(ChatRoomActivity.this, "파일 전송 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                    }
                 });
+            }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to encode document", e);
-                runOnUiThread(() -> Toast.makeText(this, "파일 처리 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to upload document", e);
+                Toast.makeText(ChatRoomActivity.this, "파일 처리 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
-        }).start();
+        });
     }
 
     // Get filename from URI
@@ -1592,71 +1595,79 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
     private void downloadImageToGallery(String imageUrl) {
         Toast.makeText(this, "이미지를 다운로드 중입니다...", Toast.LENGTH_SHORT).show();
 
-        new Thread(() -> {
-            try {
-                // Decode Base64 image
-                String base64Image = imageUrl;
-                if (base64Image.contains(",")) {
-                    base64Image = base64Image.split(",")[1];
-                }
+        // Works for both Storage URLs and legacy Base64 images
+        ChatMediaStore.getInstance().downloadBytes(imageUrl, new ChatMediaStore.OnCompleteListener<>() {
+            @Override
+            public void onSuccess(byte[] imageBytes) {
+                new Thread(() -> saveImageToGallery(imageBytes)).start();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to download image", e);
+                Toast.makeText(ChatRoomActivity.this, "이미지 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-                byte[] imageBytes = android.util.Base64.decode(base64Image, android.util.Base64.DEFAULT);
-                android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
+    // Save downloaded image bytes to the gallery (background thread)
+    private void saveImageToGallery(byte[] imageBytes) {
+        try {
+            android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
 
-                if (bitmap == null) {
-                    runOnUiThread(() -> Toast.makeText(this, "이미지 다운로드 실패", Toast.LENGTH_SHORT).show());
-                    return;
-                }
+            if (bitmap == null) {
+                runOnUiThread(() -> Toast.makeText(this, "이미지 다운로드 실패", Toast.LENGTH_SHORT).show());
+                return;
+            }
 
-                // Save to gallery
-                String fileName = "ConnectMate_" + System.currentTimeMillis() + ".jpg";
+            // Save to gallery
+            String fileName = "ConnectMate_" + System.currentTimeMillis() + ".jpg";
 
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
-                    // API 29+ (Android 10+): Use MediaStore with RELATIVE_PATH
-                    android.content.ContentValues values = new android.content.ContentValues();
-                    values.put(android.provider.MediaStore.Images.Media.DISPLAY_NAME, fileName);
-                    values.put(android.provider.MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
-                    values.put(android.provider.MediaStore.Images.Media.RELATIVE_PATH, android.os.Environment.DIRECTORY_PICTURES + "/ConnectMate");
+            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
+                // API 29+ (Android 10+): Use MediaStore with RELATIVE_PATH
+                android.content.ContentValues values = new android.content.ContentValues();
+                values.put(android.provider.MediaStore.Images.Media.DISPLAY_NAME, fileName);
+                values.put(android.provider.MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
+                values.put(android.provider.MediaStore.Images.Media.RELATIVE_PATH, android.os.Environment.DIRECTORY_PICTURES + "/ConnectMate");
 
-                    android.net.Uri uri = getContentResolver().insert(android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
+                android.net.Uri uri = getContentResolver().insert(android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
 
-                    if (uri != null) {
-                        try (java.io.OutputStream outputStream = getContentResolver().openOutputStream(uri)) {
-                            if (outputStream != null) {
-                                bitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 100, outputStream);
-                            }
-                            runOnUiThread(() -> Toast.makeText(this, "갤러리에 저장되었습니다.", Toast.LENGTH_SHORT).show());
+                if (uri != null) {
+                    try (java.io.OutputStream outputStream = getContentResolver().openOutputStream(uri)) {
+                        if (outputStream != null) {
+                            bitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 100, outputStream);
                         }
-                    } else {
-                        runOnUiThread(() -> Toast.makeText(this, "이미지 저장 실패", Toast.LENGTH_SHORT).show());
+                        runOnUiThread(() -> Toast.makeText(this, "갤러리에 저장되었습니다.", Toast.LENGTH_SHORT).show());
                     }
                 } else {
-                    // API < 29: Use legacy method
-                    java.io.File picturesDir = android.os.Environment.getExternalStoragePublicDirectory(android.os.Environment.DIRECTORY_PICTURES);
-                    java.io.File connectMateDir = new java.io.File(picturesDir, "ConnectMate");
-                    if (!connectMateDir.exists()) {
-                        connectMateDir.mkdirs();
-                    }
-                    java.io.File imageFile = new java.io.File(connectMateDir, fileName);
+                    runOnUiThread(() -> Toast.makeText(this, "이미지 저장 실패", Toast.LENGTH_SHORT).show());
+                }
+            } else {
+                // API < 29: Use legacy method
+                java.io.File picturesDir = android.os.Environment.getExternalStoragePublicDirectory(android.os.Environment.DIRECTORY_PICTURES);
+                java.io.File connectMateDir = new java.io.File(picturesDir, "ConnectMate");
+                if (!connectMateDir.exists()) {
+                    connectMateDir.mkdirs();
+                }
+                java.io.File imageFile = new java.io.File(connectMateDir, fileName);
 
-                    try (java.io.FileOutputStream fos = new java.io.FileOutputStream(imageFile)) {
-                        bitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 100, fos);
+                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(imageFile)) {
+                    bitmap.compress(android.graphics.Bitmap.CompressFormat.JPEG, 100, fos);
 
-                        // Notify media scanner
-                        android.content.ContentValues values = new android.content.ContentValues();
-                        values.put(android.provider.MediaStore.Images.Media.DATA, imageFile.getAbsolutePath());
-                        values.put(android.provider.MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
-                        getContentResolver().insert(android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
+                    // Notify media scanner
+                    android.content.ContentValues values = new android.content.ContentValues();
+                    values.put(android.provider.MediaStore.Images.Media.DATA, imageFile.getAbsolutePath());
+                    values.put(android.provider.MediaStore.Images.Media.MIME_TYPE, "image/jpeg");
+                    getContentResolver().insert(android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
 
-                        runOnUiThread(() -> Toast.makeText(this, "갤러리에 저장되었습니다.", Toast.LENGTH_SHORT).show());
-                    }
+                    runOnUiThread(() -> Toast.makeText(this, "갤러리에 저장되었습니다.", Toast.LENGTH_SHORT).show());
                 }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to download image", e);
-                runOnUiThread(() -> Toast.makeText(this, "이미지 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
             }
-        }).start();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save image", e);
+            runOnUiThread(() -> Toast.makeText(this, "이미지 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+        }
     }
 
     // Download document to Downloads folder
@@ -1668,56 +1679,68 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
 
         Toast.makeText(this, "파일을 다운로드 중입니다...", Toast.LENGTH_SHORT).show();
 
-        new Thread(() -> {
-            try {
-                // Decode Base64 file
-                byte[] fileBytes = android.util.Base64.decode(fileUrl, android.util.Base64.DEFAULT);
+        // Works for both Storage URLs and legacy Base64 documents
+        ChatMediaStore.getInstance().downloadBytes(fileUrl, new ChatMediaStore.OnCompleteListener<>() {
+            @Override
+            public void onSuccess(byte[] fileBytes) {
+                new Thread(() -> saveDocumentToDownloads(fileBytes, fileName, fileType)).start();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to download document", e);
+                Toast.makeText(ChatRoomActivity.this, "파일 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-                if (fileBytes == null || fileBytes.length == 0) {
-                    runOnUiThread(() -> Toast.makeText(this, "파일 다운로드 실패", Toast.LENGTH_SHORT).show());
-                    return;
-                }
+    // Save downloaded document bytes to the Downloads folder (background thread)
+    private void saveDocumentToDownloads(byte[] fileBytes, String fileName, String fileType) {
+        try {
+            if (fileBytes == null || fileBytes.length == 0) {
+                runOnUiThread(() -> Toast.makeText(this, "파일 다운로드 실패", Toast.LENGTH_SHORT).show());
+                return;
+            }
 
-                // Save to Downloads folder
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
-                    // API 29+ (Android 10+): Use MediaStore.Downloads
-                    android.content.ContentValues values = new android.content.ContentValues();
-                    values.put(android.provider.MediaStore.Downloads.DISPLAY_NAME, fileName);
-                    if (fileType != null && !fileType.isEmpty()) {
-                        values.put(android.provider.MediaStore.Downloads.MIME_TYPE, fileType);
-                    }
-                    values.put(android.provider.MediaStore.Downloads.RELATIVE_PATH, android.os.Environment.DIRECTORY_DOWNLOADS);
+            // Save to Downloads folder
+            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
+                // API 29+ (Android 10+): Use MediaStore.Downloads
+                android.content.ContentValues values = new android.content.ContentValues();
+                values.put(android.provider.MediaStore.Downloads.DISPLAY_NAME, fileName);
+                if (fileType != null && !fileType.isEmpty()) {
+                    values.put(android.provider.MediaStore.Downloads.MIME_TYPE, fileType);
+                }
+                values.put(android.provider.MediaStore.Downloads.RELATIVE_PATH, android.os.Environment.DIRECTORY_DOWNLOADS);
 
-                    android.net.Uri uri = getContentResolver().insert(android.provider.MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
+                android.net.Uri uri = getContentResolver().insert(android.provider.MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
 
-                    if (uri != null) {
-                        try (java.io.OutputStream outputStream = getContentResolver().openOutputStream(uri)) {
-                            if (outputStream != null) {
-                                outputStream.write(fileBytes);
-                                outputStream.flush();
-                            }
-                            runOnUiThread(() -> Toast.makeText(this, "다운로드 폴더에 저장되었습니다: " + fileName, Toast.LENGTH_LONG).show());
+                if (uri != null) {
+                    try (java.io.OutputStream outputStream = getContentResolver().openOutputStream(uri)) {
+                        if (outputStream != null) {
+                            outputStream.write(fileBytes);
+                            outputStream.flush();
                         }
-                    } else {
-                        runOnUiThread(() -> Toast.makeText(this, "파일 저장 실패", Toast.LENGTH_SHORT).show());
-                    }
-                } else {
-                    // API < 29: Use legacy method
-                    java.io.File downloadsDir = android.os.Environment.getExternalStoragePublicDirectory(android.os.Environment.DIRECTORY_DOWNLOADS);
-                    java.io.File file = new java.io.File(downloadsDir, fileName);
-
-                    try (java.io.FileOutputStream fos = new java.io.FileOutputStream(file)) {
-                        fos.write(fileBytes);
-                        fos.flush();
                         runOnUiThread(() -> Toast.makeText(this, "다운로드 폴더에 저장되었습니다: " + fileName, Toast.LENGTH_LONG).show());
                     }
+                } else {
+                    runOnUiThread(() -> Toast.makeText(this, "파일 저장 실패", Toast.LENGTH_SHORT).show());
+                }
+            } else {
+                // API < 29: Use legacy method
+                java.io.File downloadsDir = android.os.Environment.getExternalStoragePublicDirectory(android.os.Environment.DIRECTORY_DOWNLOADS);
+                java.io.File file = new java.io.File(downloadsDir, fileName);
+
+                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(file)) {
+                    fos.write(fileBytes);
+                    fos.flush();
+                    runOnUiThread(() -> Toast.makeText(this, "다운로드 폴더에 저장되었습니다: " + fileName, Toast.LENGTH_LONG).show());
                 }
-
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to download document", e);
-                runOnUiThread(() -> Toast.makeText(this, "파일 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
             }
-        }).start();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save document", e);
+            runOnUiThread(() -> Toast.makeText(this, "파일 다운로드 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+        }
     }
 
     private void updateUI() {
@@ -1789,7 +1812,7 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
         } else {
             // No unread messages or first time opening, scroll to bottom
             messagesRecyclerView.post(() -> {
-                messagesRecyclerView.scrollToPosition(messages.size() - 1);
+                messagesRecyclerView.scrollToPosition(messageAdapter.getItemCount() - 1);
                 Log.d(TAG, "Scrolled to bottom (latest message)");
             });
         }
@@ -1825,6 +1848,7 @@ public class ChatRoomActivity extends AppCompatActivity implements ParticipantAd
         // Clean up Firebase listeners
         if (chatRoom != null) {
             FirebaseChatManager.getInstance().removeMessageListener(chatRoom.getId());
+            messagePager = null;
         }
     }
 }
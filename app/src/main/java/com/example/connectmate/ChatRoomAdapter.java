@@ -10,6 +10,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.example.connectmate.models.ChatRoom;
 import com.example.connectmate.utils.CategoryMapper;
+import com.example.connectmate.utils.UserProfileRepository;
 import com.google.android.material.chip.Chip;
 import com.google.firebase.auth.FirebaseAuth;
 import de.hdodenhof.circleimageview.CircleImageView;
@@ -18,6 +19,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRoomViewHolder> {
 
@@ -138,9 +140,27 @@ public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRo
                 }
             });
 
-            // Load last message sender's profile image
-            // Supports both Firebase Storage URLs and Base64 encoded images
-            String profileUrl = chatRoom.getLastMessageSenderProfileUrl();
+            // Load last message sender's profile image, resolved from the sender id
+            // (older rooms also carry a copy of the URL, used until the profile is loaded)
+            String senderId = chatRoom.getLastMessageSenderId();
+            UserProfileRepository.Profile profile = UserProfileRepository.getInstance().peek(senderId);
+            if (profile != null || senderId == null) {
+                showSenderPhoto(chatRoom, profile);
+            } else {
+                showSenderPhoto(chatRoom, null);
+                UserProfileRepository.getInstance().getProfile(senderId, loaded -> {
+                    // The view may have been rebound to another room meanwhile
+                    if (Objects.equals(profileImage.getTag(R.id.profile_image), senderId)) {
+                        showSenderPhoto(chatRoom, loaded);
+                    }
+                });
+            }
+        }
+
+        private void showSenderPhoto(ChatRoom chatRoom, UserProfileRepository.Profile profile) {
+            profileImage.setTag(R.id.profile_image, chatRoom.getLastMessageSenderId());
+            String profileUrl = profile != null && profile.getProfileImageUrl() != null
+                ? profile.getProfileImageUrl() : chatRoom.getLastMessageSenderProfileUrl();
             if (profileUrl != null && !profileUrl.isEmpty()) {
                 Glide.with(itemView.getContext())
                         .load(profileUrl)  // Glide handles both URLs and Base64 (data:image/...)
@@ -150,6 +170,7 @@ public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRo
                         .into(profileImage);
             } else {
                 // Fallback to main logo
+                Glide.with(itemView.getContext()).clear(profileImage);
                 profileImage.setImageResource(R.drawable.circle_logo);
             }
         }
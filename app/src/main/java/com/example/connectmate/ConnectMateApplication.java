@@ -10,7 +10,9 @@ import android.net.NetworkCapabilities;
 import android.util.Base64;
 import android.util.Log;
 
+import com.example.connectmate.utils.ChatMessageStore;
 import com.example.connectmate.utils.ThemeManager;
+import com.example.connectmate.utils.UserProfileRepository;
 import com.kakao.sdk.common.KakaoSdk;
 import com.kakao.vectormap.KakaoMapSdk;
 import com.navercorp.nid.NaverIdLoginSDK;
@@ -46,6 +48,13 @@ public class ConnectMateApplication extends Application {
 
         // Check network connectivity
         checkNetworkConnectivity();
+
+        // Enable the on-disk tier of the shared user profile cache
+        UserProfileRepository.getInstance(this);
+
+        // Open the on-disk chat message cache and drop the old per-room JSON blobs it replaces
+        ChatMessageStore.getInstance(this);
+        deleteSharedPreferences("ConnectMateChats");
     }
 
     private void initializeKakaoSdks() {
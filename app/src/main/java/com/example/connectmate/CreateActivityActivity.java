@@ -32,6 +32,7 @@ import com.google.android.gms.location.LocationServices;
 import com.example.connectmate.models.Activity;
 import com.example.connectmate.models.PlaceSearchResult;
 import com.example.connectmate.utils.FirebaseActivityManager;
+import com.example.connectmate.utils.KakaoLocalClient;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 import com.google.android.material.chip.Chip;
@@ -44,21 +45,13 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-
 public class CreateActivityActivity extends AppCompatActivity {
 
     private static final String TAG = "CreateActivityActivity";
@@ -85,8 +78,8 @@ public class CreateActivityActivity extends AppCompatActivity {
     private RecyclerView locationSearchResultsRecycler;
     private PlaceSearchAdapter locationSearchAdapter;
     private List<PlaceSearchResult> locationSearchResults;
-    private OkHttpClient httpClient;
-    private Gson gson;
+    private KakaoLocalClient kakaoLocalClient;
+    private final Object locationSearchRequestTag = new Object();
     private android.os.Handler searchHandler;
     private Runnable searchRunnable;
     private static final long SEARCH_DELAY_MS = 800;
@@ -373,8 +366,7 @@ public class CreateActivityActivity extends AppCompatActivity {
         locationSearchResultsRecycler = findViewById(R.id.location_search_results_recycler);
 
         // Initialize HTTP client and search components
-        httpClient = new OkHttpClient();
-        gson = new Gson();
+        kakaoLocalClient = KakaoLocalClient.getInstance(this);
         locationSearchResults = new ArrayList<>();
         searchHandler = new android.os.Handler(android.os.Looper.getMainLooper());
     }
@@ -699,35 +691,25 @@ public class CreateActivityActivity extends AppCompatActivity {
 
     private void geocodeLocation(String locationName, Activity activity, java.util.function.Consumer<Activity> callback) {
         // API call to geocode the location name
-        String apiUrl = "https://dapi.kakao.com/v2/local/search/address.json?query=" + android.net.Uri.encode(locationName);
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        kakaoLocalClient.searchAddress(locationName, new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Geocoding failed for: " + locationName, e);
                 // Proceed without coordinates
-                runOnUiThread(() -> callback.accept(activity));
+                callback.accept(activity);
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
-                    JsonArray documents = jsonObject.getAsJsonArray("documents");
+            public void onSuccess(JsonObject jsonObject) {
+                JsonArray documents = jsonObject.getAsJsonArray("documents");
 
-                    if (documents != null && !documents.isEmpty()) {
-                        JsonObject doc = documents.get(0).getAsJsonObject();
-                        activity.setLatitude(doc.get("y").getAsDouble());
-                        activity.setLongitude(doc.get("x").getAsDouble());
-                    }
+                if (documents != null && !documents.isEmpty()) {
+                    JsonObject doc = documents.get(0).getAsJsonObject();
+                    activity.setLatitude(doc.get("y").getAsDouble());
+                    activity.setLongitude(doc.get("x").getAsDouble());
                 }
                 // Proceed with or without coordinates
-                runOnUiThread(() -> callback.accept(activity));
+                callback.accept(activity);
             }
         });
     }
@@ -786,46 +768,31 @@ public class CreateActivityActivity extends AppCompatActivity {
 
         Log.d(TAG, "Searching for location: " + query);
 
-        // Build API URL with current location for proximity-based search
-        String apiUrl = "https://dapi.kakao.com/v2/local/search/keyword.json?query=" +
-            android.net.Uri.encode(query);
-
-        // Add current location for proximity search (Kakao API will return sorted by distance)
+        // Use current location for proximity search (Kakao API will return sorted by distance)
+        double latitude = 37.5665;
+        double longitude = 126.9780;
         if (currentLocation != null) {
-            double longitude = currentLocation.getLongitude();
-            double latitude = currentLocation.getLatitude();
-            apiUrl += "&x=" + longitude + "&y=" + latitude + "&radius=20000"; // 20km radius
+            latitude = currentLocation.getLatitude();
+            longitude = currentLocation.getLongitude();
             Log.d(TAG, "Using current location for search: lat=" + latitude + ", lng=" + longitude);
         } else {
             // Fallback to Seoul center if no location available
-            apiUrl += "&x=126.9780&y=37.5665&radius=20000";
             Log.d(TAG, "Using default Seoul location for search");
         }
 
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        // 20km radius; a newer keystroke's search supersedes this one
+        kakaoLocalClient.searchKeyword(query, latitude, longitude, 20000, null, locationSearchRequestTag,
+                new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Location search request failed", e);
-                runOnUiThread(() -> Toast.makeText(CreateActivityActivity.this,
-                    "검색 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                Toast.makeText(CreateActivityActivity.this,
+                    "검색 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Location search response not successful: " + response.code());
-                    return;
-                }
-
-                String responseBody = response.body().string();
-
+            public void onSuccess(JsonObject jsonObject) {
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     List<PlaceSearchResult> results = new ArrayList<>();
@@ -856,14 +823,12 @@ public class CreateActivityActivity extends AppCompatActivity {
                         results.add(place);
                     }
 
-                    runOnUiThread(() -> {
-                        if (results.isEmpty()) {
-                            hideLocationSearchResults();
-                            Toast.makeText(CreateActivityActivity.this, "검색 결과가 없습니다", Toast.LENGTH_SHORT).show();
-                        } else {
-                            displayLocationSearchResults(results);
-                        }
-                    });
+                    if (results.isEmpty()) {
+                        hideLocationSearchResults();
+                        Toast.makeText(CreateActivityActivity.this, "검색 결과가 없습니다", Toast.LENGTH_SHORT).show();
+                    } else {
+                        displayLocationSearchResults(results);
+                    }
                 } catch (Exception e) {
                     Log.e(TAG, "Error parsing location search results", e);
                 }
@@ -905,6 +870,10 @@ public class CreateActivityActivity extends AppCompatActivity {
      * Hide location search results
      */
     private void hideLocationSearchResults() {
+        // A search still in flight would otherwise reopen the card
+        if (kakaoLocalClient != null) {
+            kakaoLocalClient.cancel(locationSearchRequestTag);
+        }
         if (locationSearchResultsCard != null) {
             locationSearchResultsCard.setVisibility(View.GONE);
         }
@@ -14,6 +14,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.example.connectmate.utils.FirebaseNotificationManager;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.DataSnapshot;
@@ -196,7 +197,7 @@ public class FriendRequestAdapter extends RecyclerView.Adapter<FriendRequestAdap
                     // Find the friend request notification from this sender
                     if ("FRIEND_REQUEST".equals(type) && senderId.equals(notifSenderId)) {
                         // Delete this notification
-                        child.getRef().removeValue()
+                        FirebaseNotificationManager.getInstance().deleteNotification(currentUserId, child)
                             .addOnSuccessListener(aVoid ->
                                 Log.d("FriendRequestAdapter", "Friend request notification deleted for sender: " + senderId))
                             .addOnFailureListener(e ->
@@ -23,6 +23,7 @@ import androidx.viewpager2.adapter.FragmentStateAdapter;
 import androidx.viewpager2.widget.ViewPager2;
 import com.example.connectmate.models.ChatRoom;
 import com.example.connectmate.utils.FirebaseChatManager;
+import com.example.connectmate.utils.UserProfileRepository;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 import com.google.firebase.auth.FirebaseAuth;
@@ -49,6 +50,9 @@ public class FriendsActivity extends AppCompatActivity implements UserAdapter.On
     public List<User> friendRequestList = new ArrayList<>();
     public UserAdapter userAdapter;
     public FriendRequestAdapter friendRequestAdapter;
+    // Bumped on every list snapshot so slower profile loads for an older one are dropped
+    private int friendsGeneration;
+    private int friendRequestsGeneration;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -110,33 +114,27 @@ public class FriendsActivity extends AppCompatActivity implements UserAdapter.On
         usersRef.child(currentUserId).child("friends").addValueEventListener(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                friendList.clear();
+                int generation = ++friendsGeneration;
                  if (!snapshot.exists()) {
                     // This is normal if the user has no friends or the node was just created.
                     Log.d(TAG, "Friends node does not exist or is empty.");
+                    friendList.clear();
                     userAdapter.notifyDataSetChanged();
                     return;
                 }
+                List<String> friendIds = new ArrayList<>();
                 for (DataSnapshot friendSnapshot : snapshot.getChildren()) {
-                    String friendId = friendSnapshot.getKey();
-                    if (friendId != null) {
-                        usersRef.child(friendId).addListenerForSingleValueEvent(new ValueEventListener() {
-                            @Override
-                            public void onDataChange(@NonNull DataSnapshot userSnapshot) {
-                                User user = userSnapshot.getValue(User.class);
-                                if (user != null) {
-                                    friendList.add(user);
-                                }
-                                userAdapter.notifyDataSetChanged();
-                            }
-
-                            @Override
-                            public void onCancelled(@NonNull DatabaseError error) {
-                                Log.w(TAG, "loadFriends:onCancelled", error.toException());
-                            }
-                        });
+                    if (friendSnapshot.getKey() != null) {
+                        friendIds.add(friendSnapshot.getKey());
                     }
                 }
+                UserProfileRepository.getInstance().getProfiles(friendIds, profiles -> {
+                    // A newer friends snapshot may have arrived while profiles were loading
+                    if (generation != friendsGeneration) return;
+                    friendList.clear();
+                    friendList.addAll(toUsers(profiles));
+                    userAdapter.notifyDataSetChanged();
+                });
             }
 
             @Override
@@ -150,31 +148,24 @@ public class FriendsActivity extends AppCompatActivity implements UserAdapter.On
         usersRef.child(currentUserId).child("friendRequests").addValueEventListener(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                friendRequestList.clear();
+                int generation = ++friendRequestsGeneration;
                 if (!snapshot.exists()){
+                     friendRequestList.clear();
                      friendRequestAdapter.notifyDataSetChanged();
                      return;
                 }
+                List<String> requesterIds = new ArrayList<>();
                 for (DataSnapshot requestSnapshot : snapshot.getChildren()) {
-                    String requesterId = requestSnapshot.getKey();
-                    if (requesterId != null) {
-                        usersRef.child(requesterId).addListenerForSingleValueEvent(new ValueEventListener() {
-                            @Override
-                            public void onDataChange(@NonNull DataSnapshot userSnapshot) {
-                                User user = userSnapshot.getValue(User.class);
-                                if (user != null) {
-                                    friendRequestList.add(user);
-                                }
-                                friendRequestAdapter.notifyDataSetChanged();
-                            }
-
-                            @Override
-                            public void onCancelled(@NonNull DatabaseError error) {
-                                Log.w(TAG, "loadFriendRequests:onCancelled", error.toException());
-                            }
-                        });
+                    if (requestSnapshot.getKey() != null) {
+                        requesterIds.add(requestSnapshot.getKey());
                     }
                 }
+                UserProfileRepository.getInstance().getProfiles(requesterIds, profiles -> {
+                    if (generation != friendRequestsGeneration) return;
+                    friendRequestList.clear();
+                    friendRequestList.addAll(toUsers(profiles));
+                    friendRequestAdapter.notifyDataSetChanged();
+                });
             }
 
             @Override
@@ -184,6 +175,21 @@ public class FriendsActivity extends AppCompatActivity implements UserAdapter.On
         });
     }
 
+    // Friend lists only show name and photo, which the profile cache provides
+    private static List<User> toUsers(Map<String, UserProfileRepository.Profile> profiles) {
+        List<User> users = new ArrayList<>(profiles.size());
+        for (UserProfileRepository.Profile profile : profiles.values()) {
+            // Profiles without a name belong to deleted accounts
+            if (profile == null || profile.getDisplayName() == null) continue;
+            User user = new User();
+            user.setUserId(profile.getUserId());
+            user.setDisplayName(profile.getDisplayName());
+            user.setProfileImageUrl(profile.getProfileImageUrl());
+            users.add(user);
+        }
+        return users;
+    }
+
     @Override
     public void onChatClick(User user) {
         if (user == null || user.getUserId() == null || user.getUserId().isEmpty()) {
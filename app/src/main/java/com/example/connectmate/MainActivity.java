@@ -35,6 +35,7 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.example.connectmate.models.PlaceSearchResult;
+import com.example.connectmate.utils.KakaoLocalClient;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
@@ -42,15 +43,8 @@ import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -110,8 +104,8 @@ public class MainActivity extends AppCompatActivity {
     private RecyclerView mainSearchResultsRecycler;
     private PlaceSearchAdapter mainSearchAdapter;
     private List<PlaceSearchResult> mainSearchResults;
-    private OkHttpClient httpClient;
-    private Gson gson;
+    private KakaoLocalClient kakaoLocalClient;
+    private final Object mainSearchRequestTag = new Object();
     private android.os.Handler searchHandler;
     private Runnable searchRunnable;
     private static final long SEARCH_DELAY_MS = 800;
@@ -403,8 +397,7 @@ public class MainActivity extends AppCompatActivity {
         }
 
         // Initialize HTTP client and search components
-        httpClient = new OkHttpClient();
-        gson = new Gson();
+        kakaoLocalClient = KakaoLocalClient.getInstance(this);
         mainSearchResults = new ArrayList<>();
         searchHandler = new android.os.Handler(android.os.Looper.getMainLooper());
 
@@ -986,6 +979,9 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (kakaoLocalClient != null) {
+            kakaoLocalClient.cancel(mainSearchRequestTag);
+        }
         Log.d(TAG, "MainActivity destroyed");
     }
 
@@ -1002,47 +998,30 @@ public class MainActivity extends AppCompatActivity {
 
         Log.d(TAG, "Searching for: " + query);
 
-        // Get current location for proximity search
-        String apiUrl = "https://dapi.kakao.com/v2/local/search/keyword.json?query=" +
-            android.net.Uri.encode(query);
-
-        // Try to get current location from MapFragment
+        // Search near the current location from MapFragment, or Seoul center if unavailable
+        double latitude = 37.5665;
+        double longitude = 126.9780;
         Location currentLocation = getCurrentLocationFromMap();
         if (currentLocation != null) {
-            double longitude = currentLocation.getLongitude();
-            double latitude = currentLocation.getLatitude();
-            apiUrl += "&x=" + longitude + "&y=" + latitude + "&radius=20000"; // 20km radius
+            latitude = currentLocation.getLatitude();
+            longitude = currentLocation.getLongitude();
             Log.d(TAG, "Searching near current location: " + latitude + ", " + longitude);
         } else {
-            // Default to Seoul center if no location available
-            apiUrl += "&x=126.9780&y=37.5665&radius=20000";
             Log.d(TAG, "Using default location (Seoul) for search");
         }
 
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        // 20km radius; a newer keystroke's search supersedes this one
+        kakaoLocalClient.searchKeyword(query, latitude, longitude, 20000, null, mainSearchRequestTag,
+                new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Main search request failed", e);
-                runOnUiThread(() -> Toast.makeText(MainActivity.this,
-                    "검색 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+                Toast.makeText(MainActivity.this, "검색 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Main search response not successful: " + response.code());
-                    return;
-                }
-
-                String responseBody = response.body().string();
-
+            public void onSuccess(JsonObject jsonObject) {
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     List<PlaceSearchResult> results = new ArrayList<>();
@@ -1073,14 +1052,12 @@ public class MainActivity extends AppCompatActivity {
                         results.add(place);
                     }
 
-                    runOnUiThread(() -> {
-                        if (results.isEmpty()) {
-                            hideMainSearchResults();
-                            Toast.makeText(MainActivity.this, "검색 결과가 없습니다", Toast.LENGTH_SHORT).show();
-                        } else {
-                            displayMainSearchResults(results);
-                        }
-                    });
+                    if (results.isEmpty()) {
+                        hideMainSearchResults();
+                        Toast.makeText(MainActivity.this, "검색 결과가 없습니다", Toast.LENGTH_SHORT).show();
+                    } else {
+                        displayMainSearchResults(results);
+                    }
                 } catch (Exception e) {
                     Log.e(TAG, "Error parsing main search results", e);
                 }
@@ -1127,6 +1104,10 @@ public class MainActivity extends AppCompatActivity {
      * Hide search results
      */
     private void hideMainSearchResults() {
+        // A search still in flight would otherwise reopen the card
+        if (kakaoLocalClient != null) {
+            kakaoLocalClient.cancel(mainSearchRequestTag);
+        }
         if (mainSearchResultsCard != null) {
             mainSearchResultsCard.setVisibility(View.GONE);
         }
@@ -1236,32 +1217,16 @@ public class MainActivity extends AppCompatActivity {
      * Reverse geocode coordinates to get address using Kakao API
      */
     private void reverseGeocode(double latitude, double longitude) {
-        String apiUrl = "https://dapi.kakao.com/v2/local/geo/coord2address.json?x=" +
-            longitude + "&y=" + latitude;
-
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        kakaoLocalClient.coordToAddress(latitude, longitude, new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Reverse geocoding failed", e);
                 // Keep card hidden on failure
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Reverse geocoding response not successful: " + response.code());
-                    return;
-                }
-
-                String responseBody = response.body().string();
-
+            public void onSuccess(JsonObject jsonObject) {
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     if (documents != null && !documents.isEmpty()) {
@@ -1280,24 +1245,19 @@ public class MainActivity extends AppCompatActivity {
                         if (address != null) {
                             // Shorten the address for display
                             String shortAddress = shortenAddress(address);
-                            String finalAddress = shortAddress;
-                            runOnUiThread(() -> {
-                                if (currentLocationText != null) {
-                                    currentLocationText.setText(finalAddress);
-                                }
-                                if (currentLocationCard != null) {
-                                    currentLocationCard.setVisibility(View.VISIBLE);
-                                }
-                            });
+                            if (currentLocationText != null) {
+                                currentLocationText.setText(shortAddress);
+                            }
+                            if (currentLocationCard != null) {
+                                currentLocationCard.setVisibility(View.VISIBLE);
+                            }
                         }
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Error parsing reverse geocoding results", e);
-                    runOnUiThread(() -> {
-                        if (currentLocationText != null) {
-                            currentLocationText.setText("현재 위치");
-                        }
-                    });
+                    if (currentLocationText != null) {
+                        currentLocationText.setText("현재 위치");
+                    }
                 }
             }
         });
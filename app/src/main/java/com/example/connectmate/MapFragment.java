@@ -4,8 +4,6 @@ import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.location.Location;
 import android.location.LocationManager;
 import android.os.Bundle;
@@ -39,23 +37,21 @@ import com.example.connectmate.models.Activity;
 import com.example.connectmate.models.PlaceSearchResult;
 import com.example.connectmate.utils.CategoryMapper;
 import com.example.connectmate.utils.FirebaseActivityManager;
+import com.example.connectmate.utils.GeoHash;
+import com.example.connectmate.utils.KakaoLocalClient;
+import com.example.connectmate.utils.MarkerClusterer;
+import com.example.connectmate.utils.MarkerStyleRegistry;
 import com.google.firebase.database.ChildEventListener;
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * MapFragment - Fragment containing Kakao Map with activity markers
@@ -65,6 +61,15 @@ public class MapFragment extends Fragment {
     private static final String TAG = "MapFragment";
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 1001;
 
+    // Viewport-driven loading: max geohash cells subscribed at once, and extra margin
+    // (as a fraction of the viewport span on each side) prefetched around the visible area
+    private static final int MAX_VIEWPORT_CELLS = 12;
+    private static final double VIEWPORT_PREFETCH_MARGIN = 0.5;
+
+    // Marker clustering: screen-space grid cell size and label id prefix for cluster markers
+    private static final int CLUSTER_GRID_SIZE_DP = 60;
+    private static final String CLUSTER_LABEL_PREFIX = "cluster_";
+
     // Map components
     private MapView mapView;
     private KakaoMap kakaoMap;
@@ -93,17 +98,20 @@ public class MapFragment extends Fragment {
     private RecyclerView poiActivitiesRecycler;
 
 
-    // HTTP client for Kakao API
-    private OkHttpClient httpClient;
-    private Gson gson;
+    // Kakao Local API; a new map tap supersedes the previous POI lookup
+    private KakaoLocalClient kakaoLocalClient;
+    private final Object poiRequestTag = new Object();
 
     // Data
-    private Map<LatLng, List<Activity>> activityGroups;
-    private Map<LatLng, Label> markerMap;
+    private MarkerClusterer clusterer; // Activity clusters precomputed for every zoom level
+    private Map<Long, Label> clusterLabels; // Cluster cell key -> label at renderedZoom
+    private int renderedZoom = -1; // Zoom level the cluster labels were built for
+    private MarkerStyleRegistry markerStyles; // Marker styles shared by all labels on this map
     private Label currentLocationLabel; // Label for current location marker
     private LocationManager locationManager;
     private boolean isMapInitialized = false; // Track if map has been initialized
-    private ChildEventListener activityChangeListener;
+    private final Map<String, ChildEventListener> cellListeners = new HashMap<>(); // geohash cell -> listener
+    private final Map<String, Activity> loadedActivities = new HashMap<>(); // activityId -> activity on map
     private boolean isRequestingLocation = false; // Track if actively requesting location
     private android.location.LocationListener activeLocationListener = null; // Store active listener for cleanup
 
@@ -126,9 +134,8 @@ public class MapFragment extends Fragment {
 
         // POI Info Card will be shown as a PopupWindow - no need to initialize here
 
-        // Initialize HTTP client and JSON parser
-        httpClient = new OkHttpClient();
-        gson = new Gson();
+        // Shared Kakao Local API client
+        kakaoLocalClient = KakaoLocalClient.getInstance(requireContext());
 
         // Setup "Use Location" button
         btnUseLocation.setOnClickListener(v -> {
@@ -152,8 +159,8 @@ public class MapFragment extends Fragment {
                 mapView.setVisibility(View.GONE);
             }
             // Still initialize data for when switching to real device
-            activityGroups = new HashMap<>();
-            markerMap = new HashMap<>();
+            clusterer = new MarkerClusterer(CLUSTER_GRID_SIZE_DP * getResources().getDisplayMetrics().density);
+            clusterLabels = new HashMap<>();
             locationManager = (LocationManager) requireContext().getSystemService(Context.LOCATION_SERVICE);
             return view;
         }
@@ -167,8 +174,8 @@ public class MapFragment extends Fragment {
         }
 
         // Initialize data
-        activityGroups = new HashMap<>();
-        markerMap = new HashMap<>();
+        clusterer = new MarkerClusterer(CLUSTER_GRID_SIZE_DP * getResources().getDisplayMetrics().density);
+        clusterLabels = new HashMap<>();
         locationManager = (LocationManager) requireContext().getSystemService(Context.LOCATION_SERVICE);
 
         // Wait for view to be laid out before initializing map
@@ -239,6 +246,7 @@ public class MapFragment extends Fragment {
 
                 // Store map reference
                 kakaoMap = map;
+                markerStyles = new MarkerStyleRegistry(requireContext(), map.getLabelManager());
                 isMapInitialized = true; // Mark map as initialized
 
                 // Map is now configured and ready to use
@@ -276,21 +284,38 @@ public class MapFragment extends Fragment {
 
         FirebaseActivityManager activityManager = FirebaseActivityManager.getInstance();
 
+        // Index any legacy activities so viewport and POI lookups can find them via geohash queries
+        activityManager.backfillGeohashIndex();
+
         // Set up click listener for activity markers
         kakaoMap.setOnLabelClickListener((map, layer, label) -> {
-            LatLng position = label.getPosition();
-            if (getContext() != null && position != null) {
-                List<Activity> activities = activityGroups.get(position);
-                if (activities != null && !activities.isEmpty()) {
-                    Activity activity = activities.get(0);
-                    PlaceSearchResult place = new PlaceSearchResult();
-                    place.setLatitude(position.getLatitude());
-                    place.setLongitude(position.getLongitude());
-                    place.setPlaceName(activity.getLocation());
-
-                    // Fetch real address via reverse geocoding
-                    fetchAddressForPlace(place);
-                }
+            String labelId = label.getLabelId();
+            if (getContext() == null || labelId == null || !labelId.startsWith(CLUSTER_LABEL_PREFIX)) {
+                return true;
+            }
+
+            long key = Long.parseLong(labelId.substring(CLUSTER_LABEL_PREFIX.length()));
+            MarkerClusterer.Cluster cluster = clusterer.getCluster(renderedZoom, key);
+            if (cluster == null) {
+                return true;
+            }
+
+            if (cluster.getCount() > 1 && !clusterer.isSinglePosition(cluster)) {
+                // Zoom in to split the cluster into its members
+                kakaoMap.moveCamera(CameraUpdateFactory.newCenterPosition(
+                    LatLng.from(cluster.getLatitude(), cluster.getLongitude()), renderedZoom + 2));
+                return true;
+            }
+
+            Activity activity = loadedActivities.get(cluster.getIds().iterator().next());
+            if (activity != null) {
+                PlaceSearchResult place = new PlaceSearchResult();
+                place.setLatitude(activity.getLatitude());
+                place.setLongitude(activity.getLongitude());
+                place.setPlaceName(activity.getLocation());
+
+                // Fetch real address via reverse geocoding
+                fetchAddressForPlace(place);
             }
             return true;
         });
@@ -300,8 +325,64 @@ public class MapFragment extends Fragment {
             fetchPoiDetails(Objects.requireNonNull(poi).getName(), position.getLatitude(), position.getLongitude());
         });
 
-        // Listen for real-time activity changes
-        activityChangeListener = activityManager.listenForActivityChanges(new FirebaseActivityManager.ActivityChangeListener() {
+        // Re-cluster on zoom changes and reload the visible geohash cells whenever the camera settles
+        renderedZoom = kakaoMap.getCameraPosition().getZoomLevel();
+        kakaoMap.setOnCameraMoveEndListener((map, cameraPosition, gestureType) -> {
+            if (cameraPosition.getZoomLevel() != renderedZoom) {
+                rebuildClusterLabels(cameraPosition.getZoomLevel());
+            }
+            refreshViewportSubscriptions();
+        });
+
+        // Subscribe to the cells in the initial viewport
+        refreshViewportSubscriptions();
+    }
+
+    /**
+     * Subscribe to the geohash cells covering the viewport (plus prefetch margin),
+     * drop subscriptions for cells that scrolled away and evict their markers
+     */
+    private void refreshViewportSubscriptions() {
+        double[] bounds = getVisibleBounds();
+        if (bounds == null) return;
+
+        double latMargin = (bounds[2] - bounds[0]) * VIEWPORT_PREFETCH_MARGIN;
+        double lngMargin = (bounds[3] - bounds[1]) * VIEWPORT_PREFETCH_MARGIN;
+        Set<String> cells = GeoHash.coverBounds(
+            bounds[0] - latMargin, bounds[1] - lngMargin,
+            bounds[2] + latMargin, bounds[3] + lngMargin,
+            MAX_VIEWPORT_CELLS);
+
+        if (cells.equals(cellListeners.keySet())) return;
+
+        FirebaseActivityManager activityManager = FirebaseActivityManager.getInstance();
+
+        // Subscribe to newly visible cells first so overlapping activities never blink out
+        for (String cell : cells) {
+            if (!cellListeners.containsKey(cell)) {
+                cellListeners.put(cell, activityManager.listenForActivityChangesInCell(cell, createCellChangeListener(cell)));
+            }
+        }
+
+        // Unsubscribe from cells that left the viewport
+        Iterator<Map.Entry<String, ChildEventListener>> iterator = cellListeners.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ChildEventListener> entry = iterator.next();
+            if (!cells.contains(entry.getKey())) {
+                activityManager.removeCellChangeListener(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        evictActivitiesOutsideCells();
+        Log.d(TAG, "Viewport subscriptions: " + cellListeners.size() + " cells, " + loadedActivities.size() + " activities");
+    }
+
+    /**
+     * Real-time listener for one geohash cell of the viewport
+     */
+    private FirebaseActivityManager.ActivityChangeListener createCellChangeListener(String cell) {
+        return new FirebaseActivityManager.ActivityChangeListener() {
             @Override
             public void onActivityAdded(Activity activity) {
                 if (activity.getLatitude() != 0 && activity.getLongitude() != 0) {
@@ -322,6 +403,13 @@ public class MapFragment extends Fragment {
 
             @Override
             public void onActivityRemoved(Activity activity) {
+                // An activity that moved into another subscribed cell is removed from this one;
+                // keep its marker if the newer copy already arrived from the other cell
+                Activity loaded = loadedActivities.get(activity.getId());
+                if (loaded != null && loaded.getGeohash() != null
+                        && !loaded.getGeohash().startsWith(cell) && isInSubscribedCell(loaded.getGeohash())) {
+                    return;
+                }
                 removeActivityMarker(activity);
                 Log.d(TAG, "Activity marker removed: " + activity.getTitle());
             }
@@ -333,7 +421,57 @@ public class MapFragment extends Fragment {
                     Toast.makeText(getContext(), "활동 로드 중 오류가 발생했습니다", Toast.LENGTH_SHORT).show();
                 }
             }
-        });
+        };
+    }
+
+    /**
+     * Remove markers for activities no longer covered by any subscribed cell
+     */
+    private void evictActivitiesOutsideCells() {
+        for (Activity activity : new ArrayList<>(loadedActivities.values())) {
+            if (activity.getGeohash() == null || !isInSubscribedCell(activity.getGeohash())) {
+                removeActivityMarker(activity);
+            }
+        }
+    }
+
+    private boolean isInSubscribedCell(String geohash) {
+        for (String cell : cellListeners.keySet()) {
+            if (geohash.startsWith(cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the visible map area as {minLat, minLng, maxLat, maxLng}, or null if the map is not laid out
+     */
+    @Nullable
+    private double[] getVisibleBounds() {
+        if (kakaoMap == null || mapView == null || mapView.getWidth() == 0 || mapView.getHeight() == 0) {
+            return null;
+        }
+
+        int width = mapView.getWidth();
+        int height = mapView.getHeight();
+        LatLng[] corners = {
+            kakaoMap.fromScreenPoint(0, 0),
+            kakaoMap.fromScreenPoint(width, 0),
+            kakaoMap.fromScreenPoint(0, height),
+            kakaoMap.fromScreenPoint(width, height)
+        };
+
+        double minLat = Double.MAX_VALUE, minLng = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        for (LatLng corner : corners) {
+            if (corner == null) return null;
+            minLat = Math.min(minLat, corner.getLatitude());
+            maxLat = Math.max(maxLat, corner.getLatitude());
+            minLng = Math.min(minLng, corner.getLongitude());
+            maxLng = Math.max(maxLng, corner.getLongitude());
+        }
+        return new double[] {minLat, minLng, maxLat, maxLng};
     }
 
     /**
@@ -342,15 +480,14 @@ public class MapFragment extends Fragment {
     private void addActivityMarker(Activity activity) {
         if (kakaoMap == null || activity == null) return;
 
-        LatLng position = LatLng.from(activity.getLatitude(), activity.getLongitude());
-        List<Activity> activities = activityGroups.get(position);
-        if (activities == null) {
-            activities = new ArrayList<>();
-            activityGroups.put(position, activities);
+        // Overlapping cell subscriptions can deliver the same activity twice
+        if (loadedActivities.containsKey(activity.getId())) {
+            removeActivityMarker(activity);
         }
-        activities.add(activity);
+        loadedActivities.put(activity.getId(), activity);
 
-        updateMarker(position);
+        clusterer.add(activity.getId(), activity.getLatitude(), activity.getLongitude());
+        updateClusterLabel(clusterer.cellKey(renderedZoom, activity.getLatitude(), activity.getLongitude()));
     }
 
     /**
@@ -359,91 +496,78 @@ public class MapFragment extends Fragment {
     private void removeActivityMarker(Activity activity) {
         if (kakaoMap == null || activity == null) return;
 
-        LatLng position = LatLng.from(activity.getLatitude(), activity.getLongitude());
-        List<Activity> activities = activityGroups.get(position);
-        if (activities != null) {
-            activities.removeIf(a -> a.getId().equals(activity.getId()));
-            if (activities.isEmpty()) {
-                activityGroups.remove(position);
-            }
-            updateMarker(position);
+        // Use the position the marker was added at, which may differ from an updated copy
+        Activity loaded = loadedActivities.remove(activity.getId());
+        if (loaded != null) {
+            activity = loaded;
+        }
+
+        if (clusterer.contains(activity.getId())) {
+            clusterer.remove(activity.getId());
+            updateClusterLabel(clusterer.cellKey(renderedZoom, activity.getLatitude(), activity.getLongitude()));
         }
     }
 
-    private void updateMarker(LatLng position) {
+    /**
+     * Re-render the single cluster label stored under a cell key at the current zoom level
+     */
+    private void updateClusterLabel(long key) {
         if (kakaoMap == null) return;
 
         LabelLayer labelLayer = kakaoMap.getLabelManager().getLayer();
         if (labelLayer == null) return;
 
-        Label existingMarker = markerMap.get(position);
+        Label existingMarker = clusterLabels.remove(key);
         if (existingMarker != null) {
             labelLayer.remove(existingMarker);
-            markerMap.remove(position);
         }
 
-        List<Activity> activities = activityGroups.get(position);
-        if (activities != null && !activities.isEmpty()) {
-            // Create simple marker bitmap without count
-            Bitmap markerBitmap = createSimpleMarkerBitmap();
-            LabelStyles styles = LabelStyles.from(LabelStyle.from(markerBitmap)
-                .setAnchorPoint(0.5f, 1.0f));
-
-            LabelOptions options = LabelOptions.from(position).setStyles(styles);
-            Label newMarker = labelLayer.addLabel(options);
-            markerMap.put(position, newMarker);
+        MarkerClusterer.Cluster cluster = clusterer.getCluster(renderedZoom, key);
+        if (cluster != null) {
+            clusterLabels.put(key, addClusterLabel(labelLayer, cluster));
         }
     }
 
-    private Bitmap createSimpleMarkerBitmap() {
-        // Create a simple bitmap from the map pin drawable
-        android.graphics.drawable.Drawable drawable = ContextCompat.getDrawable(requireContext(), R.drawable.ic_map_pin);
-        if (drawable == null) {
-            // Fallback: create a simple colored circle if drawable not found
-            int size = (int) (48 * getResources().getDisplayMetrics().density);
-            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(bitmap);
-            android.graphics.Paint paint = new android.graphics.Paint();
-            paint.setColor(ContextCompat.getColor(requireContext(), R.color.primary_blue));
-            paint.setAntiAlias(true);
-            canvas.drawCircle(size / 2f, size / 2f, size / 3f, paint);
-            return bitmap;
-        }
-
-        int width = drawable.getIntrinsicWidth();
-        int height = drawable.getIntrinsicHeight();
-
-        // Scale up for better visibility
-        int scale = 2;
-        width = width * scale;
-        height = height * scale;
-
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, width, height);
-        drawable.draw(canvas);
-        return bitmap;
-    }
+    /**
+     * Replace all cluster labels with the precomputed clusters of a new zoom level
+     */
+    private void rebuildClusterLabels(int zoom) {
+        renderedZoom = zoom;
+        if (kakaoMap == null) return;
 
-    private Bitmap createMarkerBitmap(int count) {
-        View markerView = LayoutInflater.from(getContext()).inflate(R.layout.custom_marker, null);
-        TextView markerText = markerView.findViewById(R.id.marker_text);
-        markerText.setText(String.valueOf(count));
+        LabelLayer labelLayer = kakaoMap.getLabelManager().getLayer();
+        if (labelLayer == null) return;
 
-        markerView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
-        markerView.layout(0, 0, markerView.getMeasuredWidth(), markerView.getMeasuredHeight());
+        for (Label label : clusterLabels.values()) {
+            labelLayer.remove(label);
+        }
+        clusterLabels.clear();
 
-        Bitmap bitmap = Bitmap.createBitmap(markerView.getMeasuredWidth(), markerView.getMeasuredHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        markerView.draw(canvas);
-        return bitmap;
+        for (MarkerClusterer.Cluster cluster : clusterer.getClusters(zoom)) {
+            clusterLabels.put(cluster.getKey(), addClusterLabel(labelLayer, cluster));
+        }
+        Log.d(TAG, "Rendered " + clusterLabels.size() + " clusters at zoom " + zoom);
     }
 
+    private Label addClusterLabel(LabelLayer labelLayer, MarkerClusterer.Cluster cluster) {
+        LatLng position;
+        LabelStyles styles;
+        if (cluster.getCount() == 1) {
+            // Single activity: exact position and a pin in its category color
+            String activityId = cluster.getIds().iterator().next();
+            double[] point = clusterer.getPoint(activityId);
+            Activity activity = loadedActivities.get(activityId);
+            position = LatLng.from(point[0], point[1]);
+            styles = markerStyles.getPinStyles(activity != null ? activity.getCategory() : null);
+        } else {
+            position = LatLng.from(cluster.getLatitude(), cluster.getLongitude());
+            styles = markerStyles.getClusterStyles(cluster.getCount());
+        }
 
-
-
-
-
+        LabelOptions options = LabelOptions.from(CLUSTER_LABEL_PREFIX + cluster.getKey(), position)
+            .setStyles(styles);
+        return labelLayer.addLabel(options);
+    }
 
     /**
      * Move camera to a specific location and add marker
@@ -571,36 +695,8 @@ public class MapFragment extends Fragment {
                 currentLocationLabel = null;
             }
 
-            // Create bitmap from vector drawable (Kakao Maps doesn't support vector drawables directly)
-            android.graphics.drawable.Drawable drawable = ContextCompat.getDrawable(requireContext(), R.drawable.ic_my_location_marker);
-            Bitmap markerBitmap;
-
-            if (drawable != null) {
-                // Convert drawable to bitmap
-                int width = drawable.getIntrinsicWidth() > 0 ? drawable.getIntrinsicWidth() : 64;
-                int height = drawable.getIntrinsicHeight() > 0 ? drawable.getIntrinsicHeight() : 64;
-                markerBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-                Canvas canvas = new Canvas(markerBitmap);
-                drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-                drawable.draw(canvas);
-            } else {
-                // Fallback: create a simple blue circle
-                int size = (int) (32 * getResources().getDisplayMetrics().density);
-                markerBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
-                Canvas canvas = new Canvas(markerBitmap);
-                android.graphics.Paint paint = new android.graphics.Paint();
-                paint.setColor(ContextCompat.getColor(requireContext(), R.color.primary_blue));
-                paint.setAntiAlias(true);
-                canvas.drawCircle(size / 2f, size / 2f, size / 2f * 0.8f, paint);
-            }
-
-            // Create marker style for current location using the bitmap
-            LabelStyle labelStyle = LabelStyle.from(markerBitmap)
-                .setAnchorPoint(0.5f, 0.5f)  // Anchor at center for circular marker
-                .setZoomLevel(0);  // Visible at all zoom levels
-
-            LabelStyles styles = kakaoMap.getLabelManager()
-                .addLabelStyles(LabelStyles.from(labelStyle));
+            // Shared style, built once per map
+            LabelStyles styles = markerStyles.getCurrentLocationStyles();
 
             // Create label options
             LabelOptions options = LabelOptions.from(
@@ -1011,37 +1107,18 @@ public class MapFragment extends Fragment {
     private void searchNearbyPlaces(double latitude, double longitude) {
         Log.d(TAG, "Searching for nearby places at: (" + latitude + ", " + longitude + ")");
 
-        // Build API URL for category search (search for any type of place)
-        String apiUrl = "https://dapi.kakao.com/v2/local/search/keyword.json?query=" +
-            android.net.Uri.encode("맛집") + // Default search for restaurants
-            "&x=" + longitude +
-            "&y=" + latitude +
-            "&radius=100&sort=distance"; // Search within 100 meters, sort by distance
-
-        Log.d(TAG, "Nearby places API URL: " + apiUrl);
-
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        // Default search for restaurants within 100 meters, sorted by distance; a newer map tap
+        // supersedes this one
+        kakaoLocalClient.searchKeyword("맛집", latitude, longitude, 100, "distance", poiRequestTag,
+                new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Failed to search nearby places", e);
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Nearby search response not successful: " + response.code());
-                    return;
-                }
-
-                String responseBody = Objects.requireNonNull(response.body()).string();
-
+            public void onSuccess(JsonObject jsonObject) {
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     if (documents != null && !documents.isEmpty()) {
@@ -1078,9 +1155,8 @@ public class MapFragment extends Fragment {
                             poi.setDistance(doc.get("distance").getAsInt());
                         }
 
-                        // Display POI info on UI thread
                         if (getActivity() != null) {
-                            getActivity().runOnUiThread(() -> displayPoiInfo(poi));
+                            displayPoiInfo(poi);
                         }
 
                         Log.d(TAG, "Nearby place found: " + poi.getPlaceName());
@@ -1101,47 +1177,23 @@ public class MapFragment extends Fragment {
     private void fetchPoiDetails(String poiName, double latitude, double longitude) {
         Log.d(TAG, "Fetching POI details for: " + poiName + " at (" + latitude + ", " + longitude + ")");
 
-        // Build API URL for keyword search with coordinates
-        // Sort by accuracy (relevance) first to get the most relevant match
-        String apiUrl = "https://dapi.kakao.com/v2/local/search/keyword.json?query=" +
-            android.net.Uri.encode(poiName) +
-            "&x=" + longitude +
-            "&y=" + latitude +
-            "&radius=50" + // Search within 50 meters
-            "&sort=accuracy"; // Sort by relevance
-
-        Log.d(TAG, "POI API URL: " + apiUrl);
-
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        // Keyword search within 50 meters, sorted by accuracy (relevance) first to get the most
+        // relevant match; a newer map tap supersedes this one
+        kakaoLocalClient.searchKeyword(poiName, latitude, longitude, 50, "accuracy", poiRequestTag,
+                new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Failed to fetch POI details", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        if (getContext() != null) {
-                            Toast.makeText(getContext(), "장소의 정보를 불러올 수 없습니다", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                if (getContext() != null) {
+                    Toast.makeText(getContext(), "장소의 정보를 불러올 수 없습니다", Toast.LENGTH_SHORT).show();
                 }
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "POI fetch response not successful: " + response.code());
-                    return;
-                }
-
-                String responseBody = Objects.requireNonNull(response.body()).string();
+            public void onSuccess(JsonObject jsonObject) {
                 Log.d(TAG, "POI response received");
 
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     if (documents != null && !documents.isEmpty()) {
@@ -1179,20 +1231,15 @@ public class MapFragment extends Fragment {
                             poi.setDistance(doc.get("distance").getAsInt());
                         }
 
-                        // Display POI info on UI thread
                         if (getActivity() != null) {
-                            getActivity().runOnUiThread(() -> displayPoiInfo(poi));
+                            displayPoiInfo(poi);
                         }
 
                         Log.d(TAG, "POI details fetched successfully: " + poi.getPlaceName());
                     } else {
                         Log.w(TAG, "No POI results found");
-                        if (getActivity() != null) {
-                            getActivity().runOnUiThread(() -> {
-                                if (getContext() != null) {
-                                    Toast.makeText(getContext(), poiName, Toast.LENGTH_SHORT).show();
-                                }
-                            });
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), poiName, Toast.LENGTH_SHORT).show();
                         }
                     }
                 } catch (Exception e) {
@@ -1472,39 +1519,20 @@ public class MapFragment extends Fragment {
     private void fetchAddressForPlace(PlaceSearchResult place) {
         if (place == null) return;
 
-        String apiUrl = "https://dapi.kakao.com/v2/local/geo/coord2address.json?x=" +
-            place.getLongitude() + "&y=" + place.getLatitude();
-
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .addHeader("Authorization", "KakaoAK " + BuildConfig.KAKAO_REST_API_KEY)
-            .build();
-
-        httpClient.newCall(request).enqueue(new Callback() {
+        kakaoLocalClient.coordToAddress(place.getLatitude(), place.getLongitude(),
+                new KakaoLocalClient.OnCompleteListener<JsonObject>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onError(Exception e) {
                 Log.e(TAG, "Reverse geocoding failed for place", e);
                 // Display POI info even without address
                 if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> displayPoiInfo(place));
+                    displayPoiInfo(place);
                 }
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Reverse geocoding response not successful: " + response.code());
-                    // Display POI info even without address
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> displayPoiInfo(place));
-                    }
-                    return;
-                }
-
-                String responseBody = Objects.requireNonNull(response.body()).string();
-
+            public void onSuccess(JsonObject jsonObject) {
                 try {
-                    JsonObject jsonObject = gson.fromJson(responseBody, JsonObject.class);
                     JsonArray documents = jsonObject.getAsJsonArray("documents");
 
                     if (documents != null && !documents.isEmpty()) {
@@ -1522,15 +1550,15 @@ public class MapFragment extends Fragment {
                         }
                     }
 
-                    // Display POI info on UI thread with address
+                    // Display POI info with address
                     if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> displayPoiInfo(place));
+                        displayPoiInfo(place);
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Error parsing reverse geocoding results for place", e);
                     // Display POI info even if parsing failed
                     if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> displayPoiInfo(place));
+                        displayPoiInfo(place);
                     }
                 }
             }
@@ -1615,6 +1643,11 @@ public class MapFragment extends Fragment {
         }
         poiPopupWindow = null;
 
+        // Drop a POI lookup still in flight
+        if (kakaoLocalClient != null) {
+            kakaoLocalClient.cancel(poiRequestTag);
+        }
+
         // Clean up location listener
         if (activeLocationListener != null && locationManager != null) {
             try {
@@ -1628,10 +1661,11 @@ public class MapFragment extends Fragment {
         isRequestingLocation = false;
 
         // Clean up Firebase listeners
-        if (activityChangeListener != null) {
-            FirebaseActivityManager.getInstance().removeActivityChangeListener(activityChangeListener);
-            activityChangeListener = null;
+        for (ChildEventListener cellListener : cellListeners.values()) {
+            FirebaseActivityManager.getInstance().removeCellChangeListener(cellListener);
         }
+        cellListeners.clear();
+        loadedActivities.clear();
 
         // Clean up map resources
         if (mapView != null && isMapInitialized) {
@@ -1647,11 +1681,16 @@ public class MapFragment extends Fragment {
         isMapInitialized = false; // Reset initialization flag
 
         // Clear marker collections
-        if (markerMap != null) {
-            markerMap.clear();
+        if (clusterLabels != null) {
+            clusterLabels.clear();
+        }
+        if (clusterer != null) {
+            clusterer.clear();
         }
-        if (activityGroups != null) {
-            activityGroups.clear();
+        renderedZoom = -1;
+        if (markerStyles != null) {
+            markerStyles.clear();
+            markerStyles = null;
         }
         currentLocationLabel = null;
 
@@ -19,6 +19,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.bumptech.glide.Glide;
 import com.example.connectmate.models.NotificationItem;
+import com.example.connectmate.utils.FirebaseNotificationManager;
 import com.example.connectmate.utils.NotificationHelper;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
@@ -213,7 +214,7 @@ public class ParticipantAdapter extends ArrayAdapter<Participant> {
                         notificationData.put("timestamp", System.currentTimeMillis());
                         notificationData.put("isRead", false);
 
-                        notificationsRef.child(notificationId).setValue(notificationData)
+                        FirebaseNotificationManager.getInstance().createNotification(friendId, notificationData)
                                 .addOnSuccessListener(aVoid -> {
                                     android.util.Log.d("ParticipantAdapter", "Friend request notification created successfully at: userNotifications/" + friendId + "/" + notificationId);
                                     // Show OS-level notification
@@ -15,6 +15,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.connectmate.models.PendingReviewItem;
+import com.example.connectmate.models.SnapshotMappers;
+import com.example.connectmate.utils.SnapshotDecoder;
+import com.example.connectmate.utils.UserProfileRepository;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -25,10 +28,7 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class PendingReviewsFragment extends Fragment {
 
@@ -41,10 +41,8 @@ public class PendingReviewsFragment extends Fragment {
 
     private PendingReviewsAdapter adapter;
     private final List<PendingReviewItem> pendingItems = new ArrayList<>();
-    private final Map<String, User> userCache = new HashMap<>();
 
     private DatabaseReference pendingReviewsRef;
-    private DatabaseReference usersRef;
     private ValueEventListener pendingListener;
     private FirebaseAuth auth;
 
@@ -72,7 +70,6 @@ public class PendingReviewsFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         auth = FirebaseAuth.getInstance();
         pendingReviewsRef = FirebaseDatabase.getInstance().getReference("pendingReviews");
-        usersRef = FirebaseDatabase.getInstance().getReference("users");
 
         // Get activity filter from arguments
         if (getArguments() != null) {
@@ -123,47 +120,45 @@ public class PendingReviewsFragment extends Fragment {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 android.util.Log.d("PendingReviewsFragment", "📋 Received snapshot with " + snapshot.getChildrenCount() + " pending reviews");
-                pendingItems.clear();
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    PendingReviewItem item = child.getValue(PendingReviewItem.class);
-                    android.util.Log.d("PendingReviewsFragment", "📋 Review item - key: " + child.getKey() + ", activityId: " + (item != null ? item.getActivityId() : "null"));
-                    if (item != null) {
-                        item.setId(child.getKey());
-
+                // Decode, filter and sort off the main thread
+                SnapshotDecoder.getInstance().<PendingReviewItem>decodeListLatest("PendingReviewsFragment.pendingReviews", this, snapshot,
+                    child -> {
+                        PendingReviewItem item = SnapshotMappers.toPendingReviewItem(child);
+                        if (item != null) {
+                            item.setId(child.getKey());
+                        }
+                        return item;
+                    },
+                    item -> {
                         // Filter by activityId if specified
-                        if (filterActivityId != null && !filterActivityId.isEmpty()) {
-                            // Only add items that match the filter activity
-                            if (filterActivityId.equals(item.getActivityId())) {
-                                android.util.Log.d("PendingReviewsFragment", "✅ Adding filtered review: " + child.getKey());
-                                pendingItems.add(item);
-                                fetchTargetUser(item.getTargetUserId());
-                            } else {
-                                android.util.Log.d("PendingReviewsFragment", "⚠️ Skipping review (filter mismatch): expected=" + filterActivityId + ", actual=" + item.getActivityId());
-                            }
-                        } else {
-                            // No filter, add all items
-                            android.util.Log.d("PendingReviewsFragment", "✅ Adding unfiltered review: " + child.getKey());
-                            pendingItems.add(item);
-                            fetchTargetUser(item.getTargetUserId());
+                        if (filterActivityId != null && !filterActivityId.isEmpty()
+                                && !filterActivityId.equals(item.getActivityId())) {
+                            android.util.Log.d("PendingReviewsFragment", "⚠️ Skipping review (filter mismatch): expected=" + filterActivityId + ", actual=" + item.getActivityId());
+                            return false;
                         }
-                    }
-                }
-
-                // Group by activity and sort by timestamp within each activity
-                Collections.sort(pendingItems, (a, b) -> {
-                    // First sort by activity title
-                    int activityCompare = compareActivityTitles(a.getActivityTitle(), b.getActivityTitle());
-                    if (activityCompare != 0) {
-                        return activityCompare;
-                    }
-                    // Then sort by timestamp (newest first) within same activity
-                    return Long.compare(b.getTimestamp(), a.getTimestamp());
-                });
-
-                android.util.Log.d("PendingReviewsFragment", "📋 Final pending items count: " + pendingItems.size());
-                adapter.notifyDataSetChanged();
-                showLoading(false);
-                updateEmptyState();
+                        return true;
+                    },
+                    // Group by activity and sort by timestamp within each activity
+                    (a, b) -> {
+                        // First sort by activity title
+                        int activityCompare = compareActivityTitles(a.getActivityTitle(), b.getActivityTitle());
+                        if (activityCompare != 0) {
+                            return activityCompare;
+                        }
+                        // Then sort by timestamp (newest first) within same activity
+                        return Long.compare(b.getTimestamp(), a.getTimestamp());
+                    },
+                    items -> {
+                        if (getView() == null) return;
+                        pendingItems.clear();
+                        pendingItems.addAll(items);
+
+                        android.util.Log.d("PendingReviewsFragment", "📋 Final pending items count: " + pendingItems.size());
+                        adapter.notifyDataSetChanged();
+                        showLoading(false);
+                        updateEmptyState();
+                        fetchTargetUsers();
+                    });
             }
 
             @Override
@@ -184,44 +179,32 @@ public class PendingReviewsFragment extends Fragment {
         return a.compareTo(b);
     }
 
-    private void fetchTargetUser(String userId) {
-        if (TextUtils.isEmpty(userId) || userCache.containsKey(userId)) {
-            updateItemsWithUser(userId);
-            return;
+    /**
+     * Fill in the current name and photo of every review target with one batch lookup
+     */
+    private void fetchTargetUsers() {
+        List<String> targetIds = new ArrayList<>();
+        for (PendingReviewItem item : pendingItems) {
+            if (!TextUtils.isEmpty(item.getTargetUserId())) {
+                targetIds.add(item.getTargetUserId());
+            }
         }
-
-        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                User target = snapshot.getValue(User.class);
-                if (target != null) {
-                    userCache.put(userId, target);
-                    updateItemsWithUser(userId);
+        if (targetIds.isEmpty()) return;
+
+        UserProfileRepository.getInstance().getProfiles(targetIds, profiles -> {
+            if (adapter == null) return;
+            for (int i = 0; i < pendingItems.size(); i++) {
+                PendingReviewItem item = pendingItems.get(i);
+                UserProfileRepository.Profile target = profiles.get(item.getTargetUserId());
+                if (target != null && target.getDisplayName() != null) {
+                    item.setTargetDisplayName(target.getDisplayName());
+                    item.setTargetProfileImageUrl(target.getProfileImageUrl());
+                    adapter.notifyItemChanged(i);
                 }
             }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Ignore
-            }
         });
     }
 
-    private void updateItemsWithUser(String userId) {
-        if (TextUtils.isEmpty(userId) || !userCache.containsKey(userId)) {
-            return;
-        }
-        User target = userCache.get(userId);
-        for (int i = 0; i < pendingItems.size(); i++) {
-            PendingReviewItem item = pendingItems.get(i);
-            if (userId.equals(item.getTargetUserId())) {
-                item.setTargetDisplayName(target.displayName);
-                item.setTargetProfileImageUrl(target.profileImageUrl);
-                adapter.notifyItemChanged(i);
-            }
-        }
-    }
-
     private void updateEmptyState() {
         if (emptyState != null) {
             emptyState.setVisibility(pendingItems.isEmpty() ? View.VISIBLE : View.GONE);
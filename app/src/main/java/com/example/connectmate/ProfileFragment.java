@@ -23,6 +23,7 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
 import com.example.connectmate.models.UserReview;
+import com.example.connectmate.utils.ConnectionGraph;
 import com.example.connectmate.utils.ThemeManager;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
@@ -540,7 +541,8 @@ public class ProfileFragment extends Fragment {
     }
 
     /**
-     * Calculate unique connections (unique users met through activities)
+     * Show the number of unique users met through activities (maintained by ConnectionGraph).
+     * Shows "-" when it isn't known, e.g. another user whose index was never built.
      */
     private void calculateUniqueConnections(String userId) {
         if (userId == null || userId.isEmpty()) {
@@ -548,43 +550,19 @@ public class ProfileFragment extends Fragment {
             return;
         }
 
-        DatabaseReference activitiesRef = FirebaseDatabase.getInstance().getReference("activities");
-
-        // Use a Set to track unique user IDs
-        java.util.Set<String> uniqueConnections = new java.util.HashSet<>();
-
-        activitiesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        ConnectionGraph.getInstance().getConnectionCount(userId, new ConnectionGraph.OnCompleteListener<Long>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                // Go through all activities
-                for (DataSnapshot activitySnapshot : dataSnapshot.getChildren()) {
-                    DataSnapshot participantsSnapshot = activitySnapshot.child("participants");
-
-                    // Check if this user is a participant
-                    if (participantsSnapshot.hasChild(userId)) {
-                        // Add all other participants to the set
-                        for (DataSnapshot participantSnapshot : participantsSnapshot.getChildren()) {
-                            String participantId = participantSnapshot.getKey();
-                            if (participantId != null && !participantId.equals(userId)) {
-                                uniqueConnections.add(participantId);
-                            }
-                        }
-                    }
-                }
-
-                // Update UI with unique connections count
-                int count = uniqueConnections.size();
+            public void onSuccess(Long count) {
                 if (connectionsCount != null) {
-                    connectionsCount.setText(String.valueOf(count));
+                    connectionsCount.setText(count != null ? String.valueOf(count) : "-");
                 }
-
                 android.util.Log.d("ProfileFragment", "Unique connections for " + userId + ": " + count);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                android.util.Log.e("ProfileFragment", "Failed to calculate connections: " + error.getMessage());
-                if (connectionsCount != null) connectionsCount.setText("0");
+            public void onError(Exception e) {
+                android.util.Log.e("ProfileFragment", "Failed to load connections: " + e.getMessage());
+                if (connectionsCount != null) connectionsCount.setText("-");
             }
         });
     }
@@ -935,6 +913,9 @@ public class ProfileFragment extends Fragment {
                 android.util.Log.e("ProfileFragment", "Error removing chat listeners", e);
             }
 
+            // Drop this user's cached chat messages
+            com.example.connectmate.utils.ChatMessageStore.getInstance(context).clear();
+
             // Clean up activity listeners
             try {
                 com.example.connectmate.utils.FirebaseActivityManager.getInstance().removeAllListeners();
@@ -16,7 +16,9 @@ import androidx.fragment.app.Fragment;
 
 import com.bumptech.glide.Glide;
 import com.example.connectmate.models.PendingReviewItem;
+import com.example.connectmate.models.SnapshotMappers;
 import com.example.connectmate.models.UserReview;
+import com.example.connectmate.utils.FirebaseNotificationManager;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -271,7 +273,7 @@ public class SubmitReviewFragment extends Fragment {
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean hasMoreReviewsForActivity = false;
                 for (DataSnapshot child : snapshot.getChildren()) {
-                    PendingReviewItem item = child.getValue(PendingReviewItem.class);
+                    PendingReviewItem item = SnapshotMappers.toPendingReviewItem(child);
                     if (item != null && activityId.equals(item.getActivityId())) {
                         hasMoreReviewsForActivity = true;
                         break;
@@ -316,7 +318,7 @@ public class SubmitReviewFragment extends Fragment {
                         if ("참여자 평가 요청".equals(notification.getTitle()) ||
                             "활동 종료".equals(notification.getTitle())) {
                             final String notifTitle = notification.getTitle();
-                            child.getRef().removeValue()
+                            FirebaseNotificationManager.getInstance().deleteNotification(userId, child)
                                 .addOnSuccessListener(aVoid -> {
                                     Log.d("SubmitReviewFragment", notifTitle + " notification deleted for activity: " + activityId);
                                 })
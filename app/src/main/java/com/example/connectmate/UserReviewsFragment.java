@@ -14,7 +14,9 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.connectmate.models.SnapshotMappers;
 import com.example.connectmate.models.UserReview;
+import com.example.connectmate.utils.SnapshotDecoder;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -25,7 +27,6 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class UserReviewsFragment extends Fragment {
@@ -101,21 +102,19 @@ public class UserReviewsFragment extends Fragment {
         reviewsListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                reviewList.clear();
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    UserReview review = child.getValue(UserReview.class);
-                    if (review != null) {
-                        if (review.getReviewId() == null) {
-                            review.setReviewId(child.getKey());
-                        }
-                        reviewList.add(review);
-                    }
-                }
-                Collections.sort(reviewList, (a, b) ->
-                    Long.compare(b.getTimestamp(), a.getTimestamp()));
-                adapter.notifyDataSetChanged();
-                showLoading(false);
-                updateEmptyState();
+                // Decode and sort off the main thread, newest first
+                SnapshotDecoder.getInstance().<UserReview>decodeListLatest("UserReviewsFragment.reviews", this, snapshot,
+                    SnapshotMappers::toUserReview,
+                    null,
+                    (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()),
+                    reviews -> {
+                        if (getView() == null) return;
+                        reviewList.clear();
+                        reviewList.addAll(reviews);
+                        adapter.notifyDataSetChanged();
+                        showLoading(false);
+                        updateEmptyState();
+                    });
             }
 
             @Override
@@ -1,6 +1,11 @@
 package com.example.connectmate.models;
 
+import com.example.connectmate.utils.CategoryMapper;
+import com.google.firebase.database.Exclude;
+
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Map;
 import java.util.UUID;
 
@@ -22,20 +27,35 @@ public class Activity implements Serializable {
     private String creatorId;
     private String creatorName;
     private long createdTimestamp;
+    private long updatedAt;   // Server time of the last write, for ActivityStore's delta sync
     private double latitude;  // GPS latitude for map display
     private double longitude; // GPS longitude for map display
+    private String geohash;   // Geohash of latitude/longitude for spatial queries
 
     // Fields for backward compatibility with old Firebase data
     private String dateTime;  // Old combined date/time field
     private Map<String, Object> participants;  // Old participants structure (Object to handle both String and Boolean)
     private String creatorProfileUrl;  // Creator's profile image URL
 
+    // Sort/filter keys derived from date/time/category, computed on first use and reset by the
+    // setters they depend on. Transient and excluded, so they are never stored or sent.
+    private transient boolean sortKeysComputed;
+    private transient long startTimeMillis;
+    private transient int primaryCategoryOrdinal;
+    private transient int categoryMask;
+
     // Default constructor
     public Activity() {
         this.id = UUID.randomUUID().toString();
         this.createdTimestamp = System.currentTimeMillis();
     }
 
+    // Constructor for SnapshotMappers; takes the id instead of generating one
+    Activity(String id) {
+        this.id = id;
+        this.createdTimestamp = System.currentTimeMillis();
+    }
+
     // Constructor with essential fields
     public Activity(String title, String description, String category, String date, String time,
                    String location, int maxParticipants, String visibility, String hashtags,
@@ -104,6 +124,7 @@ public class Activity implements Serializable {
 
     public void setCategory(String category) {
         this.category = category;
+        this.sortKeysComputed = false;
     }
 
     public String getDate() {
@@ -112,6 +133,7 @@ public class Activity implements Serializable {
 
     public void setDate(String date) {
         this.date = date;
+        this.sortKeysComputed = false;
     }
 
     public String getTime() {
@@ -120,6 +142,7 @@ public class Activity implements Serializable {
 
     public void setTime(String time) {
         this.time = time;
+        this.sortKeysComputed = false;
     }
 
     public String getLocation() {
@@ -186,6 +209,14 @@ public class Activity implements Serializable {
         this.createdTimestamp = createdTimestamp;
     }
 
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public double getLatitude() {
         return latitude;
     }
@@ -202,6 +233,14 @@ public class Activity implements Serializable {
         this.longitude = longitude;
     }
 
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
     /**
      * Get formatted date and time string
      */
@@ -227,6 +266,7 @@ public class Activity implements Serializable {
      */
     public void setDateTime(String dateTime) {
         this.dateTime = dateTime;
+        this.sortKeysComputed = false;
         // Optionally parse it into separate date and time if needed
         // For now, just store it to avoid deserialization errors
     }
@@ -246,4 +286,99 @@ public class Activity implements Serializable {
     public void setCreatorProfileUrl(String creatorProfileUrl) {
         this.creatorProfileUrl = creatorProfileUrl;
     }
+
+    /**
+     * Start of the activity in epoch millis (local time zone), or Long.MAX_VALUE if it has no date
+     */
+    @Exclude
+    public long getStartTimeMillis() {
+        ensureSortKeys();
+        return startTimeMillis;
+    }
+
+    /**
+     * CategoryMapper ordinal of the first listed category, or -1
+     */
+    @Exclude
+    public int getPrimaryCategoryOrdinal() {
+        ensureSortKeys();
+        return primaryCategoryOrdinal;
+    }
+
+    /**
+     * Bit set of the CategoryMapper ordinals of every listed category ("운동,스터디")
+     */
+    @Exclude
+    public int getCategoryMask() {
+        ensureSortKeys();
+        return categoryMask;
+    }
+
+    private void ensureSortKeys() {
+        if (sortKeysComputed) return;
+        String dateSource = date != null && !date.isEmpty() ? date : dateTime;
+        String timeSource = time != null && !time.isEmpty() ? time : null;
+        startTimeMillis = parseStartTimeMillis(dateSource, timeSource);
+
+        primaryCategoryOrdinal = -1;
+        categoryMask = 0;
+        if (category != null && !category.isEmpty()) {
+            String[] categories = category.split(",");
+            primaryCategoryOrdinal = CategoryMapper.ordinalOf(categories[0].trim());
+            categoryMask = CategoryMapper.maskOf(Arrays.asList(categories));
+        }
+        sortKeysComputed = true;
+    }
+
+    // Reads the first three numbers of the date ("2024-12-25", "2024년 12월 25일") and, if present,
+    // hour and minute of the time ("14:30", "오후 2:30"). Legacy dateTime strings carry both.
+    static long parseStartTimeMillis(String dateText, String timeText) {
+        int[] dateParts = new int[5];
+        int dateCount = readNumbers(dateText, dateParts, 5);
+        if (dateCount < 3) {
+            return Long.MAX_VALUE; // Put activities without dates at the end
+        }
+
+        int hour = dateCount >= 4 ? dateParts[3] : 0;
+        int minute = dateCount >= 5 ? dateParts[4] : 0;
+        String meridiemText = dateText;
+        if (timeText != null) {
+            int[] timeParts = new int[2];
+            int timeCount = readNumbers(timeText, timeParts, 2);
+            if (timeCount >= 1) {
+                hour = timeParts[0];
+                minute = timeCount >= 2 ? timeParts[1] : 0;
+                meridiemText = timeText;
+            }
+        }
+        if ((meridiemText.contains("오후") || meridiemText.contains("PM")) && hour < 12) {
+            hour += 12;
+        } else if ((meridiemText.contains("오전") || meridiemText.contains("AM")) && hour == 12) {
+            hour = 0;
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(dateParts[0], dateParts[1] - 1, dateParts[2], hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static int readNumbers(String text, int[] out, int max) {
+        if (text == null) return 0;
+        int count = 0;
+        int value = -1;
+        for (int i = 0; i < text.length() && count < max; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+            } else if (value >= 0) {
+                out[count++] = value;
+                value = -1;
+            }
+        }
+        if (value >= 0 && count < max) {
+            out[count++] = value;
+        }
+        return count;
+    }
 }
@@ -19,9 +19,14 @@ public class ChatMessage implements Serializable {
     private String senderProfileUrl;
     private String message;
     private String imageUrl; // 추가: 이미지 URL 필드
-    private String fileUrl; // 추가: 문서 파일 Base64 데이터
+    private String fileUrl; // 추가: 문서 파일 URL (legacy messages hold Base64 data)
     private String fileName; // 추가: 파일 이름
     private String fileType; // 추가: 파일 MIME 타입
+    private String mediaHash; // SHA-256 of the uploaded bytes (Storage path chatMedia/{mediaHash})
+    private long mediaSize;
+    private int imageWidth;
+    private int imageHeight;
+    private String blurHash; // Placeholder shown while the image loads
     private int messageType;
     private long timestamp;
     private boolean isRead;
@@ -34,6 +39,14 @@ public class ChatMessage implements Serializable {
         this.isRead = false;
     }
 
+    // Constructor for SnapshotMappers; takes the id instead of generating one
+    ChatMessage(String id) {
+        this.id = id;
+        this.timestamp = System.currentTimeMillis();
+        this.messageType = TYPE_TEXT;
+        this.isRead = false;
+    }
+
     // Constructor for text messages
     public ChatMessage(String chatRoomId, String senderId, String senderName, String message) {
         this();
@@ -138,6 +151,46 @@ public class ChatMessage implements Serializable {
         this.fileType = fileType;
     }
 
+    public String getMediaHash() {
+        return mediaHash;
+    }
+
+    public void setMediaHash(String mediaHash) {
+        this.mediaHash = mediaHash;
+    }
+
+    public long getMediaSize() {
+        return mediaSize;
+    }
+
+    public void setMediaSize(long mediaSize) {
+        this.mediaSize = mediaSize;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public void setImageWidth(int imageWidth) {
+        this.imageWidth = imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public void setImageHeight(int imageHeight) {
+        this.imageHeight = imageHeight;
+    }
+
+    public String getBlurHash() {
+        return blurHash;
+    }
+
+    public void setBlurHash(String blurHash) {
+        this.blurHash = blurHash;
+    }
+
     public int getMessageType() {
         return messageType;
     }
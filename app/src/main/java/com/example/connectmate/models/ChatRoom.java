@@ -28,6 +28,7 @@ public class ChatRoom implements Serializable {
     private long createdTimestamp;
     private String hostId; // User ID of the host (activity creator)
     private String hostName; // Display name of the host
+    private boolean mediaMigrated; // No messages left with inline Base64 media
 
     /**
      * Member inner class for Firebase structure
@@ -82,6 +83,17 @@ public class ChatRoom implements Serializable {
         this.unreadCount = 0;
     }
 
+    // Constructor for SnapshotMappers; takes the id instead of generating one
+    ChatRoom(String id) {
+        this.id = id;
+        this.memberIds = new ArrayList<>();
+        this.memberNames = new ArrayList<>();
+        this.members = new HashMap<>();
+        this.createdTimestamp = System.currentTimeMillis();
+        this.lastMessageTime = System.currentTimeMillis();
+        this.unreadCount = 0;
+    }
+
     // Constructor with essential fields
     public ChatRoom(String name, String activityId) {
         this();
@@ -228,6 +240,14 @@ public class ChatRoom implements Serializable {
         this.hostName = hostName;
     }
 
+    public boolean isMediaMigrated() {
+        return mediaMigrated;
+    }
+
+    public void setMediaMigrated(boolean mediaMigrated) {
+        this.mediaMigrated = mediaMigrated;
+    }
+
     /**
      * Add a member to the chat room
      */
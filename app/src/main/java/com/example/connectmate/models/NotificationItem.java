@@ -1,5 +1,7 @@
 package com.example.connectmate.models;
 
+import com.google.firebase.database.PropertyName;
+
 public class NotificationItem {
     private String id;
     private String title;
@@ -75,10 +77,13 @@ public class NotificationItem {
         this.timestamp = timestamp;
     }
 
+    // Stored as "isRead"; without the annotation the mapper would look for "read"
+    @PropertyName("isRead")
     public boolean isRead() {
         return isRead;
     }
 
+    @PropertyName("isRead")
     public void setRead(boolean read) {
         isRead = read;
     }
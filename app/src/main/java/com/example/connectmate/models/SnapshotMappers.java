@@ -0,0 +1,295 @@
+package com.example.connectmate.models;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SnapshotMappers - Reflection-free DataSnapshot to model decoding
+ * getValue(Class) goes through Firebase's CustomClassMapper, which first converts the whole
+ * snapshot into nested Maps and then matches every key against the class's getters, setters and
+ * annotations by reflection. These walk the snapshot's children once and call the setters
+ * directly, which is what bulk loads (thousands of activities, a page of messages) spend their
+ * time on. SnapshotMapperBenchmark (androidTest) compares the two on a fixture snapshot.
+ *
+ * Each mapper reads the same keys getValue would, with the same defaults (those of the model's
+ * no-arg constructor) and the same lenient number conversions. Differences:
+ * - a missing id is taken from the snapshot key rather than a random UUID
+ * - a value of the wrong type leaves the field at its default instead of failing the whole object
+ * - unknown keys are skipped without being converted
+ *
+ * Keep these in step with the models: a field added to a model must be added here too, or it
+ * won't be read. All return null when the snapshot doesn't hold an object.
+ */
+public final class SnapshotMappers {
+
+    private SnapshotMappers() {
+    }
+
+    @Nullable
+    public static Activity toActivity(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        Activity activity = new Activity(snapshot.getKey());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "id": activity.setId(asString(child)); break;
+                case "title": activity.setTitle(asString(child)); break;
+                case "description": activity.setDescription(asString(child)); break;
+                case "category": activity.setCategory(asString(child)); break;
+                case "date": activity.setDate(asString(child)); break;
+                case "time": activity.setTime(asString(child)); break;
+                case "location": activity.setLocation(asString(child)); break;
+                case "currentParticipants": activity.setCurrentParticipants(asInt(child)); break;
+                case "maxParticipants": activity.setMaxParticipants(asInt(child)); break;
+                case "visibility": activity.setVisibility(asString(child)); break;
+                case "hashtags": activity.setHashtags(asString(child)); break;
+                case "creatorId": activity.setCreatorId(asString(child)); break;
+                case "creatorName": activity.setCreatorName(asString(child)); break;
+                case "createdTimestamp": activity.setCreatedTimestamp(asLong(child)); break;
+                case "updatedAt": activity.setUpdatedAt(asLong(child)); break;
+                case "latitude": activity.setLatitude(asDouble(child)); break;
+                case "longitude": activity.setLongitude(asDouble(child)); break;
+                case "geohash": activity.setGeohash(asString(child)); break;
+                case "dateTime": activity.setDateTime(asString(child)); break;
+                case "participants": activity.setParticipants(asMap(child)); break;
+                case "creatorProfileUrl": activity.setCreatorProfileUrl(asString(child)); break;
+                default: break;
+            }
+        }
+        return activity;
+    }
+
+    @Nullable
+    public static ChatRoom toChatRoom(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        ChatRoom chatRoom = new ChatRoom(snapshot.getKey());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "id": chatRoom.setId(asString(child)); break;
+                case "name": chatRoom.setName(asString(child)); break;
+                case "activityId": chatRoom.setActivityId(asString(child)); break;
+                case "category": chatRoom.setCategory(asString(child)); break;
+                case "lastMessage": chatRoom.setLastMessage(asString(child)); break;
+                case "lastMessageSenderId": chatRoom.setLastMessageSenderId(asString(child)); break;
+                case "lastMessageSenderName": chatRoom.setLastMessageSenderName(asString(child)); break;
+                case "lastMessageSenderProfileUrl": chatRoom.setLastMessageSenderProfileUrl(asString(child)); break;
+                case "lastMessageTime": chatRoom.setLastMessageTime(asLong(child)); break;
+                case "memberIds": chatRoom.setMemberIds(asStringList(child)); break;
+                case "memberNames": chatRoom.setMemberNames(asStringList(child)); break;
+                case "members": chatRoom.setMembers(toMembers(child)); break;
+                case "unreadCount": chatRoom.setUnreadCount(asInt(child)); break;
+                case "profileImageUrl": chatRoom.setProfileImageUrl(asString(child)); break;
+                case "createdTimestamp": chatRoom.setCreatedTimestamp(asLong(child)); break;
+                case "hostId": chatRoom.setHostId(asString(child)); break;
+                case "hostName": chatRoom.setHostName(asString(child)); break;
+                case "mediaMigrated": chatRoom.setMediaMigrated(asBoolean(child)); break;
+                default: break;
+            }
+        }
+        return chatRoom;
+    }
+
+    @Nullable
+    public static ChatMessage toChatMessage(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        ChatMessage message = new ChatMessage(snapshot.getKey());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "id": message.setId(asString(child)); break;
+                case "chatRoomId": message.setChatRoomId(asString(child)); break;
+                case "senderId": message.setSenderId(asString(child)); break;
+                case "senderName": message.setSenderName(asString(child)); break;
+                case "senderProfileUrl": message.setSenderProfileUrl(asString(child)); break;
+                case "message": message.setMessage(asString(child)); break;
+                case "imageUrl": message.setImageUrl(asString(child)); break;
+                case "fileUrl": message.setFileUrl(asString(child)); break;
+                case "fileName": message.setFileName(asString(child)); break;
+                case "fileType": message.setFileType(asString(child)); break;
+                case "mediaHash": message.setMediaHash(asString(child)); break;
+                case "mediaSize": message.setMediaSize(asLong(child)); break;
+                case "imageWidth": message.setImageWidth(asInt(child)); break;
+                case "imageHeight": message.setImageHeight(asInt(child)); break;
+                case "blurHash": message.setBlurHash(asString(child)); break;
+                case "messageType": message.setMessageType(asInt(child)); break;
+                case "timestamp": message.setTimestamp(asLong(child)); break;
+                // isRead()/setRead() are stored as "read"
+                case "read": message.setRead(asBoolean(child)); break;
+                default: break;
+            }
+        }
+        return message;
+    }
+
+    @Nullable
+    public static NotificationItem toNotificationItem(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        NotificationItem item = new NotificationItem();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "id": item.setId(asString(child)); break;
+                case "title": item.setTitle(asString(child)); break;
+                case "message": item.setMessage(asString(child)); break;
+                case "timestamp": item.setTimestamp(asLong(child)); break;
+                case "isRead": item.setRead(asBoolean(child)); break;
+                case "activityId": item.setActivityId(asString(child)); break;
+                case "type": item.setType(asString(child)); break;
+                case "senderId": item.setSenderId(asString(child)); break;
+                case "senderName": item.setSenderName(asString(child)); break;
+                case "senderProfileUrl": item.setSenderProfileUrl(asString(child)); break;
+                default: break;
+            }
+        }
+        if (item.getId() == null) {
+            item.setId(snapshot.getKey());
+        }
+        return item;
+    }
+
+    @Nullable
+    public static PendingReviewItem toPendingReviewItem(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        PendingReviewItem item = new PendingReviewItem();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "id": item.setId(asString(child)); break;
+                case "targetUserId": item.setTargetUserId(asString(child)); break;
+                case "activityId": item.setActivityId(asString(child)); break;
+                case "activityTitle": item.setActivityTitle(asString(child)); break;
+                case "timestamp": item.setTimestamp(asLong(child)); break;
+                case "status": item.setStatus(asString(child)); break;
+                case "targetDisplayName": item.setTargetDisplayName(asString(child)); break;
+                case "targetProfileImageUrl": item.setTargetProfileImageUrl(asString(child)); break;
+                default: break;
+            }
+        }
+        if (item.getId() == null) {
+            item.setId(snapshot.getKey());
+        }
+        return item;
+    }
+
+    @Nullable
+    public static UserReview toUserReview(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+        UserReview review = new UserReview();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) continue;
+            switch (key) {
+                case "reviewId": review.setReviewId(asString(child)); break;
+                case "reviewerId": review.setReviewerId(asString(child)); break;
+                case "reviewerName": review.setReviewerName(asString(child)); break;
+                case "activityId": review.setActivityId(asString(child)); break;
+                case "activityTitle": review.setActivityTitle(asString(child)); break;
+                case "rating": review.setRating(asInt(child)); break;
+                case "comment": review.setComment(asString(child)); break;
+                case "timestamp": review.setTimestamp(asLong(child)); break;
+                default: break;
+            }
+        }
+        if (review.getReviewId() == null) {
+            review.setReviewId(snapshot.getKey());
+        }
+        return review;
+    }
+
+    /**
+     * members/{uid} -> {name, unreadCount, joinTimestamp}. A member stored as a bare value
+     * (e.g. true) still counts as a member, with nothing else known about it.
+     */
+    private static Map<String, ChatRoom.Member> toMembers(DataSnapshot snapshot) {
+        Map<String, ChatRoom.Member> members = new HashMap<>();
+        for (DataSnapshot memberSnapshot : snapshot.getChildren()) {
+            ChatRoom.Member member = new ChatRoom.Member();
+            for (DataSnapshot child : memberSnapshot.getChildren()) {
+                String key = child.getKey();
+                if (key == null) continue;
+                switch (key) {
+                    case "name": member.setName(asString(child)); break;
+                    case "unreadCount": member.setUnreadCount(asInt(child)); break;
+                    case "joinTimestamp": member.setJoinTimestamp(asLong(child)); break;
+                    default: break;
+                }
+            }
+            members.put(memberSnapshot.getKey(), member);
+        }
+        return members;
+    }
+
+    @Nullable
+    private static String asString(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static int asInt(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long asLong(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double asDouble(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : 0d;
+    }
+
+    private static boolean asBoolean(DataSnapshot snapshot) {
+        return Boolean.TRUE.equals(snapshot.getValue());
+    }
+
+    /**
+     * A list stored as an array or, after removals, as an index-keyed object
+     */
+    private static List<String> asStringList(DataSnapshot snapshot) {
+        List<String> values = new ArrayList<>((int) snapshot.getChildrenCount());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String value = asString(child);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        if (value instanceof Map) {
+            return (Map<String, Object>) value;
+        }
+        if (value instanceof Collection) {
+            // Stored as an array (numeric keys); keep it keyed by position
+            Map<String, Object> map = new HashMap<>();
+            int index = 0;
+            for (Object element : (Collection<?>) value) {
+                if (element != null) {
+                    map.put(String.valueOf(index), element);
+                }
+                index++;
+            }
+            return map;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.connectmate.utils;
+
+import com.example.connectmate.models.Activity;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ActivitySearchIndex - In-memory inverted index over activity text
+ * Text is decomposed into Hangul jamo, so a query matches while the IME is still composing
+ * ("축ㄱ" finds "축구"), and initial-consonant (choseong) queries such as "ㅊㄱ" also match.
+ * Jamo unigrams and bigrams are posted per word as bitsets over doc slots. A query ANDs the
+ * posting sets of its grams, then only those candidates are verified and ranked, so nothing
+ * scans every activity.
+ *
+ * Indexed fields: title, hashtags, category, location, description (highest weight first).
+ * ActivityStore keeps the shared instance in step with the stored activities. Thread-safe.
+ */
+public class ActivitySearchIndex {
+
+    private static final int FIELD_TITLE = 0;
+    private static final int FIELD_HASHTAGS = 1;
+    private static final int FIELD_CATEGORY = 2;
+    private static final int FIELD_LOCATION = 3;
+    private static final int FIELD_DESCRIPTION = 4;
+    private static final int FIELD_COUNT = 5;
+    private static final int[] FIELD_WEIGHTS = {16, 8, 6, 4, 1};
+
+    private static final int HANGUL_BASE = 0xAC00;
+    private static final int HANGUL_LAST = 0xD7A3;
+    private static final String[] CHOSEONG = {
+        "ㄱ", "ㄲ", "ㄴ", "ㄷ", "ㄸ", "ㄹ", "ㅁ", "ㅂ", "ㅃ", "ㅅ",
+        "ㅆ", "ㅇ", "ㅈ", "ㅉ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+    // Compound vowels and finals are split so a syllable still being typed is a prefix
+    private static final String[] JUNGSEONG = {
+        "ㅏ", "ㅐ", "ㅑ", "ㅒ", "ㅓ", "ㅔ", "ㅕ", "ㅖ", "ㅗ", "ㅗㅏ", "ㅗㅐ",
+        "ㅗㅣ", "ㅛ", "ㅜ", "ㅜㅓ", "ㅜㅔ", "ㅜㅣ", "ㅠ", "ㅡ", "ㅡㅣ", "ㅣ"
+    };
+    private static final String[] JONGSEONG = {
+        "", "ㄱ", "ㄲ", "ㄱㅅ", "ㄴ", "ㄴㅈ", "ㄴㅎ", "ㄷ", "ㄹ", "ㄹㄱ",
+        "ㄹㅁ", "ㄹㅂ", "ㄹㅅ", "ㄹㅌ", "ㄹㅍ", "ㄹㅎ", "ㅁ", "ㅂ", "ㅂㅅ", "ㅅ",
+        "ㅆ", "ㅇ", "ㅈ", "ㅊ", "ㅋ", "ㅌ", "ㅍ", "ㅎ"
+    };
+    // Standalone compound jamo (as typed or pasted) split the same way
+    private static final Map<Character, String> COMPOUND_JAMO = new HashMap<>();
+
+    static {
+        String[][] pairs = {
+            {"ㄳ", "ㄱㅅ"}, {"ㄵ", "ㄴㅈ"}, {"ㄶ", "ㄴㅎ"}, {"ㄺ", "ㄹㄱ"}, {"ㄻ", "ㄹㅁ"},
+            {"ㄼ", "ㄹㅂ"}, {"ㄽ", "ㄹㅅ"}, {"ㄾ", "ㄹㅌ"}, {"ㄿ", "ㄹㅍ"}, {"ㅀ", "ㄹㅎ"},
+            {"ㅄ", "ㅂㅅ"}, {"ㅘ", "ㅗㅏ"}, {"ㅙ", "ㅗㅐ"}, {"ㅚ", "ㅗㅣ"}, {"ㅝ", "ㅜㅓ"},
+            {"ㅞ", "ㅜㅔ"}, {"ㅟ", "ㅜㅣ"}, {"ㅢ", "ㅡㅣ"}
+        };
+        for (String[] pair : pairs) {
+            COMPOUND_JAMO.put(pair[0].charAt(0), pair[1]);
+        }
+    }
+
+    private static ActivitySearchIndex instance;
+
+    // Docs live in numbered slots so posting sets can be bitsets; freed slots are reused
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<Doc> slots = new ArrayList<>();
+    private final BitSet freeSlots = new BitSet();
+    private final Map<Long, BitSet> postings = new HashMap<>();
+
+    /**
+     * Get the shared index kept in step with ActivityStore
+     */
+    public static synchronized ActivitySearchIndex getInstance() {
+        if (instance == null) {
+            instance = new ActivitySearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Replace the whole index
+     */
+    public synchronized void rebuild(Collection<Activity> activities) {
+        slotsById.clear();
+        slots.clear();
+        freeSlots.clear();
+        postings.clear();
+        for (Activity activity : activities) {
+            put(activity);
+        }
+    }
+
+    /**
+     * Index one activity, replacing any previous version
+     */
+    public synchronized void put(Activity activity) {
+        if (activity == null || activity.getId() == null) return;
+        remove(activity.getId());
+
+        Doc doc = new Doc(activity);
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+            slots.set(slot, doc);
+        } else {
+            slot = slots.size();
+            slots.add(doc);
+        }
+        slotsById.put(doc.id, slot);
+
+        for (long gram : doc.grams) {
+            BitSet docsWithGram = postings.get(gram);
+            if (docsWithGram == null) {
+                docsWithGram = new BitSet();
+                postings.put(gram, docsWithGram);
+            }
+            docsWithGram.set(slot);
+        }
+    }
+
+    public synchronized void remove(String activityId) {
+        Integer slot = slotsById.remove(activityId);
+        if (slot == null) return;
+
+        Doc doc = slots.set(slot, null);
+        freeSlots.set(slot);
+        for (long gram : doc.grams) {
+            BitSet docsWithGram = postings.get(gram);
+            if (docsWithGram != null) {
+                docsWithGram.clear(slot);
+                if (docsWithGram.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Activities matching every word of the query, best match first (then newest first).
+     * An empty query returns the newest activities.
+     */
+    public synchronized List<Activity> search(String query, int limit) {
+        List<String> words = queryWords(query);
+        List<ScoredDoc> scored = new ArrayList<>();
+        if (words.isEmpty()) {
+            for (Doc doc : slots) {
+                if (doc != null) {
+                    scored.add(new ScoredDoc(doc, 0));
+                }
+            }
+        } else {
+            BitSet candidates = candidates(words);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Doc doc = slots.get(slot);
+                int score = score(doc, words);
+                if (score > 0) {
+                    scored.add(new ScoredDoc(doc, score));
+                }
+            }
+        }
+
+        Collections.sort(scored, (a, b) -> {
+            if (a.score != b.score) return Integer.compare(b.score, a.score);
+            return Long.compare(b.doc.activity.getCreatedTimestamp(), a.doc.activity.getCreatedTimestamp());
+        });
+
+        List<Activity> results = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            results.add(scored.get(i).doc.activity);
+        }
+        return results;
+    }
+
+    /**
+     * Ids of the activities matching every word of the query (unranked).
+     * Returns null for an empty query, meaning "no search filter".
+     */
+    public synchronized Set<String> matchingIds(String query) {
+        List<String> words = queryWords(query);
+        if (words.isEmpty()) return null;
+
+        Set<String> ids = new HashSet<>();
+        BitSet candidates = candidates(words);
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            Doc doc = slots.get(slot);
+            if (score(doc, words) > 0) {
+                ids.add(doc.id);
+            }
+        }
+        return ids;
+    }
+
+    // Docs posted under every gram of every query word. A consonant-only word may match either
+    // the jamo or the choseong form, so its two posting intersections are unioned.
+    private BitSet candidates(List<String> words) {
+        BitSet result = null;
+        for (String word : words) {
+            BitSet wordDocs = intersect(grams(word, false));
+            if (isConsonantsOnly(word)) {
+                wordDocs.or(intersect(grams(word, true)));
+            }
+            if (result == null) {
+                result = wordDocs;
+            } else {
+                result.and(wordDocs);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    private BitSet intersect(long[] grams) {
+        BitSet result = null;
+        for (long gram : grams) {
+            BitSet docsWithGram = postings.get(gram);
+            if (docsWithGram == null) return new BitSet();
+            if (result == null) {
+                result = (BitSet) docsWithGram.clone();
+            } else {
+                result.and(docsWithGram);
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    // Zero unless every word matches; otherwise weighted by field and by where the match starts
+    private static int score(Doc doc, List<String> words) {
+        int total = 0;
+        for (String word : words) {
+            boolean consonantsOnly = isConsonantsOnly(word);
+            int wordScore = 0;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                int best = 0;
+                String text = doc.jamo[field];
+                int index = text.indexOf(word);
+                if (index >= 0) {
+                    int position = index == 0 ? 4 : (text.charAt(index - 1) == ' ' ? 2 : 1);
+                    best = FIELD_WEIGHTS[field] * position;
+                }
+                if (consonantsOnly) {
+                    int choseongIndex = doc.choseong[field].indexOf(word);
+                    if (choseongIndex >= 0) {
+                        best = Math.max(best, FIELD_WEIGHTS[field] * (choseongIndex == 0 ? 2 : 1));
+                    }
+                }
+                wordScore += best;
+            }
+            if (wordScore == 0) return 0;
+            total += wordScore;
+        }
+        return total;
+    }
+
+    private static List<String> queryWords(String query) {
+        List<String> words = new ArrayList<>();
+        if (query == null) return words;
+        for (String word : decompose(query).split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Unigram for a one-jamo word, bigrams otherwise
+    private static long[] grams(String word, boolean choseong) {
+        if (word.length() == 1) {
+            return new long[]{gramKey(word.charAt(0), '\0', choseong)};
+        }
+        long[] grams = new long[word.length() - 1];
+        for (int i = 0; i + 1 < word.length(); i++) {
+            grams[i] = gramKey(word.charAt(i), word.charAt(i + 1), choseong);
+        }
+        return grams;
+    }
+
+    // Two chars and the namespace packed into one key
+    private static long gramKey(char first, char second, boolean choseong) {
+        return (choseong ? 1L << 32 : 0L) | ((long) first << 16) | second;
+    }
+
+    private static boolean isConsonantsOnly(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'ㄱ' || c > 'ㅎ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lowercased text with Hangul syllables split into jamo and everything that is not a letter
+     * or digit collapsed to single spaces between words
+     */
+    static String decompose(String text) {
+        if (text == null) return "";
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(normalized.length() * 3);
+        boolean pendingSpace = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c >= HANGUL_BASE && c <= HANGUL_LAST) {
+                if (pendingSpace && out.length() > 0) out.append(' ');
+                pendingSpace = false;
+                int offset = c - HANGUL_BASE;
+                out.append(CHOSEONG[offset / (21 * 28)])
+                    .append(JUNGSEONG[(offset / 28) % 21])
+                    .append(JONGSEONG[offset % 28]);
+            } else if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && out.length() > 0) out.append(' ');
+                pendingSpace = false;
+                String compound = COMPOUND_JAMO.get(c);
+                if (compound != null) {
+                    out.append(compound);
+                } else {
+                    out.append(c);
+                }
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Initial consonant of each Hangul syllable (other letters and digits kept), without spaces
+     */
+    static String choseong(String text) {
+        if (text == null) return "";
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c >= HANGUL_BASE && c <= HANGUL_LAST) {
+                out.append(CHOSEONG[(c - HANGUL_BASE) / (21 * 28)]);
+            } else if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static final class Doc {
+        final String id;
+        final Activity activity;
+        final String[] jamo = new String[FIELD_COUNT];
+        final String[] choseong = new String[FIELD_COUNT];
+        final long[] grams;
+
+        Doc(Activity activity) {
+            this.id = activity.getId();
+            this.activity = activity;
+
+            String[] fields = new String[FIELD_COUNT];
+            fields[FIELD_TITLE] = activity.getTitle();
+            fields[FIELD_HASHTAGS] = activity.getHashtags();
+            fields[FIELD_CATEGORY] = activity.getCategory();
+            fields[FIELD_LOCATION] = activity.getLocation();
+            fields[FIELD_DESCRIPTION] = activity.getDescription();
+
+            Set<Long> keys = new HashSet<>();
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                String text = decompose(fields[field]);
+                jamo[field] = text;
+                choseong[field] = choseong(fields[field]);
+
+                // Unigrams too, so a single typed jamo has a posting set; no grams span words
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == ' ') continue;
+                    keys.add(gramKey(c, '\0', false));
+                    if (i + 1 < text.length() && text.charAt(i + 1) != ' ') {
+                        keys.add(gramKey(c, text.charAt(i + 1), false));
+                    }
+                }
+                String initials = choseong[field];
+                for (int i = 0; i < initials.length(); i++) {
+                    keys.add(gramKey(initials.charAt(i), '\0', true));
+                    if (i + 1 < initials.length()) {
+                        keys.add(gramKey(initials.charAt(i), initials.charAt(i + 1), true));
+                    }
+                }
+            }
+
+            grams = new long[keys.size()];
+            int i = 0;
+            for (Long key : keys) {
+                grams[i++] = key;
+            }
+        }
+    }
+
+    private static final class ScoredDoc {
+        final Doc doc;
+        final int score;
+
+        ScoredDoc(Doc doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.connectmate.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.Activity;
+import com.example.connectmate.models.SnapshotMappers;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ActivityStore - On-device SQLite copy of the activity table
+ * Replaces the SharedPreferences-based ActivityManager, which rewrote one JSON blob of every
+ * activity on each save. Rows are written individually and indexed by category,
+ * createdTimestamp and geohash.
+ *
+ * A sync renders the stored rows first, then listens only to activities written since the
+ * sync mark: the newest server updatedAt (or deletion time) seen, minus SYNC_OVERLAP_MS for
+ * writes committed out of order. Every write stamps updatedAt with server time, so edits and
+ * joins of older rows come through the same listener and device clocks don't matter; deletes
+ * come from tombstones. The whole table is only reloaded when there is no mark yet, or when the
+ * mark is older than TOMBSTONE_RETENTION_MS and deletions may have been missed. The shared
+ * ActivitySearchIndex is kept in step with the stored rows.
+ */
+public class ActivityStore {
+    private static final String TAG = "ActivityStore";
+
+    private static final String DB_NAME = "activities.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "activities";
+    private static final String COL_ID = "id";
+    private static final String COL_CATEGORY = "category";
+    private static final String COL_CREATED = "created_timestamp";
+    private static final String COL_GEOHASH = "geohash";
+    private static final String COL_JSON = "json";
+
+    private static final String PREF_NAME = "ActivityStore";
+    // Server time (ms) of the newest write seen, and when (device time) it was last advanced
+    private static final String KEY_SYNC_MARK = "sync_mark";
+    private static final String KEY_LAST_SYNC = "last_sync";
+    private static final long SYNC_OVERLAP_MS = 60 * 1000L;
+    // How long deletions stay visible as tombstones; a longer absence needs a full reload
+    private static final long TOMBSTONE_RETENTION_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static ActivityStore instance;
+
+    private final DbHelper dbHelper;
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ActivitySearchIndex searchIndex = ActivitySearchIndex.getInstance();
+    private final Set<SyncListener> activeSyncs = new HashSet<>();
+    private final Map<SyncListener, ChildEventListener> deltaListeners = new HashMap<>();
+    // Main thread only
+    private long syncMark = -1;
+
+    private ActivityStore(Context context) {
+        Context appContext = context.getApplicationContext();
+        dbHelper = new DbHelper(appContext);
+        prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ActivityStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ActivityStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * The store if something has already opened it, for write paths that have no context
+     */
+    @Nullable
+    public static synchronized ActivityStore peekInstance() {
+        return instance;
+    }
+
+    /**
+     * Render from disk, then keep the store and the listener up to date.
+     * Call stopSync with the same listener to detach. Main thread only.
+     */
+    public void startSync(SyncListener listener) {
+        if (!activeSyncs.add(listener)) return;
+        executor.execute(() -> {
+            List<Activity> cached = queryActivities(null, null);
+            searchIndex.rebuild(cached);
+            long mark = prefs.getLong(KEY_SYNC_MARK, -1);
+            long lastSync = prefs.getLong(KEY_LAST_SYNC, 0);
+            mainHandler.post(() -> {
+                if (!activeSyncs.contains(listener)) return;
+                Log.d(TAG, "Loaded " + cached.size() + " activities from disk (mark=" + mark + ")");
+                listener.onCachedActivitiesLoaded(cached);
+
+                boolean reloadAll = cached.isEmpty() || mark < 0
+                    || System.currentTimeMillis() - lastSync > TOMBSTONE_RETENTION_MS;
+                if (reloadAll) {
+                    fullSync(listener);
+                } else {
+                    syncMark = Math.max(syncMark, mark);
+                    attachDeltaListener(listener, syncMark);
+                }
+            });
+        });
+    }
+
+    /**
+     * Detach the realtime listener started by startSync
+     */
+    public void stopSync(SyncListener listener) {
+        activeSyncs.remove(listener);
+        ChildEventListener childListener = deltaListeners.remove(listener);
+        if (childListener != null) {
+            FirebaseActivityManager.getInstance().removeActivityChangeListener(childListener);
+        }
+    }
+
+    /**
+     * Activities newest first, optionally limited to one category
+     */
+    public void getActivities(@Nullable String category, OnCompleteListener<List<Activity>> listener) {
+        executor.execute(() -> {
+            List<Activity> activities = category != null
+                ? queryActivities(COL_CATEGORY + " = ?", new String[]{category})
+                : queryActivities(null, null);
+            mainHandler.post(() -> listener.onSuccess(activities));
+        });
+    }
+
+    /**
+     * Activities whose geohash starts with the given cell, newest first
+     */
+    public void getActivitiesInCell(String cell, OnCompleteListener<List<Activity>> listener) {
+        executor.execute(() -> {
+            // Prefix match as a range so the geohash index is used
+            List<Activity> activities = queryActivities(COL_GEOHASH + " >= ? AND " + COL_GEOHASH + " < ?",
+                new String[]{cell, cell + "\uf8ff"});
+            mainHandler.post(() -> listener.onSuccess(activities));
+        });
+    }
+
+    /**
+     * Insert or replace one activity
+     */
+    public void upsert(Activity activity) {
+        if (activity == null || activity.getId() == null) return;
+        searchIndex.put(activity);
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.insertWithOnConflict(TABLE, null, toValues(activity), SQLiteDatabase.CONFLICT_REPLACE);
+        });
+    }
+
+    /**
+     * Remove one activity
+     */
+    public void delete(String activityId) {
+        if (activityId == null) return;
+        searchIndex.remove(activityId);
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.delete(TABLE, COL_ID + " = ?", new String[]{activityId});
+        });
+    }
+
+    /**
+     * Remove every stored activity and forget the sync state
+     */
+    public void clear() {
+        executor.execute(() -> {
+            dbHelper.getWritableDatabase().delete(TABLE, null, null);
+            searchIndex.rebuild(new ArrayList<>());
+            prefs.edit().remove(KEY_SYNC_MARK).remove(KEY_LAST_SYNC).apply();
+            mainHandler.post(() -> syncMark = -1);
+            Log.d(TAG, "All activities cleared");
+        });
+    }
+
+    private void fullSync(SyncListener listener) {
+        FirebaseDatabase.getInstance().getReference("activities")
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    // The whole table: decode it off the main thread
+                    SnapshotDecoder.getInstance().decodeList("ActivityStore.fullSync", snapshot, SnapshotMappers::toActivity,
+                        activities -> storeFullSync(listener, activities));
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Full activity sync failed", error.toException());
+                    if (activeSyncs.contains(listener)) {
+                        listener.onError(error.toException());
+                    }
+                }
+            });
+    }
+
+    private void storeFullSync(SyncListener listener, List<Activity> activities) {
+        // Rows without updatedAt predate server stamping; they enter the delta range on their next write
+        long mark = 0;
+        for (Activity activity : activities) {
+            mark = Math.max(mark, activity.getUpdatedAt());
+        }
+        long fullSyncMark = mark;
+        executor.execute(() -> {
+            replaceAll(activities);
+            List<Activity> sorted = queryActivities(null, null);
+            searchIndex.rebuild(sorted);
+            mainHandler.post(() -> {
+                advanceSyncMark(fullSyncMark);
+                if (!activeSyncs.contains(listener)) return;
+                Log.d(TAG, "Full sync stored " + sorted.size() + " activities");
+                listener.onActivitiesReloaded(sorted);
+                attachDeltaListener(listener, syncMark);
+            });
+        });
+    }
+
+    private void attachDeltaListener(SyncListener listener, long mark) {
+        ChildEventListener childListener = FirebaseActivityManager.getInstance().listenForActivityChangesSince(
+            Math.max(0, mark - SYNC_OVERLAP_MS), new FirebaseActivityManager.ActivityChangeListener() {
+                @Override
+                public void onActivityAdded(Activity activity) {
+                    upsert(activity);
+                    advanceSyncMark(activity.getUpdatedAt());
+                    listener.onActivityAdded(activity);
+                }
+
+                @Override
+                public void onActivityChanged(Activity activity) {
+                    upsert(activity);
+                    advanceSyncMark(activity.getUpdatedAt());
+                    listener.onActivityChanged(activity);
+                }
+
+                @Override
+                public void onActivityRemoved(Activity activity) {
+                    delete(activity.getId());
+                    advanceSyncMark(activity.getUpdatedAt());
+                    listener.onActivityRemoved(activity);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    listener.onError(e);
+                }
+            });
+
+        deltaListeners.put(listener, childListener);
+    }
+
+    private void replaceAll(List<Activity> activities) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE, null, null);
+            for (Activity activity : activities) {
+                if (activity.getId() != null) {
+                    db.insertWithOnConflict(TABLE, null, toValues(activity), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<Activity> queryActivities(@Nullable String selection, @Nullable String[] args) {
+        List<Activity> activities = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.query(TABLE, new String[]{COL_JSON}, selection, args,
+                null, null, COL_CREATED + " DESC")) {
+            while (cursor.moveToNext()) {
+                try {
+                    Activity activity = gson.fromJson(cursor.getString(0), Activity.class);
+                    if (activity != null) {
+                        // Derive the sort keys here, off the main thread
+                        activity.getStartTimeMillis();
+                        activities.add(activity);
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "Skipping unreadable stored activity", e);
+                }
+            }
+        }
+        return activities;
+    }
+
+    // Main thread; the mark only moves forward and is persisted with the device time it moved
+    private void advanceSyncMark(long serverTime) {
+        if (serverTime <= syncMark && syncMark >= 0) return;
+        syncMark = Math.max(syncMark, serverTime);
+        prefs.edit()
+            .putLong(KEY_SYNC_MARK, syncMark)
+            .putLong(KEY_LAST_SYNC, System.currentTimeMillis())
+            .apply();
+    }
+
+    private ContentValues toValues(Activity activity) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, activity.getId());
+        values.put(COL_CATEGORY, activity.getCategory());
+        values.put(COL_CREATED, activity.getCreatedTimestamp());
+        values.put(COL_GEOHASH, activity.getGeohash());
+        values.put(COL_JSON, gson.toJson(activity));
+        return values;
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_ID + " TEXT PRIMARY KEY, "
+                + COL_CATEGORY + " TEXT, "
+                + COL_CREATED + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_GEOHASH + " TEXT, "
+                + COL_JSON + " TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX idx_activities_category ON " + TABLE + "(" + COL_CATEGORY + ")");
+            db.execSQL("CREATE INDEX idx_activities_created ON " + TABLE + "(" + COL_CREATED + ")");
+            db.execSQL("CREATE INDEX idx_activities_geohash ON " + TABLE + "(" + COL_GEOHASH + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // The store is a cache of the server; rebuild it
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+
+    /**
+     * Receives the stored rows first, then realtime changes. Everything is on the main thread.
+     */
+    public interface SyncListener extends FirebaseActivityManager.ActivityChangeListener {
+        /** Rows already on disk, newest first */
+        void onCachedActivitiesLoaded(List<Activity> activities);
+
+        /** A full reload replaced the stored rows, newest first */
+        void onActivitiesReloaded(List<Activity> activities);
+    }
+
+    /**
+     * Callback interface for async operations
+     */
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.connectmate.utils;
+
+/**
+ * BlurHash - Compact (~20-30 char) text placeholder for an image
+ * Stored alongside chat media references so a blurred preview can be drawn before the image loads.
+ * Pixels are packed ARGB ints, as returned by Bitmap.getPixels().
+ */
+public class BlurHash {
+
+    private static final String CHARACTERS =
+        "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    /**
+     * Encode pixels into a blurhash with componentsX x componentsY (1-9 each) DCT components
+     */
+    public static String encode(int[] pixels, int width, int height, int componentsX, int componentsY) {
+        if (componentsX < 1 || componentsX > 9 || componentsY < 1 || componentsY > 9) {
+            throw new IllegalArgumentException("Components must be between 1 and 9");
+        }
+        if (pixels == null || width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Invalid pixel buffer");
+        }
+
+        double[][] factors = new double[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                factors[j * componentsX + i] = multiplyBasis(pixels, width, height, i, j, normalisation);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        double maxValue;
+        if (factors.length > 1) {
+            double actualMax = 0;
+            for (int i = 1; i < factors.length; i++) {
+                for (double c : factors[i]) {
+                    actualMax = Math.max(actualMax, Math.abs(c));
+                }
+            }
+            int quantisedMax = (int) Math.max(0, Math.min(82, Math.floor(actualMax * 166 - 0.5)));
+            maxValue = (quantisedMax + 1) / 166.0;
+            encode83(quantisedMax, 1, hash);
+        } else {
+            maxValue = 1;
+            encode83(0, 1, hash);
+        }
+
+        encode83(encodeDC(factors[0]), 4, hash);
+        for (int i = 1; i < factors.length; i++) {
+            encode83(encodeAC(factors[i], maxValue), 2, hash);
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Decode a blurhash into width x height packed ARGB pixels, or null if the hash is malformed
+     */
+    public static int[] decode(String hash, int width, int height) {
+        if (hash == null || hash.length() < 6 || width <= 0 || height <= 0) {
+            return null;
+        }
+
+        int sizeFlag = decode83(hash, 0, 1);
+        int numY = sizeFlag / 9 + 1;
+        int numX = sizeFlag % 9 + 1;
+        if (sizeFlag < 0 || hash.length() != 4 + 2 * numX * numY) {
+            return null;
+        }
+
+        int quantisedMax = decode83(hash, 1, 2);
+        double maxValue = (quantisedMax + 1) / 166.0;
+
+        int dc = decode83(hash, 2, 6);
+        if (quantisedMax < 0 || dc < 0) return null;
+
+        double[][] colors = new double[numX * numY][];
+        colors[0] = decodeDC(dc);
+        for (int i = 1; i < colors.length; i++) {
+            int value = decode83(hash, 4 + i * 2, 6 + i * 2);
+            if (value < 0) return null;
+            colors[i] = decodeAC(value, maxValue);
+        }
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double r = 0, g = 0, b = 0;
+                for (int j = 0; j < numY; j++) {
+                    double basisY = Math.cos(Math.PI * y * j / height);
+                    for (int i = 0; i < numX; i++) {
+                        double basis = Math.cos(Math.PI * x * i / width) * basisY;
+                        double[] color = colors[j * numX + i];
+                        r += color[0] * basis;
+                        g += color[1] * basis;
+                        b += color[2] * basis;
+                    }
+                }
+                pixels[y * width + x] = 0xff000000
+                    | (linearToSrgb(r) << 16)
+                    | (linearToSrgb(g) << 8)
+                    | linearToSrgb(b);
+            }
+        }
+        return pixels;
+    }
+
+    private static double[] multiplyBasis(int[] pixels, int width, int height, int i, int j, double normalisation) {
+        double r = 0, g = 0, b = 0;
+        for (int y = 0; y < height; y++) {
+            double basisY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = normalisation * Math.cos(Math.PI * i * x / width) * basisY;
+                int pixel = pixels[y * width + x];
+                r += basis * srgbToLinear((pixel >> 16) & 0xff);
+                g += basis * srgbToLinear((pixel >> 8) & 0xff);
+                b += basis * srgbToLinear(pixel & 0xff);
+            }
+        }
+        double scale = 1.0 / (width * height);
+        return new double[] {r * scale, g * scale, b * scale};
+    }
+
+    private static int encodeDC(double[] color) {
+        return (linearToSrgb(color[0]) << 16) + (linearToSrgb(color[1]) << 8) + linearToSrgb(color[2]);
+    }
+
+    private static int encodeAC(double[] color, double maxValue) {
+        int r = quantise(color[0] / maxValue);
+        int g = quantise(color[1] / maxValue);
+        int b = quantise(color[2] / maxValue);
+        return r * 19 * 19 + g * 19 + b;
+    }
+
+    private static int quantise(double value) {
+        return (int) Math.max(0, Math.min(18, Math.floor(signPow(value, 0.5) * 9 + 9.5)));
+    }
+
+    private static double[] decodeDC(int value) {
+        return new double[] {
+            srgbToLinear((value >> 16) & 0xff),
+            srgbToLinear((value >> 8) & 0xff),
+            srgbToLinear(value & 0xff)
+        };
+    }
+
+    private static double[] decodeAC(int value, double maxValue) {
+        int r = value / (19 * 19);
+        int g = (value / 19) % 19;
+        int b = value % 19;
+        return new double[] {
+            signPow((r - 9) / 9.0, 2) * maxValue,
+            signPow((g - 9) / 9.0, 2) * maxValue,
+            signPow((b - 9) / 9.0, 2) * maxValue
+        };
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        if (v <= 0.0031308) {
+            return (int) (v * 12.92 * 255 + 0.5);
+        }
+        return (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static double signPow(double value, double exp) {
+        return Math.copySign(Math.pow(Math.abs(value), exp), value);
+    }
+
+    private static void encode83(int value, int length, StringBuilder out) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (int) (value / Math.pow(83, length - i)) % 83;
+            out.append(CHARACTERS.charAt(digit));
+        }
+    }
+
+    // Returns -1 if the range contains a character outside the base83 alphabet
+    private static int decode83(String str, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = CHARACTERS.indexOf(str.charAt(i));
+            if (digit < 0) return -1;
+            value = value * 83 + digit;
+        }
+        return value;
+    }
+}
@@ -20,6 +20,40 @@ public class CategoryMapper {
     public static final String CATEGORY_VOLUNTEER = "봉사";
     public static final String CATEGORY_OTHER = "기타";
 
+    // Fixed order of the categories above; a category's ordinal is its index here
+    private static final String[] CATEGORIES = {
+        CATEGORY_SPORTS, CATEGORY_OUTDOOR, CATEGORY_STUDY, CATEGORY_CULTURE, CATEGORY_SOCIAL,
+        CATEGORY_FOOD, CATEGORY_TRAVEL, CATEGORY_GAME, CATEGORY_HOBBY, CATEGORY_VOLUNTEER,
+        CATEGORY_OTHER
+    };
+
+    /**
+     * Ordinal of an app category, or -1 if it is not one
+     */
+    public static int ordinalOf(String category) {
+        if (category == null) return -1;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Bit mask with the ordinal bit of each known category set
+     */
+    public static int maskOf(Iterable<String> categories) {
+        int mask = 0;
+        for (String category : categories) {
+            int ordinal = ordinalOf(category != null ? category.trim() : null);
+            if (ordinal >= 0) {
+                mask |= 1 << ordinal;
+            }
+        }
+        return mask;
+    }
+
     /**
      * Map Kakao category to ConnectMate activity category
      * Kakao categories format: "음식점 > 카페", "문화,예술 > 공원" etc.
@@ -0,0 +1,619 @@
+package com.example.connectmate.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.ChatMessage;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ChatMediaStore - Uploads chat images/documents to Firebase Storage, keyed by SHA-256 content hash
+ * Messages only carry the download URL plus hash, size, dimensions and a blurhash, instead of the
+ * whole file as Base64. Identical files map to the same object, so re-sending one is free.
+ *
+ * Storage rules can't hash uploads, so anyone could create chatMedia/{hash} with other bytes
+ * first. An existing object is only reused once Storage's own MD5 and size of it match the
+ * bytes being sent; otherwise the file goes to chatMediaByUser/{uid}/{hash}, which only its
+ * owner can create.
+ */
+public class ChatMediaStore {
+    private static final String TAG = "ChatMediaStore";
+
+    // Storage paths: chatMedia/{sha256}, and chatMediaByUser/{uid}/{sha256} when the shared one
+    // holds something else
+    private static final String PATH_CHAT_MEDIA = "chatMedia";
+    private static final String PATH_USER_CHAT_MEDIA = "chatMediaByUser";
+    private static final String PATH_MESSAGES = "messages";
+    private static final String PATH_CHAT_ROOMS = "chatRooms";
+    private static final String FIELD_MEDIA_MIGRATED = "mediaMigrated";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final String METADATA_UPLOADER_ID = "uploaderId";
+
+    // Legacy messages are scanned a page at a time
+    private static final int MIGRATION_PAGE_SIZE = 50;
+
+    // Images are resized to fit this box and re-encoded before upload
+    private static final int MAX_IMAGE_SIZE = 800;
+    private static final int JPEG_QUALITY = 70;
+
+    // Blurhash is computed on a small thumbnail with 4x3 components
+    private static final int BLURHASH_SAMPLE_SIZE = 32;
+    private static final int BLURHASH_COMPONENTS_X = 4;
+    private static final int BLURHASH_COMPONENTS_Y = 3;
+
+    public static final long MAX_UPLOAD_BYTES = 20L * 1024 * 1024;
+
+    private static ChatMediaStore instance;
+    private static String emulatorHost;
+    private static int emulatorPort;
+
+    private final FirebaseStorage storage;
+    private final StorageReference mediaRef;
+    private final DatabaseReference messagesRef;
+    private final DatabaseReference chatRoomsRef;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ChatMediaStore() {
+        storage = FirebaseStorage.getInstance();
+        if (emulatorHost != null) {
+            storage.useEmulator(emulatorHost, emulatorPort);
+            Log.d(TAG, "Using Storage emulator at " + emulatorHost + ":" + emulatorPort);
+        }
+        mediaRef = storage.getReference(PATH_CHAT_MEDIA);
+        messagesRef = FirebaseDatabase.getInstance().getReference(PATH_MESSAGES);
+        chatRoomsRef = FirebaseDatabase.getInstance().getReference(PATH_CHAT_ROOMS);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ChatMediaStore getInstance() {
+        if (instance == null) {
+            instance = new ChatMediaStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Point the store at the Firebase Storage emulator (e.g. "10.0.2.2", 9199).
+     * Must be called before the first getInstance(), typically from an instrumented test.
+     */
+    public static synchronized void useEmulator(String host, int port) {
+        if (instance != null) {
+            throw new IllegalStateException("useEmulator must be called before getInstance");
+        }
+        emulatorHost = host;
+        emulatorPort = port;
+    }
+
+    /**
+     * Resize, compress and upload an image picked by the user
+     */
+    public void uploadImage(Context context, Uri imageUri, OnCompleteListener<MediaRef> listener) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try (InputStream inputStream = appContext.getContentResolver().openInputStream(imageUri)) {
+                if (inputStream == null) {
+                    postError(listener, new IOException("Cannot open image: " + imageUri));
+                    return;
+                }
+                Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
+                if (bitmap == null) {
+                    postError(listener, new IOException("Cannot decode image: " + imageUri));
+                    return;
+                }
+
+                bitmap = scaleToFit(bitmap, MAX_IMAGE_SIZE);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, baos);
+                uploadImageBitmap(baos.toByteArray(), bitmap, listener);
+            } catch (Exception e) {
+                postError(listener, e);
+            }
+        });
+    }
+
+    /**
+     * Upload already-encoded image bytes as-is (used when migrating legacy Base64 images)
+     */
+    public void uploadImageBytes(byte[] imageBytes, OnCompleteListener<MediaRef> listener) {
+        executor.execute(() -> {
+            Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
+            if (bitmap == null) {
+                postError(listener, new IOException("Cannot decode image bytes"));
+                return;
+            }
+            uploadImageBitmap(imageBytes, bitmap, listener);
+        });
+    }
+
+    /**
+     * Upload a document picked by the user
+     */
+    public void uploadDocument(Context context, Uri fileUri, String mimeType, OnCompleteListener<MediaRef> listener) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try (InputStream inputStream = appContext.getContentResolver().openInputStream(fileUri)) {
+                if (inputStream == null) {
+                    postError(listener, new IOException("Cannot open file: " + fileUri));
+                    return;
+                }
+                byte[] bytes = readAll(inputStream);
+                uploadBytes(bytes, mimeType, new MediaRef(), listener);
+            } catch (Exception e) {
+                postError(listener, e);
+            }
+        });
+    }
+
+    /**
+     * Fetch the bytes behind a message's imageUrl/fileUrl.
+     * Storage URLs are downloaded; legacy inline Base64 data is decoded locally.
+     */
+    public void downloadBytes(String url, OnCompleteListener<byte[]> listener) {
+        if (url == null || url.isEmpty()) {
+            postError(listener, new IllegalArgumentException("Empty media URL"));
+            return;
+        }
+
+        if (isInlineData(url)) {
+            executor.execute(() -> {
+                try {
+                    byte[] bytes = decodeInlineData(url);
+                    mainHandler.post(() -> listener.onSuccess(bytes));
+                } catch (Exception e) {
+                    postError(listener, e);
+                }
+            });
+            return;
+        }
+
+        storage.getReferenceFromUrl(url).getBytes(MAX_UPLOAD_BYTES)
+            .addOnSuccessListener(listener::onSuccess)
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error downloading media", e);
+                listener.onError(e);
+            });
+    }
+
+    /**
+     * Move Base64 images/documents still embedded in a chat room's messages into Storage.
+     * Completion is recorded on the room (chatRooms/{id}/mediaMigrated), so once any member has
+     * finished, nobody pages the history again. Two devices racing on the first run is harmless:
+     * uploads are content-addressed and messages that already hold a Storage URL are skipped.
+     * Reports the number migrated.
+     */
+    public void migrateLegacyMessages(String chatRoomId, @Nullable OnCompleteListener<Integer> listener) {
+        DatabaseReference flagRef = chatRoomsRef.child(chatRoomId).child(FIELD_MEDIA_MIGRATED);
+        flagRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) {
+                    if (listener != null) {
+                        listener.onSuccess(0);
+                    }
+                    return;
+                }
+                migratePage(chatRoomId, 0, null, new int[] {0, 0}, listener);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error reading media migration flag", error.toException());
+                if (listener != null) {
+                    listener.onError(error.toException());
+                }
+            }
+        });
+    }
+
+    // Walks the history oldest first with the pager's (timestamp, key) cursor, so only one page
+    // of messages is held at a time
+    private void migratePage(String chatRoomId, long afterTimestamp, @Nullable String afterKey, int[] migrated,
+                             @Nullable OnCompleteListener<Integer> listener) {
+        Query query = messagesRef.child(chatRoomId).orderByChild(FIELD_TIMESTAMP);
+        if (afterKey != null) {
+            query = query.startAfter(afterTimestamp, afterKey);
+        }
+        query.limitToFirst(MIGRATION_PAGE_SIZE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Deque<DataSnapshot> pending = new ArrayDeque<>();
+                DataSnapshot last = null;
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    last = child;
+                    String imageUrl = child.child("imageUrl").getValue(String.class);
+                    String fileUrl = child.child("fileUrl").getValue(String.class);
+                    if (isInlineData(imageUrl) || isInlineData(fileUrl)) {
+                        pending.add(child);
+                    }
+                }
+
+                if (!pending.isEmpty()) {
+                    Log.d(TAG, "Migrating " + pending.size() + " legacy media messages in chat room: " + chatRoomId);
+                }
+                if (last == null || snapshot.getChildrenCount() < MIGRATION_PAGE_SIZE) {
+                    // Last page
+                    migrateNext(chatRoomId, pending, migrated, () -> {
+                        Log.d(TAG, "Media migration finished for chat room: " + chatRoomId + " (" + migrated[0]
+                            + " migrated, " + migrated[1] + " failed)");
+                        // Leave the room unmarked if anything failed, so the next open retries it
+                        if (migrated[1] == 0) {
+                            chatRoomsRef.child(chatRoomId).child(FIELD_MEDIA_MIGRATED).setValue(true)
+                                .addOnFailureListener(e -> Log.w(TAG, "Could not record media migration", e));
+                        }
+                        if (listener != null) {
+                            listener.onSuccess(migrated[0]);
+                        }
+                    });
+                    return;
+                }
+
+                Long lastTimestamp = last.child(FIELD_TIMESTAMP).getValue(Long.class);
+                String lastKey = last.getKey();
+                long cursorTimestamp = lastTimestamp != null ? lastTimestamp : 0;
+                migrateNext(chatRoomId, pending, migrated,
+                    () -> migratePage(chatRoomId, cursorTimestamp, lastKey, migrated, listener));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading messages for media migration", error.toException());
+                if (listener != null) {
+                    listener.onError(error.toException());
+                }
+            }
+        });
+    }
+
+    /**
+     * Check if a media URL is legacy inline data (data: URI or raw Base64) rather than a Storage URL
+     */
+    public static boolean isInlineData(@Nullable String url) {
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        return url.startsWith("data:")
+            || !(url.startsWith("https://") || url.startsWith("http://") || url.startsWith("gs://"));
+    }
+
+    /**
+     * Hex-encoded SHA-256 of the given bytes
+     */
+    public static String sha256Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Migrate legacy messages one at a time so only one decoded file is held in memory;
+    // migrated[0] counts rewritten messages and migrated[1] the ones that failed
+    private void migrateNext(String chatRoomId, Deque<DataSnapshot> pending, int[] migrated, Runnable onDone) {
+        DataSnapshot child = pending.poll();
+        if (child == null) {
+            onDone.run();
+            return;
+        }
+
+        String messageId = child.getKey();
+        String imageUrl = child.child("imageUrl").getValue(String.class);
+        String fileUrl = child.child("fileUrl").getValue(String.class);
+        String fileType = child.child("fileType").getValue(String.class);
+        boolean isImage = isInlineData(imageUrl);
+
+        OnCompleteListener<MediaRef> onUploaded = new OnCompleteListener<MediaRef>() {
+            @Override
+            public void onSuccess(MediaRef ref) {
+                Map<String, Object> updates = ref.toUpdates(isImage);
+                messagesRef.child(chatRoomId).child(messageId).updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> {
+                        migrated[0]++;
+                        migrateNext(chatRoomId, pending, migrated, onDone);
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Failed to update migrated message " + messageId, e);
+                        migrated[1]++;
+                        migrateNext(chatRoomId, pending, migrated, onDone);
+                    });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Leave the message untouched; it still renders from its inline data
+                Log.e(TAG, "Failed to migrate media for message " + messageId, e);
+                migrated[1]++;
+                migrateNext(chatRoomId, pending, migrated, onDone);
+            }
+        };
+
+        executor.execute(() -> {
+            try {
+                byte[] bytes = decodeInlineData(isImage ? imageUrl : fileUrl);
+                if (isImage) {
+                    uploadImageBytes(bytes, onUploaded);
+                } else {
+                    uploadBytes(bytes, fileType, new MediaRef(), onUploaded);
+                }
+            } catch (Exception e) {
+                postError(onUploaded, e);
+            }
+        });
+    }
+
+    // Runs on the executor: fill in dimensions and blurhash, then upload
+    private void uploadImageBitmap(byte[] jpegBytes, Bitmap bitmap, OnCompleteListener<MediaRef> listener) {
+        MediaRef ref = new MediaRef();
+        ref.width = bitmap.getWidth();
+        ref.height = bitmap.getHeight();
+        try {
+            ref.blurHash = computeBlurHash(bitmap);
+        } catch (Exception e) {
+            // A missing placeholder is not worth failing the upload for
+            Log.w(TAG, "Failed to compute blurhash", e);
+        }
+        uploadBytes(jpegBytes, "image/jpeg", ref, listener);
+    }
+
+    // Runs on the executor: hash the bytes, then upload unless a matching object already exists
+    private void uploadBytes(byte[] bytes, @Nullable String contentType, MediaRef ref, OnCompleteListener<MediaRef> listener) {
+        if (bytes.length > MAX_UPLOAD_BYTES) {
+            postError(listener, new IOException("File too large: " + bytes.length + " bytes"));
+            return;
+        }
+
+        ref.hash = sha256Hex(bytes);
+        ref.size = bytes.length;
+        ref.contentType = contentType != null ? contentType : "application/octet-stream";
+        String md5 = md5Base64(bytes);
+        store(mediaRef.child(ref.hash), bytes, md5, ref, true, listener);
+    }
+
+    // Reuse the object at objectRef if Storage's MD5 and size of it match the bytes, otherwise
+    // upload it. A shared object holding other bytes, or a shared upload that loses a race to
+    // one, sends the file to the user's own path instead.
+    private void store(StorageReference objectRef, byte[] bytes, String md5, MediaRef ref, boolean shared,
+                       OnCompleteListener<MediaRef> listener) {
+        objectRef.getMetadata()
+            .addOnSuccessListener(existing -> {
+                if (existing.getSizeBytes() == bytes.length && md5.equals(existing.getMd5Hash())) {
+                    Log.d(TAG, "Media already stored, skipping upload: " + objectRef.getPath());
+                    resolveDownloadUrl(objectRef, ref, listener);
+                } else if (shared) {
+                    Log.w(TAG, "Object under " + ref.hash + " doesn't match its hash, storing under the user instead");
+                    storeForUser(bytes, md5, ref, listener);
+                } else {
+                    listener.onError(new IOException("Stored object doesn't match " + ref.hash));
+                }
+            })
+            .addOnFailureListener(e -> {
+                if (!(e instanceof StorageException)
+                    || ((StorageException) e).getErrorCode() != StorageException.ERROR_OBJECT_NOT_FOUND) {
+                    Log.e(TAG, "Error checking media metadata", e);
+                    listener.onError(e);
+                    return;
+                }
+
+                StorageMetadata.Builder metadata = new StorageMetadata.Builder()
+                    .setContentType(ref.contentType)
+                    .setCacheControl("public, max-age=31536000, immutable");
+                FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+                if (user != null) {
+                    metadata.setCustomMetadata(METADATA_UPLOADER_ID, user.getUid());
+                }
+                objectRef.putBytes(bytes, metadata.build())
+                    .addOnSuccessListener(taskSnapshot -> {
+                        Log.d(TAG, "Media uploaded: " + objectRef.getPath() + " (" + ref.size + " bytes)");
+                        resolveDownloadUrl(objectRef, ref, listener);
+                    })
+                    .addOnFailureListener(uploadError -> {
+                        if (shared && uploadError instanceof StorageException
+                            && ((StorageException) uploadError).getErrorCode() == StorageException.ERROR_NOT_AUTHORIZED) {
+                            // Created by someone else since the check (objects can't be overwritten)
+                            storeForUser(bytes, md5, ref, listener);
+                            return;
+                        }
+                        Log.e(TAG, "Error uploading media", uploadError);
+                        listener.onError(uploadError);
+                    });
+            });
+    }
+
+    private void storeForUser(byte[] bytes, String md5, MediaRef ref, OnCompleteListener<MediaRef> listener) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            listener.onError(new IllegalStateException("Not signed in"));
+            return;
+        }
+        StorageReference userRef = storage.getReference(PATH_USER_CHAT_MEDIA).child(user.getUid()).child(ref.hash);
+        store(userRef, bytes, md5, ref, false, listener);
+    }
+
+    private void resolveDownloadUrl(StorageReference objectRef, MediaRef ref, OnCompleteListener<MediaRef> listener) {
+        objectRef.getDownloadUrl()
+            .addOnSuccessListener(uri -> {
+                ref.downloadUrl = uri.toString();
+                listener.onSuccess(ref);
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error getting media download URL", e);
+                listener.onError(e);
+            });
+    }
+
+    private <T> void postError(OnCompleteListener<T> listener, Exception e) {
+        Log.e(TAG, "Media operation failed", e);
+        mainHandler.post(() -> listener.onError(e));
+    }
+
+    // Same encoding as StorageMetadata.getMd5Hash()
+    private static String md5Base64(byte[] bytes) {
+        try {
+            return Base64.encodeToString(MessageDigest.getInstance("MD5").digest(bytes), Base64.NO_WRAP);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static String computeBlurHash(Bitmap bitmap) {
+        Bitmap sample = Bitmap.createScaledBitmap(bitmap, BLURHASH_SAMPLE_SIZE, BLURHASH_SAMPLE_SIZE, true);
+        int[] pixels = new int[BLURHASH_SAMPLE_SIZE * BLURHASH_SAMPLE_SIZE];
+        sample.getPixels(pixels, 0, BLURHASH_SAMPLE_SIZE, 0, 0, BLURHASH_SAMPLE_SIZE, BLURHASH_SAMPLE_SIZE);
+        return BlurHash.encode(pixels, BLURHASH_SAMPLE_SIZE, BLURHASH_SAMPLE_SIZE,
+            BLURHASH_COMPONENTS_X, BLURHASH_COMPONENTS_Y);
+    }
+
+    private static Bitmap scaleToFit(Bitmap bitmap, int maxSize) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        float scale = Math.min(((float) maxSize / width), ((float) maxSize / height));
+        if (scale >= 1.0f) {
+            return bitmap;
+        }
+        return Bitmap.createScaledBitmap(bitmap, Math.round(width * scale), Math.round(height * scale), true);
+    }
+
+    private static byte[] decodeInlineData(String data) {
+        String base64 = data;
+        if (base64.startsWith("data:") && base64.contains(",")) {
+            base64 = base64.substring(base64.indexOf(',') + 1);
+        }
+        return Base64.decode(base64, Base64.DEFAULT);
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        long total = 0;
+        while ((len = inputStream.read(buffer)) > -1) {
+            total += len;
+            if (total > MAX_UPLOAD_BYTES) {
+                throw new IOException("File too large (max " + MAX_UPLOAD_BYTES + " bytes)");
+            }
+            baos.write(buffer, 0, len);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Reference to an uploaded media object, as stored on a ChatMessage
+     */
+    public static class MediaRef {
+        private String hash;
+        private String downloadUrl;
+        private String contentType;
+        private long size;
+        private int width;
+        private int height;
+        private String blurHash;
+
+        public String getHash() {
+            return hash;
+        }
+
+        public String getDownloadUrl() {
+            return downloadUrl;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public String getBlurHash() {
+            return blurHash;
+        }
+
+        /**
+         * Attach this reference to a message as its image
+         */
+        public void applyToImage(ChatMessage message) {
+            message.setImageUrl(downloadUrl);
+            message.setMediaHash(hash);
+            message.setMediaSize(size);
+            message.setImageWidth(width);
+            message.setImageHeight(height);
+            message.setBlurHash(blurHash);
+        }
+
+        /**
+         * Attach this reference to a message as its document
+         */
+        public void applyToDocument(ChatMessage message) {
+            message.setFileUrl(downloadUrl);
+            message.setMediaHash(hash);
+            message.setMediaSize(size);
+        }
+
+        Map<String, Object> toUpdates(boolean isImage) {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(isImage ? "imageUrl" : "fileUrl", downloadUrl);
+            updates.put("mediaHash", hash);
+            updates.put("mediaSize", size);
+            if (isImage) {
+                updates.put("imageWidth", width);
+                updates.put("imageHeight", height);
+                updates.put("blurHash", blurHash);
+            }
+            return updates;
+        }
+    }
+
+    // Callback interface
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+        void onError(Exception e);
+    }
+}
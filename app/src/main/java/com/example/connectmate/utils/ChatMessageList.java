@@ -0,0 +1,150 @@
+package com.example.connectmate.utils;
+
+import com.example.connectmate.models.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ChatMessageList - Ordered chat messages with an id -> position index
+ * Each message gets a sequence number; its position is (sequence - head sequence), so appending,
+ * prepending a page and dropping messages from the front are O(1) per message and lookups by
+ * id never scan the list. Only removing from the middle renumbers the messages after it.
+ */
+public class ChatMessageList {
+
+    private final List<ChatMessage> items = new ArrayList<>();
+    private final Map<String, Long> sequenceById = new HashMap<>();
+    private long headSequence;
+
+    /**
+     * Replace all messages
+     */
+    public void setAll(List<ChatMessage> messages) {
+        items.clear();
+        sequenceById.clear();
+        headSequence = 0;
+        for (ChatMessage message : messages) {
+            append(message);
+        }
+    }
+
+    /**
+     * Insert an older page before the first message. Messages already present are skipped.
+     * Returns the number of messages inserted.
+     */
+    public int prependAll(List<ChatMessage> page) {
+        List<ChatMessage> fresh = new ArrayList<>(page.size());
+        for (ChatMessage message : page) {
+            if (message.getId() != null && !sequenceById.containsKey(message.getId())) {
+                fresh.add(message);
+            }
+        }
+        for (int i = fresh.size() - 1; i >= 0; i--) {
+            ChatMessage message = fresh.get(i);
+            headSequence--;
+            sequenceById.put(message.getId(), headSequence);
+        }
+        items.addAll(0, fresh);
+        return fresh.size();
+    }
+
+    /**
+     * Append a message, or replace it in place if its id is already present.
+     * Returns true if the message was new.
+     */
+    public boolean addOrUpdate(ChatMessage message) {
+        if (message.getId() == null) return false;
+        int position = indexOf(message.getId());
+        if (position >= 0) {
+            items.set(position, message);
+            return false;
+        }
+        append(message);
+        return true;
+    }
+
+    /**
+     * Replace an existing message. Returns its position, or -1 if it is not loaded.
+     */
+    public int update(ChatMessage message) {
+        int position = indexOf(message.getId());
+        if (position >= 0) {
+            items.set(position, message);
+        }
+        return position;
+    }
+
+    /**
+     * Remove a message by id. Returns its former position, or -1 if it is not loaded.
+     */
+    public int remove(String id) {
+        int position = indexOf(id);
+        if (position < 0) return -1;
+
+        items.remove(position);
+        sequenceById.remove(id);
+        if (position == 0) {
+            headSequence++;
+        } else {
+            // Messages after the removed one move up by one
+            for (int i = position; i < items.size(); i++) {
+                sequenceById.put(items.get(i).getId(), headSequence + i);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Drop the oldest count messages
+     */
+    public void removeOldest(int count) {
+        int n = Math.min(count, items.size());
+        for (int i = 0; i < n; i++) {
+            sequenceById.remove(items.get(i).getId());
+        }
+        items.subList(0, n).clear();
+        headSequence += n;
+    }
+
+    /**
+     * Position of a message by id, or -1 if it is not loaded
+     */
+    public int indexOf(String id) {
+        if (id == null) return -1;
+        Long sequence = sequenceById.get(id);
+        return sequence != null ? (int) (sequence - headSequence) : -1;
+    }
+
+    public boolean contains(String id) {
+        return id != null && sequenceById.containsKey(id);
+    }
+
+    public ChatMessage get(int position) {
+        return items.get(position);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * Immutable copy of the current messages, for submitting to the adapter
+     */
+    public List<ChatMessage> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    private void append(ChatMessage message) {
+        if (message.getId() == null || sequenceById.containsKey(message.getId())) return;
+        sequenceById.put(message.getId(), headSequence + items.size());
+        items.add(message);
+    }
+}
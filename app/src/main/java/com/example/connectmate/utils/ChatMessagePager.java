@@ -0,0 +1,613 @@
+package com.example.connectmate.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.ChatMessage;
+import com.example.connectmate.models.SnapshotMappers;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ChatMessagePager - Windowed message source for one chat room
+ * Loads the newest page with limitToLast and older pages on demand with endBefore, so opening
+ * a large room never streams its whole history. Each network page is read through the listener
+ * that then stays on it (one query per page, downloaded once), which delivers edits and deletions
+ * of that page; the newest page's listener also delivers messages sent after it.
+ *
+ * When a ChatMessageStore is available, pages are read from disk first and everything received
+ * from the network is written through, so reopening a room renders from the cache and only
+ * fetches the messages after the newest cached one, at most one page of them. If a full page
+ * was missed the cache is dropped and the room starts over from that page. Cached pages are
+ * checked against the server once shown, for messages edited or deleted while away.
+ */
+public class ChatMessagePager {
+    private static final String TAG = "ChatMessagePager";
+
+    private static final String FIELD_TIMESTAMP = "timestamp";
+
+    private final String chatRoomId;
+    private final DatabaseReference roomMessagesRef;
+    private final int pageSize;
+    private final FirebaseChatManager.MessagePageListener listener;
+    @Nullable
+    private final ChatMessageStore store;
+
+    // Cursor of the oldest message still held by the caller (for endBefore)
+    private long oldestTimestamp;
+    private String oldestKey;
+    private boolean hasOlder = true;
+    private boolean loadingOlder;
+    // Bumped when the loaded window is replaced, so page loads for the old one are dropped
+    private int windowEpoch;
+
+    // Listeners of the loaded pages, oldest first; the last one is the live window
+    private final ArrayDeque<PageWatch> pageWatches = new ArrayDeque<>();
+    // Network pages still loading
+    private final List<PageWatch> loadingWatches = new ArrayList<>();
+    private boolean started;
+    private boolean stopped;
+
+    ChatMessagePager(String chatRoomId, DatabaseReference roomMessagesRef, int pageSize,
+                     FirebaseChatManager.MessagePageListener listener, @Nullable ChatMessageStore store) {
+        this.chatRoomId = chatRoomId;
+        this.roomMessagesRef = roomMessagesRef;
+        this.pageSize = pageSize;
+        this.listener = listener;
+        this.store = store;
+    }
+
+    /**
+     * Load the newest page (from disk when cached), then start listening for messages after it
+     */
+    public void start() {
+        if (started) return;
+        started = true;
+
+        if (store == null) {
+            loadInitialPageFromNetwork();
+            return;
+        }
+
+        store.loadLatest(chatRoomId, pageSize, cached -> {
+            if (stopped) return;
+            if (cached.isEmpty()) {
+                loadInitialPageFromNetwork();
+                return;
+            }
+
+            // Whether older messages exist is only known once the disk runs out
+            hasOlder = true;
+            setOldestCursor(cached.get(0));
+            Log.d(TAG, "Initial page rendered from cache: " + cached.size() + " messages");
+            listener.onInitialPageLoaded(cached, true);
+            loadGapAfterCache(cached);
+        });
+    }
+
+    // Messages sent while the room was closed, newest first and at most one page of them; the
+    // window stays open as the live listener
+    private void loadGapAfterCache(List<ChatMessage> cached) {
+        ChatMessage newestCached = cached.get(cached.size() - 1);
+        new PageWatch("ChatMessagePager.gap", roomMessagesRef.orderByChild(FIELD_TIMESTAMP)
+            .startAfter(newestCached.getTimestamp(), newestCached.getId())
+            .limitToLast(pageSize), true, (watch, gap) -> onGapDecoded(cached, watch, gap));
+    }
+
+    private void onGapDecoded(List<ChatMessage> cached, PageWatch gapWatch, List<ChatMessage> gap) {
+        if (gap.size() >= pageSize) {
+            // Possibly more than a page missed: the cached range no longer joins up with the
+            // newest messages, so drop it and start over from the gap page
+            Log.d(TAG, "Missed a full page since the cache; dropping cached messages");
+            windowEpoch++;
+            loadingOlder = false;
+            detachPageWatches();
+            if (store != null) {
+                store.deleteRoom(chatRoomId);
+            }
+            onInitialPageDecoded(gapWatch, gap);
+            return;
+        }
+
+        watchPage(cached, false);
+        validateCachedPage(cached);
+
+        Log.d(TAG, "Caught up after cache: " + gap.size() + " messages");
+        writeThrough(gap);
+        for (ChatMessage message : gap) {
+            listener.onMessageAdded(message);
+        }
+        if (gap.isEmpty()) {
+            gapWatch.setNewest(cached.get(cached.size() - 1));
+        }
+        pageWatches.addLast(gapWatch);
+    }
+
+    private void loadInitialPageFromNetwork() {
+        new PageWatch("ChatMessagePager.initialPage",
+            roomMessagesRef.orderByChild(FIELD_TIMESTAMP).limitToLast(pageSize), true,
+            this::onInitialPageDecoded);
+    }
+
+    private void onInitialPageDecoded(PageWatch window, List<ChatMessage> page) {
+        writeThrough(page);
+        hasOlder = page.size() >= pageSize;
+        if (!page.isEmpty()) {
+            setOldestCursor(page.get(0));
+        }
+
+        Log.d(TAG, "Initial page loaded: " + page.size() + " messages (hasOlder=" + hasOlder + ")");
+        listener.onInitialPageLoaded(page, hasOlder);
+        pageWatches.addLast(window);
+    }
+
+    /**
+     * Fetch the page before the oldest loaded message. Ignored while a page is in flight
+     * or when the start of the history has been reached.
+     */
+    public void loadOlder() {
+        if (!started || stopped || loadingOlder || !hasOlder || oldestKey == null) return;
+        loadingOlder = true;
+
+        if (store == null) {
+            loadOlderFromNetwork();
+            return;
+        }
+
+        // The cache holds a contiguous range, so a non-empty disk page has no gaps
+        int epoch = windowEpoch;
+        store.loadBefore(chatRoomId, oldestTimestamp, oldestKey, pageSize, cached -> {
+            if (epoch != windowEpoch) return;
+            if (stopped) {
+                loadingOlder = false;
+                return;
+            }
+            if (cached.isEmpty()) {
+                loadOlderFromNetwork();
+                return;
+            }
+
+            loadingOlder = false;
+            setOldestCursor(cached.get(0));
+            Log.d(TAG, "Older page read from cache: " + cached.size() + " messages");
+            listener.onOlderPageLoaded(cached, true);
+            watchPage(cached, true);
+            validateCachedPage(cached);
+        });
+    }
+
+    // Still loading until the page is decoded, so loadOlder() doesn't repeat it
+    private void loadOlderFromNetwork() {
+        new PageWatch("ChatMessagePager.olderPage", roomMessagesRef.orderByChild(FIELD_TIMESTAMP)
+            .endBefore(oldestTimestamp, oldestKey)
+            .limitToLast(pageSize), false, this::onOlderPageDecoded);
+    }
+
+    private void onOlderPageDecoded(PageWatch watch, List<ChatMessage> page) {
+        loadingOlder = false;
+        writeThrough(page);
+        hasOlder = page.size() >= pageSize;
+        if (!page.isEmpty()) {
+            setOldestCursor(page.get(0));
+        }
+
+        Log.d(TAG, "Older page loaded: " + page.size() + " messages (hasOlder=" + hasOlder + ")");
+        listener.onOlderPageLoaded(page, hasOlder);
+        if (page.isEmpty()) {
+            watch.detach();
+        } else {
+            pageWatches.addFirst(watch);
+        }
+    }
+
+    /**
+     * Tell the pager the caller dropped every message older than the given one from memory,
+     * so the next loadOlder() re-fetches from there
+     */
+    public void onOlderMessagesDropped(ChatMessage oldestRetained) {
+        if (oldestRetained == null) return;
+        setOldestCursor(oldestRetained);
+        hasOlder = true;
+
+        // Stop watching pages that are now entirely dropped
+        Iterator<PageWatch> watches = pageWatches.iterator();
+        while (watches.hasNext()) {
+            PageWatch watch = watches.next();
+            if (!watch.endsBefore(oldestRetained)) break;
+            watch.detach();
+            watches.remove();
+        }
+    }
+
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    public boolean isLoadingOlder() {
+        return loadingOlder;
+    }
+
+    /**
+     * Detach the realtime listeners; pending page loads are ignored
+     */
+    public void stop() {
+        stopped = true;
+        detachPageWatches();
+    }
+
+    private void detachPageWatches() {
+        for (PageWatch watch : pageWatches) {
+            watch.detach();
+        }
+        pageWatches.clear();
+        for (PageWatch watch : loadingWatches) {
+            watch.detach();
+        }
+        loadingWatches.clear();
+    }
+
+    // A cached page may hold messages edited or deleted while the room was closed; its watch
+    // only reports changes from now on, so compare it once against the server. The read uses the
+    // watch's query, so it is answered by the watch's listen rather than a second download.
+    private void validateCachedPage(List<ChatMessage> cached) {
+        ChatMessage first = cached.get(0);
+        ChatMessage last = cached.get(cached.size() - 1);
+        int epoch = windowEpoch;
+        roomMessagesRef.orderByChild(FIELD_TIMESTAMP)
+            .startAt(first.getTimestamp(), first.getId())
+            .endAt(last.getTimestamp(), last.getId())
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    if (stopped || epoch != windowEpoch) return;
+                    decodePage("ChatMessagePager.validate", snapshot, current -> {
+                        if (!stopped && epoch == windowEpoch) onCachedPageValidated(cached, current);
+                    });
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.w(TAG, "Could not check cached page", error.toException());
+                }
+            });
+    }
+
+    private void onCachedPageValidated(List<ChatMessage> cached, List<ChatMessage> current) {
+        Map<String, ChatMessage> currentById = new HashMap<>();
+        for (ChatMessage message : current) {
+            currentById.put(message.getId(), message);
+        }
+
+        int changed = 0;
+        int removed = 0;
+        for (ChatMessage message : cached) {
+            ChatMessage latest = currentById.get(message.getId());
+            if (latest == null) {
+                if (store != null) {
+                    store.delete(chatRoomId, message.getId());
+                }
+                listener.onMessageRemoved(message);
+                removed++;
+            } else if (!sameContent(message, latest)) {
+                writeThrough(latest);
+                listener.onMessageChanged(latest);
+                changed++;
+            }
+        }
+        if (changed > 0 || removed > 0) {
+            Log.d(TAG, "Cached page out of date: " + changed + " changed, " + removed + " removed");
+        }
+    }
+
+    // Every stored field that can change after a message is sent
+    private static boolean sameContent(ChatMessage a, ChatMessage b) {
+        return a.getMessageType() == b.getMessageType()
+            && a.getTimestamp() == b.getTimestamp()
+            && a.isRead() == b.isRead()
+            && a.getMediaSize() == b.getMediaSize()
+            && a.getImageWidth() == b.getImageWidth()
+            && a.getImageHeight() == b.getImageHeight()
+            && Objects.equals(a.getMessage(), b.getMessage())
+            && Objects.equals(a.getSenderName(), b.getSenderName())
+            && Objects.equals(a.getSenderProfileUrl(), b.getSenderProfileUrl())
+            && Objects.equals(a.getImageUrl(), b.getImageUrl())
+            && Objects.equals(a.getBlurHash(), b.getBlurHash())
+            && Objects.equals(a.getFileUrl(), b.getFileUrl())
+            && Objects.equals(a.getFileName(), b.getFileName())
+            && Objects.equals(a.getFileType(), b.getFileType())
+            && Objects.equals(a.getMediaHash(), b.getMediaHash());
+    }
+
+    // A page read from the cache gets a listener bounded to its range for edits and deletions
+    // (e.g. media migration rewriting a message)
+    private void watchPage(List<ChatMessage> page, boolean older) {
+        if (page.isEmpty() || stopped) return;
+        ChatMessage first = page.get(0);
+        ChatMessage last = page.get(page.size() - 1);
+        PageWatch watch = new PageWatch(roomMessagesRef.orderByChild(FIELD_TIMESTAMP)
+            .startAt(first.getTimestamp(), first.getId())
+            .endAt(last.getTimestamp(), last.getId()), last);
+        if (older) {
+            pageWatches.addFirst(watch);
+        } else {
+            pageWatches.addLast(watch);
+        }
+    }
+
+    private void onRemoteAdd(DataSnapshot snapshot) {
+        ChatMessage message = readMessage(snapshot);
+        if (message != null) {
+            writeThrough(message);
+            listener.onMessageAdded(message);
+        }
+    }
+
+    private void onRemoteChange(DataSnapshot snapshot) {
+        ChatMessage message = readMessage(snapshot);
+        if (message != null) {
+            writeThrough(message);
+            listener.onMessageChanged(message);
+        }
+    }
+
+    private void onRemoteRemoval(DataSnapshot snapshot) {
+        ChatMessage message = readMessage(snapshot);
+        if (message != null) {
+            if (store != null) {
+                store.delete(chatRoomId, message.getId());
+            }
+            listener.onMessageRemoved(message);
+        }
+    }
+
+    private void writeThrough(List<ChatMessage> page) {
+        if (store == null) return;
+        for (ChatMessage message : page) {
+            message.setChatRoomId(chatRoomId);
+        }
+        store.putAll(chatRoomId, page);
+    }
+
+    private void writeThrough(ChatMessage message) {
+        if (store == null) return;
+        message.setChatRoomId(chatRoomId);
+        store.put(message);
+    }
+
+    private void setOldestCursor(ChatMessage message) {
+        oldestTimestamp = message.getTimestamp();
+        oldestKey = message.getId();
+    }
+
+    // Decoded off the main thread; snapshot children arrive in query order (timestamp, then key)
+    private static void decodePage(String name, DataSnapshot snapshot,
+                                   SnapshotDecoder.Callback<List<ChatMessage>> callback) {
+        SnapshotDecoder.getInstance().decodeList(name, snapshot, ChatMessagePager::readMessage, callback);
+    }
+
+    private static long timestampOf(DataSnapshot snapshot) {
+        Long timestamp = snapshot.child(FIELD_TIMESTAMP).getValue(Long.class);
+        return timestamp != null ? timestamp : 0;
+    }
+
+    // Query order: timestamp, then key
+    private static int compareOrder(long timestamp, String key, long otherTimestamp, String otherKey) {
+        if (timestamp != otherTimestamp) return Long.compare(timestamp, otherTimestamp);
+        return key.compareTo(otherKey);
+    }
+
+    // The cursor must use the database key, which is also what ids are set to on send
+    @Nullable
+    private static ChatMessage readMessage(DataSnapshot snapshot) {
+        ChatMessage message = SnapshotMappers.toChatMessage(snapshot);
+        if (message != null) {
+            message.setId(snapshot.getKey());
+        }
+        return message;
+    }
+
+    private interface PageCallback {
+        void onPageDecoded(PageWatch watch, List<ChatMessage> page);
+    }
+
+    /**
+     * Listener on one loaded page's query. A network page is read through it: the first value
+     * event is the page itself, later events are edits and deletions. The live window (the
+     * newest page, limitToLast with no upper bound) also delivers messages sent after it; once it
+     * is full each new message pushes its oldest one out, which is not a deletion, and a pushed
+     * out message only gets edits again when the room is reopened. Older pages are bounded by
+     * endBefore, so nothing enters them except an older message sliding in after a deletion,
+     * which the next older page loads anyway.
+     */
+    private final class PageWatch implements ChildEventListener, ValueEventListener {
+        private final Query query;
+        private final boolean live;
+        private final int epoch;
+        @Nullable
+        private final String decodeName;
+        @Nullable
+        private final PageCallback callback;
+
+        private boolean snapshotReceived;
+        private boolean delivered;
+        private boolean detached;
+        // Events that arrived while the page was decoding, replayed once it is delivered
+        private final List<Runnable> deferred = new ArrayList<>();
+        // Live window removals, told apart from push-outs once the batch's value event arrives
+        private final List<DataSnapshot> pendingRemovals = new ArrayList<>();
+        private long newestTimestamp;
+        @Nullable
+        private String newestKey;
+
+        // A network page: read through this listener, then kept for its edits
+        PageWatch(String decodeName, Query query, boolean live, PageCallback callback) {
+            this.query = query;
+            this.live = live;
+            this.epoch = windowEpoch;
+            this.decodeName = decodeName;
+            this.callback = callback;
+            loadingWatches.add(this);
+            query.addChildEventListener(this);
+            query.addValueEventListener(this);
+        }
+
+        // A page already delivered from the cache; only its edits are needed
+        PageWatch(Query query, ChatMessage newest) {
+            this.query = query;
+            this.live = false;
+            this.epoch = windowEpoch;
+            this.decodeName = null;
+            this.callback = null;
+            this.snapshotReceived = true;
+            this.delivered = true;
+            setNewest(newest);
+            query.addChildEventListener(this);
+        }
+
+        void setNewest(ChatMessage message) {
+            newestTimestamp = message.getTimestamp();
+            newestKey = message.getId();
+        }
+
+        // True if the whole page is older than the given message
+        boolean endsBefore(ChatMessage message) {
+            if (newestKey == null) return false;
+            return compareOrder(newestTimestamp, newestKey, message.getTimestamp(), message.getId()) < 0;
+        }
+
+        void detach() {
+            detached = true;
+            query.removeEventListener((ChildEventListener) this);
+            query.removeEventListener((ValueEventListener) this);
+        }
+
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            if (detached) return;
+            if (!snapshotReceived) {
+                snapshotReceived = true;
+                decodePage(decodeName, snapshot, this::onPageDecoded);
+                return;
+            }
+            dispatch(() -> resolveRemovals(snapshot));
+        }
+
+        private void onPageDecoded(List<ChatMessage> page) {
+            if (detached) return;
+            loadingWatches.remove(this);
+            if (stopped || epoch != windowEpoch) {
+                detach();
+                return;
+            }
+            if (!page.isEmpty()) {
+                setNewest(page.get(page.size() - 1));
+            }
+            callback.onPageDecoded(this, page);
+            if (detached) return;
+
+            delivered = true;
+            for (Runnable event : deferred) {
+                event.run();
+            }
+            deferred.clear();
+        }
+
+        // Before the first value event, child events are the page itself
+        private void dispatch(Runnable event) {
+            if (detached || stopped || !snapshotReceived) return;
+            if (delivered) {
+                event.run();
+            } else {
+                deferred.add(event);
+            }
+        }
+
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            if (!live) return;
+            dispatch(() -> {
+                if (newestKey != null && compareOrder(timestampOf(snapshot), snapshot.getKey(),
+                        newestTimestamp, newestKey) <= 0) {
+                    return;
+                }
+                newestTimestamp = timestampOf(snapshot);
+                newestKey = snapshot.getKey();
+                onRemoteAdd(snapshot);
+            });
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            dispatch(() -> onRemoteChange(snapshot));
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            dispatch(() -> {
+                if (live) {
+                    pendingRemovals.add(snapshot);
+                } else {
+                    onRemoteRemoval(snapshot);
+                }
+            });
+        }
+
+        // Child events of a batch are raised before its value event. A full window whose first
+        // message now sorts after a removed one has moved forward past it; a deletion instead
+        // lets an older message slide in, or leaves the window short.
+        private void resolveRemovals(DataSnapshot window) {
+            if (pendingRemovals.isEmpty()) return;
+            DataSnapshot first = null;
+            for (DataSnapshot child : window.getChildren()) {
+                first = child;
+                break;
+            }
+            boolean full = window.getChildrenCount() >= pageSize;
+            for (DataSnapshot removed : pendingRemovals) {
+                boolean pushedOut = full && first != null && compareOrder(timestampOf(removed), removed.getKey(),
+                    timestampOf(first), first.getKey()) < 0;
+                if (!pushedOut) {
+                    onRemoteRemoval(removed);
+                }
+            }
+            pendingRemovals.clear();
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            // Not used for messages
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            if (detached) return;
+            if (delivered) {
+                // A loaded page just stops receiving edits
+                Log.w(TAG, "Page listener cancelled", error.toException());
+                return;
+            }
+            detach();
+            loadingWatches.remove(this);
+            if (stopped || epoch != windowEpoch) return;
+            if (!live) {
+                loadingOlder = false;
+            }
+            Log.e(TAG, "Error loading " + decodeName, error.toException());
+            listener.onError(error.toException());
+        }
+    }
+}
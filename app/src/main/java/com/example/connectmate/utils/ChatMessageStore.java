@@ -0,0 +1,342 @@
+package com.example.connectmate.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.ChatMessage;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ChatMessageStore - On-device SQLite cache of chat messages
+ * Replaces the SharedPreferences-based ChatManager, which kept each room as one JSON blob
+ * that was rewritten and reparsed for every message. Messages are rows ordered by
+ * (roomId, timestamp, id), read page by page, and mirrored into an FTS4 index on their text.
+ *
+ * Each room's cached messages are one contiguous range of its history (the newest page, what
+ * arrived after it, and older pages scrolled back to), so a page read from disk never skips
+ * messages. ChatMessagePager renders from here first and resumes the network listener after
+ * the newest cached message.
+ */
+public class ChatMessageStore {
+    private static final String TAG = "ChatMessageStore";
+
+    private static final String DB_NAME = "chat_messages.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "messages";
+    private static final String TABLE_FTS = "messages_fts";
+    private static final String COL_ROW_ID = "_id";
+    private static final String COL_ROOM_ID = "room_id";
+    private static final String COL_MESSAGE_ID = "message_id";
+    private static final String COL_TIMESTAMP = "timestamp";
+    private static final String COL_BODY = "body";
+    private static final String COL_JSON = "json";
+
+    // Oldest messages beyond this are pruned per room; pruning from the old end keeps the
+    // cached range contiguous
+    private static final int MAX_MESSAGES_PER_ROOM = 2000;
+
+    private static ChatMessageStore instance;
+
+    private final DbHelper dbHelper;
+    private final Gson gson = new Gson();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ChatMessageStore(Context context) {
+        dbHelper = new DbHelper(context.getApplicationContext());
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ChatMessageStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChatMessageStore(context);
+        }
+        return instance;
+    }
+
+    /**
+     * The store if it has been opened (ConnectMateApplication does so on start)
+     */
+    @Nullable
+    public static synchronized ChatMessageStore peekInstance() {
+        return instance;
+    }
+
+    /**
+     * The newest messages of a room, oldest first
+     */
+    public void loadLatest(String chatRoomId, int limit, OnCompleteListener<List<ChatMessage>> listener) {
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            List<ChatMessage> messages = queryMessages(
+                COL_ROOM_ID + " = ?", new String[]{chatRoomId}, limit);
+            Collections.reverse(messages);
+            long elapsed = SystemClock.elapsedRealtime() - start;
+            Log.d(TAG, "Read " + messages.size() + " cached messages for " + chatRoomId + " in " + elapsed + "ms");
+            mainHandler.post(() -> listener.onSuccess(messages));
+        });
+    }
+
+    /**
+     * The page of messages before the given one (by timestamp, then id), oldest first
+     */
+    public void loadBefore(String chatRoomId, long beforeTimestamp, String beforeId, int limit,
+                           OnCompleteListener<List<ChatMessage>> listener) {
+        executor.execute(() -> {
+            List<ChatMessage> messages = queryMessages(
+                COL_ROOM_ID + " = ? AND (" + COL_TIMESTAMP + " < ? OR ("
+                    + COL_TIMESTAMP + " = ? AND " + COL_MESSAGE_ID + " < ?))",
+                new String[]{chatRoomId, String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp), beforeId},
+                limit);
+            Collections.reverse(messages);
+            mainHandler.post(() -> listener.onSuccess(messages));
+        });
+    }
+
+    /**
+     * Full-text search over cached message text, newest first. Every word must match, as a
+     * prefix (so particles attached to Korean words still match). Pass a null room to search
+     * every cached room.
+     */
+    public void search(@Nullable String chatRoomId, String query, int limit,
+                       OnCompleteListener<List<ChatMessage>> listener) {
+        String match = toMatchExpression(query);
+        if (match.isEmpty()) {
+            listener.onSuccess(new ArrayList<>());
+            return;
+        }
+
+        executor.execute(() -> {
+            List<ChatMessage> results = new ArrayList<>();
+            String sql = "SELECT m." + COL_JSON + " FROM " + TABLE_FTS
+                + " JOIN " + TABLE + " m ON m." + COL_ROW_ID + " = " + TABLE_FTS + ".docid"
+                + " WHERE " + TABLE_FTS + " MATCH ?"
+                + (chatRoomId != null ? " AND m." + COL_ROOM_ID + " = ?" : "")
+                + " ORDER BY m." + COL_TIMESTAMP + " DESC LIMIT " + limit;
+            String[] args = chatRoomId != null ? new String[]{match, chatRoomId} : new String[]{match};
+            try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(sql, args)) {
+                while (cursor.moveToNext()) {
+                    ChatMessage message = fromJson(cursor.getString(0));
+                    if (message != null) {
+                        results.add(message);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Message search failed for: " + query, e);
+            }
+            mainHandler.post(() -> listener.onSuccess(results));
+        });
+    }
+
+    /**
+     * Insert or update one message
+     */
+    public void put(ChatMessage message) {
+        if (!isStorable(message)) return;
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                upsert(db, message);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Insert or update a page of messages of one room in a single transaction
+     */
+    public void putAll(String chatRoomId, List<ChatMessage> messages) {
+        if (messages == null || messages.isEmpty()) return;
+        List<ChatMessage> copy = new ArrayList<>(messages);
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (ChatMessage message : copy) {
+                    if (isStorable(message)) {
+                        upsert(db, message);
+                    }
+                }
+                pruneRoom(db, chatRoomId);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Remove one message
+     */
+    public void delete(String chatRoomId, String messageId) {
+        if (chatRoomId == null || messageId == null) return;
+        executor.execute(() -> dbHelper.getWritableDatabase().delete(TABLE,
+            COL_ROOM_ID + " = ? AND " + COL_MESSAGE_ID + " = ?", new String[]{chatRoomId, messageId}));
+    }
+
+    /**
+     * Remove every cached message of a room
+     */
+    public void deleteRoom(String chatRoomId) {
+        if (chatRoomId == null) return;
+        executor.execute(() -> dbHelper.getWritableDatabase().delete(TABLE,
+            COL_ROOM_ID + " = ?", new String[]{chatRoomId}));
+    }
+
+    /**
+     * Remove every cached message (e.g. on logout)
+     */
+    public void clear() {
+        executor.execute(() -> {
+            dbHelper.getWritableDatabase().delete(TABLE, null, null);
+            Log.d(TAG, "All cached messages cleared");
+        });
+    }
+
+    // The delete/insert triggers keep the FTS index in step. INSERT OR REPLACE would bypass the
+    // delete trigger (recursive triggers are off), so update in place and insert only when new.
+    private void upsert(SQLiteDatabase db, ChatMessage message) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ROOM_ID, message.getChatRoomId());
+        values.put(COL_MESSAGE_ID, message.getId());
+        values.put(COL_TIMESTAMP, message.getTimestamp());
+        values.put(COL_BODY, searchableText(message));
+        values.put(COL_JSON, gson.toJson(message));
+
+        int updated = db.update(TABLE, values, COL_ROOM_ID + " = ? AND " + COL_MESSAGE_ID + " = ?",
+            new String[]{message.getChatRoomId(), message.getId()});
+        if (updated == 0) {
+            db.insert(TABLE, null, values);
+        }
+    }
+
+    private void pruneRoom(SQLiteDatabase db, String chatRoomId) {
+        db.execSQL("DELETE FROM " + TABLE + " WHERE " + COL_ROOM_ID + " = ? AND " + COL_ROW_ID + " IN ("
+                + "SELECT " + COL_ROW_ID + " FROM " + TABLE + " WHERE " + COL_ROOM_ID + " = ?"
+                + " ORDER BY " + COL_TIMESTAMP + " DESC, " + COL_MESSAGE_ID + " DESC"
+                + " LIMIT -1 OFFSET " + MAX_MESSAGES_PER_ROOM + ")",
+            new Object[]{chatRoomId, chatRoomId});
+    }
+
+    // Newest first; callers reverse for display order
+    private List<ChatMessage> queryMessages(String selection, String[] args, int limit) {
+        List<ChatMessage> messages = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(TABLE, new String[]{COL_JSON},
+                selection, args, null, null,
+                COL_TIMESTAMP + " DESC, " + COL_MESSAGE_ID + " DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                ChatMessage message = fromJson(cursor.getString(0));
+                if (message != null) {
+                    messages.add(message);
+                }
+            }
+        }
+        return messages;
+    }
+
+    @Nullable
+    private ChatMessage fromJson(String json) {
+        try {
+            return gson.fromJson(json, ChatMessage.class);
+        } catch (Exception e) {
+            Log.w(TAG, "Skipping unreadable cached message", e);
+            return null;
+        }
+    }
+
+    private static boolean isStorable(@Nullable ChatMessage message) {
+        return message != null && message.getChatRoomId() != null && message.getId() != null;
+    }
+
+    private static String searchableText(ChatMessage message) {
+        StringBuilder text = new StringBuilder();
+        if (message.getMessage() != null) {
+            text.append(message.getMessage());
+        }
+        if (message.getFileName() != null) {
+            text.append(' ').append(message.getFileName());
+        }
+        return text.toString();
+    }
+
+    // Each word becomes a prefix term; FTS operators and quotes typed by the user are dropped,
+    // and terms are lowercased so OR/AND/NOT/NEAR are searched as words (the tokenizer folds case)
+    static String toMatchExpression(String query) {
+        if (query == null) return "";
+        StringBuilder match = new StringBuilder();
+        for (String word : query.trim().split("\\s+")) {
+            String term = word.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+            if (term.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(term).append('*');
+        }
+        return match.toString();
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_ROW_ID + " INTEGER PRIMARY KEY, "
+                + COL_ROOM_ID + " TEXT NOT NULL, "
+                + COL_MESSAGE_ID + " TEXT NOT NULL, "
+                + COL_TIMESTAMP + " INTEGER NOT NULL, "
+                + COL_BODY + " TEXT, "
+                + COL_JSON + " TEXT NOT NULL, "
+                + "UNIQUE(" + COL_ROOM_ID + ", " + COL_MESSAGE_ID + "))");
+            db.execSQL("CREATE INDEX idx_messages_room_time ON " + TABLE
+                + "(" + COL_ROOM_ID + ", " + COL_TIMESTAMP + ", " + COL_MESSAGE_ID + ")");
+
+            // External-content FTS index over the body column, kept in step by triggers
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(content=\"" + TABLE + "\", " + COL_BODY + ")");
+            db.execSQL("CREATE TRIGGER messages_bu BEFORE UPDATE ON " + TABLE + " BEGIN "
+                + "DELETE FROM " + TABLE_FTS + " WHERE docid = old." + COL_ROW_ID + "; END");
+            db.execSQL("CREATE TRIGGER messages_bd BEFORE DELETE ON " + TABLE + " BEGIN "
+                + "DELETE FROM " + TABLE_FTS + " WHERE docid = old." + COL_ROW_ID + "; END");
+            db.execSQL("CREATE TRIGGER messages_au AFTER UPDATE ON " + TABLE + " BEGIN "
+                + "INSERT INTO " + TABLE_FTS + "(docid, " + COL_BODY + ") VALUES (new." + COL_ROW_ID + ", new." + COL_BODY + "); END");
+            db.execSQL("CREATE TRIGGER messages_ai AFTER INSERT ON " + TABLE + " BEGIN "
+                + "INSERT INTO " + TABLE_FTS + "(docid, " + COL_BODY + ") VALUES (new." + COL_ROW_ID + ", new." + COL_BODY + "); END");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // The store is a cache of the server; rebuild it
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_FTS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+
+    /**
+     * Callback interface for async reads (delivered on the main thread)
+     */
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+    }
+}
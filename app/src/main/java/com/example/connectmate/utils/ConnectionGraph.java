@@ -0,0 +1,326 @@
+package com.example.connectmate.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConnectionGraph - Maintained index of the users each user has met through activities
+ *
+ * userConnections/{uid}/{otherUid} holds the number of activities the two users share, and
+ * userConnectionCounts/{uid} the number of distinct users with a non-zero entry. Both are
+ * adjusted incrementally when participants join or leave and when an activity is deleted,
+ * so reading a user's connection count is a single scalar read.
+ */
+public class ConnectionGraph {
+    private static final String TAG = "ConnectionGraph";
+
+    private static final String PATH_USER_CONNECTIONS = "userConnections";
+    private static final String PATH_USER_CONNECTION_COUNTS = "userConnectionCounts";
+    private static final String PATH_USER_ACTIVITIES = "userActivities";
+    private static final String PATH_ACTIVITIES = "activities";
+    private static final String PATH_PARTICIPANTS = "participants";
+
+    private static ConnectionGraph instance;
+
+    private final DatabaseReference connectionsRef;
+    private final DatabaseReference connectionCountsRef;
+    private final DatabaseReference userActivitiesRef;
+    private final DatabaseReference activitiesRef;
+
+    private ConnectionGraph() {
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        connectionsRef = database.getReference(PATH_USER_CONNECTIONS);
+        connectionCountsRef = database.getReference(PATH_USER_CONNECTION_COUNTS);
+        userActivitiesRef = database.getReference(PATH_USER_ACTIVITIES);
+        activitiesRef = database.getReference(PATH_ACTIVITIES);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ConnectionGraph getInstance() {
+        if (instance == null) {
+            instance = new ConnectionGraph();
+        }
+        return instance;
+    }
+
+    /**
+     * A user joined an activity whose other participants are given
+     */
+    public void onParticipantJoined(String userId, Collection<String> otherParticipantIds) {
+        adjustPairs(userId, otherParticipantIds, 1);
+    }
+
+    /**
+     * A user left an activity whose remaining participants are given
+     */
+    public void onParticipantLeft(String userId, Collection<String> remainingParticipantIds) {
+        adjustPairs(userId, remainingParticipantIds, -1);
+    }
+
+    /**
+     * An activity was deleted; every pair of its participants shares one activity less.
+     * The rules only let a client step edges of pairs it is part of, so the deleting user's
+     * pairs are adjusted here and every other participant's count is dropped instead, which
+     * makes their next getConnectionCount() rebuild their index from their own activities.
+     */
+    public void onActivityDeleted(List<String> participantIds) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return;
+        String currentUserId = user.getUid();
+
+        List<String> others = new ArrayList<>();
+        for (String participantId : participantIds) {
+            if (participantId != null && !participantId.equals(currentUserId)) {
+                others.add(participantId);
+            }
+        }
+        // Dropped while the edge to the current user still exists, which the rules require
+        for (String otherId : others) {
+            connectionCountsRef.child(otherId).removeValue()
+                .addOnFailureListener(e -> Log.w(TAG, "Could not invalidate connection count for " + otherId, e));
+        }
+        if (participantIds.contains(currentUserId)) {
+            adjustPairs(currentUserId, others, -1);
+        }
+    }
+
+    /**
+     * Number of distinct users met through activities. The signed-in user's index is rebuilt
+     * once from their own activities if it was never built (accounts from before the index
+     * existed). Other users' activities and index can't be read or written by this client, so
+     * for them an unbuilt index yields null (unknown) until they open their own profile.
+     */
+    public void getConnectionCount(String userId, OnCompleteListener<Long> listener) {
+        connectionCountsRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Long count = snapshot.getValue(Long.class);
+                if (count != null) {
+                    listener.onSuccess(Math.max(0L, count));
+                } else if (isCurrentUser(userId)) {
+                    rebuildForUser(userId, listener);
+                } else {
+                    listener.onSuccess(null);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error reading connection count for " + userId, error.toException());
+                listener.onError(error.toException());
+            }
+        });
+    }
+
+    /**
+     * One page of connection user ids in key order. Pass the last id of the previous page as
+     * startAfterUserId, or null for the first page; a page shorter than pageSize is the last one.
+     */
+    public void getConnectionsPage(String userId, int pageSize, @Nullable String startAfterUserId,
+                                   OnCompleteListener<List<String>> listener) {
+        Query query = connectionsRef.child(userId).orderByKey();
+        if (startAfterUserId != null) {
+            query = query.startAfter(startAfterUserId);
+        }
+        query.limitToFirst(pageSize).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<String> page = new ArrayList<>((int) snapshot.getChildrenCount());
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    if (child.getKey() != null) {
+                        page.add(child.getKey());
+                    }
+                }
+                listener.onSuccess(page);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading connections page for " + userId, error.toException());
+                listener.onError(error.toException());
+            }
+        });
+    }
+
+    /**
+     * Rebuild one user's side of the index from userActivities/{uid}. Only reads the user's
+     * own activities, never the whole activity table; the rules only allow this for the
+     * signed-in user.
+     */
+    public void rebuildForUser(String userId, @Nullable OnCompleteListener<Long> listener) {
+        userActivitiesRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<String> activityIds = new ArrayList<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    if (child.getKey() != null) {
+                        activityIds.add(child.getKey());
+                    }
+                }
+
+                Map<String, Long> shared = new HashMap<>();
+                if (activityIds.isEmpty()) {
+                    writeRebuilt(userId, shared, listener);
+                    return;
+                }
+
+                final int[] pendingLoads = {activityIds.size()};
+                for (String activityId : activityIds) {
+                    activitiesRef.child(activityId).child(PATH_PARTICIPANTS)
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(@NonNull DataSnapshot participants) {
+                                for (DataSnapshot participant : participants.getChildren()) {
+                                    String otherId = participant.getKey();
+                                    if (otherId != null && !otherId.equals(userId)) {
+                                        Long current = shared.get(otherId);
+                                        shared.put(otherId, current != null ? current + 1 : 1L);
+                                    }
+                                }
+                                if (--pendingLoads[0] == 0) {
+                                    writeRebuilt(userId, shared, listener);
+                                }
+                            }
+
+                            @Override
+                            public void onCancelled(@NonNull DatabaseError error) {
+                                Log.w(TAG, "Skipping activity " + activityId + " during rebuild", error.toException());
+                                if (--pendingLoads[0] == 0) {
+                                    writeRebuilt(userId, shared, listener);
+                                }
+                            }
+                        });
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error reading activities of " + userId + " for rebuild", error.toException());
+                if (listener != null) listener.onError(error.toException());
+            }
+        });
+    }
+
+    private void writeRebuilt(String userId, Map<String, Long> shared, @Nullable OnCompleteListener<Long> listener) {
+        long count = shared.size();
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH_USER_CONNECTIONS + "/" + userId, shared.isEmpty() ? null : new HashMap<String, Object>(shared));
+        updates.put(PATH_USER_CONNECTION_COUNTS + "/" + userId, count);
+
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+            .addOnSuccessListener(aVoid -> {
+                Log.d(TAG, "Rebuilt connections for " + userId + ": " + count);
+                if (listener != null) listener.onSuccess(count);
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error writing rebuilt connections for " + userId, e);
+                // The computed count is still correct for display
+                if (listener != null) listener.onSuccess(count);
+            });
+    }
+
+    private static boolean isCurrentUser(String userId) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null && user.getUid().equals(userId);
+    }
+
+    private void adjustPairs(String userId, Collection<String> otherIds, int delta) {
+        if (userId == null || otherIds == null) return;
+        for (String otherId : otherIds) {
+            adjustPair(userId, otherId, delta);
+        }
+    }
+
+    private void adjustPair(String userA, String userB, int delta) {
+        if (userA == null || userB == null || userA.equals(userB)) return;
+        adjustEdge(userA, userB, delta);
+        adjustEdge(userB, userA, delta);
+    }
+
+    /**
+     * Change the shared-activity count of one directed edge and keep the owner's distinct
+     * connection count in step when the edge appears or disappears
+     */
+    private void adjustEdge(String ownerId, String otherId, int delta) {
+        final long[] before = {0};
+        connectionsRef.child(ownerId).child(otherId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Long current = currentData.getValue(Long.class);
+                before[0] = current != null ? current : 0L;
+                long next = before[0] + delta;
+                // A missing edge means "never met"; drop edges that reach zero
+                currentData.setValue(next > 0 ? next : null);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null || !committed) {
+                    Log.e(TAG, "Failed to update connection " + ownerId + " -> " + otherId,
+                        error != null ? error.toException() : null);
+                    return;
+                }
+                boolean existsNow = currentData != null && currentData.exists();
+                if (before[0] <= 0 && existsNow) {
+                    adjustCount(ownerId, 1);
+                } else if (before[0] > 0 && !existsNow) {
+                    adjustCount(ownerId, -1);
+                }
+            }
+        });
+    }
+
+    // A missing count means the user's index was never built; leave it missing so the next
+    // getConnectionCount() rebuilds it instead of starting from a partial value
+    private void adjustCount(String ownerId, int delta) {
+        connectionCountsRef.child(ownerId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Long current = currentData.getValue(Long.class);
+                if (current != null) {
+                    currentData.setValue(Math.max(0L, current + delta));
+                }
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed, @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "Failed to update connection count for " + ownerId, error.toException());
+                }
+            }
+        });
+    }
+
+    /**
+     * Callback interface for async operations
+     */
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+        void onError(Exception e);
+    }
+}
@@ -7,9 +7,12 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.example.connectmate.models.Activity;
 import com.example.connectmate.models.ChatRoom;
+import com.example.connectmate.models.SnapshotMappers;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.ChildEventListener;
@@ -19,13 +22,17 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.MutableData;
 import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Firebase-based Activity Manager with real-time multi-user sync
@@ -41,20 +48,41 @@ public class FirebaseActivityManager {
     private static final String PATH_USER_NOTIFICATIONS = "userNotifications";
     private static final String PATH_PENDING_REVIEWS = "pendingReviews";
     private static final String PATH_USERS = "users";
+    // activityId -> server time of deletion, so delta syncs see deletes they weren't listening for
+    private static final String PATH_ACTIVITY_TOMBSTONES = "activityTombstones";
+    private static final String FIELD_GEOHASH = "geohash";
+    // Stored for activities without a location, so the backfill query (geohash == null) stops
+    // matching them; sorts before every real cell, so no spatial query returns it either
+    private static final String GEOHASH_NO_LOCATION = "";
+    private static final String FIELD_CREATED_TIMESTAMP = "createdTimestamp";
+    // Server time of the last write to an activity; every write path stamps it
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+
+    // Upper bound on geohash cell queries issued for one spatial lookup
+    private static final int MAX_QUERY_CELLS = 16;
+    private static final int MAX_SEARCH_RESULTS = 100;
 
     private final DatabaseReference activitiesRef;
     private final DatabaseReference userActivitiesRef;
     private final DatabaseReference usersRef;
     private final DatabaseReference userNotificationsRef;
     private final DatabaseReference pendingReviewsRef;
+    private final DatabaseReference tombstonesRef;
     private final FirebaseAuth auth;
     private Context context;
 
     private static FirebaseActivityManager instance;
 
-    // Listeners for real-time updates
-    private final Map<String, ValueEventListener> activityListeners = new HashMap<>();
+    // Listeners for real-time updates (value listeners are shared through FirebaseListenerRegistry)
+    private final FirebaseListenerRegistry listenerRegistry = FirebaseListenerRegistry.getInstance();
+
+    // Bulk snapshots are decoded off the main thread
+    private final SnapshotDecoder decoder = SnapshotDecoder.getInstance();
     private final List<ChildEventListener> activityChangeListeners = new ArrayList<>();
+    private final Map<ChildEventListener, Query> cellChangeListeners = new HashMap<>();
+    private final Map<ChildEventListener, Query> deltaChangeListeners = new HashMap<>();
+    // Tombstone listener paired with each delta listener
+    private final Map<ChildEventListener, ChildEventListener> deltaTombstoneListeners = new HashMap<>();
 
     private FirebaseActivityManager() {
         FirebaseDatabase database = FirebaseDatabase.getInstance();
@@ -71,10 +99,11 @@ public class FirebaseActivityManager {
         usersRef = database.getReference(PATH_USERS);
         userNotificationsRef = database.getReference(PATH_USER_NOTIFICATIONS);
         pendingReviewsRef = database.getReference(PATH_PENDING_REVIEWS);
+        tombstonesRef = database.getReference(PATH_ACTIVITY_TOMBSTONES);
         auth = FirebaseAuth.getInstance();
 
-        // Keep data synced locally
-        activitiesRef.keepSynced(true);
+        // Keep data synced locally (activities are mirrored by ActivityStore instead,
+        // so a full copy of the table is not re-synced on every start)
         userActivitiesRef.keepSynced(true);
         usersRef.keepSynced(true);
         userNotificationsRef.keepSynced(true);
@@ -124,8 +153,16 @@ public class FirebaseActivityManager {
             activity.setCreatedTimestamp(System.currentTimeMillis());
         }
 
-        // Save the main activity data (do NOT auto-join creator)
-        activitiesRef.child(activity.getId()).setValue(activity)
+        // Keep the spatial index in sync with the coordinates
+        activity.setGeohash(geohashFor(activity));
+
+        // Save the main activity data (do NOT auto-join creator), then replace the device clock
+        // with server time so other devices' delta syncs aren't thrown off by clock skew
+        activitiesRef.child(activity.getId()).setValue(activity);
+        Map<String, Object> timestamps = new HashMap<>();
+        timestamps.put(FIELD_CREATED_TIMESTAMP, ServerValue.TIMESTAMP);
+        timestamps.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+        activitiesRef.child(activity.getId()).updateChildren(timestamps)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Activity data saved successfully: " + activity.getTitle());
                     joinActivityAndCreateChat(activity, listener);
@@ -214,23 +251,27 @@ public class FirebaseActivityManager {
     // ... (The rest of the FirebaseActivityManager methods remain unchanged) ...
 
     /**
-     * Get all activities with real-time updates
+     * Get all activities once, newest first
      */
     public void getAllActivities(ActivityListListener listener) {
-        activitiesRef.orderByChild("createdTimestamp")
-            .addValueEventListener(new ValueEventListener() {
+        activitiesRef.orderByChild(FIELD_CREATED_TIMESTAMP)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    List<Activity> activities = new ArrayList<>();
-                    for (DataSnapshot child : snapshot.getChildren()) {
-                        Activity activity = child.getValue(Activity.class);
-                        if (activity != null) {
-                            activities.add(0, activity); // Add to beginning (newest first)
+                    decoder.<List<Activity>>decode("FirebaseActivityManager.getAllActivities", snapshot, s -> {
+                        List<Activity> activities = new ArrayList<>((int) s.getChildrenCount());
+                        for (DataSnapshot child : s.getChildren()) {
+                            Activity activity = SnapshotMappers.toActivity(child);
+                            if (activity != null) {
+                                activities.add(activity);
+                            }
                         }
-                    }
-
-                    Log.d(TAG, "Loaded " + activities.size() + " activities from Firebase");
-                    listener.onActivitiesLoaded(activities);
+                        Collections.reverse(activities); // Newest first
+                        return Collections.unmodifiableList(activities);
+                    }, activities -> {
+                        Log.d(TAG, "Loaded " + activities.size() + " activities from Firebase");
+                        listener.onActivitiesLoaded(activities);
+                    });
                 }
 
                 @Override
@@ -247,10 +288,117 @@ public class FirebaseActivityManager {
      */
     @NonNull
     public ChildEventListener listenForActivityChanges(ActivityChangeListener listener) {
-        ChildEventListener childEventListener = new ChildEventListener() {
+        ChildEventListener childEventListener = createActivityChildListener(listener);
+        activitiesRef.addChildEventListener(childEventListener);
+        activityChangeListeners.add(childEventListener);
+        return childEventListener;
+    }
+
+    /**
+     * Remove a specific activity change listener
+     */
+    public void removeActivityChangeListener(@Nullable ChildEventListener listener) {
+        if (listener == null) {
+            return;
+        }
+        Query deltaQuery = deltaChangeListeners.remove(listener);
+        if (deltaQuery != null) {
+            deltaQuery.removeEventListener(listener);
+            ChildEventListener tombstoneListener = deltaTombstoneListeners.remove(listener);
+            Query tombstoneQuery = deltaChangeListeners.remove(tombstoneListener);
+            if (tombstoneQuery != null) {
+                tombstoneQuery.removeEventListener(tombstoneListener);
+            }
+            return;
+        }
+        activitiesRef.removeEventListener(listener);
+        activityChangeListeners.remove(listener);
+    }
+
+    /**
+     * Listen for real-time changes to activities written (server updatedAt) at or after the
+     * given server time, and for activities deleted since then. Any later write moves an
+     * activity into the range, so older rows report their edits and joins too; deletions are
+     * reported from activityTombstones with updatedAt set to the deletion time.
+     * Used by ActivityStore to fetch only what changed since its local copy.
+     * Remove with removeActivityChangeListener.
+     */
+    @NonNull
+    public ChildEventListener listenForActivityChangesSince(long updatedSince, ActivityChangeListener listener) {
+        ChildEventListener childEventListener = createActivityChildListener(listener);
+        Query deltaQuery = activitiesRef.orderByChild(FIELD_UPDATED_AT).startAt(updatedSince);
+        deltaQuery.addChildEventListener(childEventListener);
+        deltaChangeListeners.put(childEventListener, deltaQuery);
+
+        ChildEventListener tombstoneListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                Long deletedAt = snapshot.getValue(Long.class);
+                Activity activity = new Activity();
+                activity.setId(snapshot.getKey());
+                activity.setUpdatedAt(deletedAt != null ? deletedAt : 0);
+                listener.onActivityRemoved(activity);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                onChildAdded(snapshot, previousChildName);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Tombstones are never removed by clients
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Not used
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.toException());
+            }
+        };
+        Query tombstoneQuery = tombstonesRef.orderByValue().startAt(updatedSince);
+        tombstoneQuery.addChildEventListener(tombstoneListener);
+        deltaChangeListeners.put(tombstoneListener, tombstoneQuery);
+        deltaTombstoneListeners.put(childEventListener, tombstoneListener);
+        return childEventListener;
+    }
+
+    /**
+     * Listen for real-time changes to activities inside a single geohash cell.
+     * Used by the map to subscribe only to the cells visible in the viewport.
+     */
+    @NonNull
+    public ChildEventListener listenForActivityChangesInCell(String cell, ActivityChangeListener listener) {
+        ChildEventListener childEventListener = createActivityChildListener(listener);
+        Query cellQuery = queryCell(cell);
+        cellQuery.addChildEventListener(childEventListener);
+        cellChangeListeners.put(childEventListener, cellQuery);
+        return childEventListener;
+    }
+
+    /**
+     * Remove a listener registered with listenForActivityChangesInCell
+     */
+    public void removeCellChangeListener(@Nullable ChildEventListener listener) {
+        if (listener == null) {
+            return;
+        }
+        Query cellQuery = cellChangeListeners.remove(listener);
+        if (cellQuery != null) {
+            cellQuery.removeEventListener(listener);
+        }
+    }
+
+    @NonNull
+    private ChildEventListener createActivityChildListener(ActivityChangeListener listener) {
+        return new ChildEventListener() {
             @Override
             public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                Activity activity = snapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(snapshot);
                 if (activity != null) {
                     listener.onActivityAdded(activity);
                 }
@@ -258,7 +406,7 @@ public class FirebaseActivityManager {
 
             @Override
             public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                Activity activity = snapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(snapshot);
                 if (activity != null) {
                     listener.onActivityChanged(activity);
                 }
@@ -266,7 +414,7 @@ public class FirebaseActivityManager {
 
             @Override
             public void onChildRemoved(@NonNull DataSnapshot snapshot) {
-                Activity activity = snapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(snapshot);
                 if (activity != null) {
                     listener.onActivityRemoved(activity);
                 }
@@ -282,21 +430,6 @@ public class FirebaseActivityManager {
                 listener.onError(error.toException());
             }
         };
-
-        activitiesRef.addChildEventListener(childEventListener);
-        activityChangeListeners.add(childEventListener);
-        return childEventListener;
-    }
-
-    /**
-     * Remove a specific activity change listener
-     */
-    public void removeActivityChangeListener(@Nullable ChildEventListener listener) {
-        if (listener == null) {
-            return;
-        }
-        activitiesRef.removeEventListener(listener);
-        activityChangeListeners.remove(listener);
     }
 
     /**
@@ -306,7 +439,7 @@ public class FirebaseActivityManager {
         activitiesRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Activity activity = snapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(snapshot);
                 if (activity != null && listener != null) {
                     listener.onSuccess(activity);
                 } else if (listener != null) {
@@ -324,16 +457,16 @@ public class FirebaseActivityManager {
     }
 
     /**
-     * Listen to a specific activity for real-time updates
+     * Listen to a specific activity for real-time updates.
+     * Screens showing the same activity share one listener; it is removed when owner is
+     * destroyed (or the returned subscription is removed).
      */
-    public void listenToActivity(String activityId, ActivityListener listener) {
-        // Remove any existing listener for this activity to avoid duplicates
-        removeActivityListener(activityId);
-
-        ValueEventListener valueListener = new ValueEventListener() {
+    public FirebaseListenerRegistry.Subscription listenToActivity(String activityId, @Nullable LifecycleOwner owner,
+                                                                  ActivityListener listener) {
+        return listenerRegistry.observe(owner, activitiesRef.child(activityId), new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Activity activity = snapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(snapshot);
                 if (activity != null) {
                     listener.onActivityUpdated(activity);
                 }
@@ -343,23 +476,7 @@ public class FirebaseActivityManager {
             public void onCancelled(@NonNull DatabaseError error) {
                 listener.onError(error.toException());
             }
-        };
-
-        activitiesRef.child(activityId).addValueEventListener(valueListener);
-        activityListeners.put(activityId, valueListener);
-    }
-
-    /**
-     * Remove the realtime listener for a specific activity
-     */
-    public void removeActivityListener(@Nullable String activityId) {
-        if (activityId == null) {
-            return;
-        }
-        ValueEventListener valueListener = activityListeners.remove(activityId);
-        if (valueListener != null) {
-            activitiesRef.child(activityId).removeEventListener(valueListener);
-        }
+        });
     }
 
     /**
@@ -388,11 +505,16 @@ public class FirebaseActivityManager {
         updates.put("hashtags", activity.getHashtags());
         updates.put("latitude", activity.getLatitude());
         updates.put("longitude", activity.getLongitude());
+        // Re-index the activity in case its location moved
+        activity.setGeohash(geohashFor(activity));
+        updates.put(FIELD_GEOHASH, activity.getGeohash());
+        updates.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
         // Note: We do NOT update currentParticipants or participants - these are managed separately
 
         activitiesRef.child(activity.getId()).updateChildren(updates)
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Activity updated: " + activity.getTitle());
+                refreshStoredActivity(activity.getId());
                 if (listener != null) {
                     listener.onSuccess(activity);
                 }
@@ -460,12 +582,14 @@ public class FirebaseActivityManager {
 
                     // Step 2: Delete the chat room
                     deleteChatRoomForActivity(activityId, () -> {
-                        // Step 3: Delete the activity
-                        activitiesRef.child(activityId).removeValue()
+                        // Step 3: Delete the activity (its geohash index entry is removed with it)
+                        removeActivityNode(activityId)
                             .addOnSuccessListener(aVoid -> {
                                 Log.d(TAG, "✅ Activity deleted from Firebase: " + activityId);
+                                removeStoredActivity(activityId);
 
-                                // Step 4: Clean up userActivities references
+                                // Step 4: Clean up userActivities references and the connection index
+                                ConnectionGraph.getInstance().onActivityDeleted(participantIds);
                                 for (String userId : participantIds) {
                                     userActivitiesRef.child(userId).child(activityId).removeValue()
                                         .addOnSuccessListener(v -> Log.d(TAG, "✅ Cleaned up userActivity for user: " + userId))
@@ -490,8 +614,9 @@ public class FirebaseActivityManager {
                     Log.e(TAG, "❌ Failed to get participants", error.toException());
                     // Still try to delete even if we can't get participants
                     deleteChatRoomForActivity(activityId, () -> {
-                        activitiesRef.child(activityId).removeValue()
+                        removeActivityNode(activityId)
                             .addOnSuccessListener(aVoid -> {
+                                removeStoredActivity(activityId);
                                 if (listener != null) listener.onSuccess(null);
                             })
                             .addOnFailureListener(e -> {
@@ -554,7 +679,7 @@ public class FirebaseActivityManager {
                 endNotif.put("timestamp", timestamp);
                 endNotif.put("activityId", activityId);
                 endNotif.put("isRead", false);
-                userRef.child(endId).setValue(endNotif)
+                FirebaseNotificationManager.getInstance().createNotification(userId, endNotif)
                     .addOnSuccessListener(aVoid -> {
                         Log.d(TAG, "✅ Activity end notification created for user: " + userId);
                         // Show OS-level notification
@@ -586,7 +711,7 @@ public class FirebaseActivityManager {
                     reviewNotif.put("timestamp", timestamp + 1);
                     reviewNotif.put("activityId", activityId);
                     reviewNotif.put("isRead", false);
-                    userRef.child(reviewId).setValue(reviewNotif)
+                    FirebaseNotificationManager.getInstance().createNotification(userId, reviewNotif)
                         .addOnSuccessListener(aVoid -> {
                             Log.d(TAG, "✅ Review request notification created for user: " + userId);
                             // Show OS-level notification
@@ -700,14 +825,8 @@ public class FirebaseActivityManager {
             .addListenerForSingleValueEvent(new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    List<Activity> activities = new ArrayList<>();
-                    for (DataSnapshot child : snapshot.getChildren()) {
-                        Activity activity = child.getValue(Activity.class);
-                        if (activity != null) {
-                            activities.add(activity);
-                        }
-                    }
-                    listener.onActivitiesLoaded(activities);
+                    decoder.decodeList("FirebaseActivityManager.getActivitiesByCategory", snapshot, SnapshotMappers::toActivity,
+                        listener::onActivitiesLoaded);
                 }
 
                 @Override
@@ -725,59 +844,190 @@ public class FirebaseActivityManager {
         // Small tolerance for double comparison (approximately 1 meter)
         final double EPSILON = 0.00001;
 
-        // Firebase doesn't support range queries on multiple fields, so we need to fetch all activities
-        // and filter by both latitude and longitude with tolerance
-        activitiesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Only the geohash cells around the point are fetched, not the whole activities table
+        queryActivitiesInBounds(latitude - EPSILON, longitude - EPSILON,
+                latitude + EPSILON, longitude + EPSILON, new OnCompleteListener<List<Activity>>() {
+            @Override
+            public void onSuccess(List<Activity> activities) {
+                Log.d(TAG, "Found " + activities.size() + " activities at location (" + latitude + ", " + longitude + ")");
+                if (listener != null) {
+                    listener.onSuccess(activities);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (listener != null) {
+                    listener.onError(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get activities within a radius (in meters) of a coordinate.
+     * Only the geohash cells covering the circle are fetched from Firebase.
+     */
+    public void queryActivitiesInRadius(double latitude, double longitude, double radiusMeters,
+                                        OnCompleteListener<List<Activity>> listener) {
+        double[] bounds = GeoHash.boundsForRadius(latitude, longitude, radiusMeters);
+        queryActivitiesInBounds(bounds[0], bounds[1], bounds[2], bounds[3], new OnCompleteListener<List<Activity>>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<Activity> matchingActivities = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Activity activity = snapshot.getValue(Activity.class);
-                    // Check if both latitude and longitude match within tolerance
-                    if (activity != null &&
-                        Math.abs(activity.getLatitude() - latitude) < EPSILON &&
-                        Math.abs(activity.getLongitude() - longitude) < EPSILON) {
-                        matchingActivities.add(activity);
-                        Log.d(TAG, "Found activity at location: " + activity.getTitle() +
-                              " (" + activity.getLatitude() + ", " + activity.getLongitude() + ")");
+            public void onSuccess(List<Activity> activities) {
+                List<Activity> inRadius = new ArrayList<>();
+                for (Activity activity : activities) {
+                    if (GeoHash.distanceMeters(latitude, longitude,
+                            activity.getLatitude(), activity.getLongitude()) <= radiusMeters) {
+                        inRadius.add(activity);
                     }
                 }
-                Log.d(TAG, "Found " + matchingActivities.size() + " activities at location (" + latitude + ", " + longitude + ")");
                 if (listener != null) {
-                    listener.onSuccess(matchingActivities);
+                    listener.onSuccess(inRadius);
                 }
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
+            public void onError(Exception e) {
                 if (listener != null) {
-                    listener.onError(databaseError.toException());
+                    listener.onError(e);
                 }
             }
         });
     }
 
     /**
-     * Search activities (Note: Firebase doesn't support full-text search,
-     * so we load all and filter locally. For production, consider using Algolia or Elasticsearch)
+     * Get activities inside a bounding box (e.g. the visible map viewport).
+     * Issues one indexed query per covering geohash cell, so the cost is proportional
+     * to the number of results rather than the size of the activities table.
+     */
+    public void queryActivitiesInBounds(double minLat, double minLng, double maxLat, double maxLng,
+                                        OnCompleteListener<List<Activity>> listener) {
+        Set<String> cells = GeoHash.coverBounds(minLat, minLng, maxLat, maxLng, MAX_QUERY_CELLS);
+        Map<String, Activity> results = new LinkedHashMap<>();
+        int[] pendingLoads = {cells.size()};
+        Exception[] firstError = {null};
+
+        if (cells.isEmpty()) {
+            if (listener != null) listener.onSuccess(new ArrayList<>());
+            return;
+        }
+
+        for (String cell : cells) {
+            queryCell(cell).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    decoder.<Activity>decodeList("FirebaseActivityManager.queryActivitiesInBounds", snapshot,
+                        SnapshotMappers::toActivity,
+                        activity -> activity.getId() != null &&
+                            GeoHash.isInBounds(activity.getLatitude(), activity.getLongitude(),
+                                minLat, minLng, maxLat, maxLng),
+                        null,
+                        activities -> {
+                            for (Activity activity : activities) {
+                                results.put(activity.getId(), activity);
+                            }
+                            onCellLoaded();
+                        });
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Error querying geohash cell: " + cell, error.toException());
+                    if (firstError[0] == null) {
+                        firstError[0] = error.toException();
+                    }
+                    onCellLoaded();
+                }
+
+                private void onCellLoaded() {
+                    pendingLoads[0]--;
+                    if (pendingLoads[0] > 0 || listener == null) {
+                        return;
+                    }
+                    if (results.isEmpty() && firstError[0] != null) {
+                        listener.onError(firstError[0]);
+                    } else {
+                        Log.d(TAG, "Spatial query over " + cells.size() + " cells returned " + results.size() + " activities");
+                        listener.onSuccess(new ArrayList<>(results.values()));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Indexed query for all activities whose geohash starts with the given cell prefix
+     */
+    @NonNull
+    private Query queryCell(String cell) {
+        return activitiesRef.orderByChild(FIELD_GEOHASH).startAt(cell).endAt(cell + "~");
+    }
+
+    /**
+     * Add the geohash index field to activities created before spatial indexing existed.
+     * Only activities without a geohash are fetched; location-less ones get the empty sentinel,
+     * so once migrated the query returns nothing.
+     */
+    public void backfillGeohashIndex() {
+        activitiesRef.orderByChild(FIELD_GEOHASH).endAt(null)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    decoder.<Map<String, Object>>decode("FirebaseActivityManager.backfillGeohashIndex", snapshot, s -> {
+                        Map<String, Object> updates = new HashMap<>();
+                        for (DataSnapshot child : s.getChildren()) {
+                            Activity activity = SnapshotMappers.toActivity(child);
+                            String geohash = activity != null ? geohashFor(activity) : GEOHASH_NO_LOCATION;
+                            if (child.getKey() != null) {
+                                updates.put(child.getKey() + "/" + FIELD_GEOHASH, geohash);
+                                updates.put(child.getKey() + "/" + FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+                            }
+                        }
+                        return Collections.unmodifiableMap(updates);
+                    }, updates -> {
+                        if (updates.isEmpty()) {
+                            return;
+                        }
+                        activitiesRef.updateChildren(updates)
+                            .addOnSuccessListener(aVoid -> Log.d(TAG, "Geohash index backfilled for " + updates.size() + " activities"))
+                            .addOnFailureListener(e -> Log.e(TAG, "Failed to backfill geohash index", e));
+                    });
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Error loading unindexed activities", error.toException());
+                }
+            });
+    }
+
+    /**
+     * Compute the geohash index value for an activity, or the empty sentinel if it has no location
+     */
+    private static String geohashFor(Activity activity) {
+        if (activity.getLatitude() == 0 && activity.getLongitude() == 0) {
+            return GEOHASH_NO_LOCATION;
+        }
+        return GeoHash.encode(activity.getLatitude(), activity.getLongitude());
+    }
+
+    /**
+     * Search activities through the on-device ActivitySearchIndex (jamo/choseong aware, ranked).
+     * The index is normally kept current by ActivityStore; if nothing has filled it yet, all
+     * activities are read once to build it.
      */
     public void searchActivities(String query, ActivityListListener listener) {
+        ActivitySearchIndex searchIndex = ActivitySearchIndex.getInstance();
+        if (searchIndex.size() > 0) {
+            listener.onActivitiesLoaded(searchIndex.search(query, MAX_SEARCH_RESULTS));
+            return;
+        }
+
         getAllActivities(new ActivityListListener() {
             @Override
             public void onActivitiesLoaded(List<Activity> allActivities) {
-                List<Activity> results = new ArrayList<>();
-                String lowerQuery = query.toLowerCase();
-
-                for (Activity activity : allActivities) {
-                    if ((activity.getTitle() != null && activity.getTitle().toLowerCase().contains(lowerQuery)) ||
-                        (activity.getLocation() != null && activity.getLocation().toLowerCase().contains(lowerQuery)) ||
-                        (activity.getDescription() != null && activity.getDescription().toLowerCase().contains(lowerQuery)) ||
-                        (activity.getCategory() != null && activity.getCategory().toLowerCase().contains(lowerQuery))) {
-                        results.add(activity);
-                    }
-                }
-
-                listener.onActivitiesLoaded(results);
+                searchIndex.rebuild(allActivities);
+                listener.onActivitiesLoaded(searchIndex.search(query, MAX_SEARCH_RESULTS));
             }
 
             @Override
@@ -837,20 +1087,30 @@ public class FirebaseActivityManager {
      */
     public void addParticipant(String activityId, String userId, String userName,
                               OnCompleteListener<Void> listener) {
-        // First check if user is already a participant to avoid duplicate counting
-        activitiesRef.child(activityId).child(PATH_PARTICIPANTS).child(userId)
+        // First check if user is already a participant to avoid duplicate counting.
+        // The whole participant map is read so the connection index can be updated too.
+        activitiesRef.child(activityId).child(PATH_PARTICIPANTS)
             .addListenerForSingleValueEvent(new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    boolean alreadyExists = snapshot.exists();
+                    boolean alreadyExists = snapshot.hasChild(userId);
+                    List<String> otherParticipantIds = new ArrayList<>();
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        if (child.getKey() != null && !child.getKey().equals(userId)) {
+                            otherParticipantIds.add(child.getKey());
+                        }
+                    }
 
                     // Add the participant
-                    activitiesRef.child(activityId).child(PATH_PARTICIPANTS).child(userId)
-                        .setValue(userName)
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(PATH_PARTICIPANTS + "/" + userId, userName);
+                    updates.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+                    activitiesRef.child(activityId).updateChildren(updates)
                         .addOnSuccessListener(aVoid -> {
                             // Only increment count if user wasn't already a participant
                             if (!alreadyExists) {
                                 incrementParticipantCount(activityId, 1);
+                                ConnectionGraph.getInstance().onParticipantJoined(userId, otherParticipantIds);
                                 // Send join notification to existing members
                                 sendChatJoinNotification(activityId, userId, userName);
                             }
@@ -891,80 +1151,72 @@ public class FirebaseActivityManager {
             public void onDataChange(@NonNull DataSnapshot activitySnapshot) {
                 if (!activitySnapshot.exists()) return;
 
-                Activity activity = activitySnapshot.getValue(Activity.class);
+                Activity activity = SnapshotMappers.toActivity(activitySnapshot);
                 if (activity == null) return;
 
                 String activityTitle = activity.getTitle();
                 String creatorId = activity.getCreatorId();
 
-                // Get new user's profile image
-                usersRef.child(newUserId).child("profileImageUrl").addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot profileSnapshot) {
-                        String profileImageUrl = profileSnapshot.getValue(String.class);
+                // Get new user's profile image from the shared profile cache
+                UserProfileRepository.getInstance().getProfile(newUserId, profile -> {
+                    String profileImageUrl = profile.getProfileImageUrl();
 
-                        // Get all existing participants (except the new user)
-                        activitiesRef.child(activityId).child(PATH_PARTICIPANTS)
-                            .addListenerForSingleValueEvent(new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot participantsSnapshot) {
-                                    for (DataSnapshot participantSnapshot : participantsSnapshot.getChildren()) {
-                                        String participantId = participantSnapshot.getKey();
-
-                                        // Don't notify the user who just joined
-                                        if (participantId == null || participantId.equals(newUserId)) {
-                                            continue;
-                                        }
-
-                                        // Create notification for this participant (including creator)
-                                        String notificationId = userNotificationsRef.child(participantId).push().getKey();
-                                        if (notificationId == null) continue;
-
-                                        Map<String, Object> notificationData = new HashMap<>();
-                                        notificationData.put("id", notificationId);
-                                        notificationData.put("type", "CHAT_JOIN");
-                                        notificationData.put("title", "새로운 참가자");
-                                        String message = newUserName + "님이 " + activityTitle + " 채팅방에 참가했습니다.";
-                                        notificationData.put("message", message);
-                                        notificationData.put("activityId", activityId);
-                                        notificationData.put("senderId", newUserId);
-                                        notificationData.put("senderName", newUserName);
-                                        notificationData.put("senderProfileUrl", profileImageUrl != null ? profileImageUrl : "");
-                                        notificationData.put("timestamp", System.currentTimeMillis());
-                                        notificationData.put("isRead", false);
-
-                                        userNotificationsRef.child(participantId).child(notificationId).setValue(notificationData)
-                                            .addOnSuccessListener(aVoid -> {
-                                                Log.d(TAG, "Chat join notification sent to: " + participantId);
-                                                // Show OS-level notification
-                                                if (context != null) {
-                                                    NotificationHelper notificationHelper = new NotificationHelper(context);
-                                                    notificationHelper.showNotification(
-                                                        "CHAT_JOIN",
-                                                        "새로운 참가자",
-                                                        message,
-                                                        activityId,
-                                                        newUserId,
-                                                        newUserName,
-                                                        profileImageUrl
-                                                    );
-                                                }
-                                            })
-                                            .addOnFailureListener(e -> Log.e(TAG, "Failed to send chat join notification", e));
+                    // Get all existing participants (except the new user)
+                    activitiesRef.child(activityId).child(PATH_PARTICIPANTS)
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(@NonNull DataSnapshot participantsSnapshot) {
+                                for (DataSnapshot participantSnapshot : participantsSnapshot.getChildren()) {
+                                    String participantId = participantSnapshot.getKey();
+
+                                    // Don't notify the user who just joined
+                                    if (participantId == null || participantId.equals(newUserId)) {
+                                        continue;
                                     }
-                                }
 
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    Log.e(TAG, "Failed to get participants for notification", error.toException());
+                                    // Create notification for this participant (including creator)
+                                    String notificationId = userNotificationsRef.child(participantId).push().getKey();
+                                    if (notificationId == null) continue;
+
+                                    Map<String, Object> notificationData = new HashMap<>();
+                                    notificationData.put("id", notificationId);
+                                    notificationData.put("type", "CHAT_JOIN");
+                                    notificationData.put("title", "새로운 참가자");
+                                    String message = newUserName + "님이 " + activityTitle + " 채팅방에 참가했습니다.";
+                                    notificationData.put("message", message);
+                                    notificationData.put("activityId", activityId);
+                                    notificationData.put("senderId", newUserId);
+                                    notificationData.put("senderName", newUserName);
+                                    notificationData.put("senderProfileUrl", profileImageUrl != null ? profileImageUrl : "");
+                                    notificationData.put("timestamp", System.currentTimeMillis());
+                                    notificationData.put("isRead", false);
+
+                                    FirebaseNotificationManager.getInstance().createNotification(participantId, notificationData)
+                                        .addOnSuccessListener(aVoid -> {
+                                            Log.d(TAG, "Chat join notification sent to: " + participantId);
+                                            // Show OS-level notification
+                                            if (context != null) {
+                                                NotificationHelper notificationHelper = new NotificationHelper(context);
+                                                notificationHelper.showNotification(
+                                                    "CHAT_JOIN",
+                                                    "새로운 참가자",
+                                                    message,
+                                                    activityId,
+                                                    newUserId,
+                                                    newUserName,
+                                                    profileImageUrl
+                                                );
+                                            }
+                                        })
+                                        .addOnFailureListener(e -> Log.e(TAG, "Failed to send chat join notification", e));
                                 }
-                            });
-                    }
+                            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Failed to get profile image", error.toException());
-                    }
+                            @Override
+                            public void onCancelled(@NonNull DatabaseError error) {
+                                Log.e(TAG, "Failed to get participants for notification", error.toException());
+                            }
+                        });
                 });
             }
 
@@ -986,13 +1238,16 @@ public class FirebaseActivityManager {
         Log.d(TAG, "🔹 removeParticipant() called for user: " + userId + " in activity: " + activityId);
 
         // 1️⃣ 활동 참가자 제거
-        activitiesRef.child(activityId).child("participants").child(userId)
-                .removeValue()
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH_PARTICIPANTS + "/" + userId, null);
+        updates.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+        activitiesRef.child(activityId).updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "✅ 참가자 제거 완료 (activities)");
 
                     // 2️⃣ userActivities에서도 제거
                     rootRef.child("userActivities").child(userId).child(activityId).removeValue();
+                    updateConnectionsOnLeave(activityId, userId);
 
                     // 3️⃣ 채팅방 멤버 제거
                     chatRoomsRef.orderByChild("activityId").equalTo(activityId)
@@ -1056,6 +1311,33 @@ public class FirebaseActivityManager {
                 });
     }
 
+    /**
+     * Drop the user's shared-activity edges with everyone still in the activity
+     */
+    private void updateConnectionsOnLeave(String activityId, String userId) {
+        activitiesRef.child(activityId).child(PATH_PARTICIPANTS)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    ConnectionGraph.getInstance().onParticipantLeft(userId, participantIdsOf(snapshot));
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Failed to read participants for connection update", error.toException());
+                }
+            });
+    }
+
+    private static List<String> participantIdsOf(DataSnapshot participantsSnapshot) {
+        List<String> ids = new ArrayList<>();
+        for (DataSnapshot child : participantsSnapshot.getChildren()) {
+            if (child.getKey() != null) {
+                ids.add(child.getKey());
+            }
+        }
+        return ids;
+    }
 
     /**
      * User leaves the activity (chat room)
@@ -1064,7 +1346,10 @@ public class FirebaseActivityManager {
     public void leaveActivity(String activityId, String userId, OnCompleteListener<Void> listener) {
         DatabaseReference participantsRef = activitiesRef.child(activityId).child(PATH_PARTICIPANTS);
 
-        participantsRef.child(userId).removeValue()
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH_PARTICIPANTS + "/" + userId, null);
+        updates.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+        activitiesRef.child(activityId).updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
                     // Update participant count
                     incrementParticipantCount(activityId, -1);
@@ -1076,11 +1361,13 @@ public class FirebaseActivityManager {
                     participantsRef.addListenerForSingleValueEvent(new ValueEventListener() {
                         @Override
                         public void onDataChange(@NonNull DataSnapshot snapshot) {
+                            ConnectionGraph.getInstance().onParticipantLeft(userId, participantIdsOf(snapshot));
                             if (!snapshot.exists() || snapshot.getChildrenCount() == 0) {
                                 // No participants left -> delete the entire activity
-                                activitiesRef.child(activityId).removeValue()
+                                removeActivityNode(activityId)
                                         .addOnSuccessListener(unused -> {
                                             Log.d(TAG, "Activity deleted because no participants remain: " + activityId);
+                                            removeStoredActivity(activityId);
                                             if (listener != null) listener.onSuccess(null);
                                         })
                                         .addOnFailureListener(e -> {
@@ -1106,29 +1393,30 @@ public class FirebaseActivityManager {
     }
 
     /**
-     * Get participants for an activity
+     * Get participants for an activity, with real-time updates until owner is destroyed
+     * (or the returned subscription is removed)
      */
-    public void getParticipants(String activityId, ParticipantsListener listener) {
-        activitiesRef.child(activityId)
-            .addValueEventListener(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    Map<String, String> participants = new HashMap<>();
-                    for (DataSnapshot child : snapshot.getChildren()) {
-                        String userId = child.getKey();
-                        String userName = child.getValue(String.class);
-                        if (userId != null && userName != null) {
-                            participants.put(userId, userName);
-                        }
+    public FirebaseListenerRegistry.Subscription getParticipants(String activityId, @Nullable LifecycleOwner owner,
+                                                                 ParticipantsListener listener) {
+        return listenerRegistry.observe(owner, activitiesRef.child(activityId), new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Map<String, String> participants = new HashMap<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    String userId = child.getKey();
+                    String userName = child.getValue(String.class);
+                    if (userId != null && userName != null) {
+                        participants.put(userId, userName);
                     }
-                    listener.onParticipantsLoaded(participants);
                 }
+                listener.onParticipantsLoaded(participants);
+            }
 
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    listener.onError(error.toException());
-                }
-            });
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.toException());
+            }
+        });
     }
 
     /**
@@ -1162,7 +1450,8 @@ public class FirebaseActivityManager {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
                         if (!snapshot.hasChildren()) {
-                            activitiesRef.child(activityId).removeValue();
+                            removeActivityNode(activityId);
+                            removeStoredActivity(activityId);
                             Log.d(TAG, "Empty activity deleted: " + activityId);
                         }
                     }
@@ -1198,17 +1487,64 @@ public class FirebaseActivityManager {
                         Log.e(TAG, "Error updating participant count", error.toException());
                     } else if (committed) {
                         Log.d(TAG, "Participant count updated for activity: " + activityId + " (delta: " + delta + ")");
+                        activitiesRef.child(activityId).child(FIELD_UPDATED_AT).setValue(ServerValue.TIMESTAMP);
+                        refreshStoredActivity(activityId);
                     }
                 }
             });
     }
 
     /**
-     * Listen to participant count changes for a specific activity in realtime
+     * Delete an activity and leave a tombstone in the same write, so delta syncs on other
+     * devices learn about it even if they weren't listening at the time
      */
-    public void listenToParticipantCount(String activityId, ParticipantCountListener listener) {
-        activitiesRef.child(activityId).child("currentParticipants")
-            .addValueEventListener(new ValueEventListener() {
+    private Task<Void> removeActivityNode(String activityId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH_ACTIVITIES + "/" + activityId, null);
+        updates.put(PATH_ACTIVITY_TOMBSTONES + "/" + activityId, ServerValue.TIMESTAMP);
+        return FirebaseDatabase.getInstance().getReference().updateChildren(updates);
+    }
+
+    /**
+     * Re-read one activity into the local ActivityStore, if it is open
+     */
+    private void refreshStoredActivity(String activityId) {
+        ActivityStore store = ActivityStore.peekInstance();
+        if (store == null || activityId == null) return;
+        activitiesRef.child(activityId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Activity activity = SnapshotMappers.toActivity(snapshot);
+                if (activity != null) {
+                    store.upsert(activity);
+                } else {
+                    store.delete(activityId);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "Could not refresh stored activity " + activityId, error.toException());
+            }
+        });
+    }
+
+    private void removeStoredActivity(String activityId) {
+        ActivityStore store = ActivityStore.peekInstance();
+        if (store != null) {
+            store.delete(activityId);
+        }
+    }
+
+    /**
+     * Listen to participant count changes for a specific activity in realtime.
+     * Every row showing the same activity shares one listener; it is removed when owner is
+     * destroyed (or the returned subscription is removed, e.g. when the row is recycled).
+     */
+    public FirebaseListenerRegistry.Subscription listenToParticipantCount(String activityId, @Nullable LifecycleOwner owner,
+                                                                          ParticipantCountListener listener) {
+        return listenerRegistry.observe(owner, activitiesRef.child(activityId).child("currentParticipants"),
+            new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
                     Integer count = snapshot.getValue(Integer.class);
@@ -1230,18 +1566,17 @@ public class FirebaseActivityManager {
         activitiesRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<Map<String, Object>> activityLocations = new ArrayList<>();
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    Activity activity = child.getValue(Activity.class);
-                    if (activity != null && activity.getLatitude() != 0 && activity.getLongitude() != 0) {
-                        Map<String, Object> locationData = new HashMap<>();
-                        locationData.put("id", activity.getId());
-                        locationData.put("latitude", activity.getLatitude());
-                        locationData.put("longitude", activity.getLongitude());
-                        activityLocations.add(locationData);
+                decoder.<Map<String, Object>>decodeList("FirebaseActivityManager.getActivitiesWithLocation", snapshot, child -> {
+                    Activity activity = SnapshotMappers.toActivity(child);
+                    if (activity == null || activity.getLatitude() == 0 || activity.getLongitude() == 0) {
+                        return null;
                     }
-                }
-                listener.onSuccess(activityLocations);
+                    Map<String, Object> locationData = new HashMap<>();
+                    locationData.put("id", activity.getId());
+                    locationData.put("latitude", activity.getLatitude());
+                    locationData.put("longitude", activity.getLongitude());
+                    return locationData;
+                }, null, null, listener::onSuccess);
             }
 
             @Override
@@ -1261,11 +1596,20 @@ public class FirebaseActivityManager {
         }
         activityChangeListeners.clear();
 
-        // Remove activity-specific listeners
-        for (Map.Entry<String, ValueEventListener> entry : new HashMap<>(activityListeners).entrySet()) {
-            activitiesRef.child(entry.getKey()).removeEventListener(entry.getValue());
+        // Remove geohash cell listeners
+        for (Map.Entry<ChildEventListener, Query> entry : new HashMap<>(cellChangeListeners).entrySet()) {
+            entry.getValue().removeEventListener(entry.getKey());
+        }
+        cellChangeListeners.clear();
+
+        // Remove delta listeners
+        for (Map.Entry<ChildEventListener, Query> entry : new HashMap<>(deltaChangeListeners).entrySet()) {
+            entry.getValue().removeEventListener(entry.getKey());
         }
-        activityListeners.clear();
+        deltaChangeListeners.clear();
+
+        // Remove shared listeners on activities (details, participant counts)
+        listenerRegistry.removeAll(activitiesRef);
     }
 
     // Callback interfaces
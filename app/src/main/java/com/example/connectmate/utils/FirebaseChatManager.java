@@ -1,12 +1,15 @@
 package com.example.connectmate.utils;
 
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.example.connectmate.models.ChatMessage;
 import com.example.connectmate.models.ChatRoom;
+import com.example.connectmate.models.SnapshotMappers;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.ChildEventListener;
@@ -18,9 +21,13 @@ import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Firebase-based Chat Manager with real-time multi-user sync
@@ -36,6 +43,7 @@ public class FirebaseChatManager {
     private static final String PATH_USER_CHAT_ROOMS = "userChatRooms";
     private static final String PATH_ACTIVITY_CHAT_ROOMS = "activityChatRooms";
 
+    private final DatabaseReference rootRef;
     private final DatabaseReference chatRoomsRef;
     private final DatabaseReference messagesRef;
     private final DatabaseReference usersRef;
@@ -45,9 +53,23 @@ public class FirebaseChatManager {
 
     private static FirebaseChatManager instance;
 
-    // Listeners for real-time updates
-    private final Map<String, ChildEventListener> messageListeners = new HashMap<>();
+    // Listeners for real-time updates (value listeners are shared through FirebaseListenerRegistry)
+    private final FirebaseListenerRegistry listenerRegistry = FirebaseListenerRegistry.getInstance();
+    // Bulk snapshots are decoded off the main thread
+    private final SnapshotDecoder decoder = SnapshotDecoder.getInstance();
+    private final Map<String, ChatMessagePager> messagePagers = new HashMap<>();
     private ChildEventListener chatRoomsChildListener;
+    private JoinedChatRoomsSubscription joinedChatRoomsSubscription;
+
+    // End-to-end send latency per chat room
+    private static final int SEND_LATENCY_WINDOW = 200;
+    private static final int SEND_LATENCY_LOG_INTERVAL = 20;
+    private final Map<String, LatencyRecorder> sendLatency = new HashMap<>();
+
+    // Member ids per chat room, kept fresh by listenToChatRoom so sends don't re-read members.
+    // Only trusted while one of that method's own subscriptions is active; see getMemberIds.
+    private final Map<String, Set<String>> memberIdsCache = new HashMap<>();
+    private final Map<String, List<FirebaseListenerRegistry.Subscription>> memberIdsSubscriptions = new HashMap<>();
 
     private FirebaseChatManager() {
         FirebaseDatabase database = FirebaseDatabase.getInstance();
@@ -59,6 +81,7 @@ public class FirebaseChatManager {
             Log.w(TAG, "Persistence already enabled or failed to enable", e);
         }
 
+        rootRef = database.getReference();
         chatRoomsRef = database.getReference(PATH_CHAT_ROOMS);
         messagesRef = database.getReference(PATH_MESSAGES);
         usersRef = database.getReference(PATH_USERS);
@@ -69,7 +92,8 @@ public class FirebaseChatManager {
         // Keep chat data synced locally for better real-time performance
         chatRoomsRef.keepSynced(true);
         usersRef.keepSynced(true);
-        messagesRef.keepSynced(true);  // Keep messages synced for faster real-time updates
+        // messagesRef is deliberately not kept synced: that would mirror every room's full
+        // history onto the device. Rooms load their messages page by page (ChatMessagePager).
     }
 
     /**
@@ -149,7 +173,7 @@ public class FirebaseChatManager {
                         chatRoomsRef.child(chatRoomId).addListenerForSingleValueEvent(new ValueEventListener() {
                             @Override
                             public void onDataChange(@NonNull DataSnapshot chatSnapshot) {
-                                ChatRoom existingRoom = chatSnapshot.getValue(ChatRoom.class);
+                                ChatRoom existingRoom = SnapshotMappers.toChatRoom(chatSnapshot);
                                 if (existingRoom != null && listener != null) {
                                     maybeBackfillHost(existingRoom, hostId, hostName);
                                     Log.d(TAG, "Chat room already exists for activity: " + activityId);
@@ -191,6 +215,8 @@ public class FirebaseChatManager {
                                    OnCompleteListener<ChatRoom> listener) {
         ChatRoom chatRoom = new ChatRoom(activityTitle, activityId);
         chatRoom.setCategory(activityCategory);
+        // New rooms only ever hold Storage URLs, so there is nothing to migrate
+        chatRoom.setMediaMigrated(true);
         if (hostId != null && !hostId.isEmpty()) {
             chatRoom.setHostId(hostId);
             chatRoom.setHostName(hostName);
@@ -236,7 +262,7 @@ public class FirebaseChatManager {
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
                     if (snapshot.exists()) {
                         for (DataSnapshot child : snapshot.getChildren()) {
-                            ChatRoom existingRoom = child.getValue(ChatRoom.class);
+                            ChatRoom existingRoom = SnapshotMappers.toChatRoom(child);
                             if (existingRoom != null && listener != null) {
                                 Log.d(TAG, "Found chat room for activity: " + activityId);
                                 listener.onSuccess(existingRoom);
@@ -360,23 +386,29 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Get all chat rooms with real-time updates
+     * Get all chat rooms with real-time updates until owner is destroyed
+     * (or the returned subscription is removed)
      */
-    public void getAllChatRooms(ChatRoomListListener listener) {
-        chatRoomsRef.orderByChild("lastMessageTime")
-            .addValueEventListener(new ValueEventListener() {
+    public FirebaseListenerRegistry.Subscription getAllChatRooms(@Nullable LifecycleOwner owner,
+                                                                 ChatRoomListListener listener) {
+        return listenerRegistry.observe(owner, chatRoomsRef.orderByChild("lastMessageTime"), "orderBy=lastMessageTime",
+            new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    List<ChatRoom> chatRooms = new ArrayList<>();
-                    for (DataSnapshot child : snapshot.getChildren()) {
-                        ChatRoom chatRoom = child.getValue(ChatRoom.class);
-                        if (chatRoom != null) {
-                            chatRooms.add(0, chatRoom); // Add to beginning (newest first)
+                    decoder.<List<ChatRoom>>decodeLatest("FirebaseChatManager.getAllChatRooms", this, snapshot, s -> {
+                        List<ChatRoom> chatRooms = new ArrayList<>((int) s.getChildrenCount());
+                        for (DataSnapshot child : s.getChildren()) {
+                            ChatRoom chatRoom = SnapshotMappers.toChatRoom(child);
+                            if (chatRoom != null) {
+                                chatRooms.add(chatRoom);
+                            }
                         }
-                    }
-
-                    Log.d(TAG, "Loaded " + chatRooms.size() + " chat rooms from Firebase");
-                    listener.onChatRoomsLoaded(chatRooms);
+                        Collections.reverse(chatRooms); // Newest first
+                        return Collections.unmodifiableList(chatRooms);
+                    }, chatRooms -> {
+                        Log.d(TAG, "Loaded " + chatRooms.size() + " chat rooms from Firebase");
+                        listener.onChatRoomsLoaded(chatRooms);
+                    });
                 }
 
                 @Override
@@ -388,76 +420,28 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Get all chat rooms that a user has joined with real-time updates.
-     * Uses the userChatRooms index for efficient and secure querying.
-     * Only fetches chat rooms where the user is a member.
-     * Provides real-time updates for last message, unread counts, etc.
+     * Subscribe to the chat rooms a user has joined.
+     * Keeps one live listener per joined room and reports each change as a single row
+     * update within the list sorted by lastMessageTime (newest first), including this
+     * user's unread count. Replaces any previous subscription.
      */
-    public void getJoinedChatRooms(String userId, ChatRoomListListener listener) {
-        // First, get the list of chat room IDs the user is a member of
-        userChatRoomsRef.child(userId).addValueEventListener(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<ChatRoom> chatRooms = new ArrayList<>();
-                long totalChatRooms = snapshot.getChildrenCount();
-
-                if (totalChatRooms == 0) {
-                    // User has no chat rooms
-                    Log.d(TAG, "User " + userId + " has no joined chat rooms");
-                    listener.onChatRoomsLoaded(chatRooms);
-                    return;
-                }
-
-                // Counter to track loaded chat rooms
-                final int[] loadedCount = {0};
-
-                // For each chat room ID, fetch the full chat room data
-                for (DataSnapshot chatRoomSnapshot : snapshot.getChildren()) {
-                    String chatRoomId = chatRoomSnapshot.getKey();
-
-                    if (chatRoomId != null) {
-                        chatRoomsRef.child(chatRoomId).addListenerForSingleValueEvent(new ValueEventListener() {
-                            @Override
-                            public void onDataChange(@NonNull DataSnapshot chatRoomData) {
-                                ChatRoom chatRoom = chatRoomData.getValue(ChatRoom.class);
-                                if (chatRoom != null) {
-                                    chatRooms.add(chatRoom);
-                                }
-
-                                loadedCount[0]++;
+    public JoinedChatRoomsSubscription subscribeToJoinedChatRooms(String userId, JoinedChatRoomsListener listener) {
+        unsubscribeFromJoinedChatRooms();
 
-                                // When all chat rooms are loaded, sort and return
-                                if (loadedCount[0] == totalChatRooms) {
-                                    // Sort by last message time (newest first)
-                                    chatRooms.sort((a, b) -> Long.compare(b.getLastMessageTime(), a.getLastMessageTime()));
-
-                                    Log.d(TAG, "Loaded " + chatRooms.size() + " joined chat rooms from Firebase for user " + userId);
-                                    listener.onChatRoomsLoaded(chatRooms);
-                                }
-                            }
-
-                            @Override
-                            public void onCancelled(@NonNull DatabaseError error) {
-                                Log.e(TAG, "Error loading chat room " + chatRoomId, error.toException());
-                                loadedCount[0]++;
-
-                                // Continue even if one chat room fails
-                                if (loadedCount[0] == totalChatRooms) {
-                                    chatRooms.sort((a, b) -> Long.compare(b.getLastMessageTime(), a.getLastMessageTime()));
-                                    listener.onChatRoomsLoaded(chatRooms);
-                                }
-                            }
-                        });
-                    }
-                }
-            }
+        joinedChatRoomsSubscription = new JoinedChatRoomsSubscription(
+            userId, userChatRoomsRef.child(userId), chatRoomsRef, listenerRegistry, listener);
+        joinedChatRoomsSubscription.start();
+        return joinedChatRoomsSubscription;
+    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error loading user's chat room list", error.toException());
-                listener.onError(error.toException());
-            }
-        });
+    /**
+     * Stop the joined chat rooms subscription, if any
+     */
+    public void unsubscribeFromJoinedChatRooms() {
+        if (joinedChatRoomsSubscription != null) {
+            joinedChatRoomsSubscription.stop();
+            joinedChatRoomsSubscription = null;
+        }
     }
 
     /**
@@ -472,7 +456,7 @@ public class FirebaseChatManager {
         chatRoomsChildListener = new ChildEventListener() {
             @Override
             public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                ChatRoom chatRoom = snapshot.getValue(ChatRoom.class);
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
                 if (chatRoom != null) {
                     listener.onChatRoomAdded(chatRoom);
                 }
@@ -480,7 +464,7 @@ public class FirebaseChatManager {
 
             @Override
             public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                ChatRoom chatRoom = snapshot.getValue(ChatRoom.class);
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
                 if (chatRoom != null) {
                     listener.onChatRoomChanged(chatRoom);
                 }
@@ -488,7 +472,7 @@ public class FirebaseChatManager {
 
             @Override
             public void onChildRemoved(@NonNull DataSnapshot snapshot) {
-                ChatRoom chatRoom = snapshot.getValue(ChatRoom.class);
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
                 if (chatRoom != null) {
                     listener.onChatRoomRemoved(chatRoom);
                 }
@@ -515,7 +499,7 @@ public class FirebaseChatManager {
         chatRoomsRef.child(chatRoomId).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                ChatRoom chatRoom = snapshot.getValue(ChatRoom.class);
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
                 if (listener != null) {
                     listener.onSuccess(chatRoom);
                 }
@@ -531,13 +515,19 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Listen to a specific chat room for real-time updates (member count, etc.)
+     * Listen to a specific chat room for real-time updates (member count, etc.).
+     * Shares the room's listener with the chat list; it is removed when owner is destroyed
+     * (or the returned subscription is removed).
      */
-    public void listenToChatRoom(String chatRoomId, OnCompleteListener<ChatRoom> listener) {
-        chatRoomsRef.child(chatRoomId).addValueEventListener(new ValueEventListener() {
+    public FirebaseListenerRegistry.Subscription listenToChatRoom(String chatRoomId, @Nullable LifecycleOwner owner,
+                                                                  OnCompleteListener<ChatRoom> listener) {
+        ValueEventListener roomListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                ChatRoom chatRoom = snapshot.getValue(ChatRoom.class);
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
+                if (chatRoom != null) {
+                    cacheMemberIds(chatRoomId, chatRoom);
+                }
                 if (chatRoom != null && listener != null) {
                     listener.onSuccess(chatRoom);
                 }
@@ -549,7 +539,18 @@ public class FirebaseChatManager {
                     listener.onError(error.toException());
                 }
             }
-        });
+        };
+        FirebaseListenerRegistry.Subscription subscription =
+            listenerRegistry.observe(owner, chatRoomsRef.child(chatRoomId), roomListener);
+
+        // The member cache is only trusted while a subscription made here is active
+        List<FirebaseListenerRegistry.Subscription> subscriptions = memberIdsSubscriptions.get(chatRoomId);
+        if (subscriptions == null) {
+            subscriptions = new ArrayList<>();
+            memberIdsSubscriptions.put(chatRoomId, subscriptions);
+        }
+        subscriptions.add(subscription);
+        return subscription;
     }
 
     /**
@@ -592,6 +593,11 @@ public class FirebaseChatManager {
      */
     public void removeMemberFromChatRoom(String chatRoomId, String memberId,
                                          OnCompleteListener<Void> listener) {
+        Set<String> cachedMembers = memberIdsCache.get(chatRoomId);
+        if (cachedMembers != null) {
+            cachedMembers.remove(memberId);
+        }
+
         chatRoomsRef.child(chatRoomId).child("members").child(memberId)
             .removeValue()
             .addOnSuccessListener(aVoid -> {
@@ -620,9 +626,13 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Send a message to a chat room
+     * Send a message to a chat room.
+     * The message, the room's lastMessage* summary and every other member's unread increment
+     * are committed together in one atomic multi-location update.
      */
     public void sendMessage(ChatMessage message, OnCompleteListener<ChatMessage> listener) {
+        long startedAt = SystemClock.elapsedRealtime();
+
         if (message.getId() == null || message.getId().isEmpty()) {
             String id = messagesRef.child(message.getChatRoomId()).push().getKey();
             message.setId(id);
@@ -633,31 +643,65 @@ public class FirebaseChatManager {
             message.setTimestamp(System.currentTimeMillis());
         }
 
-        // Save message to /messages/{chatRoomId}/{messageId}
-        messagesRef.child(message.getChatRoomId()).child(message.getId()).setValue(message)
-            .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Message sent to chat room: " + message.getChatRoomId());
+        String chatRoomId = message.getChatRoomId();
+
+        // System messages don't count as unread, so they don't need the member list
+        if (message.isSystemMessage()) {
+            commitMessage(message, buildSendUpdates(message, null), startedAt, listener);
+            return;
+        }
 
-                // Update chat room's last message info
-                Map<String, Object> updates = new HashMap<>();
-                updates.put("lastMessage", message.getMessage());
-                updates.put("lastMessageTime", message.getTimestamp());
-                updates.put("lastMessageSenderId", message.getSenderId());
-                updates.put("lastMessageSenderName", message.getSenderName());
+        getMemberIds(chatRoomId, new OnCompleteListener<Set<String>>() {
+            @Override
+            public void onSuccess(Set<String> memberIds) {
+                commitMessage(message, buildSendUpdates(message, memberIds), startedAt, listener);
+            }
 
-                // Include sender profile URL if available
-                if (message.getSenderProfileUrl() != null) {
-                    updates.put("lastMessageSenderProfileUrl", message.getSenderProfileUrl());
+            @Override
+            public void onError(Exception e) {
+                // Sending without the increments would leave everyone's unread count behind
+                Log.e(TAG, "Error sending message", e);
+                if (listener != null) {
+                    listener.onError(e);
                 }
+            }
+        });
+    }
 
-                chatRoomsRef.child(message.getChatRoomId()).updateChildren(updates);
+    /**
+     * Root-relative paths for a message send: the message itself, the room summary and
+     * (if memberIds is given) the unread increments
+     */
+    private static Map<String, Object> buildSendUpdates(ChatMessage message, @Nullable Set<String> memberIds) {
+        String roomPath = PATH_CHAT_ROOMS + "/" + message.getChatRoomId() + "/";
 
-                // Increment unread count for all members except the sender
-                // BUT only if this is not a system message
-                if (!message.isSystemMessage()) {
-                    incrementUnreadCountForOthers(message.getChatRoomId(), message.getSenderId());
-                } else {
-                    Log.d(TAG, "System message - skipping unread count increment");
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH_MESSAGES + "/" + message.getChatRoomId() + "/" + message.getId(), message);
+        updates.put(roomPath + "lastMessage", message.getMessage());
+        updates.put(roomPath + "lastMessageTime", message.getTimestamp());
+        updates.put(roomPath + "lastMessageSenderId", message.getSenderId());
+        updates.put(roomPath + "lastMessageSenderName", message.getSenderName());
+
+        // Photos are resolved from lastMessageSenderId; clear any copy left by an older client
+        updates.put(roomPath + "lastMessageSenderProfileUrl", message.getSenderProfileUrl());
+
+        if (memberIds != null) {
+            putUnreadIncrements(updates, roomPath, memberIds, message.getSenderId());
+        }
+        return updates;
+    }
+
+    private void commitMessage(ChatMessage message, Map<String, Object> updates, long startedAt,
+                               OnCompleteListener<ChatMessage> listener) {
+        String chatRoomId = message.getChatRoomId();
+        rootRef.updateChildren(updates)
+            .addOnSuccessListener(aVoid -> {
+                long latency = SystemClock.elapsedRealtime() - startedAt;
+                LatencyRecorder recorder = getSendLatency(chatRoomId);
+                recorder.record(latency);
+                Log.d(TAG, "Message sent to chat room: " + chatRoomId + " in " + latency + "ms");
+                if (recorder.getCount() % SEND_LATENCY_LOG_INTERVAL == 0) {
+                    Log.i(TAG, "Send latency for chat room " + chatRoomId + ": " + recorder.summary());
                 }
 
                 if (listener != null) {
@@ -673,40 +717,91 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Increment unread count for all members except the specified user (sender)
+     * End-to-end send latency (send call to server commit) for a chat room, for p50/p99 tracking
+     */
+    public synchronized LatencyRecorder getSendLatency(String chatRoomId) {
+        LatencyRecorder recorder = sendLatency.get(chatRoomId);
+        if (recorder == null) {
+            recorder = new LatencyRecorder(SEND_LATENCY_WINDOW);
+            sendLatency.put(chatRoomId, recorder);
+        }
+        return recorder;
+    }
+
+    /**
+     * Add "{roomPath}members/{uid}/unreadCount" += 1 entries for every member except the sender.
+     * ServerValue.increment is applied atomically on the server, so concurrent senders never
+     * overwrite each other's increments.
+     */
+    private static void putUnreadIncrements(Map<String, Object> updates, String roomPath,
+                                            Set<String> memberIds, String senderId) {
+        for (String memberId : memberIds) {
+            if (!memberId.equals(senderId)) {
+                updates.put(roomPath + "members/" + memberId + "/unreadCount", ServerValue.increment(1));
+            }
+        }
+    }
+
+    /**
+     * Get the member ids of a chat room, from the cache kept by listenToChatRoom when possible.
+     * Once that method's subscriptions are all removed the cached set stops following joins and
+     * leaves, and an increment for a member who left would recreate members/{uid}; the room is
+     * read instead. Other observers of the same path (e.g. the joined rooms list) don't count,
+     * since they don't update the cache.
      */
-    private void incrementUnreadCountForOthers(String chatRoomId, String senderId) {
+    private void getMemberIds(String chatRoomId, OnCompleteListener<Set<String>> callback) {
+        Set<String> cached = memberIdsCache.get(chatRoomId);
+        if (cached != null && hasActiveRoomListener(chatRoomId)) {
+            callback.onSuccess(cached);
+            return;
+        }
+        memberIdsCache.remove(chatRoomId);
+
         chatRoomsRef.child(chatRoomId).child("members")
             .addListenerForSingleValueEvent(new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    Map<String, Object> updates = new HashMap<>();
-
+                    Set<String> memberIds = new HashSet<>();
                     for (DataSnapshot memberSnapshot : snapshot.getChildren()) {
-                        String memberId = memberSnapshot.getKey();
-
-                        // Skip the sender - they don't need unread count incremented
-                        if (memberId != null && !memberId.equals(senderId)) {
-                            Long currentUnreadCount = memberSnapshot.child("unreadCount").getValue(Long.class);
-                            int newUnreadCount = (currentUnreadCount != null ? currentUnreadCount.intValue() : 0) + 1;
-                            updates.put(memberId + "/unreadCount", newUnreadCount);
-                        }
-                    }
-
-                    if (!updates.isEmpty()) {
-                        chatRoomsRef.child(chatRoomId).child("members").updateChildren(updates)
-                            .addOnSuccessListener(aVoid -> Log.d(TAG, "Unread counts incremented for chat room: " + chatRoomId))
-                            .addOnFailureListener(e -> Log.e(TAG, "Failed to increment unread counts", e));
+                        memberIds.add(memberSnapshot.getKey());
                     }
+                    callback.onSuccess(memberIds);
                 }
 
                 @Override
                 public void onCancelled(@NonNull DatabaseError error) {
-                    Log.e(TAG, "Error incrementing unread counts", error.toException());
+                    Log.e(TAG, "Error loading chat room members", error.toException());
+                    callback.onError(error.toException());
                 }
             });
     }
 
+    // Prunes removed subscriptions as it goes
+    private boolean hasActiveRoomListener(String chatRoomId) {
+        List<FirebaseListenerRegistry.Subscription> subscriptions = memberIdsSubscriptions.get(chatRoomId);
+        if (subscriptions == null) return false;
+
+        Iterator<FirebaseListenerRegistry.Subscription> it = subscriptions.iterator();
+        while (it.hasNext()) {
+            if (!it.next().isActive()) {
+                it.remove();
+            }
+        }
+        if (subscriptions.isEmpty()) {
+            memberIdsSubscriptions.remove(chatRoomId);
+            return false;
+        }
+        return true;
+    }
+
+    private void cacheMemberIds(String chatRoomId, ChatRoom chatRoom) {
+        if (chatRoom.getMembers() != null) {
+            memberIdsCache.put(chatRoomId, new HashSet<>(chatRoom.getMembers().keySet()));
+        } else {
+            memberIdsCache.remove(chatRoomId);
+        }
+    }
+
     /**
      * Mark all messages as read for a specific user in a chat room
      * Resets their unread count to 0
@@ -756,23 +851,20 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Get all messages for a chat room with real-time updates
+     * Get all messages for a chat room with real-time updates until owner is destroyed
+     * (or the returned subscription is removed). Prefer openMessagePager for display.
      */
-    public void getMessagesForChatRoom(String chatRoomId, MessageListListener listener) {
-        messagesRef.child(chatRoomId).orderByChild("timestamp")
-            .addValueEventListener(new ValueEventListener() {
+    public FirebaseListenerRegistry.Subscription getMessagesForChatRoom(String chatRoomId, @Nullable LifecycleOwner owner,
+                                                                        MessageListListener listener) {
+        return listenerRegistry.observe(owner, messagesRef.child(chatRoomId).orderByChild("timestamp"), "orderBy=timestamp",
+            new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    List<ChatMessage> messages = new ArrayList<>();
-                    for (DataSnapshot child : snapshot.getChildren()) {
-                        ChatMessage message = child.getValue(ChatMessage.class);
-                        if (message != null) {
-                            messages.add(message);
-                        }
-                    }
-
-                    Log.d(TAG, "Loaded " + messages.size() + " messages for chat room: " + chatRoomId);
-                    listener.onMessagesLoaded(messages);
+                    decoder.decodeListLatest("FirebaseChatManager.getMessagesForChatRoom", this, snapshot,
+                        SnapshotMappers::toChatMessage, null, null, messages -> {
+                        Log.d(TAG, "Loaded " + messages.size() + " messages for chat room: " + chatRoomId);
+                        listener.onMessagesLoaded(messages);
+                    });
                 }
 
                 @Override
@@ -784,53 +876,18 @@ public class FirebaseChatManager {
     }
 
     /**
-     * Listen for new messages in real-time
+     * Open a paged message source for a chat room: the newest pageSize messages first,
+     * older pages via ChatMessagePager.loadOlder(), and real-time updates for newer messages
      */
-    public void listenForNewMessages(String chatRoomId, MessageChangeListener listener) {
-        // Remove previous listener if exists
-        ChildEventListener existingListener = messageListeners.get(chatRoomId);
-        if (existingListener != null) {
-            messagesRef.child(chatRoomId).removeEventListener(existingListener);
-        }
-
-        ChildEventListener messageListener = new ChildEventListener() {
-            @Override
-            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                ChatMessage message = snapshot.getValue(ChatMessage.class);
-                if (message != null) {
-                    listener.onMessageAdded(message);
-                }
-            }
-
-            @Override
-            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                ChatMessage message = snapshot.getValue(ChatMessage.class);
-                if (message != null) {
-                    listener.onMessageChanged(message);
-                }
-            }
-
-            @Override
-            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
-                ChatMessage message = snapshot.getValue(ChatMessage.class);
-                if (message != null) {
-                    listener.onMessageRemoved(message);
-                }
-            }
-
-            @Override
-            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                // Not used for messages
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                listener.onError(error.toException());
-            }
-        };
+    public ChatMessagePager openMessagePager(String chatRoomId, int pageSize, MessagePageListener listener) {
+        // Stop previous pager if exists
+        removeMessageListener(chatRoomId);
 
-        messagesRef.child(chatRoomId).orderByChild("timestamp").addChildEventListener(messageListener);
-        messageListeners.put(chatRoomId, messageListener);
+        ChatMessagePager pager = new ChatMessagePager(chatRoomId, messagesRef.child(chatRoomId), pageSize, listener,
+            ChatMessageStore.peekInstance());
+        messagePagers.put(chatRoomId, pager);
+        pager.start();
+        return pager;
     }
 
     /**
@@ -844,6 +901,10 @@ public class FirebaseChatManager {
                 messagesRef.child(chatRoomId).removeValue()
                     .addOnSuccessListener(aVoid2 -> {
                         Log.d(TAG, "Chat room and messages deleted: " + chatRoomId);
+                        ChatMessageStore store = ChatMessageStore.peekInstance();
+                        if (store != null) {
+                            store.deleteRoom(chatRoomId);
+                        }
                         if (listener != null) {
                             listener.onSuccess(null);
                         }
@@ -867,10 +928,9 @@ public class FirebaseChatManager {
      * Remove listener for a specific chat room
      */
     public void removeMessageListener(String chatRoomId) {
-        ChildEventListener listener = messageListeners.get(chatRoomId);
-        if (listener != null) {
-            messagesRef.child(chatRoomId).removeEventListener(listener);
-            messageListeners.remove(chatRoomId);
+        ChatMessagePager pager = messagePagers.remove(chatRoomId);
+        if (pager != null) {
+            pager.stop();
         }
     }
 
@@ -880,12 +940,21 @@ public class FirebaseChatManager {
     public void removeAllListeners() {
         if (chatRoomsChildListener != null) {
             chatRoomsRef.removeEventListener(chatRoomsChildListener);
+            chatRoomsChildListener = null;
         }
 
-        for (Map.Entry<String, ChildEventListener> entry : messageListeners.entrySet()) {
-            messagesRef.child(entry.getKey()).removeEventListener(entry.getValue());
+        unsubscribeFromJoinedChatRooms();
+
+        for (ChatMessagePager pager : messagePagers.values()) {
+            pager.stop();
         }
-        messageListeners.clear();
+        messagePagers.clear();
+        memberIdsCache.clear();
+        memberIdsSubscriptions.clear();
+
+        // Remove shared listeners on chat rooms and messages
+        listenerRegistry.removeAll(chatRoomsRef);
+        listenerRegistry.removeAll(messagesRef);
     }
 
     // Callback interfaces
@@ -899,6 +968,13 @@ public class FirebaseChatManager {
         void onError(Exception e);
     }
 
+    public interface JoinedChatRoomsListener {
+        // oldPosition is -1 when the room was just added
+        void onChatRoomUpdated(ChatRoom chatRoom, int oldPosition, int newPosition);
+        void onChatRoomRemoved(ChatRoom chatRoom, int oldPosition);
+        void onError(Exception e);
+    }
+
     public interface ChatRoomChangeListener {
         void onChatRoomAdded(ChatRoom chatRoom);
         void onChatRoomChanged(ChatRoom chatRoom);
@@ -917,4 +993,9 @@ public class FirebaseChatManager {
         void onMessageRemoved(ChatMessage message);
         void onError(Exception e);
     }
+
+    public interface MessagePageListener extends MessageChangeListener {
+        void onInitialPageLoaded(List<ChatMessage> messages, boolean hasOlder);
+        void onOlderPageLoaded(List<ChatMessage> messages, boolean hasOlder);
+    }
 }
@@ -0,0 +1,248 @@
+package com.example.connectmate.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FirebaseListenerRegistry - Shared, ref-counted value listeners on database paths
+ * Every screen observing the same path (an activity, its participant count, a chat room) shares
+ * one Firebase listener; the listener is attached with the first observer and removed with the
+ * last. An observer joining a live path gets the latest snapshot right away instead of waiting
+ * for a new one.
+ *
+ * Observers tied to a LifecycleOwner are removed when it is destroyed, so a screen that forgets
+ * to clean up no longer keeps a path synced for the rest of the session.
+ *
+ * Use from the main thread (where Firebase delivers its events).
+ */
+public class FirebaseListenerRegistry {
+    private static final String TAG = "FirebaseListenerReg";
+
+    private static FirebaseListenerRegistry instance;
+
+    private final Map<String, SharedListener> listeners = new LinkedHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private FirebaseListenerRegistry() {
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized FirebaseListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new FirebaseListenerRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Observe a path. Pass a LifecycleOwner to have the observer removed when it is destroyed,
+     * or null and remove the returned subscription yourself.
+     */
+    public Subscription observe(@Nullable LifecycleOwner owner, DatabaseReference ref, ValueEventListener observer) {
+        return observe(owner, ref, "", observer);
+    }
+
+    /**
+     * Observe a query on a path. queryKey must tell apart different queries on the same path
+     * (e.g. "orderBy=timestamp"); observers of the same path and queryKey share a listener.
+     */
+    public Subscription observe(@Nullable LifecycleOwner owner, Query query, String queryKey,
+                                ValueEventListener observer) {
+        Subscription subscription = new Subscription(observer);
+        if (owner != null && owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            // Too late to observe anything
+            return subscription;
+        }
+
+        String key = pathOf(query.getRef()) + (queryKey.isEmpty() ? "" : "?" + queryKey);
+        SharedListener shared = listeners.get(key);
+        boolean attach = shared == null;
+        if (attach) {
+            shared = new SharedListener(key, query);
+            listeners.put(key, shared);
+        }
+        shared.subscriptions.add(subscription);
+        subscription.shared = shared;
+
+        if (attach) {
+            query.addValueEventListener(shared);
+        } else if (shared.lastSnapshot != null) {
+            // Already synced; hand over the current value the way a fresh listener would get it
+            DataSnapshot current = shared.lastSnapshot;
+            SharedListener target = shared;
+            mainHandler.post(() -> {
+                if (subscription.shared == target) {
+                    observer.onDataChange(current);
+                }
+            });
+        }
+
+        if (owner != null) {
+            subscription.bindTo(owner);
+        }
+        return subscription;
+    }
+
+    /**
+     * Remove every observer of the given path and the paths below it
+     */
+    public void removeAll(DatabaseReference under) {
+        String prefix = pathOf(under);
+        for (SharedListener shared : new ArrayList<>(listeners.values())) {
+            if (shared.key.equals(prefix) || shared.key.startsWith(prefix + "/")
+                    || shared.key.startsWith(prefix + "?") || prefix.equals("/")) {
+                for (Subscription subscription : new ArrayList<>(shared.subscriptions)) {
+                    subscription.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of Firebase listeners currently attached through the registry
+     */
+    public int getLiveListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Number of observers sharing those listeners
+     */
+    public int getObserverCount() {
+        int count = 0;
+        for (SharedListener shared : listeners.values()) {
+            count += shared.subscriptions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Observers per live path (with its query key, if any), for diagnostics
+     */
+    public Map<String, Integer> getObserverCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (SharedListener shared : listeners.values()) {
+            counts.put(shared.key, shared.subscriptions.size());
+        }
+        return counts;
+    }
+
+    private void release(SharedListener shared) {
+        if (shared.subscriptions.isEmpty() && listeners.get(shared.key) == shared) {
+            listeners.remove(shared.key);
+            shared.query.removeEventListener(shared);
+            Log.d(TAG, "Detached " + shared.key + " (" + listeners.size() + " live)");
+        }
+    }
+
+    private static String pathOf(DatabaseReference ref) {
+        String path = ref.toString().substring(ref.getRoot().toString().length());
+        return path.isEmpty() ? "/" : path;
+    }
+
+    /**
+     * One observer of a shared path. remove() is safe to call more than once.
+     */
+    public final class Subscription {
+        private final ValueEventListener observer;
+        private SharedListener shared;
+        private LifecycleOwner owner;
+        private LifecycleEventObserver lifecycleObserver;
+
+        private Subscription(ValueEventListener observer) {
+            this.observer = observer;
+        }
+
+        public boolean isActive() {
+            return shared != null;
+        }
+
+        public void remove() {
+            unbindOwner();
+            SharedListener current = shared;
+            if (current == null) return;
+            shared = null;
+            current.subscriptions.remove(this);
+            release(current);
+        }
+
+        private void bindTo(LifecycleOwner lifecycleOwner) {
+            owner = lifecycleOwner;
+            lifecycleObserver = (source, event) -> {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    remove();
+                }
+            };
+            lifecycleOwner.getLifecycle().addObserver(lifecycleObserver);
+        }
+
+        private void unbindOwner() {
+            if (owner != null) {
+                owner.getLifecycle().removeObserver(lifecycleObserver);
+                owner = null;
+                lifecycleObserver = null;
+            }
+        }
+    }
+
+    private final class SharedListener implements ValueEventListener {
+        final String key;
+        final Query query;
+        final List<Subscription> subscriptions = new ArrayList<>();
+        DataSnapshot lastSnapshot;
+
+        SharedListener(String key, Query query) {
+            this.key = key;
+            this.query = query;
+        }
+
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            lastSnapshot = snapshot;
+            // Observers may unsubscribe (or subscribe others) from their callback
+            for (Subscription subscription : new ArrayList<>(subscriptions)) {
+                if (subscription.shared == this) {
+                    subscription.observer.onDataChange(snapshot);
+                }
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            // Firebase has already dropped the listener; detach everyone from it
+            Log.w(TAG, "Listener on " + key + " cancelled", error.toException());
+            if (listeners.get(key) == this) {
+                listeners.remove(key);
+            }
+            List<Subscription> cancelled = new ArrayList<>(subscriptions);
+            subscriptions.clear();
+            for (Subscription subscription : cancelled) {
+                subscription.unbindOwner();
+                subscription.shared = null;
+            }
+            for (Subscription subscription : cancelled) {
+                subscription.observer.onCancelled(error);
+            }
+        }
+    }
+}
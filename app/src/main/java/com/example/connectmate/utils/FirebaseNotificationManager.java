@@ -0,0 +1,248 @@
+package com.example.connectmate.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.NotificationItem;
+import com.example.connectmate.models.SnapshotMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FirebaseNotificationManager - Writes to userNotifications/{uid} that keep the unread counter in step
+ * unreadNotificationCounts/{uid} holds the number of unread notifications, so the badge listens
+ * to one number instead of the whole notification history. Every create, mark-read and delete
+ * of an unread notification goes through here as a single multi-path update that also moves the
+ * counter with ServerValue.increment, so the two can't be written separately.
+ *
+ * The inbox is read a page at a time, newest first, ordered by the indexed timestamp; unread
+ * notifications are found through the isRead index, so marking everything read downloads only
+ * those.
+ *
+ * Writes made outside the app (the server's old-notification cleanup) or two devices marking
+ * the same notification read at once can still leave the counter off; reconcileUnreadCount
+ * recounts it from the unread notifications alone. markAllRead sets the counter to 0 instead
+ * of moving it, then recounts.
+ */
+public class FirebaseNotificationManager {
+    private static final String TAG = "FirebaseNotificationMgr";
+
+    private static final String PATH_USER_NOTIFICATIONS = "userNotifications";
+    private static final String PATH_UNREAD_COUNTS = "unreadNotificationCounts";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_IS_READ = "isRead";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+
+    private static FirebaseNotificationManager instance;
+
+    private final DatabaseReference rootRef;
+
+    private FirebaseNotificationManager() {
+        rootRef = FirebaseDatabase.getInstance().getReference();
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized FirebaseNotificationManager getInstance() {
+        if (instance == null) {
+            instance = new FirebaseNotificationManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Notifications of one user
+     */
+    public DatabaseReference getNotificationsRef(String userId) {
+        return rootRef.child(PATH_USER_NOTIFICATIONS).child(userId);
+    }
+
+    /**
+     * Unread counter of one user (a number; missing until the first notification)
+     */
+    public DatabaseReference getUnreadCountRef(String userId) {
+        return rootRef.child(PATH_UNREAD_COUNTS).child(userId);
+    }
+
+    /**
+     * Store a new notification for a user. An "id" is generated if the data has none, and the
+     * unread counter is bumped unless the notification is already marked read.
+     */
+    public Task<Void> createNotification(String userId, Map<String, Object> notificationData) {
+        Object id = notificationData.get(FIELD_ID);
+        String notificationId = id instanceof String ? (String) id : getNotificationsRef(userId).push().getKey();
+        if (notificationId == null) {
+            return Tasks.forException(new IllegalStateException("Could not generate notification id"));
+        }
+        notificationData.put(FIELD_ID, notificationId);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(notificationPath(userId, notificationId), notificationData);
+        if (!Boolean.TRUE.equals(notificationData.get(FIELD_IS_READ))) {
+            updates.put(countPath(userId), ServerValue.increment(1));
+        }
+        return rootRef.updateChildren(updates);
+    }
+
+    /**
+     * Mark notifications read. Only pass ones that were unread; each lowers the counter by one.
+     */
+    public Task<Void> markRead(String userId, Collection<String> unreadNotificationIds) {
+        if (unreadNotificationIds.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        Map<String, Object> updates = readFlagUpdates(userId, unreadNotificationIds);
+        updates.put(countPath(userId), ServerValue.increment(-unreadNotificationIds.size()));
+        return rootRef.updateChildren(updates);
+    }
+
+    /**
+     * Delete a notification, lowering the counter if it was still unread
+     */
+    public Task<Void> deleteNotification(String userId, String notificationId, boolean wasUnread) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(notificationPath(userId, notificationId), null);
+        if (wasUnread) {
+            updates.put(countPath(userId), ServerValue.increment(-1));
+        }
+        return rootRef.updateChildren(updates);
+    }
+
+    /**
+     * Delete a notification read from the database, using its stored read flag
+     */
+    public Task<Void> deleteNotification(String userId, DataSnapshot notification) {
+        Boolean isRead = notification.child(FIELD_IS_READ).getValue(Boolean.class);
+        return deleteNotification(userId, notification.getKey(), !Boolean.TRUE.equals(isRead));
+    }
+
+    /**
+     * One page of the inbox, newest first. Pass null for the newest page, or the last (oldest)
+     * item already shown for the page after it. A page shorter than pageSize is the last one.
+     */
+    public void loadPage(String userId, @Nullable NotificationItem olderThan, int pageSize,
+                         OnCompleteListener<List<NotificationItem>> listener) {
+        Query query = getNotificationsRef(userId).orderByChild(FIELD_TIMESTAMP);
+        if (olderThan != null && olderThan.getId() != null) {
+            query = query.endBefore(olderThan.getTimestamp(), olderThan.getId());
+        }
+        query.limitToLast(pageSize).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                SnapshotDecoder.getInstance().<List<NotificationItem>>decode("FirebaseNotificationManager.loadPage", snapshot, s -> {
+                    List<NotificationItem> page = new ArrayList<>((int) s.getChildrenCount());
+                    for (DataSnapshot child : s.getChildren()) {
+                        // Ids fall back to the key
+                        NotificationItem item = SnapshotMappers.toNotificationItem(child);
+                        if (item != null) {
+                            page.add(item);
+                        }
+                    }
+                    // Children arrive oldest first
+                    Collections.reverse(page);
+                    return Collections.unmodifiableList(page);
+                }, listener::onSuccess);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to load notification page", error.toException());
+                listener.onError(error.toException());
+            }
+        });
+    }
+
+    /**
+     * Mark every unread notification read. Only the unread ones are downloaded (isRead index).
+     * The counter is set to 0 rather than lowered, so earlier drift is cleared too, and recounted
+     * once the update lands in case a notification arrived in between.
+     * The listener gets the number marked once the update is issued; it is applied to the local
+     * cache right away, so reads made from the listener already see them as read.
+     */
+    public void markAllRead(String userId, OnCompleteListener<Integer> listener) {
+        getNotificationsRef(userId).orderByChild(FIELD_IS_READ).equalTo(false)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    List<String> unreadIds = new ArrayList<>((int) snapshot.getChildrenCount());
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        unreadIds.add(child.getKey());
+                    }
+                    Map<String, Object> updates = readFlagUpdates(userId, unreadIds);
+                    updates.put(countPath(userId), 0);
+                    rootRef.updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> reconcileUnreadCount(userId))
+                        .addOnFailureListener(e -> Log.e(TAG, "Failed to mark notifications as read", e));
+                    listener.onSuccess(unreadIds.size());
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Failed to load unread notifications", error.toException());
+                    listener.onError(error.toException());
+                }
+            });
+    }
+
+    /**
+     * Recount the unread notifications (only those are downloaded) and store the result
+     */
+    public void reconcileUnreadCount(String userId) {
+        getNotificationsRef(userId).orderByChild(FIELD_IS_READ).equalTo(false)
+            .addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    long unread = snapshot.getChildrenCount();
+                    getUnreadCountRef(userId).setValue(unread)
+                        .addOnFailureListener(e -> Log.e(TAG, "Failed to store unread count", e));
+                    Log.d(TAG, "Reconciled unread notification count for " + userId + ": " + unread);
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Failed to recount unread notifications", error.toException());
+                }
+            });
+    }
+
+    /**
+     * Callback interface for async reads
+     */
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+        void onError(Exception e);
+    }
+
+    private static Map<String, Object> readFlagUpdates(String userId, Collection<String> notificationIds) {
+        Map<String, Object> updates = new HashMap<>();
+        for (String notificationId : notificationIds) {
+            updates.put(notificationPath(userId, notificationId) + "/" + FIELD_IS_READ, true);
+        }
+        return updates;
+    }
+
+    private static String notificationPath(String userId, String notificationId) {
+        return PATH_USER_NOTIFICATIONS + "/" + userId + "/" + notificationId;
+    }
+
+    private static String countPath(String userId) {
+        return PATH_UNREAD_COUNTS + "/" + userId;
+    }
+}
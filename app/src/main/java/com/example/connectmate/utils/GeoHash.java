@@ -0,0 +1,243 @@
+package com.example.connectmate.utils;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * GeoHash - Encodes coordinates into geohash cells for spatial indexing in Firebase
+ * Activities store a full-precision geohash so any prefix can be queried with orderByChild
+ */
+public class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    // Precision stored on each activity (~5m x 5m cell)
+    public static final int INDEX_PRECISION = 9;
+
+    // Coarsest/finest precision used when covering a query area
+    private static final int MIN_QUERY_PRECISION = 1;
+    private static final int MAX_QUERY_PRECISION = INDEX_PRECISION;
+
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+
+    /**
+     * Encode a coordinate into a geohash string of the given precision
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Encode a coordinate at the precision stored in the activity index
+     */
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, INDEX_PRECISION);
+    }
+
+    /**
+     * Center of a geohash cell as {latitude, longitude}
+     */
+    public static double[] decodeCenter(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(hash.charAt(i));
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                boolean set = (ch & mask) != 0;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) minLng = mid; else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{(minLat + maxLat) / 2, (minLng + maxLng) / 2};
+    }
+
+    /**
+     * Height of a geohash cell in degrees of latitude
+     */
+    public static double cellHeight(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * Width of a geohash cell in degrees of longitude
+     */
+    public static double cellWidth(int precision) {
+        int lngBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lngBits);
+    }
+
+    /**
+     * Get the set of geohash cells covering a bounding box.
+     * Picks the finest precision whose cover stays within maxCells, so the number of
+     * Firebase queries needed for the area is bounded.
+     * Longitudes may run past +-180 or have minLng > maxLng; either means the box crosses the
+     * antimeridian, and cells on both sides of it are returned.
+     */
+    public static Set<String> coverBounds(double minLat, double minLng, double maxLat, double maxLng, int maxCells) {
+        int precision = MIN_QUERY_PRECISION;
+        for (int p = MAX_QUERY_PRECISION; p >= MIN_QUERY_PRECISION; p--) {
+            if (countCells(minLat, minLng, maxLat, maxLng, p) <= maxCells) {
+                precision = p;
+                break;
+            }
+        }
+        return cellsAtPrecision(minLat, minLng, maxLat, maxLng, precision);
+    }
+
+    /**
+     * Get the geohash cells of a fixed precision covering a bounding box (antimeridian as in
+     * coverBounds)
+     */
+    public static Set<String> cellsAtPrecision(double minLat, double minLng, double maxLat, double maxLng, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+
+        long latStart = (long) Math.floor((clampLatitude(minLat) + 90) / height);
+        long latEnd = (long) Math.floor((clampLatitude(maxLat) + 90) / height);
+        long[] columns = columnRange(minLng, maxLng, width);
+        long columnCount = Math.round(360.0 / width);
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (long i = latStart; i <= latEnd; i++) {
+            double cellLat = -90 + (i + 0.5) * height;
+            for (long j = columns[0]; j <= columns[1]; j++) {
+                double cellLng = -180 + (Math.floorMod(j, columnCount) + 0.5) * width;
+                cells.add(encode(cellLat, cellLng, precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Get the geohash cells covering a circle around a coordinate
+     */
+    public static Set<String> coverRadius(double latitude, double longitude, double radiusMeters, int maxCells) {
+        double[] bounds = boundsForRadius(latitude, longitude, radiusMeters);
+        return coverBounds(bounds[0], bounds[1], bounds[2], bounds[3], maxCells);
+    }
+
+    /**
+     * Get the bounding box {minLat, minLng, maxLat, maxLng} of a circle around a coordinate
+     */
+    public static double[] boundsForRadius(double latitude, double longitude, double radiusMeters) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        double lngDelta = radiusMeters / (METERS_PER_DEGREE_LAT * cosLat);
+        return new double[] {
+            latitude - latDelta,
+            longitude - lngDelta,
+            latitude + latDelta,
+            longitude + lngDelta
+        };
+    }
+
+    /**
+     * Great-circle distance between two coordinates in meters (haversine)
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+            * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Check if a coordinate falls inside a bounding box (antimeridian as in coverBounds)
+     */
+    public static boolean isInBounds(double latitude, double longitude,
+                                     double minLat, double minLng, double maxLat, double maxLng) {
+        if (latitude < minLat || latitude > maxLat) return false;
+        if (maxLng - minLng >= 360) return true;
+        double lng = normalizeLongitude(longitude);
+        double west = normalizeLongitude(minLng);
+        double east = normalizeLongitude(maxLng);
+        return west <= east ? lng >= west && lng <= east : lng >= west || lng <= east;
+    }
+
+    /**
+     * Wrap a longitude into [-180, 180)
+     */
+    public static double normalizeLongitude(double longitude) {
+        if (longitude >= -180 && longitude < 180) return longitude;
+        double wrapped = ((longitude + 180) % 360 + 360) % 360 - 180;
+        return wrapped >= 180 ? -180 : wrapped;
+    }
+
+    private static long countCells(double minLat, double minLng, double maxLat, double maxLng, int precision) {
+        double height = cellHeight(precision);
+        long rows = (long) Math.floor((clampLatitude(maxLat) + 90) / height)
+            - (long) Math.floor((clampLatitude(minLat) + 90) / height) + 1;
+        long[] columns = columnRange(minLng, maxLng, cellWidth(precision));
+        return rows * (columns[1] - columns[0] + 1);
+    }
+
+    /**
+     * First and last cell column covering [minLng, maxLng] at a cell width. Columns count from
+     * -180; a range crossing the antimeridian ends past the last column and wraps (floorMod).
+     */
+    private static long[] columnRange(double minLng, double maxLng, double width) {
+        long columnCount = Math.round(360.0 / width);
+        if (maxLng - minLng >= 360) {
+            return new long[]{0, columnCount - 1};
+        }
+        double west = normalizeLongitude(minLng);
+        double east = normalizeLongitude(maxLng);
+        long start = (long) Math.floor((west + 180) / width);
+        long end = (long) Math.floor((east + 180) / width);
+        if (west > east) {
+            end += columnCount;
+        }
+        return new long[]{start, Math.min(end, start + columnCount - 1)};
+    }
+
+    private static double clampLatitude(double latitude) {
+        return Math.max(-90.0, Math.min(90.0 - 1e-9, latitude));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.connectmate.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.ChatRoom;
+import com.example.connectmate.models.SnapshotMappers;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JoinedChatRoomsSubscription - Live, sorted list of the chat rooms a user has joined
+ * Keeps one child listener on userChatRooms/{uid} and one value listener per joined room
+ * (shared through FirebaseListenerRegistry with an open chat screen on the same room).
+ * A change to a room only re-reads that room and moves it within the sorted index
+ * (newest lastMessageTime first) instead of re-fetching and re-sorting every room.
+ */
+public class JoinedChatRoomsSubscription {
+    private static final String TAG = "JoinedChatRooms";
+
+    // Newest message first; id breaks ties so positions are stable
+    private static final Comparator<ChatRoom> ORDER = (a, b) -> {
+        int byTime = Long.compare(b.getLastMessageTime(), a.getLastMessageTime());
+        if (byTime != 0) return byTime;
+        String idA = a.getId() != null ? a.getId() : "";
+        String idB = b.getId() != null ? b.getId() : "";
+        return idA.compareTo(idB);
+    };
+
+    private final String userId;
+    private final DatabaseReference userRoomsRef;
+    private final DatabaseReference chatRoomsRef;
+    private final FirebaseListenerRegistry listenerRegistry;
+    private final FirebaseChatManager.JoinedChatRoomsListener listener;
+
+    private final List<ChatRoom> sortedRooms = new ArrayList<>();
+    private final Map<String, ChatRoom> roomsById = new HashMap<>();
+    private final Map<String, FirebaseListenerRegistry.Subscription> roomListeners = new HashMap<>();
+    private ChildEventListener membershipListener;
+
+    JoinedChatRoomsSubscription(String userId, DatabaseReference userRoomsRef, DatabaseReference chatRoomsRef,
+                                FirebaseListenerRegistry listenerRegistry,
+                                FirebaseChatManager.JoinedChatRoomsListener listener) {
+        this.userId = userId;
+        this.userRoomsRef = userRoomsRef;
+        this.chatRoomsRef = chatRoomsRef;
+        this.listenerRegistry = listenerRegistry;
+        this.listener = listener;
+    }
+
+    void start() {
+        membershipListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                String chatRoomId = snapshot.getKey();
+                if (chatRoomId != null) {
+                    attachRoom(chatRoomId);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                String chatRoomId = snapshot.getKey();
+                if (chatRoomId != null) {
+                    detachRoom(chatRoomId);
+                }
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Index entries are just "true"; nothing to do
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Not used
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error listening to joined chat rooms of " + userId, error.toException());
+                listener.onError(error.toException());
+            }
+        };
+        userRoomsRef.addChildEventListener(membershipListener);
+    }
+
+    /**
+     * Detach every listener and forget the index
+     */
+    public void stop() {
+        if (membershipListener != null) {
+            userRoomsRef.removeEventListener(membershipListener);
+            membershipListener = null;
+        }
+        for (FirebaseListenerRegistry.Subscription roomListener : roomListeners.values()) {
+            roomListener.remove();
+        }
+        roomListeners.clear();
+        roomsById.clear();
+        sortedRooms.clear();
+    }
+
+    /**
+     * Current joined rooms, newest message first (read-only view)
+     */
+    public List<ChatRoom> getRooms() {
+        return Collections.unmodifiableList(sortedRooms);
+    }
+
+    public int getRoomCount() {
+        return sortedRooms.size();
+    }
+
+    private void attachRoom(String chatRoomId) {
+        if (roomListeners.containsKey(chatRoomId)) return;
+
+        ValueEventListener roomListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                ChatRoom chatRoom = SnapshotMappers.toChatRoom(snapshot);
+                if (chatRoom == null) {
+                    // Room deleted while still indexed for this user
+                    removeFromIndex(chatRoomId);
+                    return;
+                }
+                if (chatRoom.getId() == null) {
+                    chatRoom.setId(chatRoomId);
+                }
+
+                // The room carries every member's counter; pick out this user's
+                Long unread = snapshot.child("members").child(userId).child("unreadCount").getValue(Long.class);
+                chatRoom.setUnreadCount(unread != null ? unread.intValue() : 0);
+
+                upsert(chatRoom);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error listening to chat room " + chatRoomId, error.toException());
+                roomListeners.remove(chatRoomId);
+                removeFromIndex(chatRoomId);
+            }
+        };
+
+        roomListeners.put(chatRoomId, listenerRegistry.observe(null, chatRoomsRef.child(chatRoomId), roomListener));
+    }
+
+    private void detachRoom(String chatRoomId) {
+        FirebaseListenerRegistry.Subscription roomListener = roomListeners.remove(chatRoomId);
+        if (roomListener != null) {
+            roomListener.remove();
+        }
+        removeFromIndex(chatRoomId);
+    }
+
+    private void upsert(ChatRoom chatRoom) {
+        ChatRoom previous = roomsById.put(chatRoom.getId(), chatRoom);
+        int oldPosition = -1;
+        if (previous != null) {
+            oldPosition = indexOf(previous);
+            sortedRooms.remove(oldPosition);
+        }
+
+        int newPosition = insertionPoint(chatRoom);
+        sortedRooms.add(newPosition, chatRoom);
+        listener.onChatRoomUpdated(chatRoom, oldPosition, newPosition);
+    }
+
+    private void removeFromIndex(String chatRoomId) {
+        ChatRoom previous = roomsById.remove(chatRoomId);
+        if (previous == null) return;
+
+        int oldPosition = indexOf(previous);
+        sortedRooms.remove(oldPosition);
+        listener.onChatRoomRemoved(previous, oldPosition);
+    }
+
+    // Binary search for an element already in the index (ORDER is total over distinct ids)
+    private int indexOf(ChatRoom chatRoom) {
+        return Collections.binarySearch(sortedRooms, chatRoom, ORDER);
+    }
+
+    private int insertionPoint(ChatRoom chatRoom) {
+        int index = Collections.binarySearch(sortedRooms, chatRoom, ORDER);
+        return index >= 0 ? index : -(index + 1);
+    }
+}
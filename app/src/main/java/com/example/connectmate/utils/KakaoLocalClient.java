@@ -0,0 +1,580 @@
+package com.example.connectmate.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.BuildConfig;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * KakaoLocalClient - Shared client for the Kakao Local REST API (dapi.kakao.com)
+ * One pooled OkHttp client with an HTTP disk cache, plus an in-memory LRU of parsed responses.
+ * Queries are normalized (trimmed, whitespace collapsed, lowercased) and coordinates rounded to
+ * COORD_DECIMALS before the URL is built, so the URL itself is the cache key and nearby repeats
+ * of the same search hit the cache. Identical requests in flight share one call.
+ *
+ * Requests made with a supersede tag replace the previous request with the same tag: its
+ * listener is dropped and its call cancelled unless another caller is waiting on it. This is
+ * how search-as-you-type stops paying for keystrokes the user has already typed past.
+ *
+ * Reverse geocoding goes through ReverseGeocodeCache first: a lookup is answered from the
+ * device when another point in the same ~20m geohash cell was resolved before (this launch or
+ * an earlier one), and otherwise the cell center is sent, so every point in a cell shares one
+ * URL, one in-flight call and one cache entry.
+ *
+ * Listeners run on the main thread. The JsonObject handed to them may be shared with other
+ * callers and the cache, so treat it as read-only.
+ */
+public class KakaoLocalClient {
+    private static final String TAG = "KakaoLocalClient";
+
+    static final String DEFAULT_BASE_URL = "https://dapi.kakao.com/";
+    private static final String PATH_KEYWORD_SEARCH = "v2/local/search/keyword.json";
+    private static final String PATH_ADDRESS_SEARCH = "v2/local/search/address.json";
+    private static final String PATH_COORD_TO_ADDRESS = "v2/local/geo/coord2address.json";
+
+    private static final String HTTP_CACHE_DIR = "kakao_local";
+    private static final long HTTP_CACHE_BYTES = 5 * 1024 * 1024L;
+    // Places and addresses change rarely; Kakao sends no caching headers of its own
+    private static final int HTTP_CACHE_MAX_AGE_S = 24 * 60 * 60;
+    private static final int MEMORY_CACHE_ENTRIES = 100;
+    private static final long MEMORY_TTL_MS = 30 * 60 * 1000L;
+    // 4 decimal places is about 11m, well under the smallest search radius used by the app
+    private static final int COORD_DECIMALS = 4;
+    private static final long TIMEOUT_S = 10;
+    private static final int LATENCY_WINDOW = 200;
+
+    // The daily quota resets at midnight KST (no daylight saving)
+    private static final long KST_OFFSET_MS = 9 * 60 * 60 * 1000L;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private static KakaoLocalClient instance;
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl baseUrl;
+    private final String apiKey;
+    private final Executor callbackExecutor;
+    @Nullable
+    private final ReverseGeocodeCache geocodeCache;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, CachedResponse> memory =
+        new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > MEMORY_CACHE_ENTRIES;
+            }
+        };
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    private final Map<Object, Waiter> latestByTag = new HashMap<>();
+    private final LatencyRecorder latency = new LatencyRecorder(LATENCY_WINDOW);
+
+    // Metrics
+    private long requests;
+    private long memoryHits;
+    private long geocodeCacheHits;
+    private long coalesced;
+    private long superseded;
+    private long httpCacheHits;
+    private long networkCalls;
+    private long failures;
+    private long quotaDay;
+    private long networkCallsToday;
+
+    /**
+     * Callback interface for API responses
+     */
+    public interface OnCompleteListener<T> {
+        void onSuccess(T result);
+        void onError(Exception e);
+    }
+
+    /**
+     * Client against the given base URL (e.g. a MockWebServer URL in tests), delivering
+     * listeners on callbackExecutor. Without a geocode cache every reverse geocode is a request.
+     */
+    KakaoLocalClient(OkHttpClient httpClient, HttpUrl baseUrl, String apiKey, Executor callbackExecutor,
+                     @Nullable ReverseGeocodeCache geocodeCache) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.callbackExecutor = callbackExecutor;
+        this.geocodeCache = geocodeCache;
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized KakaoLocalClient getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            File cacheDir = new File(appContext.getCacheDir(), HTTP_CACHE_DIR);
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new KakaoLocalClient(
+                newHttpClient(new Cache(cacheDir, HTTP_CACHE_BYTES)),
+                HttpUrl.get(DEFAULT_BASE_URL),
+                BuildConfig.KAKAO_REST_API_KEY,
+                mainHandler::post,
+                new ReverseGeocodeCache(appContext));
+        }
+        return instance;
+    }
+
+    /**
+     * OkHttp client that stores successful responses in the given cache for HTTP_CACHE_MAX_AGE_S
+     */
+    static OkHttpClient newHttpClient(@Nullable Cache cache) {
+        return new OkHttpClient.Builder()
+            .cache(cache)
+            .connectTimeout(TIMEOUT_S, TimeUnit.SECONDS)
+            .readTimeout(TIMEOUT_S, TimeUnit.SECONDS)
+            .addNetworkInterceptor(chain -> {
+                Response response = chain.proceed(chain.request());
+                if (!response.isSuccessful()) return response;
+                return response.newBuilder()
+                    .header("Cache-Control", "max-age=" + HTTP_CACHE_MAX_AGE_S)
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .build();
+            })
+            .build();
+    }
+
+    /**
+     * Keyword search around a point
+     * @param sort "accuracy", "distance", or null for the API default
+     * @param supersedeTag Requests with the same tag replace each other (null: never superseded)
+     */
+    public void searchKeyword(String query, double latitude, double longitude, int radiusMeters,
+                              @Nullable String sort, @Nullable Object supersedeTag,
+                              OnCompleteListener<JsonObject> listener) {
+        HttpUrl.Builder url = baseUrl.newBuilder()
+            .addPathSegments(PATH_KEYWORD_SEARCH)
+            .addQueryParameter("query", normalizeQuery(query))
+            .addQueryParameter("x", roundCoordinate(longitude))
+            .addQueryParameter("y", roundCoordinate(latitude))
+            .addQueryParameter("radius", String.valueOf(radiusMeters));
+        if (sort != null) {
+            url.addQueryParameter("sort", sort);
+        }
+        execute(url.build(), supersedeTag, listener);
+    }
+
+    /**
+     * Address search (geocoding a free-form address)
+     */
+    public void searchAddress(String query, OnCompleteListener<JsonObject> listener) {
+        HttpUrl url = baseUrl.newBuilder()
+            .addPathSegments(PATH_ADDRESS_SEARCH)
+            .addQueryParameter("query", normalizeQuery(query))
+            .build();
+        execute(url, null, listener);
+    }
+
+    /**
+     * Reverse geocoding of a point to its road and lot addresses, resolved per geocode cache cell
+     */
+    public void coordToAddress(double latitude, double longitude, OnCompleteListener<JsonObject> listener) {
+        String cell = ReverseGeocodeCache.cellOf(latitude, longitude);
+        double[] center = GeoHash.decodeCenter(cell);
+        HttpUrl url = baseUrl.newBuilder()
+            .addPathSegments(PATH_COORD_TO_ADDRESS)
+            .addQueryParameter("x", roundCoordinate(center[1]))
+            .addQueryParameter("y", roundCoordinate(center[0]))
+            .build();
+
+        if (geocodeCache == null) {
+            execute(url, null, listener);
+            return;
+        }
+
+        JsonObject cached = geocodeCache.peek(cell);
+        if (cached != null) {
+            onGeocodeCacheHit(cached, listener);
+            return;
+        }
+
+        diskExecutor.execute(() -> {
+            JsonObject stored = geocodeCache.get(cell);
+            if (stored != null) {
+                onGeocodeCacheHit(stored, listener);
+                return;
+            }
+            execute(url, null, new OnCompleteListener<JsonObject>() {
+                @Override
+                public void onSuccess(JsonObject result) {
+                    // Repeated puts from coalesced callers just refresh the same row
+                    diskExecutor.execute(() -> geocodeCache.put(cell, result));
+                    listener.onSuccess(result);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    listener.onError(e);
+                }
+            });
+        });
+    }
+
+    private void onGeocodeCacheHit(JsonObject response, OnCompleteListener<JsonObject> listener) {
+        synchronized (this) {
+            requests++;
+            geocodeCacheHits++;
+        }
+        callbackExecutor.execute(() -> listener.onSuccess(response));
+    }
+
+    /**
+     * Drop the pending request with this tag, if any (e.g. when the search box is cleared)
+     */
+    public synchronized void cancel(Object supersedeTag) {
+        Waiter previous = latestByTag.remove(supersedeTag);
+        if (previous != null) {
+            detach(previous);
+        }
+    }
+
+    /**
+     * Latency of requests that went to OkHttp (network or HTTP cache), not memory hits
+     */
+    public LatencyRecorder getLatency() {
+        return latency;
+    }
+
+    /**
+     * Snapshot of the request counters since creation or the last reset
+     */
+    public synchronized Metrics getMetrics() {
+        rollQuotaDay();
+        return new Metrics(requests, memoryHits, geocodeCacheHits, coalesced, superseded,
+            httpCacheHits, networkCalls, failures, networkCallsToday);
+    }
+
+    public synchronized void resetMetrics() {
+        requests = 0;
+        memoryHits = 0;
+        geocodeCacheHits = 0;
+        coalesced = 0;
+        superseded = 0;
+        httpCacheHits = 0;
+        networkCalls = 0;
+        failures = 0;
+        latency.reset();
+    }
+
+    private void execute(HttpUrl url, @Nullable Object supersedeTag, OnCompleteListener<JsonObject> listener) {
+        String key = url.toString();
+        Waiter waiter = new Waiter(listener);
+        JsonObject cached;
+
+        synchronized (this) {
+            requests++;
+            if (supersedeTag != null) {
+                Waiter previous = latestByTag.put(supersedeTag, waiter);
+                if (previous != null) {
+                    detach(previous);
+                }
+                waiter.tag = supersedeTag;
+            }
+
+            cached = getCached(key);
+            if (cached != null) {
+                memoryHits++;
+                forget(waiter);
+            } else {
+                InFlight call = inFlight.get(key);
+                if (call != null) {
+                    coalesced++;
+                } else {
+                    call = new InFlight(key, httpClient.newCall(new Request.Builder()
+                        .url(url)
+                        .addHeader("Authorization", "KakaoAK " + apiKey)
+                        .build()));
+                    inFlight.put(key, call);
+                    call.start();
+                }
+                call.waiters.add(waiter);
+                waiter.call = call;
+                return;
+            }
+        }
+
+        JsonObject result = cached;
+        callbackExecutor.execute(() -> {
+            if (!waiter.cancelled) listener.onSuccess(result);
+        });
+    }
+
+    @Nullable
+    private JsonObject getCached(String key) {
+        CachedResponse cached = memory.get(key);
+        if (cached == null) return null;
+        if (System.currentTimeMillis() - cached.storedAt > MEMORY_TTL_MS) {
+            memory.remove(key);
+            return null;
+        }
+        return cached.body;
+    }
+
+    /**
+     * Stop delivering to a waiter, cancelling its call if nobody else is waiting on it
+     */
+    private void detach(Waiter waiter) {
+        waiter.cancelled = true;
+        superseded++;
+        InFlight call = waiter.call;
+        if (call == null) return;
+
+        call.waiters.remove(waiter);
+        if (call.waiters.isEmpty()) {
+            if (inFlight.get(call.key) == call) {
+                inFlight.remove(call.key);
+            }
+            call.call.cancel();
+        }
+    }
+
+    private void forget(Waiter waiter) {
+        if (waiter.tag != null && latestByTag.get(waiter.tag) == waiter) {
+            latestByTag.remove(waiter.tag);
+        }
+    }
+
+    private void rollQuotaDay() {
+        long today = (System.currentTimeMillis() + KST_OFFSET_MS) / DAY_MS;
+        if (today != quotaDay) {
+            quotaDay = today;
+            networkCallsToday = 0;
+        }
+    }
+
+    private void complete(InFlight call, @Nullable JsonObject body, @Nullable Exception error,
+                          boolean fromNetwork) {
+        List<Waiter> waiters;
+        synchronized (this) {
+            if (inFlight.get(call.key) == call) {
+                inFlight.remove(call.key);
+            }
+            latency.record(System.currentTimeMillis() - call.startedAt);
+            if (fromNetwork) {
+                rollQuotaDay();
+                networkCalls++;
+                networkCallsToday++;
+            } else if (body != null) {
+                httpCacheHits++;
+            }
+            if (body != null) {
+                memory.put(call.key, new CachedResponse(body));
+            } else {
+                failures++;
+            }
+
+            waiters = new ArrayList<>(call.waiters);
+            call.waiters.clear();
+            for (Waiter waiter : waiters) {
+                forget(waiter);
+            }
+        }
+
+        callbackExecutor.execute(() -> {
+            for (Waiter waiter : waiters) {
+                if (waiter.cancelled) continue;
+                if (body != null) {
+                    waiter.listener.onSuccess(body);
+                } else {
+                    waiter.listener.onError(error);
+                }
+            }
+        });
+    }
+
+    static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static String roundCoordinate(double value) {
+        return String.format(Locale.US, "%." + COORD_DECIMALS + "f", value);
+    }
+
+    private static class CachedResponse {
+        final JsonObject body;
+        final long storedAt = System.currentTimeMillis();
+
+        CachedResponse(JsonObject body) {
+            this.body = body;
+        }
+    }
+
+    private static class Waiter {
+        final OnCompleteListener<JsonObject> listener;
+        @Nullable Object tag;
+        @Nullable InFlight call;
+        volatile boolean cancelled;
+
+        Waiter(OnCompleteListener<JsonObject> listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * One OkHttp call and everyone waiting on its response
+     */
+    private class InFlight implements Callback {
+        final String key;
+        final Call call;
+        final List<Waiter> waiters = new ArrayList<>();
+        long startedAt;
+
+        InFlight(String key, Call call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        void start() {
+            startedAt = System.currentTimeMillis();
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            if (call.isCanceled()) return;
+            Log.e(TAG, "Request failed: " + call.request().url().encodedPath(), e);
+            complete(this, null, e, false);
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) {
+            boolean fromNetwork = response.networkResponse() != null;
+            try (ResponseBody body = response.body()) {
+                if (!response.isSuccessful() || body == null) {
+                    Log.e(TAG, "Response not successful: " + response.code());
+                    complete(this, null, new IOException("HTTP " + response.code()), fromNetwork);
+                    return;
+                }
+                JsonObject json = JsonParser.parseString(body.string()).getAsJsonObject();
+                complete(this, json, null, fromNetwork);
+            } catch (Exception e) {
+                if (call.isCanceled()) return;
+                Log.e(TAG, "Error reading response", e);
+                complete(this, null, e, fromNetwork);
+            }
+        }
+    }
+
+    /**
+     * Request counters. Network calls are the ones that count against the Kakao quota; memory
+     * hits, geocode cache hits, coalesced requests and HTTP cache hits did not reach the API, and superseded requests
+     * were dropped (their call cancelled) before a response was delivered.
+     */
+    public static class Metrics {
+        private final long requests;
+        private final long memoryHits;
+        private final long geocodeCacheHits;
+        private final long coalesced;
+        private final long superseded;
+        private final long httpCacheHits;
+        private final long networkCalls;
+        private final long failures;
+        private final long networkCallsToday;
+
+        Metrics(long requests, long memoryHits, long geocodeCacheHits, long coalesced, long superseded,
+                long httpCacheHits, long networkCalls, long failures, long networkCallsToday) {
+            this.requests = requests;
+            this.memoryHits = memoryHits;
+            this.geocodeCacheHits = geocodeCacheHits;
+            this.coalesced = coalesced;
+            this.superseded = superseded;
+            this.httpCacheHits = httpCacheHits;
+            this.networkCalls = networkCalls;
+            this.failures = failures;
+            this.networkCallsToday = networkCallsToday;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+
+        /**
+         * Reverse geocodes answered by ReverseGeocodeCache (same cell seen before)
+         */
+        public long getGeocodeCacheHits() {
+            return geocodeCacheHits;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getSuperseded() {
+            return superseded;
+        }
+
+        public long getHttpCacheHits() {
+            return httpCacheHits;
+        }
+
+        public long getNetworkCalls() {
+            return networkCalls;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Calls made since midnight KST, i.e. this device's share of today's quota
+         */
+        public long getNetworkCallsToday() {
+            return networkCallsToday;
+        }
+
+        /**
+         * Share of requests that did not cost a quota call
+         */
+        public double getSavedRate() {
+            return requests == 0 ? 0 : (double) (requests - networkCalls) / requests;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "requests=" + requests + " memory=" + memoryHits + " geocode=" + geocodeCacheHits
+                + " coalesced=" + coalesced
+                + " superseded=" + superseded + " httpCache=" + httpCacheHits
+                + " network=" + networkCalls + " failures=" + failures
+                + " today=" + networkCallsToday
+                + String.format(Locale.US, " saved=%.2f", getSavedRate());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.connectmate.utils;
+
+import java.util.Arrays;
+
+/**
+ * LatencyRecorder - Keeps the most recent latency samples and reports percentiles over them
+ * Thread-safe; percentiles are computed on demand from a fixed-size window.
+ */
+public class LatencyRecorder {
+
+    private final long[] window;
+    private int size;
+    private int next;
+    private long totalCount;
+    private long maxMs;
+
+    /**
+     * @param windowSize Number of most recent samples percentiles are computed over
+     */
+    public LatencyRecorder(int windowSize) {
+        this.window = new long[Math.max(1, windowSize)];
+    }
+
+    /**
+     * Record one latency sample in milliseconds
+     */
+    public synchronized void record(long latencyMs) {
+        window[next] = latencyMs;
+        next = (next + 1) % window.length;
+        if (size < window.length) {
+            size++;
+        }
+        totalCount++;
+        maxMs = Math.max(maxMs, latencyMs);
+    }
+
+    /**
+     * Latency at the given percentile (0-100) of the current window, or 0 if nothing was recorded
+     */
+    public synchronized long percentile(double percentile) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+
+    public long p50() {
+        return percentile(50);
+    }
+
+    public long p99() {
+        return percentile(99);
+    }
+
+    /**
+     * Number of samples recorded since creation (not just those in the window)
+     */
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Largest sample recorded since creation
+     */
+    public synchronized long getMax() {
+        return maxMs;
+    }
+
+    public synchronized void reset() {
+        size = 0;
+        next = 0;
+        totalCount = 0;
+        maxMs = 0;
+    }
+
+    /**
+     * Short human-readable summary, e.g. "n=120 p50=85ms p99=410ms max=900ms"
+     */
+    public String summary() {
+        return "n=" + getCount() + " p50=" + p50() + "ms p99=" + p99() + "ms max=" + getMax() + "ms";
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.connectmate.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MarkerClusterer - Grid-based marker clustering precomputed for every map zoom level
+ * Each point is assigned to one screen-space grid cell per zoom level, so adding or
+ * removing a point only touches one cluster per level instead of re-clustering everything.
+ */
+public class MarkerClusterer {
+
+    // Kakao map zoom level range
+    public static final int MIN_ZOOM = 1;
+    public static final int MAX_ZOOM = 21;
+
+    // Size of a map tile in pixels at zoom level 0 (Web Mercator)
+    private static final double TILE_SIZE = 256.0;
+
+    private final double gridSizePx;
+    private final Map<String, double[]> points = new HashMap<>(); // id -> {latitude, longitude}
+    private final List<Map<Long, Cluster>> levels = new ArrayList<>();
+
+    /**
+     * @param gridSizePx Width of a clustering grid cell on screen, in pixels
+     */
+    public MarkerClusterer(double gridSizePx) {
+        this.gridSizePx = gridSizePx;
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Add a point, replacing any previous position for the same id
+     */
+    public void add(String id, double latitude, double longitude) {
+        if (id == null) return;
+        if (points.containsKey(id)) {
+            remove(id);
+        }
+        points.put(id, new double[] {latitude, longitude});
+
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            long key = cellKey(zoom, latitude, longitude);
+            Map<Long, Cluster> level = levelFor(zoom);
+            Cluster cluster = level.get(key);
+            if (cluster == null) {
+                cluster = new Cluster(key);
+                level.put(key, cluster);
+            }
+            cluster.add(id, latitude, longitude);
+        }
+    }
+
+    /**
+     * Remove a point from every zoom level
+     */
+    public void remove(String id) {
+        double[] point = points.remove(id);
+        if (point == null) return;
+
+        for (int zoom = MIN_ZOOM; zoom <= MAX_ZOOM; zoom++) {
+            long key = cellKey(zoom, point[0], point[1]);
+            Map<Long, Cluster> level = levelFor(zoom);
+            Cluster cluster = level.get(key);
+            if (cluster != null) {
+                cluster.remove(id, point[0], point[1]);
+                if (cluster.getCount() == 0) {
+                    level.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all points
+     */
+    public void clear() {
+        points.clear();
+        for (Map<Long, Cluster> level : levels) {
+            level.clear();
+        }
+    }
+
+    public boolean contains(String id) {
+        return points.containsKey(id);
+    }
+
+    /**
+     * Get the exact {latitude, longitude} of a point, or null if it is not clustered
+     */
+    public double[] getPoint(String id) {
+        double[] point = points.get(id);
+        return point != null ? point.clone() : null;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Get all clusters at a zoom level
+     */
+    public Collection<Cluster> getClusters(int zoom) {
+        return Collections.unmodifiableCollection(levelFor(zoom).values());
+    }
+
+    /**
+     * Get the cluster stored under a cell key at a zoom level, or null if the cell is empty
+     */
+    public Cluster getCluster(int zoom, long key) {
+        return levelFor(zoom).get(key);
+    }
+
+    /**
+     * Check if every point in a cluster sits at the same coordinate
+     * (e.g. several activities at one place), in which case zooming in cannot split it
+     */
+    public boolean isSinglePosition(Cluster cluster) {
+        double[] first = null;
+        for (String id : cluster.getIds()) {
+            double[] point = points.get(id);
+            if (point == null) continue;
+            if (first == null) {
+                first = point;
+            } else if (first[0] != point[0] || first[1] != point[1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the grid cell key of a coordinate at a zoom level
+     */
+    public long cellKey(int zoom, double latitude, double longitude) {
+        double scale = TILE_SIZE * Math.pow(2, clampZoom(zoom)) / gridSizePx;
+        long x = (long) Math.floor(mercatorX(longitude) * scale);
+        long y = (long) Math.floor(mercatorY(latitude) * scale);
+        return (x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int clampZoom(int zoom) {
+        return Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+    }
+
+    private Map<Long, Cluster> levelFor(int zoom) {
+        return levels.get(clampZoom(zoom) - MIN_ZOOM);
+    }
+
+    // Normalized Web Mercator x in [0, 1)
+    private static double mercatorX(double longitude) {
+        return (longitude + 180.0) / 360.0;
+    }
+
+    // Normalized Web Mercator y in [0, 1)
+    private static double mercatorY(double latitude) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    /**
+     * Group of points sharing one grid cell at a zoom level
+     */
+    public static class Cluster {
+        private final long key;
+        private final Set<String> ids = new LinkedHashSet<>();
+        private double latitudeSum;
+        private double longitudeSum;
+
+        Cluster(long key) {
+            this.key = key;
+        }
+
+        void add(String id, double latitude, double longitude) {
+            if (ids.add(id)) {
+                latitudeSum += latitude;
+                longitudeSum += longitude;
+            }
+        }
+
+        void remove(String id, double latitude, double longitude) {
+            if (ids.remove(id)) {
+                latitudeSum -= latitude;
+                longitudeSum -= longitude;
+                if (ids.isEmpty()) {
+                    // Avoid carrying floating-point drift into the next point added here
+                    latitudeSum = 0;
+                    longitudeSum = 0;
+                }
+            }
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int getCount() {
+            return ids.size();
+        }
+
+        public Set<String> getIds() {
+            return Collections.unmodifiableSet(ids);
+        }
+
+        /**
+         * Centroid latitude of the points in this cluster
+         */
+        public double getLatitude() {
+            return ids.isEmpty() ? 0 : latitudeSum / ids.size();
+        }
+
+        /**
+         * Centroid longitude of the points in this cluster
+         */
+        public double getLongitude() {
+            return ids.isEmpty() ? 0 : longitudeSum / ids.size();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.connectmate.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+import com.example.connectmate.R;
+import com.kakao.vectormap.label.LabelManager;
+import com.kakao.vectormap.label.LabelStyle;
+import com.kakao.vectormap.label.LabelStyles;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MarkerStyleRegistry - Builds each map marker style once and reuses it for every label
+ * Styles are keyed by marker kind, activity category and cluster-count bucket, and are
+ * registered with the map's LabelManager so adding a marker never allocates a bitmap.
+ */
+public class MarkerStyleRegistry {
+
+    public enum Kind {
+        PIN,
+        CLUSTER,
+        CURRENT_LOCATION
+    }
+
+    // Cluster counts shown exactly up to the first bucket, then as "10+", "20+", ...
+    private static final int[] COUNT_BUCKETS = {10, 20, 50, 100, 500, 1000};
+
+    // Pin drawables are scaled up for better visibility
+    private static final int PIN_SCALE = 2;
+
+    private final Context context;
+    private final LabelManager labelManager;
+    private final Map<String, LabelStyles> styles = new HashMap<>();
+
+    public MarkerStyleRegistry(@NonNull Context context, @NonNull LabelManager labelManager) {
+        this.context = context.getApplicationContext();
+        this.labelManager = labelManager;
+    }
+
+    /**
+     * Style for a single activity pin, tinted with its category color
+     */
+    @NonNull
+    public LabelStyles getPinStyles(@Nullable String category) {
+        String key = Kind.PIN + ":" + (category != null ? category : "");
+        LabelStyles cached = styles.get(key);
+        if (cached == null) {
+            Bitmap bitmap = createPinBitmap(category);
+            cached = register(key, LabelStyle.from(bitmap).setAnchorPoint(0.5f, 1.0f));
+        }
+        return cached;
+    }
+
+    /**
+     * Style for a cluster marker showing the (bucketed) number of activities
+     */
+    @NonNull
+    public LabelStyles getClusterStyles(int count) {
+        int bucket = bucketFor(count);
+        String key = Kind.CLUSTER + ":" + bucket;
+        LabelStyles cached = styles.get(key);
+        if (cached == null) {
+            Bitmap bitmap = createClusterBitmap(labelFor(bucket));
+            cached = register(key, LabelStyle.from(bitmap).setAnchorPoint(0.5f, 1.0f));
+        }
+        return cached;
+    }
+
+    /**
+     * Style for the user's current location marker
+     */
+    @NonNull
+    public LabelStyles getCurrentLocationStyles() {
+        String key = Kind.CURRENT_LOCATION.toString();
+        LabelStyles cached = styles.get(key);
+        if (cached == null) {
+            Bitmap bitmap = createCurrentLocationBitmap();
+            cached = register(key, LabelStyle.from(bitmap)
+                .setAnchorPoint(0.5f, 0.5f)  // Anchor at center for circular marker
+                .setZoomLevel(0));  // Visible at all zoom levels
+        }
+        return cached;
+    }
+
+    /**
+     * Number of distinct styles built so far
+     */
+    public int size() {
+        return styles.size();
+    }
+
+    /**
+     * Forget cached styles (the LabelManager they were registered with is going away)
+     */
+    public void clear() {
+        styles.clear();
+    }
+
+    /**
+     * Map a cluster count to its bucket: exact below the first bucket, else the bucket's lower bound
+     */
+    static int bucketFor(int count) {
+        int bucket = count;
+        for (int threshold : COUNT_BUCKETS) {
+            if (count >= threshold) {
+                bucket = threshold;
+            }
+        }
+        return bucket;
+    }
+
+    private static String labelFor(int bucket) {
+        return bucket >= COUNT_BUCKETS[0] ? bucket + "+" : String.valueOf(bucket);
+    }
+
+    private LabelStyles register(String key, LabelStyle style) {
+        LabelStyles registered = labelManager.addLabelStyles(LabelStyles.from(key, style));
+        styles.put(key, registered);
+        return registered;
+    }
+
+    private Bitmap createPinBitmap(@Nullable String category) {
+        Drawable drawable = ContextCompat.getDrawable(context, R.drawable.ic_map_pin);
+        if (drawable == null) {
+            // Fallback: create a simple colored circle if drawable not found
+            int size = (int) (48 * context.getResources().getDisplayMetrics().density);
+            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            Paint paint = new Paint();
+            paint.setColor(ContextCompat.getColor(context, R.color.primary_blue));
+            paint.setAntiAlias(true);
+            canvas.drawCircle(size / 2f, size / 2f, size / 3f, paint);
+            return bitmap;
+        }
+
+        if (category != null) {
+            drawable = DrawableCompat.wrap(drawable.mutate());
+            DrawableCompat.setTint(drawable, ContextCompat.getColor(context, CategoryMapper.getCategoryColorChecked(category)));
+        }
+
+        int width = drawable.getIntrinsicWidth() * PIN_SCALE;
+        int height = drawable.getIntrinsicHeight() * PIN_SCALE;
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    private Bitmap createClusterBitmap(String text) {
+        View markerView = LayoutInflater.from(context).inflate(R.layout.custom_marker, null);
+        TextView markerText = markerView.findViewById(R.id.marker_text);
+        markerText.setText(text);
+
+        markerView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        markerView.layout(0, 0, markerView.getMeasuredWidth(), markerView.getMeasuredHeight());
+
+        Bitmap bitmap = Bitmap.createBitmap(markerView.getMeasuredWidth(), markerView.getMeasuredHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        markerView.draw(canvas);
+        return bitmap;
+    }
+
+    private Bitmap createCurrentLocationBitmap() {
+        // Create bitmap from vector drawable (Kakao Maps doesn't support vector drawables directly)
+        Drawable drawable = ContextCompat.getDrawable(context, R.drawable.ic_my_location_marker);
+        Bitmap markerBitmap;
+
+        if (drawable != null) {
+            int width = drawable.getIntrinsicWidth() > 0 ? drawable.getIntrinsicWidth() : 64;
+            int height = drawable.getIntrinsicHeight() > 0 ? drawable.getIntrinsicHeight() : 64;
+            markerBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(markerBitmap);
+            drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
+            drawable.draw(canvas);
+        } else {
+            // Fallback: create a simple blue circle
+            int size = (int) (32 * context.getResources().getDisplayMetrics().density);
+            markerBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(markerBitmap);
+            Paint paint = new Paint();
+            paint.setColor(ContextCompat.getColor(context, R.color.primary_blue));
+            paint.setAntiAlias(true);
+            canvas.drawCircle(size / 2f, size / 2f, size / 2f * 0.8f, paint);
+        }
+        return markerBitmap;
+    }
+}
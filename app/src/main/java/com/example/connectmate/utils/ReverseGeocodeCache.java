@@ -0,0 +1,188 @@
+package com.example.connectmate.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ReverseGeocodeCache - Persistent cache of coord2address responses keyed by geohash cell
+ * Every point inside a PRECISION cell (about 19m x 30m in Korea) shares one answer, so location
+ * updates and map taps a few meters apart are answered on the device instead of by the API.
+ * Entries live in SQLite across launches, expire after TTL_MS, and the least recently used are
+ * evicted beyond MAX_ENTRIES. A small in-memory LRU sits in front for repeat lookups.
+ *
+ * get/put/clear touch the database; call them off the main thread. Thread-safe.
+ */
+public class ReverseGeocodeCache {
+    private static final String TAG = "ReverseGeocodeCache";
+
+    public static final int PRECISION = 8;
+
+    private static final String DB_NAME = "reverse_geocode.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "addresses";
+    private static final String COL_CELL = "cell";
+    private static final String COL_JSON = "json";
+    private static final String COL_STORED_AT = "stored_at";
+    private static final String COL_LAST_USED = "last_used";
+
+    private static final int MAX_ENTRIES = 2000;
+    private static final int MEMORY_ENTRIES = 64;
+    private static final long TTL_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private final DbHelper dbHelper;
+    private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+    };
+
+    public ReverseGeocodeCache(Context context) {
+        dbHelper = new DbHelper(context.getApplicationContext());
+    }
+
+    /**
+     * Cell a coordinate is cached under
+     */
+    public static String cellOf(double latitude, double longitude) {
+        return GeoHash.encode(latitude, longitude, PRECISION);
+    }
+
+    /**
+     * Response for a cell from memory only, or null; safe on the main thread
+     */
+    @Nullable
+    public synchronized JsonObject peek(String cell) {
+        Entry entry = memory.get(cell);
+        if (entry == null) return null;
+        if (entry.isExpired()) {
+            memory.remove(cell);
+            return null;
+        }
+        return entry.response;
+    }
+
+    /**
+     * Response for a cell from memory or disk, or null if missing or expired
+     */
+    @Nullable
+    public JsonObject get(String cell) {
+        JsonObject cached = peek(cell);
+        if (cached != null) return cached;
+
+        long storedAt;
+        String json;
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try (Cursor cursor = db.query(TABLE, new String[]{COL_JSON, COL_STORED_AT},
+                COL_CELL + " = ?", new String[]{cell}, null, null, null)) {
+            if (!cursor.moveToFirst()) return null;
+            json = cursor.getString(0);
+            storedAt = cursor.getLong(1);
+        }
+
+        if (System.currentTimeMillis() - storedAt > TTL_MS) {
+            db.delete(TABLE, COL_CELL + " = ?", new String[]{cell});
+            return null;
+        }
+
+        JsonObject response;
+        try {
+            response = JsonParser.parseString(json).getAsJsonObject();
+        } catch (Exception e) {
+            Log.w(TAG, "Dropping unreadable entry for " + cell, e);
+            db.delete(TABLE, COL_CELL + " = ?", new String[]{cell});
+            return null;
+        }
+
+        ContentValues touch = new ContentValues();
+        touch.put(COL_LAST_USED, System.currentTimeMillis());
+        db.update(TABLE, touch, COL_CELL + " = ?", new String[]{cell});
+
+        synchronized (this) {
+            memory.put(cell, new Entry(response, storedAt));
+        }
+        return response;
+    }
+
+    public void put(String cell, JsonObject response) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            memory.put(cell, new Entry(response, now));
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(COL_CELL, cell);
+        values.put(COL_JSON, response.toString());
+        values.put(COL_STORED_AT, now);
+        values.put(COL_LAST_USED, now);
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            // Evict the least recently used beyond the bound
+            db.execSQL("DELETE FROM " + TABLE + " WHERE " + COL_CELL + " IN ("
+                + "SELECT " + COL_CELL + " FROM " + TABLE
+                + " ORDER BY " + COL_LAST_USED + " DESC LIMIT -1 OFFSET " + MAX_ENTRIES + ")");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            memory.clear();
+        }
+        dbHelper.getWritableDatabase().delete(TABLE, null, null);
+    }
+
+    private static class Entry {
+        final JsonObject response;
+        final long storedAt;
+
+        Entry(JsonObject response, long storedAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - storedAt > TTL_MS;
+        }
+    }
+
+    private static class DbHelper extends SQLiteOpenHelper {
+        DbHelper(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_CELL + " TEXT PRIMARY KEY, "
+                + COL_JSON + " TEXT NOT NULL, "
+                + COL_STORED_AT + " INTEGER NOT NULL, "
+                + COL_LAST_USED + " INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX idx_addresses_last_used ON " + TABLE + "(" + COL_LAST_USED + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // Only a cache of the API; rebuild it
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+}
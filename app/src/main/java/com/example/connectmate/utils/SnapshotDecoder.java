@@ -0,0 +1,360 @@
+package com.example.connectmate.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SnapshotDecoder - Turns DataSnapshots into model objects off the main thread
+ * Firebase delivers snapshots on the main thread, where decoding a large snapshot drops frames.
+ * Callbacks hand the snapshot (immutable, safe to read from any thread) to decode(), which maps,
+ * filters and sorts it on a small bounded pool and posts only the finished result back to the
+ * main thread. List results are unmodifiable.
+ *
+ * Decodes submitted under the same name are delivered in submission order (one runs at a time
+ * per name); different names decode in parallel. Nothing is ever decoded on the calling thread.
+ * Live listeners use decodeLatest(): while one value of a listener is decoding, only the newest
+ * snapshot after it is kept and the ones in between are dropped, so a listener firing faster than
+ * it decodes holds at most two snapshots. decode() delivers every result; use it for one-shot
+ * reads, whose backlog is bounded by the reads in flight.
+ *
+ * Decode time, submit-to-delivery time and dropped snapshots are recorded per name, logged
+ * every METRICS_LOG_INTERVAL decodes and available from getMetrics().
+ */
+public class SnapshotDecoder {
+    private static final String TAG = "SnapshotDecoder";
+
+    private static final int POOL_SIZE = 2;
+    // Decodes slower than this are logged
+    private static final long SLOW_DECODE_MS = 16;
+    private static final int METRICS_LOG_INTERVAL = 50;
+
+    private static SnapshotDecoder instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Decodes waiting behind a running one of the same lane (the name, or the listener for
+    // decodeLatest); a lane is present while one of its decodes is running
+    private final Map<Object, ArrayDeque<Runnable>> waitingByLane = new HashMap<>();
+
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+
+    private SnapshotDecoder() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-decoder-" + threadCount.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized SnapshotDecoder getInstance() {
+        if (instance == null) {
+            instance = new SnapshotDecoder();
+        }
+        return instance;
+    }
+
+    /**
+     * Decode a snapshot in the background and deliver the result on the main thread.
+     * name identifies the callback (e.g. "FirebaseActivityManager.getAllActivities").
+     */
+    public <T> void decode(String name, DataSnapshot snapshot, Decoder<T> decoder, Callback<T> callback) {
+        submit(name, name, false, snapshot, decoder, callback);
+    }
+
+    /**
+     * decode() for the values of a live listener. listener is the one delivering the snapshots
+     * (usually the ValueEventListener itself); a snapshot of it still waiting when a newer one
+     * arrives is dropped, and its callback never runs.
+     */
+    public <T> void decodeLatest(String name, Object listener, DataSnapshot snapshot, Decoder<T> decoder,
+                                 Callback<T> callback) {
+        submit(name, listener, true, snapshot, decoder, callback);
+    }
+
+    /**
+     * Decode every child of a snapshot with mapper, skipping nulls, children that fail to map
+     * and children the filter rejects, optionally sorted. The list delivered is unmodifiable.
+     */
+    public <T> void decodeList(String name, DataSnapshot snapshot, ChildMapper<T> mapper,
+                               @Nullable ChildFilter<T> filter, @Nullable Comparator<? super T> order,
+                               Callback<List<T>> callback) {
+        decode(name, snapshot, listDecoder(name, mapper, filter, order), callback);
+    }
+
+    /**
+     * Decode every child of a snapshot with mapper (e.g. one of SnapshotMappers), in snapshot order
+     */
+    public <T> void decodeList(String name, DataSnapshot snapshot, ChildMapper<T> mapper, Callback<List<T>> callback) {
+        decodeList(name, snapshot, mapper, null, null, callback);
+    }
+
+    /**
+     * decodeList() for the values of a live listener (see decodeLatest)
+     */
+    public <T> void decodeListLatest(String name, Object listener, DataSnapshot snapshot, ChildMapper<T> mapper,
+                                     @Nullable ChildFilter<T> filter, @Nullable Comparator<? super T> order,
+                                     Callback<List<T>> callback) {
+        submit(name, listener, true, snapshot, listDecoder(name, mapper, filter, order), callback);
+    }
+
+    private static <T> Decoder<List<T>> listDecoder(String name, ChildMapper<T> mapper,
+                                                    @Nullable ChildFilter<T> filter,
+                                                    @Nullable Comparator<? super T> order) {
+        return s -> {
+            List<T> items = new ArrayList<>((int) s.getChildrenCount());
+            for (DataSnapshot child : s.getChildren()) {
+                T item;
+                try {
+                    item = mapper.map(child);
+                } catch (RuntimeException e) {
+                    // One malformed child shouldn't lose the whole list
+                    Log.w(TAG, "Skipping undecodable child " + child.getKey() + " in " + name, e);
+                    continue;
+                }
+                if (item != null && (filter == null || filter.accept(item))) {
+                    items.add(item);
+                }
+            }
+            if (order != null) {
+                Collections.sort(items, order);
+            }
+            return Collections.unmodifiableList(items);
+        };
+    }
+
+    private <T> void submit(String name, Object lane, boolean latestOnly, DataSnapshot snapshot,
+                            Decoder<T> decoder, Callback<T> callback) {
+        long submittedAt = SystemClock.elapsedRealtimeNanos();
+        Runnable task = () -> {
+            try {
+                long startedAt = SystemClock.elapsedRealtimeNanos();
+                T result;
+                try {
+                    result = decoder.decode(snapshot);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Decode failed for " + name, e);
+                    result = null;
+                }
+                long decodeNanos = SystemClock.elapsedRealtimeNanos() - startedAt;
+                T decoded = result;
+                mainHandler.post(() -> {
+                    record(name, decodeNanos, SystemClock.elapsedRealtimeNanos() - submittedAt);
+                    if (decoded != null) {
+                        callback.onDecoded(decoded);
+                    }
+                });
+            } finally {
+                // Only after posting, so the next result of this lane is delivered after this one
+                finish(lane);
+            }
+        };
+
+        synchronized (this) {
+            ArrayDeque<Runnable> queue = waitingByLane.get(lane);
+            if (queue == null) {
+                waitingByLane.put(lane, new ArrayDeque<>());
+                executor.execute(task);
+                return;
+            }
+            if (latestOnly && !queue.isEmpty()) {
+                // Superseded before it started
+                queue.clear();
+                statsFor(name).dropped++;
+            }
+            // Runs after the decode of this lane ahead of it
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Start the next decode waiting in the same lane, if any
+     */
+    private void finish(Object lane) {
+        Runnable next;
+        synchronized (this) {
+            ArrayDeque<Runnable> queue = waitingByLane.get(lane);
+            next = queue != null ? queue.poll() : null;
+            if (next == null) {
+                waitingByLane.remove(lane);
+                return;
+            }
+        }
+        executor.execute(next);
+    }
+
+    /**
+     * Snapshot of the statistics of every name decoded since creation or the last reset,
+     * in the order the names were first seen
+     */
+    public synchronized List<Metrics> getMetrics() {
+        List<Metrics> metrics = new ArrayList<>(stats.size());
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            metrics.add(new Metrics(entry.getKey(), entry.getValue()));
+        }
+        return metrics;
+    }
+
+    /**
+     * Snapshot of the statistics of one name, or null if nothing was decoded under it
+     */
+    @Nullable
+    public synchronized Metrics getMetrics(String name) {
+        Stats s = stats.get(name);
+        return s != null ? new Metrics(name, s) : null;
+    }
+
+    public synchronized void resetMetrics() {
+        stats.clear();
+    }
+
+    private synchronized Stats statsFor(String name) {
+        Stats s = stats.get(name);
+        if (s == null) {
+            s = new Stats();
+            stats.put(name, s);
+        }
+        return s;
+    }
+
+    private synchronized void record(String name, long decodeNanos, long deliveryNanos) {
+        Stats s = statsFor(name);
+        s.calls++;
+        s.totalDecodeNanos += decodeNanos;
+        s.maxDecodeNanos = Math.max(s.maxDecodeNanos, decodeNanos);
+        s.totalDeliveryNanos += deliveryNanos;
+
+        long decodeMs = TimeUnit.NANOSECONDS.toMillis(decodeNanos);
+        if (decodeMs >= SLOW_DECODE_MS) {
+            Log.d(TAG, name + " decoded in " + decodeMs + "ms (off the main thread)");
+        }
+        if (s.calls % METRICS_LOG_INTERVAL == 0) {
+            Log.i(TAG, new Metrics(name, s).toString());
+        }
+    }
+
+    /**
+     * Runs on a background thread; must not touch views
+     */
+    public interface Decoder<T> {
+        @Nullable
+        T decode(DataSnapshot snapshot);
+    }
+
+    /**
+     * Maps one child snapshot; return null to skip it
+     */
+    public interface ChildMapper<T> {
+        @Nullable
+        T map(DataSnapshot child);
+    }
+
+    public interface ChildFilter<T> {
+        boolean accept(T item);
+    }
+
+    /**
+     * Runs on the main thread
+     */
+    public interface Callback<T> {
+        void onDecoded(T result);
+    }
+
+    private static class Stats {
+        long calls;
+        long dropped;
+        long totalDecodeNanos;
+        long maxDecodeNanos;
+        long totalDeliveryNanos;
+    }
+
+    /**
+     * Decode statistics of one callback name, as logged. Dropped snapshots are the ones
+     * decodeLatest() skipped because a newer value of the same listener arrived first.
+     */
+    public static class Metrics {
+        private final String name;
+        private final long calls;
+        private final long dropped;
+        private final long totalDecodeNanos;
+        private final long maxDecodeNanos;
+        private final long totalDeliveryNanos;
+
+        Metrics(String name, Stats stats) {
+            this.name = name;
+            this.calls = stats.calls;
+            this.dropped = stats.dropped;
+            this.totalDecodeNanos = stats.totalDecodeNanos;
+            this.maxDecodeNanos = stats.maxDecodeNanos;
+            this.totalDeliveryNanos = stats.totalDeliveryNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Decodes finished, including ones that failed and delivered nothing
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Average time spent decoding, in microseconds
+         */
+        public long getAverageDecodeMicros() {
+            return calls > 0 ? TimeUnit.NANOSECONDS.toMicros(totalDecodeNanos / calls) : 0;
+        }
+
+        public long getMaxDecodeMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxDecodeNanos);
+        }
+
+        /**
+         * Average time from the Firebase callback to the result reaching the main thread
+         * (queueing plus decoding), in microseconds
+         */
+        public long getAverageDeliveryMicros() {
+            return calls > 0 ? TimeUnit.NANOSECONDS.toMicros(totalDeliveryNanos / calls) : 0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name + ": n=" + calls + " dropped=" + dropped
+                + " decode avg=" + getAverageDecodeMicros() + "us max=" + getMaxDecodeMicros() + "us"
+                + " delivery avg=" + getAverageDeliveryMicros() + "us";
+        }
+    }
+}
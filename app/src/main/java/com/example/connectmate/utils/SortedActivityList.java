@@ -0,0 +1,198 @@
+package com.example.connectmate.utils;
+
+import androidx.annotation.Nullable;
+
+import com.example.connectmate.models.Activity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SortedActivityList - Filtered, sorted view of the activity list kept up to date incrementally
+ * Each activity's distance from the user is computed once when it is added, and its start time
+ * and category mask come precomputed from the model, so comparing and filtering do no parsing.
+ * A single added/changed/removed activity is moved with a binary search, a filter change is one
+ * pass over the already sorted rows, and distances are only recomputed when the user moves more
+ * than ORIGIN_MOVE_THRESHOLD_M.
+ *
+ * Order: nearest first in DISTANCE_BAND_M bands, then soonest start, then id (a total order, so
+ * binary search and sorting stay consistent). Not thread-safe; use from the main thread.
+ */
+public class SortedActivityList {
+
+    // Activities within the same band count as the same place and are ordered by date
+    private static final double DISTANCE_BAND_M = 100;
+    private static final double ORIGIN_MOVE_THRESHOLD_M = 50;
+    private static final double EARTH_RADIUS_M = 6371000;
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        if (a.distanceBand != b.distanceBand) return Long.compare(a.distanceBand, b.distanceBand);
+        if (a.startMillis != b.startMillis) return Long.compare(a.startMillis, b.startMillis);
+        return a.id.compareTo(b.id);
+    };
+
+    private final Map<String, Entry> entriesById = new HashMap<>();
+    private final List<Entry> allSorted = new ArrayList<>();
+    private final List<Entry> visible = new ArrayList<>();
+
+    private double originLat;
+    private double originLng;
+
+    // 0 = every category (CategoryMapper ordinal bits); null = no search filter
+    private int selectedCategoryMask;
+    @Nullable
+    private Set<String> searchMatches;
+
+    public SortedActivityList(double originLat, double originLng) {
+        this.originLat = originLat;
+        this.originLng = originLng;
+    }
+
+    /**
+     * Replace every activity
+     */
+    public void setAll(Collection<Activity> activities) {
+        entriesById.clear();
+        allSorted.clear();
+        for (Activity activity : activities) {
+            if (activity.getId() == null) continue;
+            Entry entry = new Entry(activity, originLat, originLng);
+            entriesById.put(entry.id, entry);
+            allSorted.add(entry);
+        }
+        Collections.sort(allSorted, ORDER);
+        refilter();
+    }
+
+    /**
+     * Add or replace one activity, moving only that row
+     */
+    public void upsert(Activity activity) {
+        if (activity.getId() == null) return;
+        remove(activity.getId());
+
+        Entry entry = new Entry(activity, originLat, originLng);
+        entriesById.put(entry.id, entry);
+        allSorted.add(insertionPoint(allSorted, entry), entry);
+        if (matches(entry)) {
+            visible.add(insertionPoint(visible, entry), entry);
+        }
+    }
+
+    public void remove(String activityId) {
+        Entry previous = entriesById.remove(activityId);
+        if (previous == null) return;
+
+        allSorted.remove(Collections.binarySearch(allSorted, previous, ORDER));
+        int visibleIndex = Collections.binarySearch(visible, previous, ORDER);
+        if (visibleIndex >= 0) {
+            visible.remove(visibleIndex);
+        }
+    }
+
+    /**
+     * Change the category and search filters; the sorted order is reused as is
+     */
+    public void setFilter(List<String> selectedCategories, @Nullable Set<String> searchMatches) {
+        this.selectedCategoryMask = CategoryMapper.maskOf(selectedCategories);
+        this.searchMatches = searchMatches;
+        refilter();
+    }
+
+    /**
+     * Move the point distances are measured from. Returns true if the order was recomputed,
+     * false if the move was below the threshold and ignored.
+     */
+    public boolean setOrigin(double lat, double lng) {
+        if (distanceMeters(originLat, originLng, lat, lng) < ORIGIN_MOVE_THRESHOLD_M) {
+            return false;
+        }
+        originLat = lat;
+        originLng = lng;
+
+        for (Entry entry : allSorted) {
+            entry.updateDistance(lat, lng);
+        }
+        Collections.sort(allSorted, ORDER);
+        refilter();
+        return true;
+    }
+
+    /**
+     * A new list of the visible activities in display order (safe to hand to a differ)
+     */
+    public List<Activity> snapshot() {
+        List<Activity> activities = new ArrayList<>(visible.size());
+        for (Entry entry : visible) {
+            activities.add(entry.activity);
+        }
+        return activities;
+    }
+
+    public int visibleCount() {
+        return visible.size();
+    }
+
+    private void refilter() {
+        visible.clear();
+        for (Entry entry : allSorted) {
+            if (matches(entry)) {
+                visible.add(entry);
+            }
+        }
+    }
+
+    private boolean matches(Entry entry) {
+        if (searchMatches != null && !searchMatches.contains(entry.id)) {
+            return false;
+        }
+        // Comma-separated categories (e.g., "운동,스터디") match if any of them is selected
+        return selectedCategoryMask == 0 || (entry.categoryMask & selectedCategoryMask) != 0;
+    }
+
+    private static int insertionPoint(List<Entry> list, Entry entry) {
+        int index = Collections.binarySearch(list, entry, ORDER);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    /**
+     * Haversine distance in meters
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_M * c;
+    }
+
+    private static final class Entry {
+        final String id;
+        final Activity activity;
+        final long startMillis;
+        final int categoryMask;
+        long distanceBand;
+
+        Entry(Activity activity, double originLat, double originLng) {
+            this.id = activity.getId();
+            this.activity = activity;
+            // Parsed once by the model and cached there
+            this.startMillis = activity.getStartTimeMillis();
+            this.categoryMask = activity.getCategoryMask();
+            updateDistance(originLat, originLng);
+        }
+
+        void updateDistance(double originLat, double originLng) {
+            double distance = distanceMeters(originLat, originLng, activity.getLatitude(), activity.getLongitude());
+            distanceBand = (long) (distance / DISTANCE_BAND_M);
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package com.example.connectmate.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * UserProfileRepository - Client-side cache of the display fields of user profiles
+ * Messages and chat rooms only need to carry a user id; the current name and photo are
+ * resolved here, so changing a profile photo is a single write to users/{uid}.
+ *
+ * Lookups go memory (LRU) -> disk -> database. Entries younger than FRESH_TTL_MS are served
+ * as-is; older ones are served immediately and refreshed in the background
+ * (stale-while-revalidate) until MAX_STALE_MS, after which they count as a miss.
+ * Concurrent requests for the same user share one load.
+ */
+public class UserProfileRepository {
+    private static final String TAG = "UserProfileRepository";
+
+    private static final String PATH_USERS = "users";
+    private static final String FIELD_DISPLAY_NAME = "displayName";
+    private static final String FIELD_PROFILE_IMAGE_URL = "profileImageUrl";
+    private static final String DISK_CACHE_DIR = "user_profiles";
+
+    private static final long FRESH_TTL_MS = 5 * 60 * 1000L;
+    private static final long MAX_STALE_MS = 7 * 24 * 60 * 60 * 1000L;
+    // Memory budget in characters; base64 profile photos make entries vary a lot in size
+    private static final int MEMORY_CACHE_CHARS = 2 * 1024 * 1024;
+
+    private static UserProfileRepository instance;
+
+    private final DatabaseReference usersRef;
+    private final LruCache<String, Entry> memory = new LruCache<String, Entry>(MEMORY_CACHE_CHARS) {
+        @Override
+        protected int sizeOf(String key, Entry entry) {
+            return entry.size();
+        }
+    };
+    private final Map<String, List<ProfileListener>> inFlight = new HashMap<>();
+    private final Set<String> fetching = new HashSet<>();
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson = new Gson();
+    private File diskDir;
+
+    // Metrics
+    private long memoryHits;
+    private long staleHits;
+    private long diskHits;
+    private long misses;
+    private long coalesced;
+    private long fetches;
+
+    private UserProfileRepository() {
+        usersRef = FirebaseDatabase.getInstance().getReference(PATH_USERS);
+    }
+
+    /**
+     * Get singleton instance (memory tier only until a context has been provided)
+     */
+    public static synchronized UserProfileRepository getInstance() {
+        if (instance == null) {
+            instance = new UserProfileRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Get singleton instance with context, enabling the disk tier
+     */
+    public static synchronized UserProfileRepository getInstance(Context context) {
+        UserProfileRepository repository = getInstance();
+        if (context != null && repository.diskDir == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), DISK_CACHE_DIR);
+            if (dir.isDirectory() || dir.mkdirs()) {
+                repository.diskDir = dir;
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * Profile from the memory tier without waiting, or null if it is not there. A stale entry is
+     * still returned and refreshed in the background.
+     */
+    @Nullable
+    public Profile peek(String userId) {
+        if (userId == null) return null;
+        Entry entry = memory.get(userId);
+        if (entry == null || entry.isExpired()) return null;
+
+        boolean stale = entry.isStale();
+        synchronized (this) {
+            if (stale) staleHits++; else memoryHits++;
+        }
+        if (stale) {
+            startFetch(userId);
+        }
+        return entry.profile;
+    }
+
+    /**
+     * Resolve a profile. Listeners are called on the main thread, immediately on a memory hit.
+     */
+    public void getProfile(String userId, ProfileListener listener) {
+        if (userId == null || userId.isEmpty()) return;
+
+        Entry entry = memory.get(userId);
+        if (entry != null && !entry.isExpired()) {
+            boolean stale = entry.isStale();
+            synchronized (this) {
+                if (stale) staleHits++; else memoryHits++;
+            }
+            listener.onProfileLoaded(entry.profile);
+            if (stale) {
+                startFetch(userId);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            List<ProfileListener> waiting = inFlight.get(userId);
+            if (waiting != null) {
+                coalesced++;
+                waiting.add(listener);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(listener);
+            inFlight.put(userId, waiting);
+        }
+
+        loadFromDisk(userId);
+    }
+
+    /**
+     * Resolve several profiles at once. Duplicate ids are looked up once; the listener gets
+     * every requested profile, in request order, after the last one resolves.
+     */
+    public void getProfiles(Collection<String> userIds, ProfilesListener listener) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null && !userId.isEmpty()) {
+                ids.add(userId);
+            }
+        }
+
+        Map<String, Profile> results = new HashMap<>();
+        if (ids.isEmpty()) {
+            listener.onProfilesLoaded(Collections.emptyMap());
+            return;
+        }
+
+        final int[] pendingLoads = {ids.size()};
+        for (String userId : ids) {
+            getProfile(userId, profile -> {
+                results.put(userId, profile);
+                if (--pendingLoads[0] == 0) {
+                    Map<String, Profile> ordered = new LinkedHashMap<>();
+                    for (String id : ids) {
+                        ordered.put(id, results.get(id));
+                    }
+                    listener.onProfilesLoaded(ordered);
+                }
+            });
+        }
+    }
+
+    /**
+     * Write-through after the signed-in user edits their own profile
+     */
+    public void update(String userId, @Nullable String displayName, @Nullable String profileImageUrl) {
+        if (userId == null) return;
+        Entry entry = new Entry(new Profile(userId, displayName, profileImageUrl), System.currentTimeMillis());
+        memory.put(userId, entry);
+        writeToDisk(entry);
+    }
+
+    /**
+     * Drop a cached profile so the next lookup reads it again
+     */
+    public void invalidate(String userId) {
+        if (userId == null) return;
+        memory.remove(userId);
+        File file = diskFile(userId);
+        if (file != null) {
+            diskExecutor.execute(() -> {
+                if (file.exists() && !file.delete()) {
+                    Log.w(TAG, "Could not delete cached profile of " + userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Snapshot of the hit/miss counters since creation or the last reset
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(memoryHits, staleHits, diskHits, misses, coalesced, fetches);
+    }
+
+    public synchronized void resetMetrics() {
+        memoryHits = 0;
+        staleHits = 0;
+        diskHits = 0;
+        misses = 0;
+        coalesced = 0;
+        fetches = 0;
+    }
+
+    private void loadFromDisk(String userId) {
+        File file = diskFile(userId);
+        if (file == null) {
+            onDiskMiss(userId);
+            return;
+        }
+
+        diskExecutor.execute(() -> {
+            Entry entry = readFromDisk(file);
+            mainHandler.post(() -> {
+                if (entry == null || entry.isExpired() || !userId.equals(entry.profile.userId)) {
+                    onDiskMiss(userId);
+                    return;
+                }
+                synchronized (this) {
+                    diskHits++;
+                }
+                memory.put(userId, entry);
+                deliver(userId, entry.profile);
+                if (entry.isStale()) {
+                    startFetch(userId);
+                }
+            });
+        });
+    }
+
+    private void onDiskMiss(String userId) {
+        synchronized (this) {
+            misses++;
+        }
+        startFetch(userId);
+    }
+
+    // Only the two display fields are read; the user node also holds reviews and friend lists
+    private void startFetch(String userId) {
+        synchronized (this) {
+            if (!fetching.add(userId)) return;
+            fetches++;
+        }
+
+        DatabaseReference userRef = usersRef.child(userId);
+        final String[] fields = new String[2];
+        final boolean[] failed = {false};
+        final int[] pendingLoads = {2};
+
+        userRef.child(FIELD_DISPLAY_NAME).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                fields[0] = snapshot.getValue(String.class);
+                if (--pendingLoads[0] == 0) onFetched(userId, fields, failed[0]);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading name of " + userId, error.toException());
+                failed[0] = true;
+                if (--pendingLoads[0] == 0) onFetched(userId, fields, failed[0]);
+            }
+        });
+
+        userRef.child(FIELD_PROFILE_IMAGE_URL).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                fields[1] = snapshot.getValue(String.class);
+                if (--pendingLoads[0] == 0) onFetched(userId, fields, failed[0]);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading photo of " + userId, error.toException());
+                failed[0] = true;
+                if (--pendingLoads[0] == 0) onFetched(userId, fields, failed[0]);
+            }
+        });
+    }
+
+    private void onFetched(String userId, String[] fields, boolean failed) {
+        synchronized (this) {
+            fetching.remove(userId);
+        }
+
+        Profile profile = new Profile(userId, fields[0], fields[1]);
+        if (failed) {
+            // Keep whatever was cached; waiting callers still get an answer
+            Entry cached = memory.get(userId);
+            deliver(userId, cached != null ? cached.profile : profile);
+            return;
+        }
+
+        Entry entry = new Entry(profile, System.currentTimeMillis());
+        memory.put(userId, entry);
+        writeToDisk(entry);
+        deliver(userId, profile);
+    }
+
+    private void deliver(String userId, Profile profile) {
+        List<ProfileListener> waiting;
+        synchronized (this) {
+            waiting = inFlight.remove(userId);
+        }
+        if (waiting != null) {
+            for (ProfileListener listener : waiting) {
+                listener.onProfileLoaded(profile);
+            }
+        }
+    }
+
+    @Nullable
+    private File diskFile(String userId) {
+        if (diskDir == null) return null;
+        return new File(diskDir, ChatMediaStore.sha256Hex(userId.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Nullable
+    private Entry readFromDisk(File file) {
+        if (!file.exists()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Entry entry = gson.fromJson(reader, Entry.class);
+            return entry != null && entry.profile != null ? entry : null;
+        } catch (Exception e) {
+            Log.w(TAG, "Discarding unreadable cached profile " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(Entry entry) {
+        File file = diskFile(entry.profile.userId);
+        if (file == null) return;
+        diskExecutor.execute(() -> {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                gson.toJson(entry, writer);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to cache profile of " + entry.profile.userId, e);
+            }
+        });
+    }
+
+    // Cached profile with the time it was read from the database
+    private static class Entry {
+        Profile profile;
+        long fetchedAt;
+
+        Entry(Profile profile, long fetchedAt) {
+            this.profile = profile;
+            this.fetchedAt = fetchedAt;
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - fetchedAt > FRESH_TTL_MS;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - fetchedAt > MAX_STALE_MS;
+        }
+
+        int size() {
+            int size = 64;
+            if (profile.displayName != null) size += profile.displayName.length();
+            if (profile.profileImageUrl != null) size += profile.profileImageUrl.length();
+            return size;
+        }
+    }
+
+    /**
+     * Display fields of one user
+     */
+    public static class Profile {
+        private final String userId;
+        private final String displayName;
+        private final String profileImageUrl;
+
+        public Profile(String userId, @Nullable String displayName, @Nullable String profileImageUrl) {
+            this.userId = userId;
+            this.displayName = displayName;
+            this.profileImageUrl = profileImageUrl;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        @Nullable
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Nullable
+        public String getProfileImageUrl() {
+            return profileImageUrl;
+        }
+    }
+
+    /**
+     * Cache counters. Stale hits were answered from cache and refreshed in the background;
+     * coalesced requests joined a load already in progress; fetches are database reads.
+     */
+    public static class Metrics {
+        private final long memoryHits;
+        private final long staleHits;
+        private final long diskHits;
+        private final long misses;
+        private final long coalesced;
+        private final long fetches;
+
+        Metrics(long memoryHits, long staleHits, long diskHits, long misses, long coalesced, long fetches) {
+            this.memoryHits = memoryHits;
+            this.staleHits = staleHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.fetches = fetches;
+        }
+
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+
+        public long getStaleHits() {
+            return staleHits;
+        }
+
+        public long getDiskHits() {
+            return diskHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getFetches() {
+            return fetches;
+        }
+
+        /**
+         * Share of lookups answered without waiting on the database
+         */
+        public double getHitRate() {
+            long hits = memoryHits + staleHits + diskHits;
+            long total = hits + misses + coalesced;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "memory=" + memoryHits + " stale=" + staleHits + " disk=" + diskHits
+                + " miss=" + misses + " coalesced=" + coalesced + " fetches=" + fetches
+                + String.format(Locale.US, " hitRate=%.2f", getHitRate());
+        }
+    }
+
+    /**
+     * Callback for profile lookups
+     */
+    public interface ProfileListener {
+        void onProfileLoaded(Profile profile);
+    }
+
+    /**
+     * Callback for batch profile lookups
+     */
+    public interface ProfilesListener {
+        void onProfilesLoaded(Map<String, Profile> profiles);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.connectmate.utils;
+
+import com.example.connectmate.models.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ActivitySearchIndex jamo, choseong and multi-word matching
+ */
+public class ActivitySearchIndexTest {
+
+    private ActivitySearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ActivitySearchIndex();
+        index.put(activity("soccer", "주말 축구 모임", "한강 공원에서 가볍게", 1000));
+        index.put(activity("study", "자바 스터디", "축구 끝나고 카페에서", 2000));
+        index.put(activity("hike", "북한산 등산", "초보 환영", 3000));
+    }
+
+    @Test
+    public void decompose_splitsSyllablesIntoJamo() {
+        assertEquals("ㅊㅜㄱㄱㅜ", ActivitySearchIndex.decompose("축구"));
+        // Compound vowels and finals are split, so each typed jamo is a prefix
+        assertEquals("ㄱㅗㅏ", ActivitySearchIndex.decompose("과"));
+        assertEquals("ㄷㅏㄹㄱ", ActivitySearchIndex.decompose("닭"));
+        assertEquals("ㄱㅗㅏ", ActivitySearchIndex.decompose("ㄱㅘ"));
+    }
+
+    @Test
+    public void decompose_lowercasesAndCollapsesSeparators() {
+        assertEquals("java ㅅㅡㅌㅓㄷㅣ 2", ActivitySearchIndex.decompose("  Java, -스터디!! 2 "));
+        assertEquals("", ActivitySearchIndex.decompose(null));
+    }
+
+    @Test
+    public void choseong_keepsInitialConsonants() {
+        assertEquals("ㅈㅁㅊㄱㅁㅇ", ActivitySearchIndex.choseong("주말 축구 모임"));
+        assertEquals("javaㅅㅌㄷ", ActivitySearchIndex.choseong("Java 스터디"));
+    }
+
+    @Test
+    public void search_matchesSyllableStillBeingComposed() {
+        assertEquals(ids("soccer", "study"), ids(index.search("축ㄱ", 10)));
+        assertEquals(ids("soccer", "study"), ids(index.search("축구", 10)));
+    }
+
+    @Test
+    public void search_matchesChoseongQuery() {
+        assertEquals(ids("soccer"), ids(index.search("ㅈㅁㅊㄱ", 10)));
+        assertTrue(index.matchingIds("ㅂㅎㅅ").contains("hike"));
+        assertTrue(index.matchingIds("ㅋㅋ").isEmpty());
+    }
+
+    @Test
+    public void search_requiresEveryWord() {
+        assertEquals(ids("study"), ids(index.search("축구 카페", 10)));
+        assertTrue(index.search("축구 등산", 10).isEmpty());
+    }
+
+    @Test
+    public void search_ranksTitleAboveDescription() {
+        List<Activity> results = index.search("축구", 10);
+        assertEquals("soccer", results.get(0).getId());
+        assertEquals("study", results.get(1).getId());
+    }
+
+    @Test
+    public void search_emptyQueryReturnsNewestFirst() {
+        assertEquals(Arrays.asList("hike", "study", "soccer"), idList(index.search(" ", 10)));
+        assertEquals(Arrays.asList("hike"), idList(index.search("", 1)));
+        assertNull(index.matchingIds(""));
+    }
+
+    @Test
+    public void remove_dropsTheActivityFromResults() {
+        index.remove("soccer");
+
+        assertEquals(2, index.size());
+        assertEquals(ids("study"), ids(index.search("축구", 10)));
+        assertTrue(index.matchingIds("ㅈㅁㅊㄱ").isEmpty());
+    }
+
+    @Test
+    public void put_replacesPreviousVersionAndReusesSlot() {
+        index.remove("study");
+        index.put(activity("soccer", "주말 농구 모임", "", 1000));
+
+        assertEquals(2, index.size());
+        assertTrue(index.matchingIds("축구").isEmpty());
+        assertEquals(ids("soccer"), ids(index.search("농구", 10)));
+    }
+
+    private static Activity activity(String id, String title, String description, long createdTimestamp) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setTitle(title);
+        activity.setDescription(description);
+        activity.setCreatedTimestamp(createdTimestamp);
+        return activity;
+    }
+
+    private static HashSet<String> ids(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    private static HashSet<String> ids(List<Activity> activities) {
+        return new HashSet<>(idList(activities));
+    }
+
+    private static List<String> idList(List<Activity> activities) {
+        List<String> ids = new ArrayList<>();
+        for (Activity activity : activities) {
+            ids.add(activity.getId());
+        }
+        return ids;
+    }
+}
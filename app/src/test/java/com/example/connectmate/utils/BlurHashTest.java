@@ -0,0 +1,93 @@
+package com.example.connectmate.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * BlurHash encode/decode round trips and malformed input
+ */
+public class BlurHashTest {
+
+    private static int[] solid(int color, int width, int height) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, color);
+        return pixels;
+    }
+
+    @Test
+    public void encode_lengthFollowsComponentCount() {
+        String hash = BlurHash.encode(solid(0xff336699, 8, 8), 8, 8, 4, 3);
+        assertEquals(4 + 2 * 4 * 3, hash.length());
+    }
+
+    @Test
+    public void solidColor_roundTripsExactlyWithOneComponent() {
+        String hash = BlurHash.encode(solid(0xff336699, 16, 16), 16, 16, 1, 1);
+        int[] decoded = BlurHash.decode(hash, 4, 4);
+
+        assertNotNull(decoded);
+        assertEquals(16, decoded.length);
+        for (int pixel : decoded) {
+            assertEquals(0xff336699, pixel);
+        }
+    }
+
+    @Test
+    public void solidColor_keepsItsAverageWithMoreComponents() {
+        // The basis samples at x rather than x + 0.5 (as the reference encoder does), so a flat
+        // image gets small AC terms; only the overall color is preserved
+        String hash = BlurHash.encode(solid(0xff336699, 16, 16), 16, 16, 4, 3);
+        int[] decoded = BlurHash.decode(hash, 32, 32);
+
+        assertNotNull(decoded);
+        long r = 0, g = 0, b = 0;
+        for (int pixel : decoded) {
+            r += (pixel >> 16) & 0xff;
+            g += (pixel >> 8) & 0xff;
+            b += pixel & 0xff;
+        }
+        assertEquals(0x33, r / decoded.length, 6);
+        assertEquals(0x66, g / decoded.length, 6);
+        assertEquals(0x99, b / decoded.length, 6);
+    }
+
+    @Test
+    public void gradient_keepsItsDirection() {
+        int width = 16;
+        int height = 4;
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = x * 255 / (width - 1);
+                pixels[y * width + x] = 0xff000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, width, height, 4, 1), width, 1);
+
+        assertNotNull(decoded);
+        assertTrue((decoded[0] & 0xff) < (decoded[width - 1] & 0xff));
+    }
+
+    @Test
+    public void decode_rejectsMalformedHashes() {
+        String hash = BlurHash.encode(solid(0xff336699, 8, 8), 8, 8, 4, 3);
+        assertNull(BlurHash.decode(null, 4, 4));
+        assertNull(BlurHash.decode("abc", 4, 4));
+        assertNull(BlurHash.decode(hash.substring(0, hash.length() - 2), 4, 4));
+        assertNull(BlurHash.decode(hash.substring(0, 5) + "\"" + hash.substring(6), 4, 4));
+        assertNull(BlurHash.decode(hash, 0, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsTooManyComponents() {
+        BlurHash.encode(solid(0xff000000, 4, 4), 4, 4, 10, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsShortPixelBuffers() {
+        BlurHash.encode(new int[3], 4, 4, 4, 3);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.connectmate.utils;
+
+import com.example.connectmate.models.ChatMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ChatMessageList sequence index under inserts and removals
+ */
+public class ChatMessageListTest {
+
+    private ChatMessageList list;
+
+    @Before
+    public void setUp() {
+        list = new ChatMessageList();
+        list.setAll(messages("c", "d", "e"));
+    }
+
+    @Test
+    public void setAll_indexesInOrder() {
+        assertEquals(3, list.size());
+        assertIndexConsistent();
+        assertEquals(0, list.indexOf("c"));
+        assertEquals(2, list.indexOf("e"));
+        assertEquals(-1, list.indexOf("x"));
+        assertEquals(-1, list.indexOf(null));
+    }
+
+    @Test
+    public void setAll_replacesPreviousMessages() {
+        list.setAll(messages("x"));
+
+        assertEquals(1, list.size());
+        assertFalse(list.contains("c"));
+        assertEquals(0, list.indexOf("x"));
+    }
+
+    @Test
+    public void prependAll_shiftsExistingPositions() {
+        assertEquals(2, list.prependAll(messages("a", "b")));
+
+        assertIds("a", "b", "c", "d", "e");
+        assertIndexConsistent();
+    }
+
+    @Test
+    public void prependAll_skipsMessagesAlreadyLoaded() {
+        assertEquals(1, list.prependAll(messages("b", "c")));
+
+        assertIds("b", "c", "d", "e");
+        assertIndexConsistent();
+    }
+
+    @Test
+    public void addOrUpdate_appendsNewMessage() {
+        list.prependAll(messages("a"));
+
+        assertTrue(list.addOrUpdate(message("f")));
+        assertIds("a", "c", "d", "e", "f");
+        assertIndexConsistent();
+    }
+
+    @Test
+    public void addOrUpdate_replacesExistingInPlace() {
+        ChatMessage edited = message("d");
+        edited.setMessage("edited");
+
+        assertFalse(list.addOrUpdate(edited));
+        assertEquals(3, list.size());
+        assertSame(edited, list.get(1));
+    }
+
+    @Test
+    public void update_returnsMinusOneWhenNotLoaded() {
+        assertEquals(-1, list.update(message("x")));
+        assertEquals(1, list.update(message("d")));
+    }
+
+    @Test
+    public void remove_middleRenumbersLaterMessages() {
+        list.prependAll(messages("a", "b"));
+
+        assertEquals(2, list.remove("c"));
+        assertIds("a", "b", "d", "e");
+        assertIndexConsistent();
+        assertFalse(list.contains("c"));
+    }
+
+    @Test
+    public void remove_headMovesEveryPositionUp() {
+        assertEquals(0, list.remove("c"));
+
+        assertIds("d", "e");
+        assertIndexConsistent();
+        assertEquals(-1, list.remove("c"));
+    }
+
+    @Test
+    public void removeOldest_dropsFromTheFront() {
+        list.prependAll(messages("a", "b"));
+        list.removeOldest(3);
+
+        assertIds("d", "e");
+        assertIndexConsistent();
+
+        list.removeOldest(10);
+        assertTrue(list.isEmpty());
+        assertTrue(list.addOrUpdate(message("f")));
+        assertEquals(0, list.indexOf("f"));
+    }
+
+    @Test
+    public void mixedOperations_keepIndexConsistent() {
+        list.prependAll(messages("a", "b"));
+        list.addOrUpdate(message("f"));
+        list.remove("d");
+        list.removeOldest(1);
+        list.prependAll(messages("z"));
+        list.remove("z");
+        list.addOrUpdate(message("g"));
+
+        assertIds("b", "c", "e", "f", "g");
+        assertIndexConsistent();
+    }
+
+    private void assertIds(String... ids) {
+        List<String> actual = new ArrayList<>();
+        for (ChatMessage message : list.snapshot()) {
+            actual.add(message.getId());
+        }
+        assertEquals(Arrays.asList(ids), actual);
+    }
+
+    private void assertIndexConsistent() {
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.indexOf(list.get(i).getId()));
+        }
+    }
+
+    private static List<ChatMessage> messages(String... ids) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (String id : ids) {
+            messages.add(message(id));
+        }
+        return messages;
+    }
+
+    private static ChatMessage message(String id) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        return message;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.connectmate.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ChatMessageStore search query to FTS MATCH expression
+ */
+public class ChatMessageStoreTest {
+
+    @Test
+    public void toMatchExpression_makesEveryWordAPrefixTerm() {
+        assertEquals("축구* 모임*", ChatMessageStore.toMatchExpression("축구 모임"));
+        assertEquals("java* 2*", ChatMessageStore.toMatchExpression("  Java \t 2 "));
+    }
+
+    @Test
+    public void toMatchExpression_koreanPrefixMatchesAttachedParticles() {
+        // "축구*" matches 축구를, 축구는, 축구하러 in the indexed text
+        assertEquals("축구*", ChatMessageStore.toMatchExpression("축구"));
+        // A syllable still being composed is kept as its own prefix
+        assertEquals("ㅊ*", ChatMessageStore.toMatchExpression("ㅊ"));
+    }
+
+    @Test
+    public void toMatchExpression_stripsQuotesAndOperators() {
+        assertEquals("축구* 모임*", ChatMessageStore.toMatchExpression("\"축구\" -모임*"));
+        assertEquals("body축구*", ChatMessageStore.toMatchExpression("body:축구"));
+        assertEquals("축구*", ChatMessageStore.toMatchExpression("(축구) ^ *"));
+    }
+
+    @Test
+    public void toMatchExpression_keywordOperatorsBecomeWords() {
+        assertEquals("축구* or* 농구*", ChatMessageStore.toMatchExpression("축구 OR 농구"));
+        assertEquals("near* not*", ChatMessageStore.toMatchExpression("NEAR NOT"));
+    }
+
+    @Test
+    public void toMatchExpression_emptyForBlankOrPunctuationOnly() {
+        assertEquals("", ChatMessageStore.toMatchExpression(null));
+        assertEquals("", ChatMessageStore.toMatchExpression("   "));
+        assertEquals("", ChatMessageStore.toMatchExpression("!! ?? *"));
+    }
+}
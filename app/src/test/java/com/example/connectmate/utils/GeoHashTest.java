@@ -0,0 +1,120 @@
+package com.example.connectmate.utils;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * GeoHash encoding, cell covers and the antimeridian
+ */
+public class GeoHashTest {
+
+    @Test
+    public void encode_matchesReferenceHash() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("wydm9", GeoHash.encode(37.5665, 126.9780, 5));
+    }
+
+    @Test
+    public void encode_defaultsToIndexPrecision() {
+        assertEquals(GeoHash.INDEX_PRECISION, GeoHash.encode(37.5665, 126.9780).length());
+    }
+
+    @Test
+    public void decodeCenter_isWithinHalfACellOfTheInput() {
+        double lat = 37.5665;
+        double lng = 126.9780;
+        for (int precision = 1; precision <= GeoHash.INDEX_PRECISION; precision++) {
+            double[] center = GeoHash.decodeCenter(GeoHash.encode(lat, lng, precision));
+            assertEquals(lat, center[0], GeoHash.cellHeight(precision) / 2);
+            assertEquals(lng, center[1], GeoHash.cellWidth(precision) / 2);
+        }
+    }
+
+    @Test
+    public void decodeCenter_reencodesToTheSameCell() {
+        String hash = GeoHash.encode(-33.8688, 151.2093, 7);
+        double[] center = GeoHash.decodeCenter(hash);
+        assertEquals(hash, GeoHash.encode(center[0], center[1], 7));
+    }
+
+    @Test
+    public void cellsAtPrecision_coversEveryCornerOfTheBox() {
+        Set<String> cells = GeoHash.cellsAtPrecision(37.55, 126.95, 37.58, 127.00, 6);
+        assertTrue(cells.contains(GeoHash.encode(37.55, 126.95, 6)));
+        assertTrue(cells.contains(GeoHash.encode(37.55, 127.00, 6)));
+        assertTrue(cells.contains(GeoHash.encode(37.58, 126.95, 6)));
+        assertTrue(cells.contains(GeoHash.encode(37.58, 127.00, 6)));
+    }
+
+    @Test
+    public void coverBounds_staysWithinMaxCells() {
+        Set<String> cells = GeoHash.coverBounds(37.4, 126.8, 37.7, 127.2, 9);
+        assertFalse(cells.isEmpty());
+        assertTrue(cells.size() <= 9);
+        // The finest precision that fits is used, so one step finer would not fit
+        int precision = cells.iterator().next().length();
+        assertTrue(GeoHash.cellsAtPrecision(37.4, 126.8, 37.7, 127.2, precision + 1).size() > 9);
+    }
+
+    @Test
+    public void cellsAtPrecision_neighbourCellsAcrossTheAntimeridian() {
+        // "x" ends at 180 and "8" starts at -180, both just north of the equator
+        Set<String> cells = GeoHash.cellsAtPrecision(0.1, 179, 0.9, -179, 1);
+        assertEquals(2, cells.size());
+        assertTrue(cells.contains("x"));
+        assertTrue(cells.contains("8"));
+    }
+
+    @Test
+    public void coverBounds_acrossTheAntimeridianIncludesBothSides() {
+        Set<String> cells = GeoHash.coverBounds(-0.5, 179.5, 0.5, -179.5, 16);
+        assertFalse(cells.isEmpty());
+        int precision = cells.iterator().next().length();
+        assertTrue(cells.contains(GeoHash.encode(0, 179.9, precision)));
+        assertTrue(cells.contains(GeoHash.encode(0, -179.9, precision)));
+        assertFalse(cells.contains(GeoHash.encode(0, 0, precision)));
+    }
+
+    @Test
+    public void coverRadius_nearTheAntimeridianWrapsEastward() {
+        // The circle's bounds run past 180; the part beyond it is at -180
+        double[] bounds = GeoHash.boundsForRadius(0, 179.99, 5000);
+        assertTrue(bounds[3] > 180);
+        Set<String> cells = GeoHash.coverRadius(0, 179.99, 5000, 16);
+        int precision = cells.iterator().next().length();
+        assertTrue(cells.contains(GeoHash.encode(0, 179.99, precision)));
+        assertTrue(cells.contains(GeoHash.encode(0, -179.99, precision)));
+    }
+
+    @Test
+    public void isInBounds_handlesBoxesAcrossTheAntimeridian() {
+        assertTrue(GeoHash.isInBounds(0, 179.9, -1, 179.5, 1, -179.5));
+        assertTrue(GeoHash.isInBounds(0, -179.9, -1, 179.5, 1, -179.5));
+        assertFalse(GeoHash.isInBounds(0, 0, -1, 179.5, 1, -179.5));
+        assertTrue(GeoHash.isInBounds(0, -179.9, -1, 179.5, 1, 180.5));
+        assertFalse(GeoHash.isInBounds(2, 179.9, -1, 179.5, 1, -179.5));
+    }
+
+    @Test
+    public void isInBounds_regularBox() {
+        assertTrue(GeoHash.isInBounds(37.56, 126.97, 37.5, 126.9, 37.6, 127.0));
+        assertFalse(GeoHash.isInBounds(37.56, 127.01, 37.5, 126.9, 37.6, 127.0));
+    }
+
+    @Test
+    public void normalizeLongitude_wrapsIntoRange() {
+        assertEquals(-179.0, GeoHash.normalizeLongitude(181), 1e-9);
+        assertEquals(179.0, GeoHash.normalizeLongitude(-181), 1e-9);
+        assertEquals(-180.0, GeoHash.normalizeLongitude(180), 1e-9);
+        assertEquals(10.0, GeoHash.normalizeLongitude(370), 1e-9);
+    }
+
+    @Test
+    public void distanceMeters_oneDegreeOfLatitude() {
+        assertEquals(111195, GeoHash.distanceMeters(0, 0, 1, 0), 10);
+        assertEquals(0, GeoHash.distanceMeters(37.5, 127, 37.5, 127), 1e-6);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.connectmate.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * KakaoLocalClient coalescing, superseding, caching and metrics against a MockWebServer
+ */
+public class KakaoLocalClientTest {
+
+    private static final String API_KEY = "test-key";
+    private static final double LAT = 37.56651, LNG = 126.97803;
+    // Long enough that a second request is issued while the first is still in flight
+    private static final long SLOW_RESPONSE_MS = 500;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OkHttpClient httpClient;
+    private KakaoLocalClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        httpClient = KakaoLocalClient.newHttpClient(new Cache(tempFolder.newFolder("http"), 1024 * 1024));
+        client = newClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void searchKeyword_normalizesQueryAndRoundsCoordinates() throws Exception {
+        server.enqueue(documents("cafe"));
+
+        Recorder recorder = new Recorder();
+        client.searchKeyword("  Cafe   Seoul ", LAT, LNG, 500, "distance", null, recorder);
+        recorder.await();
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("KakaoAK " + API_KEY, request.getHeader("Authorization"));
+        assertEquals("/v2/local/search/keyword.json", request.getRequestUrl().encodedPath());
+        assertEquals("cafe seoul", request.getRequestUrl().queryParameter("query"));
+        assertEquals("126.9780", request.getRequestUrl().queryParameter("x"));
+        assertEquals("37.5665", request.getRequestUrl().queryParameter("y"));
+        assertEquals("distance", request.getRequestUrl().queryParameter("sort"));
+        assertEquals("cafe", recorder.results.get(0).get("name").getAsString());
+    }
+
+    @Test
+    public void identicalRequestsInFlight_shareOneCall() throws Exception {
+        server.enqueue(documents("cafe").setHeadersDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS));
+
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, first);
+        // Differs only in case, spacing and the fifth decimal, so it's the same URL
+        client.searchKeyword("CAFE ", LAT + 0.00001, LNG, 500, null, null, second);
+        first.await();
+        second.await();
+
+        assertEquals(1, server.getRequestCount());
+        assertSame(first.results.get(0), second.results.get(0));
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(2, metrics.getRequests());
+        assertEquals(1, metrics.getCoalesced());
+        assertEquals(1, metrics.getNetworkCalls());
+        assertEquals(0.5, metrics.getSavedRate(), 1e-9);
+    }
+
+    @Test
+    public void repeatedRequest_isAnsweredFromMemory() throws Exception {
+        server.enqueue(documents("cafe"));
+
+        Recorder first = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, first);
+        first.await();
+        Recorder second = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, second);
+        second.await();
+
+        assertEquals(1, server.getRequestCount());
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(1, metrics.getMemoryHits());
+        assertEquals(1, metrics.getNetworkCalls());
+        assertEquals(0, metrics.getHttpCacheHits());
+    }
+
+    @Test
+    public void requestAfterMemoryIsLost_isAnsweredFromHttpCache() throws Exception {
+        server.enqueue(documents("cafe"));
+
+        Recorder first = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, first);
+        first.await();
+
+        // A new client shares the disk cache but not the parsed responses, like a relaunch
+        KakaoLocalClient relaunched = newClient();
+        Recorder second = new Recorder();
+        relaunched.searchKeyword("cafe", LAT, LNG, 500, null, null, second);
+        second.await();
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals("cafe", second.results.get(0).get("name").getAsString());
+        KakaoLocalClient.Metrics metrics = relaunched.getMetrics();
+        assertEquals(1, metrics.getHttpCacheHits());
+        assertEquals(0, metrics.getNetworkCalls());
+        assertEquals(0, metrics.getNetworkCallsToday());
+    }
+
+    @Test
+    public void newerRequestWithSameTag_supersedesThePrevious() throws Exception {
+        // Answer by query, since the cancelled call may or may not reach the server first
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                String query = request.getRequestUrl().queryParameter("query");
+                MockResponse response = documents(query);
+                return "ca".equals(query)
+                    ? response.setHeadersDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS)
+                    : response;
+            }
+        });
+
+        Object tag = new Object();
+        Recorder typedPast = new Recorder();
+        Recorder latest = new Recorder();
+        client.searchKeyword("ca", LAT, LNG, 500, null, tag, typedPast);
+        client.searchKeyword("cafe", LAT, LNG, 500, null, tag, latest);
+        latest.await();
+
+        assertEquals("cafe", latest.results.get(0).get("name").getAsString());
+        assertFalse(typedPast.awaitQuietly());
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(1, metrics.getSuperseded());
+        assertEquals(0, metrics.getFailures());
+    }
+
+    @Test
+    public void supersededCall_keepsRunningForOtherWaiters() throws Exception {
+        server.enqueue(documents("ca").setHeadersDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS));
+
+        Object tag = new Object();
+        Recorder tagged = new Recorder();
+        Recorder untagged = new Recorder();
+        client.searchKeyword("ca", LAT, LNG, 500, null, tag, tagged);
+        client.searchKeyword("ca", LAT, LNG, 500, null, null, untagged);
+        client.cancel(tag);
+        untagged.await();
+
+        assertEquals("ca", untagged.results.get(0).get("name").getAsString());
+        assertFalse(tagged.awaitQuietly());
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(1, metrics.getSuperseded());
+        assertEquals(1, metrics.getCoalesced());
+        assertEquals(1, metrics.getNetworkCalls());
+    }
+
+    @Test
+    public void cancel_dropsTheOnlyWaiterAndItsCall() throws Exception {
+        server.enqueue(documents("ca").setHeadersDelay(SLOW_RESPONSE_MS, TimeUnit.MILLISECONDS));
+
+        Object tag = new Object();
+        Recorder cancelled = new Recorder();
+        client.searchKeyword("ca", LAT, LNG, 500, null, tag, cancelled);
+        client.cancel(tag);
+        client.cancel(tag);
+
+        assertFalse(cancelled.awaitQuietly());
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(1, metrics.getSuperseded());
+        assertEquals(0, metrics.getNetworkCalls());
+        assertEquals(0, metrics.getFailures());
+    }
+
+    @Test
+    public void resetMetrics_clearsCountersButKeepsCaches() throws Exception {
+        server.enqueue(documents("cafe"));
+
+        Recorder first = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, first);
+        first.await();
+        assertEquals(1, client.getLatency().getCount());
+
+        client.resetMetrics();
+        assertEquals(0, client.getMetrics().getRequests());
+        assertEquals(0, client.getLatency().getCount());
+
+        Recorder second = new Recorder();
+        client.searchKeyword("cafe", LAT, LNG, 500, null, null, second);
+        second.await();
+        KakaoLocalClient.Metrics metrics = client.getMetrics();
+        assertEquals(1, metrics.getRequests());
+        assertEquals(1, metrics.getMemoryHits());
+        assertEquals(1.0, metrics.getSavedRate(), 1e-9);
+    }
+
+    private KakaoLocalClient newClient() {
+        // Listeners run on OkHttp's thread instead of the main thread
+        return new KakaoLocalClient(httpClient, server.url("/"), API_KEY, Runnable::run, null);
+    }
+
+    private static MockResponse documents(String name) {
+        return new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"name\":\"" + name + "\",\"documents\":[]}");
+    }
+
+    private static class Recorder implements KakaoLocalClient.OnCompleteListener<JsonObject> {
+        final List<JsonObject> results = Collections.synchronizedList(new ArrayList<>());
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public void onSuccess(JsonObject result) {
+            results.add(result);
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("no response", latch.await(5, TimeUnit.SECONDS));
+            assertTrue("unexpected errors: " + errors, errors.isEmpty());
+        }
+
+        /**
+         * Wait past the slow response; true if anything was delivered
+         */
+        boolean awaitQuietly() throws InterruptedException {
+            return latch.await(SLOW_RESPONSE_MS * 2, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.connectmate.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * MarkerClusterer grouping across zoom levels
+ */
+public class MarkerClustererTest {
+
+    // Two points about 15m apart, and one across town
+    private static final double A_LAT = 37.56650, A_LNG = 126.97800;
+    private static final double B_LAT = 37.56660, B_LNG = 126.97810;
+    private static final double FAR_LAT = 37.49790, FAR_LNG = 127.02760;
+
+    private MarkerClusterer clusterer;
+
+    @Before
+    public void setUp() {
+        clusterer = new MarkerClusterer(60);
+    }
+
+    @Test
+    public void nearbyPoints_shareAClusterWhenZoomedOut() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("b", B_LAT, B_LNG);
+
+        Collection<MarkerClusterer.Cluster> clusters = clusterer.getClusters(10);
+        assertEquals(1, clusters.size());
+        MarkerClusterer.Cluster cluster = clusters.iterator().next();
+        assertEquals(2, cluster.getCount());
+        assertEquals((A_LAT + B_LAT) / 2, cluster.getLatitude(), 1e-9);
+        assertEquals((A_LNG + B_LNG) / 2, cluster.getLongitude(), 1e-9);
+    }
+
+    @Test
+    public void nearbyPoints_splitWhenZoomedIn() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("b", B_LAT, B_LNG);
+
+        assertEquals(2, clusterer.getClusters(MarkerClusterer.MAX_ZOOM).size());
+    }
+
+    @Test
+    public void clusterCount_neverDecreasesAsZoomIncreases() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("b", B_LAT, B_LNG);
+        clusterer.add("far", FAR_LAT, FAR_LNG);
+
+        int previous = 0;
+        for (int zoom = MarkerClusterer.MIN_ZOOM; zoom <= MarkerClusterer.MAX_ZOOM; zoom++) {
+            int count = clusterer.getClusters(zoom).size();
+            assertTrue("zoom " + zoom, count >= previous);
+            previous = count;
+        }
+        assertEquals(1, clusterer.getClusters(MarkerClusterer.MIN_ZOOM).size());
+        assertEquals(3, previous);
+    }
+
+    @Test
+    public void everyPointIsInExactlyOneClusterPerZoom() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("b", B_LAT, B_LNG);
+        clusterer.add("far", FAR_LAT, FAR_LNG);
+
+        for (int zoom = MarkerClusterer.MIN_ZOOM; zoom <= MarkerClusterer.MAX_ZOOM; zoom++) {
+            int total = 0;
+            for (MarkerClusterer.Cluster cluster : clusterer.getClusters(zoom)) {
+                total += cluster.getCount();
+                assertSame(cluster, clusterer.getCluster(zoom, cluster.getKey()));
+            }
+            assertEquals(3, total);
+        }
+    }
+
+    @Test
+    public void remove_dropsEmptyClustersAtEveryZoom() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("far", FAR_LAT, FAR_LNG);
+        clusterer.remove("far");
+
+        assertFalse(clusterer.contains("far"));
+        assertEquals(1, clusterer.size());
+        for (int zoom = MarkerClusterer.MIN_ZOOM; zoom <= MarkerClusterer.MAX_ZOOM; zoom++) {
+            assertEquals(1, clusterer.getClusters(zoom).size());
+            assertEquals(A_LAT, clusterer.getClusters(zoom).iterator().next().getLatitude(), 1e-9);
+        }
+    }
+
+    @Test
+    public void add_sameIdMovesThePoint() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("a", FAR_LAT, FAR_LNG);
+
+        assertEquals(1, clusterer.size());
+        assertArrayEquals(new double[]{FAR_LAT, FAR_LNG}, clusterer.getPoint("a"), 0);
+        long oldKey = clusterer.cellKey(MarkerClusterer.MAX_ZOOM, A_LAT, A_LNG);
+        assertNull(clusterer.getCluster(MarkerClusterer.MAX_ZOOM, oldKey));
+    }
+
+    @Test
+    public void isSinglePosition_onlyForPointsAtOneCoordinate() {
+        clusterer.add("a", A_LAT, A_LNG);
+        clusterer.add("a2", A_LAT, A_LNG);
+        MarkerClusterer.Cluster same = clusterer.getClusters(MarkerClusterer.MAX_ZOOM).iterator().next();
+        assertTrue(clusterer.isSinglePosition(same));
+
+        clusterer.add("b", B_LAT, B_LNG);
+        MarkerClusterer.Cluster mixed = clusterer.getClusters(10).iterator().next();
+        assertFalse(clusterer.isSinglePosition(mixed));
+    }
+
+    @Test
+    public void zoomOutsideTheRange_isClamped() {
+        clusterer.add("a", A_LAT, A_LNG);
+        assertEquals(clusterer.cellKey(MarkerClusterer.MAX_ZOOM, A_LAT, A_LNG),
+            clusterer.cellKey(MarkerClusterer.MAX_ZOOM + 5, A_LAT, A_LNG));
+        assertEquals(1, clusterer.getClusters(0).size());
+    }
+}
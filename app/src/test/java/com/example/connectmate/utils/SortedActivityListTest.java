@@ -0,0 +1,118 @@
+package com.example.connectmate.utils;
+
+import com.example.connectmate.models.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SortedActivityList ordering, origin moves and filtering
+ */
+public class SortedActivityListTest {
+
+    private static final double ORIGIN_LAT = 37.5665, ORIGIN_LNG = 126.9780;
+    // About 33m and 1.1km north of the origin
+    private static final double NEAR_LAT = ORIGIN_LAT + 0.0003;
+    private static final double FAR_LAT = ORIGIN_LAT + 0.01;
+
+    private SortedActivityList list;
+
+    @Before
+    public void setUp() {
+        list = new SortedActivityList(ORIGIN_LAT, ORIGIN_LNG);
+        list.setAll(Arrays.asList(
+            activity("b", ORIGIN_LAT, "2024-12-25", "14:00", CategoryMapper.CATEGORY_SPORTS),
+            activity("far", FAR_LAT, "2024-01-01", "09:00", CategoryMapper.CATEGORY_STUDY),
+            activity("undated", ORIGIN_LAT, null, null, CategoryMapper.CATEGORY_FOOD),
+            activity("a", ORIGIN_LAT, "2024-12-25", "14:00", CategoryMapper.CATEGORY_STUDY),
+            activity("sooner", NEAR_LAT, "2024-12-24", "10:00",
+                CategoryMapper.CATEGORY_SPORTS + "," + CategoryMapper.CATEGORY_FOOD)));
+    }
+
+    @Test
+    public void order_bandThenStartThenId() {
+        // Same band: sooner start first, equal starts by id, undated last; the far band after
+        assertEquals(Arrays.asList("sooner", "a", "b", "undated", "far"), ids());
+    }
+
+    @Test
+    public void upsert_movesOnlyTheChangedRow() {
+        list.upsert(activity("b", ORIGIN_LAT, "2024-12-23", "08:00", CategoryMapper.CATEGORY_SPORTS));
+        assertEquals(Arrays.asList("b", "sooner", "a", "undated", "far"), ids());
+
+        list.upsert(activity("c", ORIGIN_LAT, "2024-12-25", "14:00", CategoryMapper.CATEGORY_SPORTS));
+        assertEquals(Arrays.asList("b", "sooner", "a", "c", "undated", "far"), ids());
+    }
+
+    @Test
+    public void remove_dropsFromAllAndVisible() {
+        list.remove("a");
+        list.remove("missing");
+
+        assertEquals(Arrays.asList("sooner", "b", "undated", "far"), ids());
+    }
+
+    @Test
+    public void setOrigin_smallMoveIsIgnored() {
+        assertFalse(list.setOrigin(NEAR_LAT, ORIGIN_LNG));
+        assertEquals(Arrays.asList("sooner", "a", "b", "undated", "far"), ids());
+    }
+
+    @Test
+    public void setOrigin_largeMoveReorders() {
+        assertTrue(list.setOrigin(FAR_LAT, ORIGIN_LNG));
+        assertEquals("far", ids().get(0));
+        assertEquals(Arrays.asList("far", "sooner", "a", "b", "undated"), ids());
+    }
+
+    @Test
+    public void setFilter_keepsSortedOrder() {
+        list.setFilter(Collections.singletonList(CategoryMapper.CATEGORY_SPORTS), null);
+        assertEquals(Arrays.asList("sooner", "b"), ids());
+
+        list.setFilter(Arrays.asList(CategoryMapper.CATEGORY_FOOD, CategoryMapper.CATEGORY_STUDY), null);
+        assertEquals(Arrays.asList("sooner", "a", "undated", "far"), ids());
+    }
+
+    @Test
+    public void setFilter_searchMatchesCombineWithCategories() {
+        list.setFilter(Collections.singletonList(CategoryMapper.CATEGORY_STUDY),
+            new HashSet<>(Arrays.asList("a", "b")));
+        assertEquals(Collections.singletonList("a"), ids());
+
+        // Rows added while filtered only show if they match
+        list.upsert(activity("c", ORIGIN_LAT, "2024-12-26", "14:00", CategoryMapper.CATEGORY_STUDY));
+        assertEquals(Collections.singletonList("a"), ids());
+        assertEquals(1, list.visibleCount());
+
+        list.setFilter(Collections.emptyList(), null);
+        assertEquals(6, list.visibleCount());
+    }
+
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Activity activity : list.snapshot()) {
+            ids.add(activity.getId());
+        }
+        return ids;
+    }
+
+    private static Activity activity(String id, double latitude, String date, String time, String category) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setLatitude(latitude);
+        activity.setLongitude(ORIGIN_LNG);
+        activity.setDate(date);
+        activity.setTime(time);
+        activity.setCategory(category);
+        return activity;
+    }
+}